@@ -100,6 +100,9 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 * <li>tcpclient: At startup the agent connects to the TCP port specified by
 	 * the {@link #address} and {@link #port}. Execution data is written to this
 	 * TCP connection.</li>
+	 * <li>mmap: Execution data is kept in a memory mapped file at the location
+	 * of the execution data file which is updated every second and can be read
+	 * by other processes while the VM is running.</li>
 	 * <li>none: Do not produce any output.</li>
 	 * </ul>
 	 */
@@ -133,6 +136,48 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 */
 	@Parameter(property = "jacoco.jmx")
 	Boolean jmx;
+	/**
+	 * If set to true the agent counts how often each probe is executed.
+	 */
+	@Parameter(property = "jacoco.hitcounts")
+	Boolean hitcounts;
+	/**
+	 * Interval in seconds in which execution data is dumped periodically to
+	 * separate files next to the execution data file. Every periodic dump
+	 * contains all execution data collected so far. 0 disables periodic dumps.
+	 */
+	@Parameter(property = "jacoco.dumpInterval")
+	Integer dumpInterval;
+	/**
+	 * Specifies when a new file is started for periodic dumps. Valid options
+	 * are:
+	 * <ul>
+	 * <li>dump: Every periodic dump is written to a new file.</li>
+	 * <li>hourly: A new file is started every hour.</li>
+	 * <li>daily: A new file is started every day.</li>
+	 * </ul>
+	 */
+	@Parameter(property = "jacoco.dumpRotation")
+	String dumpRotation;
+	/**
+	 * Maximum number of files with periodic dumps which are kept. Older files
+	 * are deleted. 0 keeps all files.
+	 */
+	@Parameter(property = "jacoco.dumpRetention")
+	Integer dumpRetention;
+	/**
+	 * If a directory is specified for this parameter the JaCoCo agent caches
+	 * instrumented class files in this location and reuses them in subsequent
+	 * runs. The cache can be shared by multiple VMs.
+	 */
+	@Parameter(property = "jacoco.cacheDir")
+	File cacheDir;
+	/**
+	 * Maximum size of the class file cache in megabytes. If the cache grows
+	 * beyond this size the least recently used entries are deleted.
+	 */
+	@Parameter(property = "jacoco.cacheSize")
+	Integer cacheSize;
 
 	@Override
 	public void executeMojo() {
@@ -210,6 +255,24 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 		if (jmx != null) {
 			agentOptions.setJmx(jmx.booleanValue());
 		}
+		if (hitcounts != null) {
+			agentOptions.setHitCounts(hitcounts.booleanValue());
+		}
+		if (dumpInterval != null) {
+			agentOptions.setDumpInterval(dumpInterval.intValue());
+		}
+		if (dumpRotation != null) {
+			agentOptions.setDumpRotation(dumpRotation);
+		}
+		if (dumpRetention != null) {
+			agentOptions.setDumpRetention(dumpRetention.intValue());
+		}
+		if (cacheDir != null) {
+			agentOptions.setCacheDir(cacheDir.getAbsolutePath());
+		}
+		if (cacheSize != null) {
+			agentOptions.setCacheSize(cacheSize.intValue());
+		}
 		return agentOptions;
 	}
 
@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.jacoco.maven;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Locale;
@@ -73,6 +74,14 @@ public abstract class AbstractReportMojo extends AbstractMavenReport {
 	@Parameter
 	List<String> excludes;
 
+	/**
+	 * Optional directory to cache the structure of analyzed classes between
+	 * builds. Classes found in the cache are not analyzed again. The directory
+	 * can be shared by concurrent builds.
+	 */
+	@Parameter(property = "jacoco.analysisCache")
+	File analysisCache;
+
 	/**
 	 * Flag used to suppress execution.
 	 */
@@ -174,6 +183,7 @@ public abstract class AbstractReportMojo extends AbstractMavenReport {
 			throws MavenReportException {
 		try {
 			final ReportSupport support = new ReportSupport(getLog());
+			support.setAnalysisCache(analysisCache);
 			loadExecutionData(support);
 			addFormatters(support, locale);
 			final IReportVisitor visitor = support.initRootVisitor();
@@ -88,6 +88,15 @@ public class DumpMojo extends AbstractJacocoMojo {
 	@Parameter(property = "jacoco.retryCount", defaultValue = "10")
 	private int retryCount;
 
+	/**
+	 * If set to true execution data is requested compressed from the agent and
+	 * the execution data file is written compressed. Agents without support
+	 * for compression send uncompressed data. Compressed files can not be read
+	 * by previous JaCoCo versions.
+	 */
+	@Parameter(property = "jacoco.compression", defaultValue = "false")
+	private boolean compression;
+
 	@Override
 	public void executeMojo() throws MojoExecutionException {
 		final ExecDumpClient client = new ExecDumpClient() {
@@ -107,9 +116,11 @@ public class DumpMojo extends AbstractJacocoMojo {
 		client.setDump(dump);
 		client.setReset(reset);
 		client.setRetryCount(retryCount);
+		client.setCompression(compression);
 
 		try {
 			final ExecFileLoader loader = client.dump(address, port);
+			loader.setCompression(compression);
 			if (dump) {
 				getLog().info(
 						format("Dumping execution data to %s",
@@ -13,6 +13,7 @@ package org.jacoco.maven;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -22,7 +23,7 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.shared.model.fileset.FileSet;
 import org.apache.maven.shared.model.fileset.util.FileSetManager;
-import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.ExecFileMerger;
 
 /**
  * Mojo for merging a set of execution data files (*.exec) into a single file
@@ -62,6 +63,13 @@ public class MergeMojo extends AbstractJacocoMojo {
 	@Parameter(property = "jacoco.fileSets", required = true)
 	private List<FileSet> fileSets;
 
+	/**
+	 * If set to true the merged execution data file is compressed. Compressed
+	 * files can not be read by previous JaCoCo versions.
+	 */
+	@Parameter(property = "jacoco.compression", defaultValue = "false")
+	private boolean compression;
+
 	@Override
 	protected void executeMojo() throws MojoExecutionException,
 			MojoFailureException {
@@ -80,15 +88,24 @@ public class MergeMojo extends AbstractJacocoMojo {
 	}
 
 	private void executeMerge() throws MojoExecutionException {
-		final ExecFileLoader loader = new ExecFileLoader();
-
-		load(loader);
-		save(loader);
+		final ExecFileMerger merger = new ExecFileMerger();
+		merger.setCompression(compression);
+		try {
+			load(merger);
+			save(merger);
+		} finally {
+			try {
+				merger.close();
+			} catch (final IOException e) {
+				getLog().warn("Unable to delete temporary merge files", e);
+			}
+		}
 	}
 
-	private void load(final ExecFileLoader loader)
+	private void load(final ExecFileMerger merger)
 			throws MojoExecutionException {
 		final FileSetManager fileSetManager = new FileSetManager(getLog());
+		final List<File> inputFiles = new ArrayList<File>();
 		for (final FileSet fileSet : fileSets) {
 			for (final String includedFilename : fileSetManager
 					.getIncludedFiles(fileSet)) {
@@ -97,22 +114,24 @@ public class MergeMojo extends AbstractJacocoMojo {
 				if (inputFile.isDirectory()) {
 					continue;
 				}
-				try {
-					getLog().info(
-							"Loading execution data file "
-									+ inputFile.getAbsolutePath());
-					loader.load(inputFile);
-				} catch (final IOException e) {
-					throw new MojoExecutionException("Unable to read "
-							+ inputFile.getAbsolutePath(), e);
-				}
+				getLog().info(
+						"Loading execution data file "
+								+ inputFile.getAbsolutePath());
+				inputFiles.add(inputFile);
 			}
 		}
+		try {
+			merger.load(inputFiles, Runtime.getRuntime()
+					.availableProcessors());
+		} catch (final IOException e) {
+			// The message contains the path of the failing file:
+			throw new MojoExecutionException(e.getMessage(), e);
+		}
 	}
 
-	private void save(final ExecFileLoader loader)
+	private void save(final ExecFileMerger merger)
 			throws MojoExecutionException {
-		if (loader.getExecutionDataStore().getContents().isEmpty()) {
+		if (merger.isEmpty()) {
 			getLog().info(MSG_SKIPPING);
 			return;
 		}
@@ -120,7 +139,7 @@ public class MergeMojo extends AbstractJacocoMojo {
 				"Writing merged execution data to "
 						+ destFile.getAbsolutePath());
 		try {
-			loader.save(destFile, false);
+			merger.save(destFile, false);
 		} catch (final IOException e) {
 			throw new MojoExecutionException("Unable to write merged file "
 					+ destFile.getAbsolutePath(), e);
@@ -103,18 +103,13 @@ public class ReportAggregateMojo extends AbstractReportMojo {
 
 		final FileFilter filter = new FileFilter(dataFileIncludes,
 				dataFileExcludes);
-		loadExecutionData(support, filter, getProject().getBasedir());
+		final List<File> execFiles = new ArrayList<File>();
+		execFiles.addAll(filter.getFiles(getProject().getBasedir()));
 		for (final MavenProject dependency : findDependencies(
 				Artifact.SCOPE_COMPILE, Artifact.SCOPE_TEST)) {
-			loadExecutionData(support, filter, dependency.getBasedir());
-		}
-	}
-
-	private void loadExecutionData(final ReportSupport support,
-			final FileFilter filter, final File basedir) throws IOException {
-		for (final File execFile : filter.getFiles(basedir)) {
-			support.loadExecutionData(execFile);
+			execFiles.addAll(filter.getFiles(dependency.getBasedir()));
 		}
+		support.loadExecutionData(execFiles);
 	}
 
 	@Override
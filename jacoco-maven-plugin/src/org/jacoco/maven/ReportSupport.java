@@ -27,10 +27,11 @@ import java.util.Locale;
 
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
-import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.AnalysisCache;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ParallelAnalyzer;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.FileMultiReportOutput;
 import org.jacoco.report.IReportGroupVisitor;
@@ -61,6 +62,7 @@ final class ReportSupport {
 	private final Log log;
 	private final ExecFileLoader loader;
 	private final List<IReportVisitor> formatters;
+	private AnalysisCache analysisCache;
 
 	/**
 	 * Construct a new instance with the given log output.
@@ -74,6 +76,16 @@ final class ReportSupport {
 		this.formatters = new ArrayList<IReportVisitor>();
 	}
 
+	/**
+	 * Sets an optional directory to cache the structure of analyzed classes.
+	 * 
+	 * @param directory
+	 *            cache directory or <code>null</code> to analyze all classes
+	 */
+	public void setAnalysisCache(final File directory) {
+		analysisCache = directory == null ? null : new AnalysisCache(directory);
+	}
+
 	/**
 	 * Loads the given execution data file.
 	 * 
@@ -87,6 +99,22 @@ final class ReportSupport {
 		loader.load(execFile);
 	}
 
+	/**
+	 * Loads the given execution data files concurrently.
+	 * 
+	 * @param execFiles
+	 *            execution data files to load
+	 * @throws IOException
+	 *             if one of the files can't be loaded
+	 */
+	public void loadExecutionData(final List<File> execFiles)
+			throws IOException {
+		for (final File execFile : execFiles) {
+			log.info("Loading execution data file " + execFile);
+		}
+		loader.load(execFiles, Runtime.getRuntime().availableProcessors());
+	}
+
 	public void addXmlFormatter(final File targetfile, final String encoding)
 			throws IOException {
 		final XMLFormatter xml = new XMLFormatter();
@@ -193,12 +221,12 @@ final class ReportSupport {
 				.getOutputDirectory());
 
 		if (classesDir.isDirectory()) {
-			final Analyzer analyzer = new Analyzer(
-					loader.getExecutionDataStore(), builder);
+			final ParallelAnalyzer analyzer = new ParallelAnalyzer(
+					loader.getExecutionDataStore(), builder, Runtime
+							.getRuntime().availableProcessors());
+			analyzer.setCache(analysisCache);
 			final FileFilter filter = new FileFilter(includes, excludes);
-			for (final File file : filter.getFiles(classesDir)) {
-				analyzer.analyzeAll(file);
-			}
+			analyzer.analyzeAll(filter.getFiles(classesDir));
 		}
 
 		final IBundleCoverage bundle = builder.getBundle(bundeName);
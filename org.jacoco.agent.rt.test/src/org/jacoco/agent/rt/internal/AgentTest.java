@@ -29,6 +29,7 @@ import javax.management.ObjectName;
 
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
 import org.jacoco.agent.rt.internal.output.FileOutput;
+import org.jacoco.agent.rt.internal.output.MmapOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
@@ -81,6 +82,10 @@ public class AgentTest implements IExceptionLogger {
 		assertEquals(TcpClientOutput.class, agent.createAgentOutput()
 				.getClass());
 
+		options.setOutput(OutputMode.mmap);
+		assertEquals(MmapOutput.class, agent.createAgentOutput()
+				.getClass());
+
 		options.setOutput(OutputMode.none);
 		assertEquals(NoneOutput.class, agent.createAgentOutput()
 				.getClass());
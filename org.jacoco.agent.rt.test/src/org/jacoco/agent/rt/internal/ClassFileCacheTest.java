@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ClassFileCache}.
+ */
+public class ClassFileCacheTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File location;
+
+	private ClassFileCache cache;
+
+	@Before
+	public void setup() throws IOException {
+		location = new File(folder.getRoot(), "cache");
+		cache = new ClassFileCache(location.toString(), 1000, "config");
+	}
+
+	@Test
+	public void testMiss() {
+		assertNull(cache.get(bytes("original")));
+	}
+
+	@Test
+	public void testPutAndGet() {
+		cache.put(bytes("original"), bytes("instrumented"));
+		assertArrayEquals(bytes("instrumented"), cache.get(bytes("original")));
+		assertNull(cache.get(bytes("other")));
+	}
+
+	@Test
+	public void testSharedBetweenInstances() {
+		cache.put(bytes("original"), bytes("instrumented"));
+		final ClassFileCache other = new ClassFileCache(location.toString(),
+				1000, "config");
+		assertArrayEquals(bytes("instrumented"), other.get(bytes("original")));
+	}
+
+	@Test
+	public void testDifferentConfiguration() {
+		cache.put(bytes("original"), bytes("instrumented"));
+		final ClassFileCache other = new ClassFileCache(location.toString(),
+				1000, "other");
+		assertNull(other.get(bytes("original")));
+	}
+
+	@Test
+	public void testExistingEntry() {
+		cache.put(bytes("original"), bytes("instrumented"));
+		cache.put(bytes("original"), bytes("instrumented"));
+		assertArrayEquals(bytes("instrumented"), cache.get(bytes("original")));
+		assertEquals(1, location.list().length);
+	}
+
+	@Test
+	public void testFailedWrite() {
+		try {
+			cache.put(bytes("original"), null);
+			fail("NullPointerException expected");
+		} catch (final NullPointerException e) {
+			// expected
+		}
+		// The temporary file is deleted:
+		assertEquals(0, location.list().length);
+	}
+
+	@Test
+	public void testEviction() {
+		location.mkdirs();
+		final byte[] content = new byte[300];
+		for (int i = 0; i < 3; i++) {
+			final Set<String> before = new HashSet<String>(
+					Arrays.asList(location.list()));
+			cache.put(bytes("class" + i), content);
+			for (final File f : location.listFiles()) {
+				if (!before.contains(f.getName())) {
+					f.setLastModified(1000000L * (i + 1));
+				}
+			}
+		}
+		assertEquals(3, location.list().length);
+		cache.get(bytes("class0"));
+
+		cache.put(bytes("class3"), content);
+
+		// The least recently used entries are deleted:
+		assertEquals(2, location.list().length);
+		assertArrayEquals(content, cache.get(bytes("class0")));
+		assertArrayEquals(content, cache.get(bytes("class3")));
+	}
+
+	@Test
+	public void testNoCache() {
+		cache = new ClassFileCache(null, 1000, "config");
+		cache.put(bytes("original"), bytes("instrumented"));
+		assertNull(cache.get(bytes("original")));
+	}
+
+	private static byte[] bytes(final String value) {
+		return value.getBytes();
+	}
+
+}
@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -18,6 +19,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.instrument.IllegalClassFormatException;
@@ -30,7 +33,9 @@ import org.jacoco.core.runtime.AbstractRuntime;
 import org.jacoco.core.runtime.AgentOptions;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.objectweb.asm.MethodVisitor;
 
 /**
@@ -38,6 +43,9 @@ import org.objectweb.asm.MethodVisitor;
  */
 public class CoverageTransformerTest {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	private ExceptionRecorder recorder;
 
 	private AgentOptions options;
@@ -122,6 +130,19 @@ public class CoverageTransformerTest {
 				.filter(myClassLoader, "org/example/Foo", protectionDomain));
 	}
 
+	@Test
+	public void testFilterClassLoaderRepeated() {
+		options.setExclClassloader("org.jacoco.agent.rt.internal.CoverageTransformerTest$*");
+		CoverageTransformer t = createTransformer();
+		ClassLoader myClassLoader = new ClassLoader(null) {
+		};
+		assertFalse(t
+				.filter(myClassLoader, "org/example/Foo", protectionDomain));
+		assertFalse(t
+				.filter(myClassLoader, "org/example/Bar", protectionDomain));
+		assertTrue(t.filter(classLoader, "org/example/Foo", protectionDomain));
+	}
+
 	@Test
 	public void testFilterIncludedClassPositive() {
 		options.setIncludes("org.jacoco.core.*:org.jacoco.agent.rt.*");
@@ -230,6 +251,29 @@ public class CoverageTransformerTest {
 				protectionDomain, getClassData(target)));
 	}
 
+	@Test
+	public void testTransformWithCache() throws Exception {
+		final File cache = folder.newFolder("cache");
+		options.setCacheDir(cache.getAbsolutePath());
+		final Class<?> target = JaCoCo.class;
+		final byte[] original = getClassData(target);
+
+		final byte[] instrumented = createTransformer().transform(
+				classLoader, target.getName(), null, protectionDomain,
+				original);
+		assertFalse(instrumented.length == original.length);
+		final File[] entries = cache.listFiles();
+		assertEquals(1, entries.length);
+
+		// Replace the entry to verify it is actually used:
+		final byte[] cached = new byte[] { 1, 2, 3 };
+		final FileOutputStream out = new FileOutputStream(entries[0]);
+		out.write(cached);
+		out.close();
+		assertArrayEquals(cached, createTransformer().transform(classLoader,
+				target.getName(), null, protectionDomain, original));
+	}
+
 	private CoverageTransformer createTransformer() {
 		return new CoverageTransformer(runtime, options, recorder);
 	}
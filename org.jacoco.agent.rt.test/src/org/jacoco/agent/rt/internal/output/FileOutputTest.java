@@ -20,6 +20,7 @@ import java.io.IOException;
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.tools.ExecFileLoader;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -62,6 +63,49 @@ public class FileOutputTest {
 				destFile.length() > 0);
 	}
 
+	@Test
+	public void testPeriodicDump() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		options.setDumpInterval(1);
+		RuntimeData data = new RuntimeData();
+		data.getExecutionData(Long.valueOf(42), "Foo", 1).getProbes()[0] = true;
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, data);
+		Thread.sleep(2500);
+		controller.shutdown();
+
+		File[] files = folder.getRoot().listFiles();
+		assertTrue("Periodic dump should be written", files.length > 1);
+		for (File f : files) {
+			if (!f.equals(destFile)) {
+				assertTrue(f.getName().matches(
+						"jacoco-\\d{8}-\\d{6}\\.exec"));
+				ExecFileLoader loader = new ExecFileLoader();
+				loader.load(f);
+				assertTrue(loader.getExecutionDataStore().get(42)
+						.getProbes()[0]);
+			}
+		}
+		assertEquals("Execution data file should be empty", 0,
+				destFile.length());
+	}
+
+	@Test
+	public void testNoPeriodicDump() throws Exception {
+		File destFile = new File(folder.getRoot(), "jacoco.exec");
+		AgentOptions options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+
+		FileOutput controller = new FileOutput();
+		controller.startup(options, new RuntimeData());
+		controller.shutdown();
+
+		assertEquals(1, folder.getRoot().listFiles().length);
+	}
+
 	@Test(expected = IOException.class)
 	public void testInvalidDestFile() throws Exception {
 		AgentOptions options = new AgentOptions();
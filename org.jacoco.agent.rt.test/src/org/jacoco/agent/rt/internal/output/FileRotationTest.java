@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.jacoco.core.runtime.AgentOptions.RotationPolicy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link FileRotation}.
+ */
+public class FileRotationTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File destFile;
+
+	private Date time;
+
+	@Before
+	public void setup() {
+		destFile = new File(folder.getRoot(), "jacoco.exec");
+		final Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(2017, Calendar.MARCH, 4, 15, 16, 17);
+		time = calendar.getTime();
+	}
+
+	@Test
+	public void testDumpRotation() {
+		FileRotation rotation = new FileRotation(destFile,
+				RotationPolicy.dump, 0);
+		assertEquals(new File(folder.getRoot(), "jacoco-20170304-151617.exec"),
+				rotation.getFile(time));
+	}
+
+	@Test
+	public void testHourlyRotation() {
+		FileRotation rotation = new FileRotation(destFile,
+				RotationPolicy.hourly, 0);
+		assertEquals(new File(folder.getRoot(), "jacoco-20170304-15.exec"),
+				rotation.getFile(time));
+	}
+
+	@Test
+	public void testDailyRotation() {
+		FileRotation rotation = new FileRotation(destFile,
+				RotationPolicy.daily, 0);
+		assertEquals(new File(folder.getRoot(), "jacoco-20170304.exec"),
+				rotation.getFile(time));
+	}
+
+	@Test
+	public void testNoExtension() {
+		FileRotation rotation = new FileRotation(new File(folder.getRoot(),
+				"jacoco"), RotationPolicy.daily, 0);
+		assertEquals(new File(folder.getRoot(), "jacoco-20170304"),
+				rotation.getFile(time));
+	}
+
+	@Test
+	public void testWrite() throws IOException {
+		FileRotation rotation = new FileRotation(destFile,
+				RotationPolicy.daily, 0);
+
+		rotation.write(new byte[] { 1, 2, 3 }, time);
+		rotation.write(new byte[] { 4, 5 }, time);
+
+		assertTrue(Arrays.equals(new byte[] { 4, 5 },
+				read(rotation.getFile(time))));
+		assertEquals(1, folder.getRoot().list().length);
+	}
+
+	@Test
+	public void testRetention() throws IOException {
+		FileRotation rotation = new FileRotation(destFile,
+				RotationPolicy.dump, 2);
+		folder.newFile("jacoco.exec");
+		folder.newFile("other-20170101-000000.exec");
+
+		for (int i = 0; i < 4; i++) {
+			rotation.write(new byte[] { (byte) i }, new Date(time.getTime()
+					+ i * 1000));
+		}
+
+		final List<File> files = rotation.getFiles();
+		assertEquals(Arrays.asList(new File(folder.getRoot(),
+				"jacoco-20170304-151619.exec"), new File(folder.getRoot(),
+				"jacoco-20170304-151620.exec")), files);
+		assertTrue(destFile.exists());
+		assertTrue(new File(folder.getRoot(), "other-20170101-000000.exec")
+				.exists());
+		assertFalse(new File(folder.getRoot(), "jacoco-20170304-151617.exec")
+				.exists());
+	}
+
+	@Test
+	public void testUnlimitedRetention() throws IOException {
+		FileRotation rotation = new FileRotation(destFile,
+				RotationPolicy.dump, 0);
+
+		for (int i = 0; i < 4; i++) {
+			rotation.write(new byte[] { (byte) i }, new Date(time.getTime()
+					+ i * 1000));
+		}
+
+		assertEquals(4, rotation.getFiles().size());
+	}
+
+	private byte[] read(File file) throws IOException {
+		final byte[] buffer = new byte[(int) file.length()];
+		final FileInputStream in = new FileInputStream(file);
+		try {
+			assertEquals(buffer.length, in.read(buffer));
+		} finally {
+			in.close();
+		}
+		return buffer;
+	}
+
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.ExecMappedFileReader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MmapOutput}.
+ */
+public class MmapOutputTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File destFile;
+
+	private AgentOptions options;
+
+	private RuntimeData data;
+
+	private MmapOutput controller;
+
+	@Before
+	public void setup() {
+		destFile = new File(folder.getRoot(), "sub/jacoco.map");
+		options = new AgentOptions();
+		options.setDestfile(destFile.getAbsolutePath());
+		data = new RuntimeData();
+		controller = new MmapOutput(IExceptionLogger.SYSTEM_ERR);
+	}
+
+	@Test
+	public void testCreateDestFileOnStartup() throws Exception {
+		controller.startup(options, data);
+
+		assertTrue("Mapped file should be created", destFile.exists());
+		assertEquals(0, read().getExecutionDataStore().getContents().size());
+		controller.shutdown();
+	}
+
+	@Test
+	public void testWriteData() throws Exception {
+		controller.startup(options, data);
+		data.getProbes(42, "Foo", 1)[0] = true;
+
+		controller.writeExecutionData(false);
+		controller.shutdown();
+
+		assertTrue(read().getExecutionDataStore().get(42).getProbes()[0]);
+	}
+
+	@Test
+	public void testPeriodicRefresh() throws Exception {
+		controller.startup(options, data);
+		data.getProbes(42, "Foo", 1)[0] = true;
+
+		Thread.sleep(MmapOutput.REFRESH_INTERVAL * 3);
+
+		assertTrue(read().getExecutionDataStore().get(42).getProbes()[0]);
+		controller.shutdown();
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidDestFile() throws Exception {
+		options.setDestfile(folder.newFolder("folder").getAbsolutePath());
+
+		// Startup should fail as the file can not be created:
+		controller.startup(options, data);
+	}
+
+	private ExecFileLoader read() throws IOException {
+		return new ExecMappedFileReader().read(destFile);
+	}
+
+}
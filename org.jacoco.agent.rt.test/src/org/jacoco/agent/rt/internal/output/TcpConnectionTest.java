@@ -175,6 +175,97 @@ public class TcpConnectionTest extends ExecutorTestBase {
 		f.get();
 	}
 
+	@Test
+	public void testRemoteDumpWithCompression() throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42).getProbes()[0] = true;
+		data.setSessionId("stubid");
+
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				mockConnection.getSocketB().getOutputStream());
+
+		final TcpConnection con = new TcpConnection(
+				mockConnection.getSocketA(), data);
+		con.init();
+
+		final Future<Void> f = executor.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				con.run();
+				return null;
+			}
+		});
+
+		assertBlocks(f);
+
+		final RemoteControlReader remoteReader = new RemoteControlReader(
+				mockConnection.getSocketB().getInputStream());
+		final ExecutionDataStore execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		remoteReader.setSessionInfoVisitor(new SessionInfoStore());
+
+		// The command is confirmed before data is compressed:
+		remoteWriter.visitCompressionCommand();
+		assertTrue(remoteReader.read());
+		assertTrue(execStore.getContents().isEmpty());
+
+		remoteWriter.visitDumpCommand(true, false);
+		assertTrue(remoteReader.read());
+		assertEquals("Foo", execStore.get(0x12345678).getName());
+
+		con.close();
+		f.get();
+	}
+
+	@Test
+	public void testRemoteDumpChanges() throws Exception {
+		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42).getProbes()[0] = true;
+		data.getExecutionData(Long.valueOf(0x11111111), "Bar", 1);
+		data.setSessionId("stubid");
+
+		final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+				mockConnection.getSocketB().getOutputStream());
+
+		final TcpConnection con = new TcpConnection(
+				mockConnection.getSocketA(), data);
+		con.init();
+
+		final Future<Void> f = executor.submit(new Callable<Void>() {
+			public Void call() throws Exception {
+				con.run();
+				return null;
+			}
+		});
+
+		assertBlocks(f);
+
+		final RemoteControlReader remoteReader = new RemoteControlReader(
+				mockConnection.getSocketB().getInputStream());
+		ExecutionDataStore execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		remoteReader.setSessionInfoVisitor(new SessionInfoStore());
+
+		remoteWriter.visitDumpChangesCommand("client", true, false);
+		assertTrue(remoteReader.read());
+		assertEquals("Foo", execStore.get(0x12345678).getName());
+		assertEquals(1, execStore.getContents().size());
+
+		// Second dump without changes does not contain any class:
+		execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		remoteWriter.visitDumpChangesCommand("client", true, false);
+		assertTrue(remoteReader.read());
+		assertTrue(execStore.getContents().isEmpty());
+
+		// Other clients still receive the changed class:
+		execStore = new ExecutionDataStore();
+		remoteReader.setExecutionDataVisitor(execStore);
+		remoteWriter.visitDumpChangesCommand("other", true, false);
+		assertTrue(remoteReader.read());
+		assertEquals(1, execStore.getContents().size());
+
+		con.close();
+		f.get();
+	}
+
 	@Test
 	public void testLocalDump() throws Exception {
 		data.getExecutionData(Long.valueOf(0x12345678), "Foo", 42).getProbes()[0] = true;
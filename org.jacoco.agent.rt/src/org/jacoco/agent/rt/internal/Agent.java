@@ -19,6 +19,7 @@ import java.util.concurrent.Callable;
 import org.jacoco.agent.rt.IAgent;
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.MmapOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
@@ -154,11 +155,13 @@ public class Agent implements IAgent {
 		final OutputMode controllerType = options.getOutput();
 		switch (controllerType) {
 		case file:
-			return new FileOutput();
+			return new FileOutput(logger);
 		case tcpserver:
 			return new TcpServerOutput(logger);
 		case tcpclient:
 			return new TcpClientOutput(logger);
+		case mmap:
+			return new MmapOutput(logger);
 		case none:
 			return new NoneOutput();
 		default:
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.jacoco.core.internal.data.CRC64;
+
+/**
+ * Persistent cache for instrumented class files which can be shared by
+ * multiple VMs. Entries are keyed by the CRC64 checksum and the length of the
+ * original class file plus a checksum of the instrumentation configuration.
+ * New entries are written to a temporary file first and then renamed, so
+ * concurrent VMs never see incomplete entries. If the total size of the cache
+ * exceeds its limit the least recently used entries are deleted. Problems
+ * with the cache are ignored and result in a cache miss.
+ */
+class ClassFileCache {
+
+	private static final String SUFFIX = ".class";
+
+	private final File location;
+
+	private final long maxSize;
+
+	private final String prefix;
+
+	private long size = -1;
+
+	/**
+	 * Create a new cache for the given location.
+	 * 
+	 * @param location
+	 *            path to the cache directory. <code>null</code> if no cache
+	 *            should be used
+	 * @param maxSize
+	 *            maximum size of the cache in bytes
+	 * @param configuration
+	 *            description of everything besides the original class file
+	 *            that has an impact on the instrumented class file, e.g. the
+	 *            JaCoCo version
+	 */
+	ClassFileCache(final String location, final long maxSize,
+			final String configuration) {
+		this.location = location == null ? null : new File(location);
+		this.maxSize = maxSize;
+		this.prefix = String.format("%016x-",
+				Long.valueOf(CRC64.checksum(encode(configuration))));
+	}
+
+	/**
+	 * Returns the cached instrumented version of the given class file.
+	 * 
+	 * @param original
+	 *            original class file
+	 * @return instrumented class file or <code>null</code> if no entry exists
+	 */
+	byte[] get(final byte[] original) {
+		if (location == null) {
+			return null;
+		}
+		final File file = getFile(original);
+		try {
+			final RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				final MappedByteBuffer buffer = raf.getChannel().map(
+						MapMode.READ_ONLY, 0, raf.length());
+				final byte[] instrumented = new byte[buffer.remaining()];
+				buffer.get(instrumented);
+				file.setLastModified(System.currentTimeMillis());
+				return instrumented;
+			} finally {
+				raf.close();
+			}
+		} catch (final IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Adds the instrumented version of the given class file to the cache.
+	 * 
+	 * @param original
+	 *            original class file
+	 * @param instrumented
+	 *            instrumented class file
+	 */
+	void put(final byte[] original, final byte[] instrumented) {
+		if (location == null) {
+			return;
+		}
+		File temp = null;
+		try {
+			location.mkdirs();
+			temp = File.createTempFile("entry", ".tmp", location);
+			final OutputStream out = new FileOutputStream(temp);
+			try {
+				out.write(instrumented);
+			} finally {
+				out.close();
+			}
+			if (temp.renameTo(getFile(original))) {
+				temp = null;
+				added(instrumented.length);
+			}
+			// Otherwise the entry has been added concurrently by a different VM
+		} catch (final IOException e) {
+			// The cache is optional, the class is simply instrumented again
+		} finally {
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	private File getFile(final byte[] original) {
+		return new File(location, String.format("%s%016x-%x%s", prefix,
+				Long.valueOf(CRC64.checksum(original)),
+				Integer.valueOf(original.length), SUFFIX));
+	}
+
+	private synchronized void added(final long entrySize) {
+		if (size == -1) {
+			size = 0;
+			for (final File f : listEntries()) {
+				size += f.length();
+			}
+		} else {
+			size += entrySize;
+		}
+		if (size > maxSize) {
+			evict();
+		}
+	}
+
+	private void evict() {
+		final File[] entries = listEntries();
+		final long[] modified = new long[entries.length];
+		final Integer[] order = new Integer[entries.length];
+		size = 0;
+		for (int i = 0; i < entries.length; i++) {
+			modified[i] = entries[i].lastModified();
+			order[i] = Integer.valueOf(i);
+			size += entries[i].length();
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(final Integer i1, final Integer i2) {
+				final long m1 = modified[i1.intValue()];
+				final long m2 = modified[i2.intValue()];
+				return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+			}
+		});
+		// Free a quarter of the cache to avoid evicting on every new entry:
+		final long target = maxSize / 4 * 3;
+		for (int i = 0; i < order.length && size > target; i++) {
+			final File f = entries[order[i].intValue()];
+			final long length = f.length();
+			if (f.delete()) {
+				size -= length;
+			}
+		}
+	}
+
+	private File[] listEntries() {
+		final File[] files = location.listFiles();
+		if (files == null) {
+			return new File[0];
+		}
+		int count = 0;
+		for (final File f : files) {
+			if (f.getName().endsWith(SUFFIX)) {
+				files[count++] = f;
+			}
+		}
+		final File[] entries = new File[count];
+		System.arraycopy(files, 0, entries, 0, count);
+		return entries;
+	}
+
+	private static byte[] encode(final String value) {
+		try {
+			return value.getBytes("UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			// UTF-8 is always supported
+			throw new AssertionError(e);
+		}
+	}
+
+}
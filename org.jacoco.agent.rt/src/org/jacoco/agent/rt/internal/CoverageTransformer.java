@@ -15,7 +15,10 @@ import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
+import java.util.Map;
+import java.util.WeakHashMap;
 
+import org.jacoco.core.JaCoCo;
 import org.jacoco.core.instr.Instrumenter;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.IRuntime;
@@ -43,8 +46,13 @@ public class CoverageTransformer implements ClassFileTransformer {
 
 	private final WildcardMatcher exclClassloader;
 
+	/** Result of the class loader filter per class loader type. */
+	private final Map<Class<?>, Boolean> exclClassloaderResults;
+
 	private final ClassFileDumper classFileDumper;
 
+	private final ClassFileCache classFileCache;
+
 	private final boolean inclBootstrapClasses;
 
 	private final boolean inclNoLocationClasses;
@@ -62,12 +70,20 @@ public class CoverageTransformer implements ClassFileTransformer {
 	public CoverageTransformer(final IRuntime runtime,
 			final AgentOptions options, final IExceptionLogger logger) {
 		this.instrumenter = new Instrumenter(runtime);
+		this.instrumenter.setHitCounts(options.getHitCounts());
 		this.logger = logger;
 		// Class names will be reported in VM notation:
 		includes = new WildcardMatcher(toVMName(options.getIncludes()));
 		excludes = new WildcardMatcher(toVMName(options.getExcludes()));
 		exclClassloader = new WildcardMatcher(options.getExclClassloader());
+		exclClassloaderResults = new WeakHashMap<Class<?>, Boolean>();
 		classFileDumper = new ClassFileDumper(options.getClassDumpDir());
+		// Instrumented classes depend on the agent version and the runtime:
+		classFileCache = new ClassFileCache(options.getCacheDir(),
+				options.getCacheSize() * 1024L * 1024L, JaCoCo.VERSION + "/"
+						+ JaCoCo.RUNTIMEPACKAGE + "/"
+						+ runtime.getClass().getName() + "/"
+						+ options.getHitCounts());
 		inclBootstrapClasses = options.getInclBootstrapClasses();
 		inclNoLocationClasses = options.getInclNoLocationClasses();
 	}
@@ -88,7 +104,13 @@ public class CoverageTransformer implements ClassFileTransformer {
 
 		try {
 			classFileDumper.dump(classname, classfileBuffer);
-			return instrumenter.instrument(classfileBuffer, classname);
+			byte[] instrumented = classFileCache.get(classfileBuffer);
+			if (instrumented == null) {
+				instrumented = instrumenter.instrument(classfileBuffer,
+						classname);
+				classFileCache.put(classfileBuffer, instrumented);
+			}
+			return instrumented;
 		} catch (final Exception ex) {
 			final IllegalClassFormatException wrapper = new IllegalClassFormatException(
 					ex.getMessage());
@@ -120,7 +142,7 @@ public class CoverageTransformer implements ClassFileTransformer {
 			if (!inclNoLocationClasses && !hasSourceLocation(protectionDomain)) {
 				return false;
 			}
-			if (exclClassloader.matches(loader.getClass().getName())) {
+			if (isExcludedClassloader(loader.getClass())) {
 				return false;
 			}
 		}
@@ -132,6 +154,18 @@ public class CoverageTransformer implements ClassFileTransformer {
 		!excludes.matches(classname);
 	}
 
+	private boolean isExcludedClassloader(final Class<?> loaderType) {
+		synchronized (exclClassloaderResults) {
+			Boolean excluded = exclClassloaderResults.get(loaderType);
+			if (excluded == null) {
+				excluded = Boolean.valueOf(exclClassloader.matches(loaderType
+						.getName()));
+				exclClassloaderResults.put(loaderType, excluded);
+			}
+			return excluded.booleanValue();
+		}
+	}
+
 	/**
 	 * Checks whether this protection domain is associated with a source
 	 * location.
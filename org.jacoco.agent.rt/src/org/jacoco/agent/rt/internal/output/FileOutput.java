@@ -11,31 +11,63 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal.output;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Date;
 
+import org.jacoco.agent.rt.internal.IExceptionLogger;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.internal.data.ChannelOutputStream;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
 
 /**
- * Local only agent output that will write coverage data to the filesystem. This
- * controller uses the following agent options:
+ * Local only agent output that will write coverage data to the filesystem.
+ * Optionally execution data is dumped periodically to separate files by a
+ * background thread. This controller uses the following agent options:
  * <ul>
  * <li>destfile</li>
  * <li>append</li>
+ * <li>dumpinterval</li>
+ * <li>dumprotation</li>
+ * <li>dumpretention</li>
  * </ul>
  */
 public class FileOutput implements IAgentOutput {
 
+	private final IExceptionLogger logger;
+
 	private RuntimeData data;
 
 	private File destFile;
 
 	private boolean append;
 
+	private FileRotation rotation;
+
+	private Thread worker;
+
+	/**
+	 * New controller instance which logs exceptions of periodic dumps to
+	 * {@link System#err}.
+	 */
+	public FileOutput() {
+		this(IExceptionLogger.SYSTEM_ERR);
+	}
+
+	/**
+	 * New controller instance.
+	 * 
+	 * @param logger
+	 *            logger to use in case of exceptions in periodic dumps
+	 */
+	public FileOutput(final IExceptionLogger logger) {
+		this.logger = logger;
+	}
+
 	public final void startup(final AgentOptions options, final RuntimeData data)
 			throws IOException {
 		this.data = data;
@@ -47,23 +79,77 @@ public class FileOutput implements IAgentOutput {
 		}
 		// Make sure we can write to the file:
 		openFile().close();
+		final int interval = options.getDumpInterval();
+		if (interval > 0) {
+			rotation = new FileRotation(destFile, options.getDumpRotation(),
+					options.getDumpRetention());
+			startWorker(interval * 1000L);
+		}
+	}
+
+	private void startWorker(final long interval) {
+		worker = new Thread(new Runnable() {
+			public void run() {
+				while (true) {
+					try {
+						Thread.sleep(interval);
+					} catch (final InterruptedException e) {
+						// Shutdown requested
+						return;
+					}
+					try {
+						writePeriodicDump();
+					} catch (final IOException e) {
+						logger.logExeption(e);
+					}
+				}
+			}
+		});
+		worker.setName(getClass().getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Writes all execution data collected so far to the current file of the
+	 * rotation. The data is serialized to memory first so no file I/O happens
+	 * while execution data is collected.
+	 * 
+	 * @throws IOException
+	 *             in case writing fails
+	 */
+	void writePeriodicDump() throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(buffer);
+		data.collect(writer, writer, false);
+		rotation.write(buffer.toByteArray(), new Date());
 	}
 
 	public void writeExecutionData(final boolean reset) throws IOException {
-		final OutputStream output = openFile();
+		final FileOutputStream file = openFile();
 		try {
-			final ExecutionDataWriter writer = new ExecutionDataWriter(output);
-			data.collect(writer, writer, reset);
+			final OutputStream output = new ChannelOutputStream(
+					file.getChannel());
+			try {
+				final ExecutionDataWriter writer = new ExecutionDataWriter(
+						output);
+				data.collect(writer, writer, reset);
+			} finally {
+				output.close();
+			}
 		} finally {
-			output.close();
+			file.close();
 		}
 	}
 
-	public void shutdown() throws IOException {
-		// Nothing to do
+	public void shutdown() throws InterruptedException {
+		if (worker != null) {
+			worker.interrupt();
+			worker.join();
+		}
 	}
 
-	private OutputStream openFile() throws IOException {
+	private FileOutputStream openFile() throws IOException {
 		final FileOutputStream file = new FileOutputStream(destFile, append);
 		// Avoid concurrent writes from different agents running in parallel:
 		file.getChannel().lock();
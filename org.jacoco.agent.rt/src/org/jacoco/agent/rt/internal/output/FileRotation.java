@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.jacoco.core.runtime.AgentOptions.RotationPolicy;
+
+/**
+ * Naming and retention of files with periodic dumps. For a destination file
+ * <code>jacoco.exec</code> the files are called
+ * <code>jacoco-yyyyMMdd-HHmmss.exec</code>,
+ * <code>jacoco-yyyyMMdd-HH.exec</code> or <code>jacoco-yyyyMMdd.exec</code>
+ * depending on the rotation policy.
+ */
+class FileRotation {
+
+	private final File folder;
+
+	private final String prefix;
+
+	private final String suffix;
+
+	private final SimpleDateFormat format;
+
+	private final Pattern pattern;
+
+	private final int retention;
+
+	/**
+	 * Creates a rotation for the given destination file.
+	 * 
+	 * @param destFile
+	 *            destination file, the names of rotated files are derived
+	 *            from it
+	 * @param policy
+	 *            rotation policy
+	 * @param retention
+	 *            maximum number of files to keep, <code>0</code> for all
+	 */
+	FileRotation(final File destFile, final RotationPolicy policy,
+			final int retention) {
+		this.folder = destFile.getParentFile();
+		final String name = destFile.getName();
+		final int dot = name.lastIndexOf('.');
+		if (dot > 0) {
+			prefix = name.substring(0, dot) + "-";
+			suffix = name.substring(dot);
+		} else {
+			prefix = name + "-";
+			suffix = "";
+		}
+		switch (policy) {
+		case dump:
+			format = new SimpleDateFormat("yyyyMMdd-HHmmss");
+			break;
+		case hourly:
+			format = new SimpleDateFormat("yyyyMMdd-HH");
+			break;
+		case daily:
+			format = new SimpleDateFormat("yyyyMMdd");
+			break;
+		default:
+			throw new AssertionError(policy);
+		}
+		pattern = Pattern.compile(Pattern.quote(prefix)
+				+ "\\d{8}(-\\d{2}(\\d{4})?)?" + Pattern.quote(suffix));
+		this.retention = retention;
+	}
+
+	/**
+	 * Returns the file for a dump at the given time.
+	 * 
+	 * @param time
+	 *            time of the dump
+	 * @return file for the dump
+	 */
+	File getFile(final Date time) {
+		return new File(folder, prefix + format.format(time) + suffix);
+	}
+
+	/**
+	 * Writes the given content to the file for the given time. The content is
+	 * written to a temporary file first which then replaces the target file,
+	 * so the target file is never left incomplete. Afterwards the oldest files
+	 * are deleted according to the retention.
+	 * 
+	 * @param content
+	 *            complete content of the file
+	 * @param time
+	 *            time of the dump
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	void write(final byte[] content, final Date time) throws IOException {
+		final File file = getFile(time);
+		final File temp = new File(folder, file.getName() + ".tmp");
+		final FileOutputStream out = new FileOutputStream(temp);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+		if (!temp.renameTo(file)) {
+			// Some platforms do not replace existing files:
+			file.delete();
+			if (!temp.renameTo(file)) {
+				throw new IOException("Can't create file " + file);
+			}
+		}
+		purge();
+	}
+
+	/**
+	 * Returns all rotated files in chronological order.
+	 * 
+	 * @return rotated files
+	 */
+	List<File> getFiles() {
+		final List<File> files = new ArrayList<File>();
+		final String[] names = folder.list();
+		if (names != null) {
+			Arrays.sort(names);
+			for (final String name : names) {
+				if (pattern.matcher(name).matches()) {
+					files.add(new File(folder, name));
+				}
+			}
+		}
+		return files;
+	}
+
+	private void purge() {
+		if (retention > 0) {
+			final List<File> files = getFiles();
+			for (int i = 0; i < files.size() - retention; i++) {
+				files.get(i).delete();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.MappedExecutionDataWriter;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Output that keeps the execution data in a memory mapped file which is
+ * refreshed periodically and on every dump. Other processes can read the file
+ * with <code>ExecMappedFileReader</code> while the VM is running. This
+ * controller uses the following agent options:
+ * <ul>
+ * <li>destfile</li>
+ * </ul>
+ */
+public class MmapOutput implements IAgentOutput {
+
+	/** Interval in milliseconds between updates of the mapped file. */
+	static final long REFRESH_INTERVAL = 1000;
+
+	private final IExceptionLogger logger;
+
+	private RuntimeData data;
+
+	private MappedExecutionDataWriter writer;
+
+	private Thread worker;
+
+	/**
+	 * New controller instance.
+	 * 
+	 * @param logger
+	 *            logger to use in case of exceptions is spawned threads
+	 */
+	public MmapOutput(final IExceptionLogger logger) {
+		this.logger = logger;
+	}
+
+	public void startup(final AgentOptions options, final RuntimeData data)
+			throws IOException {
+		this.data = data;
+		final File destFile = new File(options.getDestfile())
+				.getAbsoluteFile();
+		final File folder = destFile.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		writer = new MappedExecutionDataWriter(destFile);
+		worker = new Thread(new Runnable() {
+			public void run() {
+				try {
+					while (true) {
+						Thread.sleep(REFRESH_INTERVAL);
+						writer.update(data, false);
+					}
+				} catch (final InterruptedException e) {
+					// Shutdown requested
+				} catch (final RuntimeException e) {
+					logger.logExeption(e);
+				}
+			}
+		});
+		worker.setName(getClass().getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	public void writeExecutionData(final boolean reset) throws IOException {
+		writer.update(data, reset);
+	}
+
+	public void shutdown() throws Exception {
+		worker.interrupt();
+		worker.join();
+		writer.close();
+	}
+
+}
@@ -14,8 +14,11 @@ package org.jacoco.agent.rt.internal.output;
 import java.io.IOException;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.Channels;
 
-import org.jacoco.core.runtime.IRemoteCommandVisitor;
+import org.jacoco.core.internal.data.ChannelOutputStream;
+import org.jacoco.core.runtime.ICompressionCommandVisitor;
+import org.jacoco.core.runtime.IDumpChangesCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 import org.jacoco.core.runtime.RuntimeData;
@@ -23,7 +26,8 @@ import org.jacoco.core.runtime.RuntimeData;
 /**
  * Handler for a single socket based remote connection.
  */
-class TcpConnection implements IRemoteCommandVisitor {
+class TcpConnection implements IDumpChangesCommandVisitor,
+		ICompressionCommandVisitor {
 
 	private final RuntimeData data;
 
@@ -42,7 +46,9 @@ class TcpConnection implements IRemoteCommandVisitor {
 	}
 
 	public void init() throws IOException {
-		this.writer = new RemoteControlWriter(socket.getOutputStream());
+		this.writer = new RemoteControlWriter(new ChannelOutputStream(
+				Channels.newChannel(socket.getOutputStream())));
+		this.writer.flush();
 		this.reader = new RemoteControlReader(socket.getInputStream());
 		this.reader.setRemoteCommandVisitor(this);
 		this.initialized = true;
@@ -96,16 +102,47 @@ class TcpConnection implements IRemoteCommandVisitor {
 
 	// === IRemoteCommandVisitor ===
 
+	// Commands are executed in the connection thread while dumps on shutdown
+	// are requested from other threads, so every use of the writer is
+	// serialized to keep blocks of concurrent dumps apart.
+
 	public void visitDumpCommand(final boolean dump, final boolean reset)
 			throws IOException {
-		if (dump) {
-			data.collect(writer, writer, reset);
-		} else {
-			if (reset) {
-				data.reset();
+		synchronized (writer) {
+			if (dump) {
+				data.collect(writer, writer, reset);
+			} else {
+				if (reset) {
+					data.reset();
+				}
+			}
+			writer.sendCmdOk();
+			writer.flush();
+		}
+	}
+
+	public void visitDumpChangesCommand(final String client,
+			final boolean dump, final boolean reset) throws IOException {
+		synchronized (writer) {
+			if (dump) {
+				data.collectChanges(client, writer, writer, reset);
+			} else {
+				if (reset) {
+					data.reset();
+				}
 			}
+			writer.sendCmdOk();
+			writer.flush();
+		}
+	}
+
+	public void visitCompressionCommand() throws IOException {
+		synchronized (writer) {
+			// Confirm the capability before the stream is compressed:
+			writer.sendCmdOk();
+			writer.flush();
+			writer.setCompression(true);
 		}
-		writer.sendCmdOk();
 	}
 
 }
@@ -210,6 +210,71 @@ public class AbstractCoverageTask extends Task {
 		agentOptions.setJmx(jmx);
 	}
 
+	/**
+	 * Sets whether the agent should count probe executions.
+	 * 
+	 * @param hitcounts
+	 *            <code>true</code> if probe executions should be counted
+	 */
+	public void setHitcounts(final boolean hitcounts) {
+		agentOptions.setHitCounts(hitcounts);
+	}
+
+	/**
+	 * Sets the interval in seconds in which execution data is dumped
+	 * periodically. Default is <code>0</code> (no periodic dumps).
+	 * 
+	 * @param dumpinterval
+	 *            interval in seconds
+	 */
+	public void setDumpinterval(final int dumpinterval) {
+		agentOptions.setDumpInterval(dumpinterval);
+	}
+
+	/**
+	 * Sets when a new file is started for periodic dumps. Default is
+	 * <code>dump</code>.
+	 * 
+	 * @param dumprotation
+	 *            <code>dump</code>, <code>hourly</code> or <code>daily</code>
+	 */
+	public void setDumprotation(final String dumprotation) {
+		agentOptions.setDumpRotation(dumprotation);
+	}
+
+	/**
+	 * Sets the maximum number of files with periodic dumps which are kept.
+	 * Default is <code>0</code> (all files are kept).
+	 * 
+	 * @param dumpretention
+	 *            number of files to keep
+	 */
+	public void setDumpretention(final int dumpretention) {
+		agentOptions.setDumpRetention(dumpretention);
+	}
+
+	/**
+	 * Sets the directory where the agent caches instrumented class files.
+	 * Default is no cache.
+	 * 
+	 * @param dir
+	 *            cache directory
+	 */
+	public void setCachedir(final File dir) {
+		agentOptions.setCacheDir(dir.getAbsolutePath());
+	}
+
+	/**
+	 * Sets the maximum size of the class file cache in megabytes. Default is
+	 * <code>100</code>.
+	 * 
+	 * @param cachesize
+	 *            size in megabytes
+	 */
+	public void setCachesize(final int cachesize) {
+		agentOptions.setCacheSize(cachesize);
+	}
+
 	/**
 	 * Creates JVM argument to launch with the specified JaCoCo agent jar and
 	 * the current options
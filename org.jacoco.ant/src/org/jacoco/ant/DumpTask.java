@@ -36,6 +36,7 @@ public class DumpTask extends Task {
 	private int port = AgentOptions.DEFAULT_PORT;
 	private int retryCount = 10;
 	private boolean append = true;
+	private boolean compression = false;
 
 	/**
 	 * Sets the location of the execution data file to write. This parameter is
@@ -114,6 +115,19 @@ public class DumpTask extends Task {
 		this.reset = reset;
 	}
 
+	/**
+	 * Sets whether execution data is requested compressed from the agent and
+	 * written compressed. Agents without support for compression send
+	 * uncompressed data. Compressed files can not be read by previous
+	 * versions. Defaults to <code>false</code>
+	 * 
+	 * @param compression
+	 *            <code>true</code> to compress execution data
+	 */
+	public void setCompression(final boolean compression) {
+		this.compression = compression;
+	}
+
 	@Override
 	public void execute() throws BuildException {
 
@@ -142,9 +156,11 @@ public class DumpTask extends Task {
 		client.setDump(dump);
 		client.setReset(reset);
 		client.setRetryCount(retryCount);
+		client.setCompression(compression);
 
 		try {
 			final ExecFileLoader loader = client.dump(address, port);
+			loader.setCompression(compression);
 			if (dump) {
 				log(format("Dumping execution data to %s",
 						destfile.getAbsolutePath()));
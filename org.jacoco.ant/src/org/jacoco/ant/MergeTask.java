@@ -16,15 +16,18 @@ import static java.lang.String.format;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.tools.ant.BuildException;
 import org.apache.tools.ant.Task;
 import org.apache.tools.ant.types.Resource;
 import org.apache.tools.ant.types.ResourceCollection;
+import org.apache.tools.ant.types.resources.FileResource;
 import org.apache.tools.ant.types.resources.Union;
 import org.apache.tools.ant.util.FileUtils;
-import org.jacoco.core.tools.ExecFileLoader;
+import org.jacoco.core.tools.ExecFileMerger;
 
 /**
  * Task for merging a set of execution data files (*.exec) into a single file
@@ -33,6 +36,8 @@ public class MergeTask extends Task {
 
 	private File destfile;
 
+	private boolean compression = false;
+
 	private final Union files = new Union();
 
 	/**
@@ -45,6 +50,17 @@ public class MergeTask extends Task {
 		this.destfile = destfile;
 	}
 
+	/**
+	 * Sets whether the merged data store is compressed. Compressed files can
+	 * not be read by previous versions. Defaults to <code>false</code>
+	 * 
+	 * @param compression
+	 *            <code>true</code> to compress the merged data store
+	 */
+	public void setCompression(final boolean compression) {
+		this.compression = compression;
+	}
+
 	/**
 	 * This task accepts any number of execution data resources.
 	 * 
@@ -62,13 +78,23 @@ public class MergeTask extends Task {
 					getLocation());
 		}
 
-		final ExecFileLoader loader = new ExecFileLoader();
-
-		load(loader);
-		save(loader);
+		final ExecFileMerger merger = new ExecFileMerger();
+		merger.setCompression(compression);
+		try {
+			load(merger);
+			save(merger);
+		} finally {
+			try {
+				merger.close();
+			} catch (final IOException e) {
+				log(format("Unable to delete temporary merge files: %s",
+						e.getMessage()));
+			}
+		}
 	}
 
-	private void load(final ExecFileLoader loader) {
+	private void load(final ExecFileMerger merger) {
+		final List<File> batch = new ArrayList<File>();
 		final Iterator<?> resourceIterator = files.iterator();
 		while (resourceIterator.hasNext()) {
 			final Resource resource = (Resource) resourceIterator.next();
@@ -79,10 +105,18 @@ public class MergeTask extends Task {
 
 			log(format("Loading execution data file %s", resource));
 
+			if (resource instanceof FileResource) {
+				// Files are loaded concurrently in batches, files with a
+				// directory are merged without loading them:
+				batch.add(((FileResource) resource).getFile());
+				continue;
+			}
+			load(merger, batch);
+
 			InputStream resourceStream = null;
 			try {
 				resourceStream = resource.getInputStream();
-				loader.load(resourceStream);
+				merger.load(resourceStream);
 			} catch (final IOException e) {
 				throw new BuildException(format("Unable to read %s", resource),
 						e, getLocation());
@@ -90,13 +124,24 @@ public class MergeTask extends Task {
 				FileUtils.close(resourceStream);
 			}
 		}
+		load(merger, batch);
+	}
+
+	private void load(final ExecFileMerger merger, final List<File> batch) {
+		try {
+			merger.load(batch, Runtime.getRuntime().availableProcessors());
+		} catch (final IOException e) {
+			// The message contains the path of the failing file:
+			throw new BuildException(e.getMessage(), e, getLocation());
+		}
+		batch.clear();
 	}
 
-	private void save(final ExecFileLoader loader) {
+	private void save(final ExecFileMerger merger) {
 		log(format("Writing merged execution data to %s",
 				destfile.getAbsolutePath()));
 		try {
-			loader.save(destfile, false);
+			merger.save(destfile, false);
 		} catch (final IOException e) {
 			throw new BuildException(format("Unable to write merged file %s",
 					destfile.getAbsolutePath()), e, getLocation());
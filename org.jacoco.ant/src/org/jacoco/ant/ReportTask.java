@@ -505,9 +505,16 @@ public class ReportTask extends Task {
 
 	private void loadExecutionData() {
 		final ExecFileLoader loader = new ExecFileLoader();
+		final List<File> batch = new ArrayList<File>();
 		for (final Iterator<?> i = executiondataElement.iterator(); i.hasNext();) {
 			final Resource resource = (Resource) i.next();
 			log(format("Loading execution data file %s", resource));
+			if (resource instanceof FileResource) {
+				// Files are loaded concurrently in batches:
+				batch.add(((FileResource) resource).getFile());
+				continue;
+			}
+			loadExecutionData(loader, batch);
 			InputStream in = null;
 			try {
 				in = resource.getInputStream();
@@ -520,10 +527,22 @@ public class ReportTask extends Task {
 				FileUtils.close(in);
 			}
 		}
+		loadExecutionData(loader, batch);
 		sessionInfoStore = loader.getSessionInfoStore();
 		executionDataStore = loader.getExecutionDataStore();
 	}
 
+	private void loadExecutionData(final ExecFileLoader loader,
+			final List<File> batch) {
+		try {
+			loader.load(batch, Runtime.getRuntime().availableProcessors());
+		} catch (final IOException e) {
+			// The message contains the path of the failing file:
+			throw new BuildException(e.getMessage(), e, getLocation());
+		}
+		batch.clear();
+	}
+
 	private IReportVisitor createVisitor() throws IOException {
 		final List<IReportVisitor> visitors = new ArrayList<IReportVisitor>();
 		for (final FormatterElement f : formatters) {
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.Java9Support;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link AnalysisCache}.
+ */
+public class AnalysisCacheTest {
+
+	private static final String NAME = "org/jacoco/core/analysis/Analyzer";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private byte[] bytes;
+
+	private ExecutionDataStore executionData;
+
+	private List<IClassCoverage> classes;
+
+	private ICoverageVisitor visitor;
+
+	@Before
+	public void setup() throws IOException {
+		bytes = Java9Support.downgradeIfRequired(TargetLoader
+				.getClassDataAsBytes(Analyzer.class));
+		final int[] hits = new int[200];
+		final ExecutionData data = new ExecutionData(CRC64.checksum(bytes),
+				NAME, hits);
+		final Random random = new Random(7);
+		for (int i = 0; i < hits.length; i++) {
+			if (random.nextBoolean()) {
+				hits[i] = i + 1;
+				data.getProbes()[i] = true;
+			}
+		}
+		executionData = new ExecutionDataStore();
+		executionData.put(data);
+		classes = new ArrayList<IClassCoverage>();
+		visitor = new ICoverageVisitor() {
+			public void visitCoverage(final IClassCoverage coverage) {
+				classes.add(coverage);
+			}
+		};
+	}
+
+	@Test
+	public void testMissAndHit() throws IOException {
+		final AnalysisCache cache = new AnalysisCache(folder.getRoot());
+		analyze(cache);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		analyze(cache);
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		analyze(null);
+		assertTrue(classes.get(2).getInstructionCounter()
+				.getCoveredCount() > 0);
+		assertTrue(classes.get(2).getHitCount() > 0);
+		assertSameCoverage(classes.get(2), classes.get(0));
+		assertSameCoverage(classes.get(2), classes.get(1));
+	}
+
+	@Test
+	public void testSharedDirectory() throws IOException {
+		analyze(new AnalysisCache(folder.getRoot()));
+		final AnalysisCache cache = new AnalysisCache(folder.getRoot());
+		analyze(cache);
+		assertEquals(1, cache.getHitCount());
+		assertSameCoverage(classes.get(0), classes.get(1));
+	}
+
+	@Test
+	public void testNoExecutionData() throws IOException {
+		executionData = new ExecutionDataStore();
+		analyze(new AnalysisCache(folder.getRoot()));
+		analyze(new AnalysisCache(folder.getRoot()));
+		assertEquals(0, classes.get(1).getInstructionCounter()
+				.getCoveredCount());
+		assertSameCoverage(classes.get(0), classes.get(1));
+	}
+
+	@Test
+	public void testBrokenEntry() throws IOException {
+		analyze(new AnalysisCache(folder.getRoot()));
+		final File entry = getEntry();
+		final FileOutputStream out = new FileOutputStream(entry);
+		out.write(new byte[] { (byte) 0xC0, (byte) 0xC0, (byte) 0xCA,
+				(byte) 0xC5, 1, 0, 0 });
+		out.close();
+
+		final AnalysisCache cache = new AnalysisCache(folder.getRoot());
+		analyze(cache);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertSameCoverage(classes.get(0), classes.get(1));
+
+		// The entry has been written again:
+		analyze(cache);
+		assertEquals(1, cache.getHitCount());
+	}
+
+	@Test
+	public void testOtherVersion() throws IOException {
+		analyze(new AnalysisCache(folder.getRoot()));
+		final DataOutputStream out = new DataOutputStream(
+				new FileOutputStream(getEntry()));
+		out.writeInt(0xC0C0CAC5);
+		out.writeUTF(JaCoCo.VERSION + "-"
+				+ (AnalysisCache.FORMAT_VERSION + 1));
+		out.close();
+
+		final AnalysisCache cache = new AnalysisCache(folder.getRoot());
+		analyze(cache);
+		assertEquals(0, cache.getHitCount());
+	}
+
+	@Test
+	public void testDifferentName() throws IOException {
+		final AnalysisCache cache = new AnalysisCache(folder.getRoot());
+		analyze(cache);
+		assertNull(cache.get(CRC64.checksum(bytes), "Other",
+				new StringPool()));
+	}
+
+	@Test
+	public void testUnwritableDirectory() throws IOException {
+		final AnalysisCache cache = new AnalysisCache(folder.newFile("file"));
+		analyze(cache);
+		analyze(cache);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertSameCoverage(classes.get(0), classes.get(1));
+	}
+
+	@Test
+	public void testParallelAnalyzer() throws IOException {
+		final File file = new File(folder.getRoot(), "Analyzer.class");
+		final FileOutputStream out = new FileOutputStream(file);
+		out.write(bytes);
+		out.close();
+		final AnalysisCache cache = new AnalysisCache(folder.newFolder("c"));
+		for (int i = 0; i < 2; i++) {
+			final ParallelAnalyzer analyzer = new ParallelAnalyzer(
+					executionData, visitor, 2);
+			analyzer.setCache(cache);
+			analyzer.analyzeAll(file);
+		}
+		assertEquals(1, cache.getHitCount());
+		assertSameCoverage(classes.get(0), classes.get(1));
+	}
+
+	private void analyze(final AnalysisCache cache) throws IOException {
+		final Analyzer analyzer = new Analyzer(executionData, visitor);
+		analyzer.setCache(cache);
+		analyzer.analyzeClass(bytes, NAME);
+	}
+
+	private File getEntry() {
+		final String hex = String.format("%016x",
+				Long.valueOf(CRC64.checksum(bytes)));
+		final File entry = new File(new File(new File(folder.getRoot(),
+				AnalysisCache.VERSION), hex.substring(0, 2)), hex);
+		assertTrue(entry.isFile());
+		return entry;
+	}
+
+	private static void assertSameCoverage(final IClassCoverage expected,
+			final IClassCoverage actual) {
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getSignature(), actual.getSignature());
+		assertEquals(expected.getSuperName(), actual.getSuperName());
+		assertTrue(Arrays.equals(expected.getInterfaceNames(),
+				actual.getInterfaceNames()));
+		assertEquals(expected.getSourceFileName(), actual.getSourceFileName());
+		assertSameNode(expected, actual);
+		assertEquals(expected.getClassCounter(), actual.getClassCounter());
+		assertEquals(expected.getMethods().size(), actual.getMethods().size());
+		final Iterator<IMethodCoverage> e = expected.getMethods().iterator();
+		final Iterator<IMethodCoverage> a = actual.getMethods().iterator();
+		while (e.hasNext()) {
+			final IMethodCoverage em = e.next();
+			final IMethodCoverage am = a.next();
+			assertEquals(em.getName(), am.getName());
+			assertEquals(em.getDesc(), am.getDesc());
+			assertEquals(em.getSignature(), am.getSignature());
+			assertSameNode(em, am);
+		}
+	}
+
+	private static void assertSameNode(final ISourceNode expected,
+			final ISourceNode actual) {
+		assertEquals(expected.getInstructionCounter(),
+				actual.getInstructionCounter());
+		assertEquals(expected.getBranchCounter(), actual.getBranchCounter());
+		assertEquals(expected.getLineCounter(), actual.getLineCounter());
+		assertEquals(expected.getComplexityCounter(),
+				actual.getComplexityCounter());
+		assertEquals(expected.getMethodCounter(), actual.getMethodCounter());
+		assertEquals(expected.getHitCount(), actual.getHitCount());
+		assertEquals(expected.getFirstLine(), actual.getFirstLine());
+		assertEquals(expected.getLastLine(), actual.getLastLine());
+		final int last = expected.getLastLine();
+		for (int nr = expected.getFirstLine(); nr <= last; nr++) {
+			assertEquals(expected.getLine(nr).getInstructionCounter(), actual
+					.getLine(nr).getInstructionCounter());
+			assertEquals(expected.getLine(nr).getBranchCounter(), actual
+					.getLine(nr).getBranchCounter());
+		}
+	}
+
+}
@@ -147,6 +147,54 @@ public class AnalyzerTest {
 		assertClasses("org/jacoco/core/analysis/AnalyzerTest");
 	}
 
+	@Test
+	public void testAnalyzeAll_ZipFile() throws IOException {
+		final ByteArrayOutputStream nested = new ByteArrayOutputStream();
+		final ZipOutputStream nestedZip = new ZipOutputStream(nested);
+		nestedZip.putNextEntry(new ZipEntry(
+				"org/jacoco/core/analysis/Analyzer.class"));
+		nestedZip.write(TargetLoader.getClassDataAsBytes(Analyzer.class));
+		nestedZip.finish();
+
+		final File file = new File(folder.getRoot(), "test.jar");
+		final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(
+				file));
+		zip.putNextEntry(new ZipEntry("org/jacoco/core/analysis/"));
+		zip.putNextEntry(new ZipEntry(
+				"org/jacoco/core/analysis/AnalyzerTest.class"));
+		zip.write(TargetLoader.getClassDataAsBytes(AnalyzerTest.class));
+		zip.putNextEntry(new ZipEntry("readme.txt"));
+		zip.write(new byte[1024]);
+		zip.putNextEntry(new ZipEntry("lib/nested.jar"));
+		zip.write(nested.toByteArray());
+		zip.close();
+
+		final int count = analyzer.analyzeAll(file);
+		assertEquals(2, count);
+		assertClasses("org/jacoco/core/analysis/AnalyzerTest",
+				"org/jacoco/core/analysis/Analyzer");
+	}
+
+	@Test
+	public void testAnalyzeAll_BrokenClassFileInZipFile() throws IOException {
+		final File file = new File(folder.getRoot(), "test.zip");
+		final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(
+				file));
+		zip.putNextEntry(new ZipEntry("Broken.class"));
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(AnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		zip.write(brokenclass);
+		zip.close();
+		try {
+			analyzer.analyzeAll(file);
+			fail("expected exception");
+		} catch (IOException e) {
+			assertEquals("Error while analyzing " + file.getPath()
+					+ "@Broken.class.", e.getMessage());
+		}
+	}
+
 	@Test
 	public void testAnalyzeAll_EmptyZipEntry() throws IOException {
 		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
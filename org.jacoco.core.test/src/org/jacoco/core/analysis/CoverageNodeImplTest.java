@@ -60,6 +60,7 @@ public class CoverageNodeImplTest {
 				complexityCounter = CounterImpl.getInstance(4, 2);
 				methodCounter = CounterImpl.getInstance(1, 21);
 				classCounter = CounterImpl.getInstance(1, 11);
+				hitCount = 123;
 			}
 		};
 		parent.increment(child);
@@ -79,6 +80,7 @@ public class CoverageNodeImplTest {
 		assertEquals(CounterImpl.getInstance(1, 21), parent.getMethodCounter());
 		assertEquals(CounterImpl.getInstance(1, 11), parent.getCounter(CLASS));
 		assertEquals(CounterImpl.getInstance(1, 11), parent.getClassCounter());
+		assertEquals(123, parent.getHitCount());
 	}
 
 	@Test
@@ -109,6 +111,7 @@ public class CoverageNodeImplTest {
 				instructionCounter = CounterImpl.getInstance(4, 4);
 				lineCounter = CounterImpl.getInstance(5, 5);
 				complexityCounter = CounterImpl.getInstance(6, 6);
+				hitCount = 7;
 			}
 		};
 		ICoverageNode copy = node.getPlainCopy();
@@ -121,6 +124,7 @@ public class CoverageNodeImplTest {
 				copy.getInstructionCounter());
 		assertEquals(CounterImpl.getInstance(5, 5), copy.getLineCounter());
 		assertEquals(CounterImpl.getInstance(6, 6), copy.getComplexityCounter());
+		assertEquals(7, copy.getHitCount());
 	}
 
 	@Test
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.test.TargetLoader;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ParallelAnalyzer}.
+ */
+public class ParallelAnalyzerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutionDataStore executionData;
+
+	private List<IClassCoverage> classes;
+
+	private ICoverageVisitor visitor;
+
+	@Before
+	public void setup() {
+		executionData = new ExecutionDataStore();
+		classes = new ArrayList<IClassCoverage>();
+		visitor = new ICoverageVisitor() {
+			public void visitCoverage(final IClassCoverage coverage) {
+				classes.add(coverage);
+			}
+		};
+	}
+
+	@Test
+	public void testAnalyzeAll_Folder() throws IOException {
+		createClassfile("bin1", Analyzer.class);
+		createClassfile("bin2", ParallelAnalyzer.class);
+		final int count = new ParallelAnalyzer(executionData, visitor, 2)
+				.analyzeAll(folder.getRoot());
+		assertEquals(2, count);
+		assertEquals(2, classes.size());
+	}
+
+	@Test
+	public void testAnalyzeAll_Path() throws IOException {
+		createClassfile("bin1", Analyzer.class);
+		createClassfile("bin2", ParallelAnalyzer.class);
+		final String path = "bin1" + File.pathSeparator + "bin2";
+		final int count = new ParallelAnalyzer(executionData, visitor, 2)
+				.analyzeAll(path, folder.getRoot());
+		assertEquals(2, count);
+		assertEquals("org/jacoco/core/analysis/Analyzer", classes.get(0)
+				.getName());
+		assertEquals("org/jacoco/core/analysis/ParallelAnalyzer", classes
+				.get(1).getName());
+	}
+
+	@Test
+	public void testAnalyzeAll_Empty() throws IOException {
+		final int count = new ParallelAnalyzer(executionData, visitor, 2)
+				.analyzeAll(folder.getRoot());
+		assertEquals(0, count);
+		assertTrue(classes.isEmpty());
+	}
+
+	@Test
+	public void testAnalyzeAll_SameAsAnalyzer() throws IOException {
+		createClassfile("bin1", Analyzer.class);
+		executionData.put(new ExecutionData(42,
+				"org/jacoco/core/analysis/ParallelAnalyzerTest",
+				new boolean[1]));
+		createJar("lib/test.jar", ParallelAnalyzerTest.class,
+				ICoverageVisitor.class, CoverageBuilder.class);
+		final ByteArrayOutputStream nested = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(nested);
+		zip.putNextEntry(new ZipEntry("nested.jar"));
+		zip.write(createJarBytes(Analyzer.class));
+		zip.putNextEntry(new ZipEntry("readme.txt"));
+		zip.close();
+		write("lib/outer.zip", nested.toByteArray());
+
+		final int expectedCount = new Analyzer(executionData, visitor)
+				.analyzeAll(folder.getRoot());
+		final List<IClassCoverage> expected = classes;
+		for (final int threads : new int[] { 1, 2, 4 }) {
+			classes = new ArrayList<IClassCoverage>();
+			final int count = new ParallelAnalyzer(executionData, visitor,
+					threads).analyzeAll(folder.getRoot());
+			assertEquals(expectedCount, count);
+			assertEquals(expected.size(), classes.size());
+			for (int i = 0; i < expected.size(); i++) {
+				final IClassCoverage e = expected.get(i);
+				final IClassCoverage a = classes.get(i);
+				assertEquals(e.getName(), a.getName());
+				assertEquals(e.getId(), a.getId());
+				assertEquals(Boolean.valueOf(e.isNoMatch()),
+						Boolean.valueOf(a.isNoMatch()));
+				assertEquals(e.getInstructionCounter(),
+						a.getInstructionCounter());
+				assertEquals(e.getBranchCounter(), a.getBranchCounter());
+			}
+		}
+		assertEquals(5, expectedCount);
+		int noMatch = 0;
+		for (final IClassCoverage c : classes) {
+			noMatch += c.isNoMatch() ? 1 : 0;
+		}
+		assertEquals(1, noMatch);
+	}
+
+	@Test
+	public void testAnalyzeAll_ZipFileWithManyEntries() throws IOException {
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(Analyzer.class);
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		for (int i = 0; i < 200; i++) {
+			zip.putNextEntry(new ZipEntry("dir" + i + "/"));
+			zip.putNextEntry(new ZipEntry("dir" + i + "/Analyzer.class"));
+			zip.write(bytes);
+			zip.putNextEntry(new ZipEntry("dir" + i + "/readme.txt"));
+		}
+		zip.close();
+		final File file = write("lib/test.jar", buffer.toByteArray());
+		final int count = new ParallelAnalyzer(executionData, visitor, 2)
+				.analyzeAll(file);
+		assertEquals(200, count);
+		assertEquals(200, classes.size());
+	}
+
+	@Test
+	public void testAnalyzeAll_BrokenZip() throws IOException {
+		final byte[] buffer = new byte[30];
+		buffer[0] = 0x50;
+		buffer[1] = 0x4b;
+		buffer[2] = 0x03;
+		buffer[3] = 0x04;
+		Arrays.fill(buffer, 4, buffer.length, (byte) 0x42);
+		final File file = write("Test.zip", buffer);
+		try {
+			new ParallelAnalyzer(executionData, visitor, 2).analyzeAll(file);
+			fail("expected exception");
+		} catch (IOException e) {
+			assertEquals("Error while analyzing " + file.getPath() + ".",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void testAnalyzeAll_BrokenClassFileInZip() throws IOException {
+		final byte[] brokenclass = TargetLoader
+				.getClassDataAsBytes(ParallelAnalyzerTest.class);
+		brokenclass[10] = 0x23;
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		zip.putNextEntry(new ZipEntry("Broken.class"));
+		zip.write(brokenclass);
+		zip.close();
+		final File file = write("test.zip", buffer.toByteArray());
+		try {
+			new ParallelAnalyzer(executionData, visitor, 2).analyzeAll(file);
+			fail("expected exception");
+		} catch (IOException e) {
+			assertEquals("Error while analyzing " + file.getPath()
+					+ "@Broken.class.", e.getMessage());
+		}
+	}
+
+	private void createClassfile(final String dir, final Class<?> source)
+			throws IOException {
+		write(dir + "/some.class", TargetLoader.getClassDataAsBytes(source));
+	}
+
+	private void createJar(final String name, final Class<?>... sources)
+			throws IOException {
+		write(name, createJarBytes(sources));
+	}
+
+	private byte[] createJarBytes(final Class<?>... sources)
+			throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(buffer);
+		for (final Class<?> source : sources) {
+			zip.putNextEntry(new ZipEntry(source.getName().replace('.', '/')
+					+ ".class"));
+			zip.write(TargetLoader.getClassDataAsBytes(source));
+		}
+		zip.close();
+		return buffer.toByteArray();
+	}
+
+	private File write(final String name, final byte[] content)
+			throws IOException {
+		final File file = new File(folder.getRoot(), name);
+		file.getParentFile().mkdirs();
+		final OutputStream out = new FileOutputStream(file);
+		out.write(content);
+		out.close();
+		return file;
+	}
+
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.jacoco.core.data.ExecutionDataAlgebra.Operation;
+import org.jacoco.core.data.ExecutionDataAlgebra.Result;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ExecutionDataAlgebra}.
+ */
+public class ExecutionDataAlgebraTest {
+
+	private ExecutionDataStore a;
+
+	private ExecutionDataStore b;
+
+	private ExecutionDataAlgebra algebra;
+
+	@Before
+	public void setup() {
+		a = new ExecutionDataStore();
+		b = new ExecutionDataStore();
+		algebra = new ExecutionDataAlgebra();
+		a.put(new ExecutionData(1, "Both", new boolean[] { true, true, false,
+				false }));
+		b.put(new ExecutionData(1, "Both", new boolean[] { true, false, true,
+				false }));
+		a.put(new ExecutionData(2, "OnlyA", new boolean[] { false, true }));
+		b.put(new ExecutionData(3, "OnlyB",
+				new boolean[] { true, true, true }));
+	}
+
+	@Test
+	public void testUnion() {
+		final Result result = algebra.union(a, b);
+		assertProbes(result, 1, true, true, true, false);
+		assertProbes(result, 2, false, true);
+		assertProbes(result, 3, true, true, true);
+		assertEquals(3, result.getClassCount());
+		assertEquals(7, result.getProbeCount());
+	}
+
+	@Test
+	public void testIntersect() {
+		final Result result = algebra.intersect(a, b);
+		assertProbes(result, 1, true, false, false, false);
+		assertNull(result.getStore().get(2));
+		assertNull(result.getStore().get(3));
+		assertEquals(1, result.getClassCount());
+		assertEquals(1, result.getProbeCount());
+	}
+
+	@Test
+	public void testDifference() {
+		final Result result = algebra.difference(a, b);
+		assertProbes(result, 1, false, true, false, false);
+		assertProbes(result, 2, false, true);
+		assertNull(result.getStore().get(3));
+		assertEquals(2, result.getClassCount());
+		assertEquals(2, result.getProbeCount());
+	}
+
+	@Test
+	public void testXor() {
+		final Result result = algebra.xor(a, b);
+		assertProbes(result, 1, false, true, true, false);
+		assertProbes(result, 2, false, true);
+		assertProbes(result, 3, true, true, true);
+		assertEquals(3, result.getClassCount());
+		assertEquals(6, result.getProbeCount());
+	}
+
+	@Test
+	public void testOperandsNotModified() {
+		algebra.xor(a, b);
+		assertTrue(Arrays.equals(new boolean[] { true, true, false, false },
+				a.get(1).getProbes()));
+		assertTrue(Arrays.equals(new boolean[] { true, false, true, false },
+				b.get(1).getProbes()));
+	}
+
+	@Test
+	public void testEmptyStores() {
+		final Result result = algebra.union(new ExecutionDataStore(),
+				new ExecutionDataStore());
+		assertTrue(result.getStore().getContents().isEmpty());
+		assertEquals(0, result.getClassCount());
+		assertEquals(0, result.getProbeCount());
+	}
+
+	@Test
+	public void testHitCounts() {
+		final ExecutionDataStore hits = new ExecutionDataStore();
+		hits.put(new ExecutionData(2, "OnlyA", new int[] { 5, 0 }));
+		final Result result = algebra.difference(hits, a);
+		assertProbes(result, 2, true, false);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIncompatible() {
+		b.put(new ExecutionData(2, "OnlyA", new boolean[] { true }));
+		algebra.union(a, b);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIncompatibleConcurrent() {
+		b.put(new ExecutionData(2, "OnlyA", new boolean[] { true }));
+		new ExecutionDataAlgebra(3).union(a, b);
+	}
+
+	@Test
+	public void testConcurrent() {
+		final Random random = new Random(3);
+		final ExecutionDataStore x = new ExecutionDataStore();
+		final ExecutionDataStore y = new ExecutionDataStore();
+		for (int i = 0; i < 500; i++) {
+			final long id = random.nextLong();
+			x.put(new ExecutionData(id, "C" + i,
+					createProbes(random, i % 150)));
+			if (i % 3 != 0) {
+				y.put(new ExecutionData(id, "C" + i, createProbes(random,
+						i % 150)));
+			}
+		}
+		for (final Operation operation : Operation.values()) {
+			final Result expected = algebra.apply(operation, x, y);
+			final Result actual = new ExecutionDataAlgebra(4).apply(operation,
+					x, y);
+			assertEquals(expected.getClassCount(), actual.getClassCount());
+			assertEquals(expected.getProbeCount(), actual.getProbeCount());
+			for (final ExecutionData data : expected.getStore().getContents()) {
+				assertTrue(Arrays.equals(data.getProbes(), actual.getStore()
+						.get(data.getId()).getProbes()));
+			}
+		}
+	}
+
+	@Test
+	public void testSameAsBooleanOperations() {
+		final Random random = new Random(5);
+		final boolean[] x = createProbes(random, 1000);
+		final boolean[] y = createProbes(random, 1000);
+		final ExecutionDataStore sx = new ExecutionDataStore();
+		sx.put(new ExecutionData(1, "C", x));
+		final ExecutionDataStore sy = new ExecutionDataStore();
+		sy.put(new ExecutionData(1, "C", y));
+		final boolean[] xor = algebra.xor(sx, sy).getStore().get(1)
+				.getProbes();
+		for (int i = 0; i < x.length; i++) {
+			assertEquals(Boolean.valueOf(x[i] ^ y[i]), Boolean.valueOf(xor[i]));
+		}
+	}
+
+	private static boolean[] createProbes(final Random random,
+			final int count) {
+		final boolean[] probes = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			probes[i] = random.nextBoolean();
+		}
+		return probes;
+	}
+
+	private static void assertProbes(final Result result, final long id,
+			final boolean... expected) {
+		assertTrue(Arrays.equals(expected, result.getStore().get(id)
+				.getProbes()));
+	}
+
+}
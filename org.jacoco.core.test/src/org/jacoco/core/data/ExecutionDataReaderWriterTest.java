@@ -14,6 +14,7 @@ package org.jacoco.core.data;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -142,12 +143,38 @@ public class ExecutionDataReaderWriterTest {
 		buffer.write(ExecutionDataWriter.BLOCK_HEADER);
 		buffer.write(0xC0);
 		buffer.write(0xC0);
-		final char version = (char) (ExecutionDataWriter.FORMAT_VERSION - 1);
+		final char version = (char) (ExecutionDataWriter.FORMAT_VERSION + 1);
 		buffer.write(version >> 8);
 		buffer.write(version & 0xFF);
 		createReader().read();
 	}
 
+	@Test
+	public void testPreviousVersion() throws IOException {
+		buffer = new ByteArrayOutputStream();
+		buffer.write(ExecutionDataWriter.BLOCK_HEADER);
+		buffer.write(0xC0);
+		buffer.write(0xC0);
+		buffer.write(0x10);
+		buffer.write(0x07);
+		buffer.write(ExecutionDataWriter.BLOCK_EXECUTIONDATA);
+		for (int i = 0; i < 7; i++) {
+			buffer.write(0);
+		}
+		buffer.write(3);
+		buffer.write(0);
+		buffer.write(1);
+		buffer.write('A');
+		buffer.write(2);
+		buffer.write(0x02);
+		final ExecutionDataReader reader = createReaderWithVisitors();
+		assertFalse(reader.read());
+		final ExecutionData data = store.get(3);
+		assertEquals("A", data.getName());
+		assertFalse(data.getProbes()[0]);
+		assertTrue(data.getProbes()[1]);
+	}
+
 	@Test(expected = IOException.class)
 	public void testMissingHeader() throws IOException {
 		buffer.reset();
@@ -282,6 +309,194 @@ public class ExecutionDataReaderWriterTest {
 		assertArrayEquals(data, store.get(123).getProbes());
 	}
 
+	@Test
+	public void testSparseEncodingByDefault() throws IOException {
+		final boolean[] data = new boolean[5000];
+		data[17] = true;
+		buffer.reset();
+		writer.visitClassExecution(new ExecutionData(123, "Sample", data));
+		assertEquals(ExecutionDataWriter.BLOCK_EXECUTIONDATA_ENCODED,
+				buffer.toByteArray()[0]);
+	}
+
+	@Test
+	public void testSparseEncodingDisabled() throws IOException {
+		final boolean[] data = new boolean[5000];
+		data[17] = true;
+		buffer.reset();
+		writer.setSparseEncoding(false);
+		writer.visitClassExecution(new ExecutionData(123, "Sample", data));
+		assertEquals(ExecutionDataWriter.BLOCK_EXECUTIONDATA,
+				buffer.toByteArray()[0]);
+	}
+
+	@Test
+	public void testSparseClass() throws IOException {
+		final boolean[] data = new boolean[5000];
+		data[17] = true;
+		data[4999] = true;
+		writer.visitClassExecution(new ExecutionData(123, "Sample", data));
+		assertFalse(createReaderWithVisitors().read());
+		assertArrayEquals(data, store.get(123).getProbes());
+	}
+
+	@Test
+	public void testRunLengthClass() throws IOException {
+		final boolean[] data = new boolean[5000];
+		Arrays.fill(data, 100, 3000, true);
+		Arrays.fill(data, 4000, 5000, true);
+		writer.visitClassExecution(new ExecutionData(123, "Sample", data));
+		assertFalse(createReaderWithVisitors().read());
+		assertArrayEquals(data, store.get(123).getProbes());
+	}
+
+	@Test
+	public void testHitCounts() throws IOException {
+		final int[] hits = new int[] { 0, 1, 300, Integer.MAX_VALUE };
+		writer.visitClassExecution(new ExecutionData(3, "Sample", hits));
+		assertFalse(createReaderWithVisitors().read());
+		assertTrue(Arrays.equals(hits, store.get(3).getHits()));
+		assertArrayEquals(new boolean[] { false, true, true, true },
+				store.get(3).getProbes());
+	}
+
+	@Test
+	public void testNoHitCounts() throws IOException {
+		writer.visitClassExecution(new ExecutionData(3, "Sample", new int[2]));
+		assertFalse(createReaderWithVisitors().read());
+		assertTrue(store.getContents().isEmpty());
+	}
+
+	@Test
+	public void testStoreMergeInPlace() throws IOException {
+		final ExecutionData entry = new ExecutionData(3, new String("Sample"),
+				new boolean[] { true, false, false, false });
+		store.put(entry);
+		store.put(new ExecutionData(5, "Other", new boolean[0]));
+		writer.visitClassExecution(new ExecutionData(3, "Sample",
+				new boolean[] { false, true, false, false }));
+		final boolean[] sparse = new boolean[4];
+		sparse[3] = true;
+		writer.visitClassExecution(new ExecutionData(3, "Sample", sparse));
+		writer.visitClassExecution(new ExecutionData(6, new String("Other"),
+				new boolean[] { true }));
+		final ExecutionDataReader reader = createReader();
+		reader.setExecutionDataStore(store);
+		assertFalse(reader.read());
+		assertSame(entry, store.get(3));
+		assertArrayEquals(new boolean[] { true, true, false, true },
+				entry.getProbes());
+		assertSame(store.get(5).getName(), store.get(6).getName());
+	}
+
+	@Test
+	public void testStoreHitCounts() throws IOException {
+		store.put(new ExecutionData(3, "Sample", new int[] { 2, 0 }));
+		writer.visitClassExecution(new ExecutionData(3, "Sample",
+				new boolean[] { true, true }));
+		final ExecutionDataReader reader = createReader();
+		reader.setExecutionDataStore(store);
+		assertFalse(reader.read());
+		assertTrue(Arrays.equals(new int[] { 3, 1 }, store.get(3).getHits()));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testStoreIncompatibleProbeCount() throws IOException {
+		store.put(new ExecutionData(3, "Sample", new boolean[2]));
+		writer.visitClassExecution(new ExecutionData(3, "Sample",
+				new boolean[] { true, false, false }));
+		final ExecutionDataReader reader = createReader();
+		reader.setExecutionDataStore(store);
+		reader.read();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testStoreIncompatibleName() throws IOException {
+		store.put(new ExecutionData(3, "Sample", new boolean[2]));
+		writer.visitClassExecution(new ExecutionData(3, "Other",
+				new boolean[] { true, false }));
+		final ExecutionDataReader reader = createReader();
+		reader.setExecutionDataStore(store);
+		reader.read();
+	}
+
+	@Test
+	public void testCompression() throws IOException {
+		final int start = buffer.size();
+		writer.setCompression(true);
+		writer.visitSessionInfo(new SessionInfo("id", 1, 2));
+		final boolean[] data = createData(100);
+		writer.visitClassExecution(new ExecutionData(3, "Sample", data));
+		writer.flush();
+		assertEquals(ExecutionDataWriter.BLOCK_COMPRESSED,
+				buffer.toByteArray()[start]);
+		assertFalse(createReaderWithVisitors().read());
+		assertEquals("id", sessionInfo.getId());
+		assertArrayEquals(data, store.get(3).getProbes());
+	}
+
+	@Test
+	public void testCompressionMultipleChunks() throws IOException {
+		writer.setCompression(true);
+		final boolean[][] data = new boolean[3000][];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = createData(100);
+			writer.visitClassExecution(new ExecutionData(i, "org/jacoco/Sample"
+					+ i, data[i]));
+		}
+		writer.setCompression(false);
+		final boolean[] last = createData(10);
+		writer.visitClassExecution(new ExecutionData(-1, "Last", last));
+		assertFalse(createReaderWithVisitors().read());
+		for (int i = 0; i < data.length; i++) {
+			assertArrayEquals(data[i], store.get(i).getProbes());
+		}
+		assertArrayEquals(last, store.get(-1).getProbes());
+	}
+
+	@Test
+	public void testCompressionAppended() throws IOException {
+		writer.setCompression(true);
+		final boolean[] data1 = createData(100);
+		writer.visitClassExecution(new ExecutionData(3, "Sample", data1));
+		writer.flush();
+		final ExecutionDataWriter second = createWriter(buffer);
+		second.setCompression(true);
+		final boolean[] data2 = createData(100);
+		second.visitClassExecution(new ExecutionData(3, "Sample", data2));
+		second.flush();
+		second.visitClassExecution(new ExecutionData(4, "Sample", data2));
+		second.flush();
+		assertFalse(createReaderWithVisitors().read());
+		for (int i = 0; i < data1.length; i++) {
+			assertEquals(Boolean.valueOf(data1[i] || data2[i]),
+					Boolean.valueOf(store.get(3).getProbes()[i]));
+		}
+		assertArrayEquals(data2, store.get(4).getProbes());
+	}
+
+	@Test
+	public void testCompressionEmptyFlush() throws IOException {
+		final int size = buffer.size();
+		writer.setCompression(true);
+		writer.flush();
+		assertEquals(size, buffer.size());
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidCompressedBlock() throws IOException {
+		buffer.write(ExecutionDataWriter.BLOCK_COMPRESSED);
+		buffer.write(3);
+		buffer.write(3);
+		buffer.write(new byte[] { 1, 2, 3 });
+		createReaderWithVisitors().read();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testCompressionWithDirectory() throws IOException {
+		new ExecutionDataWriter(buffer, true).setCompression(true);
+	}
+
 	@Test(expected = RuntimeException.class)
 	public void testExecutionDataIOException() throws IOException {
 		final boolean[] broken = new boolean[1];
@@ -115,6 +115,33 @@ public class ExecutionDataStoreTest implements IExecutionDataVisitor {
 		assertTrue(store.contains("Sample"));
 	}
 
+	@Test
+	public void testGetWithCreateSharesNames() {
+		final ExecutionData a = store.get(Long.valueOf(1000), new String(
+				"Sample"), 3);
+		final ExecutionData b = store.get(Long.valueOf(1001), new String(
+				"Sample"), 3);
+		assertSame(a.getName(), b.getName());
+	}
+
+	@Test
+	public void testManyEntries() {
+		final ExecutionData[] data = new ExecutionData[10000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = new ExecutionData(i * 1024L, "Sample" + i,
+					new boolean[] { true });
+			store.put(data[i]);
+		}
+		for (int i = 0; i < data.length; i++) {
+			assertSame(data[i], store.get(i * 1024L));
+			assertTrue(store.contains("Sample" + i));
+		}
+		assertNull(store.get(-1));
+		assertFalse(store.contains("Sample"));
+		assertEquals(new HashSet<ExecutionData>(Arrays.asList(data)),
+				new HashSet<ExecutionData>(store.getContents()));
+	}
+
 	@Test(expected = IllegalStateException.class)
 	public void testGetNegative1() {
 		final boolean[] data = new boolean[] { false, false, true };
@@ -43,6 +43,36 @@ public class ExecutionDataTest {
 		assertSame(data, e.getProbes());
 	}
 
+	@Test
+	public void testCreatePacked() {
+		final PackedProbes packed = new PackedProbes(70);
+		packed.set(1, true);
+		packed.set(69, true);
+		final ExecutionData e = new ExecutionData(5, "Example", packed);
+		assertEquals(70, e.getProbes().length);
+		assertTrue(e.getProbes()[1]);
+		assertFalse(e.getProbes()[2]);
+		assertTrue(e.getProbes()[69]);
+	}
+
+	@Test
+	public void testGetPackedProbes() {
+		final ExecutionData e = new ExecutionData(5, "Example", new boolean[] {
+				false, true, true });
+		final PackedProbes packed = e.getPackedProbes();
+		assertEquals(3, packed.getLength());
+		assertEquals(0x6L, packed.getWords()[0]);
+		packed.reset();
+		assertTrue(e.getProbes()[1]);
+	}
+
+	@Test
+	public void testGetPackedProbesWithHits() {
+		final ExecutionData e = new ExecutionData(5, "Example", new int[] {
+				0, 3 });
+		assertEquals(0x2L, e.getPackedProbes().getWords()[0]);
+	}
+
 	@Test
 	public void testReset() {
 		final ExecutionData e = new ExecutionData(5, "Example", new boolean[] {
@@ -111,6 +141,110 @@ public class ExecutionDataTest {
 		assertTrue(b.getProbes()[3]);
 	}
 
+	@Test
+	public void testCreateWithHits() {
+		final int[] hits = new int[] { 0, 3, 0 };
+		final ExecutionData e = new ExecutionData(5, "Example", hits);
+		assertSame(hits, e.getHits());
+		assertTrue(e.hasHits());
+		assertFalse(e.getProbes()[0]);
+		assertTrue(e.getProbes()[1]);
+		assertFalse(e.getProbes()[2]);
+
+		hits[2] = 1;
+		assertTrue(e.getProbes()[2]);
+	}
+
+	@Test
+	public void testNoHitCounts() {
+		final ExecutionData e = new ExecutionData(5, "Example", new int[2]);
+		assertFalse(e.hasHits());
+	}
+
+	@Test
+	public void testResetWithHits() {
+		final ExecutionData e = new ExecutionData(5, "Example", new int[] { 1,
+				2 });
+		e.reset();
+		assertEquals(0, e.getHits()[0]);
+		assertEquals(0, e.getHits()[1]);
+		assertFalse(e.getProbes()[0]);
+		assertFalse(e.hasHits());
+	}
+
+	@Test
+	public void testMergeHits() {
+		final ExecutionData a = new ExecutionData(5, "Example", new int[] { 0,
+				2, 0, 3, Integer.MAX_VALUE - 1 });
+		final ExecutionData b = new ExecutionData(5, "Example", new int[] { 0,
+				0, 4, 5, 2 });
+		a.merge(b);
+
+		assertEquals(0, a.getHits()[0]);
+		assertEquals(2, a.getHits()[1]);
+		assertEquals(4, a.getHits()[2]);
+		assertEquals(8, a.getHits()[3]);
+		assertEquals(Integer.MAX_VALUE, a.getHits()[4]);
+		assertTrue(a.getProbes()[2]);
+
+		// b must not be modified:
+		assertEquals(4, b.getHits()[2]);
+	}
+
+	@Test
+	public void testMergeProbesIntoHits() {
+		final ExecutionData a = new ExecutionData(5, "Example", new int[] { 0,
+				2, 3 });
+		final ExecutionData b = new ExecutionData(5, "Example", new boolean[] {
+				true, false, true });
+		a.merge(b);
+
+		assertEquals(1, a.getHits()[0]);
+		assertEquals(2, a.getHits()[1]);
+		assertEquals(4, a.getHits()[2]);
+	}
+
+	@Test
+	public void testMergeHitsIntoProbes() {
+		final ExecutionData a = new ExecutionData(5, "Example", new boolean[] {
+				true, false, true });
+		final ExecutionData b = new ExecutionData(5, "Example", new int[] { 0,
+				2, 3 });
+		a.merge(b);
+
+		assertEquals(1, a.getHits()[0]);
+		assertEquals(2, a.getHits()[1]);
+		assertEquals(4, a.getHits()[2]);
+		assertTrue(a.getProbes()[1]);
+
+		// b must not be modified:
+		assertEquals(2, b.getHits()[1]);
+	}
+
+	@Test
+	public void testGetProbesWithHitsIsCopy() {
+		final ExecutionData e = new ExecutionData(5, "Example", new int[] { 0,
+				1 });
+		e.getProbes()[0] = true;
+		assertFalse(e.getProbes()[0]);
+		assertEquals(0, e.getHits()[0]);
+	}
+
+	@Test
+	public void testMergeSubtractHits() {
+		final ExecutionData a = new ExecutionData(5, "Example", new int[] { 0,
+				2, 0, 3 });
+		final ExecutionData b = new ExecutionData(5, "Example", new int[] { 0,
+				0, 4, 5 });
+		a.merge(b, false);
+
+		assertEquals(0, a.getHits()[0]);
+		assertEquals(2, a.getHits()[1]);
+		assertEquals(0, a.getHits()[2]);
+		assertEquals(0, a.getHits()[3]);
+		assertFalse(a.getProbes()[3]);
+	}
+
 	@Test
 	public void testAssertCompatibility() {
 		final ExecutionData a = new ExecutionData(5, "Example",
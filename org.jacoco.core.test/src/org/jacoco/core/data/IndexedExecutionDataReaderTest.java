@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link IndexedExecutionDataReader}.
+ */
+public class IndexedExecutionDataReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private IndexedExecutionDataReader reader;
+
+	@Before
+	public void setup() throws IOException {
+		file = folder.newFile("test.exec");
+	}
+
+	@After
+	public void teardown() throws IOException {
+		if (reader != null) {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testIndexed() throws IOException {
+		write(true, false);
+		reader = new IndexedExecutionDataReader(file);
+		assertTrue(reader.isIndexed());
+		assertContent();
+	}
+
+	@Test
+	public void testNotIndexed() throws IOException {
+		write(false, false);
+		reader = new IndexedExecutionDataReader(file);
+		assertFalse(reader.isIndexed());
+		assertContent();
+	}
+
+	@Test
+	public void testIndexedSmallWindows() throws IOException {
+		write(true, false);
+		reader = new IndexedExecutionDataReader(file, 7);
+		assertTrue(reader.isIndexed());
+		assertContent();
+	}
+
+	@Test
+	public void testNotIndexedSmallWindows() throws IOException {
+		write(false, false);
+		reader = new IndexedExecutionDataReader(file, 7);
+		assertFalse(reader.isIndexed());
+		assertContent();
+	}
+
+	@Test
+	public void testPreviousVersion() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		out.write(new byte[] { 1, (byte) 0xC0, (byte) 0xC0, 0x10, 0x07 });
+		out.close();
+		reader = new IndexedExecutionDataReader(file);
+		assertEquals(0, reader.getIds().length);
+	}
+
+	@Test
+	public void testAppendedToIndexed() throws IOException {
+		write(true, false);
+		write(false, true);
+		reader = new IndexedExecutionDataReader(file);
+		assertFalse(reader.isIndexed());
+		assertProbes("[true, true, false]", reader.get(3).getProbes());
+		assertEquals(4, reader.getSessionInfos().size());
+	}
+
+	@Test
+	public void testIndexedAppended() throws IOException {
+		write(false, false);
+		write(true, true);
+		reader = new IndexedExecutionDataReader(file);
+		assertFalse(reader.isIndexed());
+		assertProbes("[true, true, false]", reader.get(3).getProbes());
+	}
+
+	@Test
+	public void testEncodedProbes() throws IOException {
+		final boolean[] probes = new boolean[1000];
+		probes[42] = true;
+		ExecutionDataWriter writer = new ExecutionDataWriter(
+				new FileOutputStream(file), false);
+		writer.visitClassExecution(new ExecutionData(7, "E", probes));
+		writer.close();
+		reader = new IndexedExecutionDataReader(file);
+		assertEquals(Arrays.toString(probes),
+				Arrays.toString(reader.get(7).getProbes()));
+		reader.close();
+
+		writer = new ExecutionDataWriter(new FileOutputStream(file), true);
+		writer.visitClassExecution(new ExecutionData(7, "E", probes));
+		writer.close();
+		reader = new IndexedExecutionDataReader(file);
+		assertEquals(Arrays.toString(probes),
+				Arrays.toString(reader.get(7).getProbes()));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		final ExecutionDataWriter writer = new ExecutionDataWriter(
+				new FileOutputStream(file), true);
+		writer.close();
+		reader = new IndexedExecutionDataReader(file);
+		assertTrue(reader.isIndexed());
+		assertEquals(0, reader.getIds().length);
+		assertNull(reader.get(1));
+		assertNull(reader.getName(1));
+		assertTrue(reader.getSessionInfos().isEmpty());
+	}
+
+	@Test
+	public void testSequentialRead() throws IOException {
+		write(true, false);
+		final InputStream in = new FileInputStream(file);
+		final ExecutionDataReader sequential = new ExecutionDataReader(in);
+		final ExecutionDataStore store = new ExecutionDataStore();
+		final SessionInfoStore sessions = new SessionInfoStore();
+		sequential.setExecutionDataVisitor(store);
+		sequential.setSessionInfoVisitor(sessions);
+		assertFalse(sequential.read());
+		in.close();
+		assertEquals(3, store.getContents().size());
+		assertEquals(2, sessions.getInfos().size());
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidFile() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		out.write(new byte[] { 1, 2, 3, 4, 5, 6 });
+		out.close();
+		reader = new IndexedExecutionDataReader(file);
+	}
+
+	@Test(expected = IncompatibleExecDataVersionException.class)
+	public void testInvalidVersion() throws IOException {
+		final OutputStream out = new FileOutputStream(file);
+		out.write(new byte[] { 1, (byte) 0xC0, (byte) 0xC0, 0, 1 });
+		out.close();
+		reader = new IndexedExecutionDataReader(file);
+	}
+
+	private void write(final boolean directory, final boolean append)
+			throws IOException {
+		final ExecutionDataWriter writer = new ExecutionDataWriter(
+				new FileOutputStream(file, append), directory);
+		writer.visitSessionInfo(new SessionInfo("session", 1, 2));
+		writer.visitClassExecution(new ExecutionData(3, "c/C", new boolean[] {
+				true, false, false }));
+		writer.visitClassExecution(new ExecutionData(-5, "a/A",
+				new boolean[] { true }));
+		writer.visitClassExecution(new ExecutionData(1, "b/B",
+				new int[] { 0, 4 }));
+		writer.visitSessionInfo(new SessionInfo("other", 3, 4));
+		writer.visitClassExecution(new ExecutionData(3, "c/C", new boolean[] {
+				false, true, false }));
+		writer.close();
+	}
+
+	private void assertContent() throws IOException {
+		assertArrayEquals(new long[] { -5, 1, 3 }, reader.getIds());
+		assertTrue(reader.contains(-5));
+		assertTrue(reader.contains(3));
+		assertFalse(reader.contains(2));
+		assertFalse(reader.contains(4));
+
+		assertEquals("a/A", reader.getName(-5));
+		assertEquals("b/B", reader.getName(1));
+		assertEquals("c/C", reader.getName(3));
+		assertNull(reader.getName(2));
+
+		final ExecutionData a = reader.get(-5);
+		assertEquals("a/A", a.getName());
+		assertTrue(a.getProbes()[0]);
+		assertArrayEquals(new int[] { 0, 4 }, reader.get(1).getHits());
+		final ExecutionData c = reader.get(3);
+		assertEquals("c/C", c.getName());
+		assertProbes("[true, true, false]", c.getProbes());
+		assertNull(reader.get(2));
+
+		final List<SessionInfo> infos = reader.getSessionInfos();
+		assertEquals(2, infos.size());
+		assertEquals("session", infos.get(0).getId());
+		assertEquals(1, infos.get(0).getStartTimeStamp());
+		assertEquals(2, infos.get(0).getDumpTimeStamp());
+		assertEquals("other", infos.get(1).getId());
+	}
+
+	private static void assertProbes(final String expected,
+			final boolean[] actual) {
+		assertEquals(expected, Arrays.toString(actual));
+	}
+
+}
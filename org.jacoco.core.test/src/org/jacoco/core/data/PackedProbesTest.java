@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PackedProbes}.
+ */
+public class PackedProbesTest {
+
+	@Test
+	public void testCreateEmpty() {
+		final PackedProbes p = new PackedProbes(130);
+		assertEquals(130, p.getLength());
+		assertEquals(3, p.getWords().length);
+		assertFalse(p.hasHits());
+		assertEquals(0, p.getExecutedCount());
+	}
+
+	@Test
+	public void testCreateZeroLength() {
+		final PackedProbes p = new PackedProbes(new boolean[0]);
+		assertEquals(0, p.getLength());
+		assertEquals(0, p.getWords().length);
+		assertEquals(0, p.toBooleanArray().length);
+	}
+
+	@Test
+	public void testPackUnpack() {
+		final boolean[] probes = createProbes(1000);
+		final PackedProbes p = new PackedProbes(probes);
+		assertTrue(Arrays.equals(probes, p.toBooleanArray()));
+		for (int i = 0; i < probes.length; i++) {
+			assertEquals(Boolean.valueOf(probes[i]), Boolean.valueOf(p.get(i)));
+		}
+	}
+
+	@Test
+	public void testWordLayout() {
+		final boolean[] probes = new boolean[65];
+		probes[0] = true;
+		probes[63] = true;
+		probes[64] = true;
+		final PackedProbes p = new PackedProbes(probes);
+		assertEquals(0x8000000000000001L, p.getWords()[0]);
+		assertEquals(0x1L, p.getWords()[1]);
+	}
+
+	@Test
+	public void testSet() {
+		final PackedProbes p = new PackedProbes(100);
+		p.set(70, true);
+		assertTrue(p.get(70));
+		assertTrue(p.hasHits());
+		assertEquals(1, p.getExecutedCount());
+		p.set(70, false);
+		assertFalse(p.get(70));
+		assertFalse(p.hasHits());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetOutOfRange() {
+		new PackedProbes(64).get(64);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSetNegativeIndex() {
+		new PackedProbes(64).set(-1, true);
+	}
+
+	@Test
+	public void testExecutedCount() {
+		final boolean[] probes = createProbes(300);
+		int expected = 0;
+		for (final boolean b : probes) {
+			if (b) {
+				expected++;
+			}
+		}
+		assertEquals(expected, new PackedProbes(probes).getExecutedCount());
+	}
+
+	@Test
+	public void testReset() {
+		final PackedProbes p = new PackedProbes(createProbes(200));
+		p.reset();
+		assertFalse(p.hasHits());
+		assertTrue(Arrays.equals(new boolean[200], p.toBooleanArray()));
+	}
+
+	@Test
+	public void testMerge() {
+		final boolean[] a = createProbes(200);
+		final boolean[] b = createProbes(200);
+		final PackedProbes p = new PackedProbes(a);
+		p.merge(new PackedProbes(b), true);
+		final boolean[] result = p.toBooleanArray();
+		for (int i = 0; i < a.length; i++) {
+			assertEquals(Boolean.valueOf(a[i] || b[i]),
+					Boolean.valueOf(result[i]));
+		}
+	}
+
+	@Test
+	public void testSubtract() {
+		final boolean[] a = createProbes(200);
+		final boolean[] b = createProbes(200);
+		final PackedProbes p = new PackedProbes(a);
+		p.merge(new PackedProbes(b), false);
+		final boolean[] result = p.toBooleanArray();
+		for (int i = 0; i < a.length; i++) {
+			assertEquals(Boolean.valueOf(a[i] && !b[i]),
+					Boolean.valueOf(result[i]));
+		}
+	}
+
+	@Test
+	public void testMergeSameAsExecutionData() {
+		final boolean[] a = createProbes(500);
+		final boolean[] b = createProbes(500);
+		final PackedProbes p = new PackedProbes(a);
+		p.merge(new PackedProbes(b), false);
+		final ExecutionData e = new ExecutionData(1, "Sample", a);
+		e.merge(new ExecutionData(1, "Sample", b), false);
+		assertTrue(Arrays.equals(e.getProbes(), p.toBooleanArray()));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMergeDifferentLength() {
+		new PackedProbes(64).merge(new PackedProbes(65), true);
+	}
+
+	private boolean[] createProbes(final int length) {
+		final Random random = new Random(length);
+		final boolean[] probes = new boolean[length];
+		for (int i = 0; i < length; i++) {
+			probes[i] = random.nextBoolean();
+		}
+		return probes;
+	}
+
+}
@@ -23,6 +23,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Pack200;
@@ -33,6 +34,10 @@ import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.jacoco.core.analysis.AnalyzerTest;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.ModifiedSystemClassRuntime;
 import org.jacoco.core.runtime.RuntimeData;
 import org.jacoco.core.runtime.SystemPropertiesRuntime;
 import org.jacoco.core.test.TargetLoader;
@@ -65,6 +70,22 @@ public class InstrumenterTest {
 
 	}
 
+	public static class HitCountTarget implements Runnable {
+
+		public void run() {
+			for (int i = 0; i < 3; i++) {
+				count();
+			}
+		}
+
+		private void count() {
+		}
+
+	}
+
+	/** Access field for the hit count runtime. */
+	public static Object hitCountAccess;
+
 	private SystemPropertiesRuntime runtime;
 
 	private Instrumenter instrumenter;
@@ -91,6 +112,47 @@ public class InstrumenterTest {
 		assertEquals("org.jacoco.core.instr.InstrumenterTest", clazz.getName());
 	}
 
+	@Test(expected = IllegalStateException.class)
+	public void testSetHitCountsNotSupported() {
+		instrumenter.setHitCounts(true);
+	}
+
+	@Test
+	public void testInstrumentWithHitCounts() throws Exception {
+		final ModifiedSystemClassRuntime hitCountRuntime = new ModifiedSystemClassRuntime(
+				InstrumenterTest.class, "hitCountAccess");
+		final RuntimeData data = new RuntimeData();
+		hitCountRuntime.startup(data);
+		final Instrumenter hitCountInstrumenter = new Instrumenter(
+				hitCountRuntime);
+		hitCountInstrumenter.setHitCounts(true);
+
+		final byte[] bytes = hitCountInstrumenter.instrument(
+				TargetLoader.getClassDataAsBytes(HitCountTarget.class),
+				"HitCountTarget");
+		final Runnable target = (Runnable) new TargetLoader().add(
+				HitCountTarget.class, bytes).newInstance();
+		target.run();
+
+		final ExecutionDataStore store = new ExecutionDataStore();
+		data.collect(store, new SessionInfoStore(), false);
+		final ExecutionData executionData = store.getContents().iterator()
+				.next();
+		final int[] hits = executionData.getHits();
+		int max = 0;
+		for (final int h : hits) {
+			max = Math.max(max, h);
+		}
+		assertEquals(3, max);
+
+		// Counters saturate:
+		Arrays.fill(hits, Integer.MAX_VALUE);
+		target.run();
+		for (final int h : hits) {
+			assertEquals(Integer.MAX_VALUE, h);
+		}
+	}
+
 	@Test
 	public void testInstrumentBrokenClass1() throws IOException {
 		final byte[] brokenclass = TargetLoader
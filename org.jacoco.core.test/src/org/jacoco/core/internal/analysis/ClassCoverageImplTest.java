@@ -112,6 +112,33 @@ public class ClassCoverageImplTest {
 		assertEquals(CounterImpl.COUNTER_0_1, node.getClassCounter());
 	}
 
+	@Test
+	public void testLinesDerivedFromMethods() {
+		final MethodCoverageImpl m1 = new MethodCoverageImpl("m1", "()V", null);
+		m1.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 3);
+		m1.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 4);
+		final MethodCoverageImpl m2 = new MethodCoverageImpl("m2", "()V", null);
+		m2.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 3);
+		m2.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 6);
+		node.addMethod(m1);
+		assertEquals(CounterImpl.getInstance(1, 1), node.getLineCounter());
+		assertEquals(CounterImpl.COUNTER_1_0, node.getLine(3)
+				.getInstructionCounter());
+		node.addMethod(m2);
+
+		assertEquals(3, node.getFirstLine());
+		assertEquals(6, node.getLastLine());
+		assertEquals(CounterImpl.getInstance(1, 1), node.getLine(3)
+				.getInstructionCounter());
+		assertEquals(CounterImpl.COUNTER_0_1, node.getLine(4)
+				.getInstructionCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, node.getLine(5)
+				.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(1, 2), node.getLineCounter());
+		assertEquals(CounterImpl.getInstance(1, 2), node.getPlainCopy()
+				.getLineCounter());
+	}
+
 	private MethodCoverageImpl createMethod(boolean covered) {
 		final MethodCoverageImpl m = new MethodCoverageImpl("sample", "()V",
 				null);
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.internal.flow.LabelInfo;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Label;
+
+/**
+ * Unit tests for {@link InstructionGraph}.
+ */
+public class InstructionGraphTest {
+
+	private InstructionGraph graph;
+
+	@Before
+	public void setup() {
+		graph = new InstructionGraph();
+	}
+
+	@Test
+	public void testInit() {
+		assertEquals(0, graph.getInstructionCount());
+		final MethodCoverageImpl coverage = createCoverage(null);
+		assertEquals(CounterImpl.COUNTER_0_0, coverage.getInstructionCounter());
+	}
+
+	@Test
+	public void testSequence() {
+		final int i0 = graph.addInstruction(1, LabelInfo.NO_INSTRUCTION);
+		final int i1 = graph.addInstruction(2, i0);
+		graph.addProbe(i1, 0);
+		assertEquals(0, i0);
+		assertEquals(1, i1);
+		assertEquals(2, graph.getInstructionCount());
+
+		final MethodCoverageImpl covered = createCoverage(new boolean[] {
+				true });
+		assertEquals(CounterImpl.getInstance(0, 2),
+				covered.getInstructionCounter());
+		assertEquals(CounterImpl.COUNTER_0_0, covered.getBranchCounter());
+
+		final MethodCoverageImpl missed = createCoverage(new boolean[] {
+				false });
+		assertEquals(CounterImpl.getInstance(2, 0),
+				missed.getInstructionCounter());
+	}
+
+	@Test
+	public void testJump() {
+		final Label label = new Label();
+		final int i0 = graph.addInstruction(1, LabelInfo.NO_INSTRUCTION);
+		graph.addJump(i0, label);
+		final int i1 = graph.addInstruction(2, i0);
+		graph.addProbe(i1, 0);
+		final int i2 = graph.addInstruction(3, LabelInfo.NO_INSTRUCTION);
+		LabelInfo.setInstruction(label, i2);
+		graph.addProbe(i2, 1);
+		graph.wireJumps();
+
+		final MethodCoverageImpl coverage = createCoverage(new boolean[] {
+				false, true });
+		assertEquals(CounterImpl.getInstance(1, 2),
+				coverage.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(1, 1),
+				coverage.getBranchCounter());
+		final ICounter line = coverage.getLine(1).getBranchCounter();
+		assertEquals(CounterImpl.getInstance(1, 1), line);
+	}
+
+	@Test
+	public void testGrowAndReset() {
+		final Label label = new Label();
+		for (int r = 0; r < 2; r++) {
+			int insn = LabelInfo.NO_INSTRUCTION;
+			for (int i = 0; i < 1000; i++) {
+				insn = graph.addInstruction(i, insn);
+				graph.addJump(insn, label);
+				graph.addProbe(insn, i);
+			}
+			assertEquals(1000, graph.getInstructionCount());
+			LabelInfo.setInstruction(label, 0);
+			graph.wireJumps();
+			final boolean[] probes = new boolean[1000];
+			probes[999] = true;
+			final MethodCoverageImpl coverage = createCoverage(probes);
+			assertEquals(CounterImpl.getInstance(0, 1000),
+					coverage.getInstructionCounter());
+			graph.reset();
+			assertEquals(0, graph.getInstructionCount());
+		}
+	}
+
+	private MethodCoverageImpl createCoverage(final boolean[] probes) {
+		return graph.createStructure("foo", "()V", null, -1, -1)
+				.createCoverage(probes, null);
+	}
+
+}
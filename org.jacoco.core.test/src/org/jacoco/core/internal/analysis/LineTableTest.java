@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.jacoco.core.analysis.ILine;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LineTable}.
+ */
+public class LineTableTest {
+
+	@Test
+	public void testEMPTY() {
+		assertSame(LineImpl.EMPTY, LineTable.getLine(LineTable.EMPTY, 1));
+		assertEquals(CounterImpl.COUNTER_0_0,
+				LineTable.getLineCounter(LineTable.EMPTY));
+	}
+
+	@Test
+	public void testIncrement() {
+		int[] table = LineTable.increment(LineTable.EMPTY, 5, 1, 2, 3, 4);
+		table = LineTable.increment(table, 3, 1, 0, 0, 0);
+		table = LineTable.increment(table, 5, 1, 1, 1, 1);
+		assertLine(table, 5, 2, 3, 4, 5);
+		assertLine(table, 3, 1, 0, 0, 0);
+		assertSame(LineImpl.EMPTY, LineTable.getLine(table, 4));
+		assertEquals(CounterImpl.getInstance(1, 1),
+				LineTable.getLineCounter(table));
+	}
+
+	@Test
+	public void testIncrementZero() {
+		assertSame(LineTable.EMPTY,
+				LineTable.increment(LineTable.EMPTY, 5, 0, 0, 0, 0));
+	}
+
+	@Test
+	public void testIncrementWide() {
+		int[] table = LineTable.increment(LineTable.EMPTY, 2, 31, 0, 7, 0);
+		table = LineTable.increment(table, 1, 0, 1, 0, 0);
+		table = LineTable.increment(table, 2, 1, 0, 0, 0);
+		table = LineTable.increment(table, 2, 0, 0, 0, 1000);
+		table = LineTable.increment(table, 70000, 1, 2, 3, 4);
+		table = LineTable.increment(table, 3, 0, 1, 0, 0);
+		assertLine(table, 1, 0, 1, 0, 0);
+		assertLine(table, 2, 32, 0, 7, 1000);
+		assertLine(table, 3, 0, 1, 0, 0);
+		assertLine(table, 70000, 1, 2, 3, 4);
+		assertEquals(CounterImpl.getInstance(1, 3),
+				LineTable.getLineCounter(table));
+	}
+
+	@Test
+	public void testMergeEmpty() {
+		final int[] table = LineTable.increment(LineTable.EMPTY, 1, 1, 0, 0, 0);
+		assertSame(table, LineTable.merge(table, LineTable.EMPTY));
+		assertSame(table, LineTable.merge(LineTable.EMPTY, table));
+	}
+
+	@Test
+	public void testMergeShared() {
+		final int[] child = LineTable.increment(LineTable.EMPTY, 1, 1, 0, 0, 0);
+		final int[] parent = LineTable.merge(LineTable.EMPTY, child);
+
+		final int[] modified = LineTable.increment(parent, 1, 0, 1, 0, 0);
+		assertNotSame(child, modified);
+		assertLine(child, 1, 1, 0, 0, 0);
+		assertLine(modified, 1, 1, 1, 0, 0);
+	}
+
+	@Test
+	public void testMerge() {
+		int[] a = LineTable.increment(LineTable.EMPTY, 1, 1, 0, 0, 0);
+		a = LineTable.increment(a, 3, 0, 20, 0, 0);
+		a = LineTable.increment(a, 5, 0, 1, 100, 0);
+		a = LineTable.increment(a, 6, 1, 1, 1, 1);
+		int[] b = LineTable.increment(LineTable.EMPTY, 2, 1, 0, 0, 0);
+		b = LineTable.increment(b, 3, 0, 20, 0, 0);
+		b = LineTable.increment(b, 5, 1, 0, 0, 0);
+		b = LineTable.increment(b, 6, 0, 0, 0, 1000);
+		b = LineTable.increment(b, 7, 0, 1, 0, 0);
+
+		final int[] merged = LineTable.merge(a, b);
+		assertLine(merged, 1, 1, 0, 0, 0);
+		assertLine(merged, 2, 1, 0, 0, 0);
+		assertLine(merged, 3, 0, 40, 0, 0);
+		assertLine(merged, 5, 1, 1, 100, 0);
+		assertLine(merged, 6, 1, 1, 1, 1001);
+		assertLine(merged, 7, 0, 1, 0, 0);
+		assertEquals(CounterImpl.getInstance(2, 4),
+				LineTable.getLineCounter(merged));
+		assertLine(a, 3, 0, 20, 0, 0);
+		assertLine(b, 3, 0, 20, 0, 0);
+	}
+
+	private void assertLine(final int[] table, final int nr, final int im,
+			final int ic, final int bm, final int bc) {
+		final ILine line = LineTable.getLine(table, nr);
+		assertEquals(CounterImpl.getInstance(im, ic),
+				line.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(bm, bc), line.getBranchCounter());
+	}
+
+}
@@ -37,6 +37,8 @@ public class MethodAnalyzerTest implements IProbeIdGenerator {
 
 	private boolean[] probes;
 
+	private int[] hits;
+
 	private MethodNode method;
 
 	private IMethodCoverage result;
@@ -47,6 +49,7 @@ public class MethodAnalyzerTest implements IProbeIdGenerator {
 		method = new MethodNode();
 		method.tryCatchBlocks = new ArrayList<TryCatchBlockNode>();
 		probes = new boolean[32];
+		hits = null;
 	}
 
 	public int nextId() {
@@ -162,6 +165,29 @@ public class MethodAnalyzerTest implements IProbeIdGenerator {
 		assertLine(1003, 0, 2, 0, 0);
 	}
 
+	@Test
+	public void testIfBranchHitCounts() {
+		createIfBranch();
+		hits = new int[32];
+		hits[0] = 5;
+		hits[1] = 2;
+		probes[0] = true;
+		probes[1] = true;
+		runMethodAnalzer();
+
+		assertEquals(7, result.getHitCount());
+		assertLine(1001, 0, 2, 0, 2);
+	}
+
+	@Test
+	public void testIfBranchNoHitCounts() {
+		createIfBranch();
+		probes[0] = true;
+		runMethodAnalzer();
+
+		assertEquals(0, result.getHitCount());
+	}
+
 	// === Scenario: branch which merges back ===
 
 	private void createIfBranchMerge() {
@@ -581,7 +607,7 @@ public class MethodAnalyzerTest implements IProbeIdGenerator {
 	private void runMethodAnalzer() {
 		LabelFlowAnalyzer.markLabels(method);
 		final MethodAnalyzer analyzer = new MethodAnalyzer("doit", "()V", null,
-				probes);
+				probes, hits);
 		final MethodProbesAdapter probesAdapter = new MethodProbesAdapter(
 				analyzer, this);
 		// note that CheckMethodAdapter verifies that this test does not violate
@@ -11,8 +11,11 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis;
 
+import static org.jacoco.core.analysis.ICoverageNode.ElementType.CLASS;
 import static org.jacoco.core.analysis.ICoverageNode.ElementType.SOURCEFILE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -29,4 +32,70 @@ public class SourceFileCoverageImplTest {
 		assertEquals("org/jacoco/examples", data.getPackageName());
 	}
 
+	@Test
+	public void testLinesDerivedFromChildren() {
+		final SourceFileCoverageImpl data = new SourceFileCoverageImpl(
+				"Sample.java", "org/jacoco/examples");
+		final SourceNodeImpl child1 = new SourceNodeImpl(CLASS, "Sample");
+		child1.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 1);
+		child1.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 2);
+		final SourceNodeImpl child2 = new SourceNodeImpl(CLASS, "Sample$1");
+		child2.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 2);
+		child2.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 5);
+		data.increment(child1);
+		assertEquals(CounterImpl.COUNTER_0_1, data.getLine(2)
+				.getInstructionCounter());
+		data.increment(child2);
+		data.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 1);
+
+		assertEquals(1, data.getFirstLine());
+		assertEquals(5, data.getLastLine());
+		assertEquals(CounterImpl.getInstance(1, 1), data.getLine(1)
+				.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(0, 2), data.getLine(2)
+				.getInstructionCounter());
+		assertEquals(CounterImpl.COUNTER_1_0, data.getLine(5)
+				.getInstructionCounter());
+		assertEquals(CounterImpl.getInstance(1, 2), data.getLineCounter());
+		assertEquals(CounterImpl.getInstance(2, 3),
+				data.getInstructionCounter());
+	}
+
+	@Test
+	public void testLinesOfSingleChildShared() {
+		final SourceFileCoverageImpl data = new SourceFileCoverageImpl(
+				"Sample.java", "org/jacoco/examples");
+		final SourceNodeImpl child = new SourceNodeImpl(CLASS, "Sample");
+		child.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 1);
+		data.increment(child);
+		data.increment(new SourceNodeImpl(CLASS, "Sample$1"));
+
+		assertSame(child.getLineTable(), data.getLineTable());
+	}
+
+	@Test
+	public void testDerivedLinesNotRetained() {
+		final SourceFileCoverageImpl data1 = createSourceFile("A.java");
+		final int[] table1 = data1.getLineTable();
+		assertSame(table1, data1.getLineTable());
+
+		final SourceFileCoverageImpl data2 = createSourceFile("B.java");
+		data2.getLineTable();
+		assertNotSame(table1, data1.getLineTable());
+		assertEquals(CounterImpl.COUNTER_0_1, data1.getLine(2)
+				.getInstructionCounter());
+	}
+
+	private SourceFileCoverageImpl createSourceFile(final String name) {
+		final SourceFileCoverageImpl data = new SourceFileCoverageImpl(name,
+				"org/jacoco/examples");
+		final SourceNodeImpl child1 = new SourceNodeImpl(CLASS, "Sample");
+		child1.increment(CounterImpl.COUNTER_1_0, CounterImpl.COUNTER_0_0, 1);
+		final SourceNodeImpl child2 = new SourceNodeImpl(CLASS, "Sample$1");
+		child2.increment(CounterImpl.COUNTER_0_1, CounterImpl.COUNTER_0_0, 2);
+		data.increment(child1);
+		data.increment(child2);
+		return data;
+	}
+
 }
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ByteBufferInputStream}.
+ */
+public class ByteBufferInputStreamTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ByteBufferInputStream in;
+
+	@Before
+	public void setup() {
+		in = new ByteBufferInputStream();
+	}
+
+	@Test
+	public void testEmpty() {
+		assertEquals(0, in.available());
+		assertEquals(-1, in.read());
+		assertEquals(-1, in.read(new byte[1], 0, 1));
+		assertEquals(0, in.read(new byte[1], 0, 0));
+	}
+
+	@Test
+	public void testLoad() throws IOException {
+		in.load(createFile("a", 1, 2, 3));
+		assertEquals(3, in.available());
+		assertEquals(1, in.read());
+		final byte[] b = new byte[4];
+		assertEquals(2, in.read(b, 1, 3));
+		assertArrayEquals(new byte[] { 0, 2, 3, 0 }, b);
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testUnsignedRead() throws IOException {
+		in.load(createFile("a", -1));
+		assertEquals(0xFF, in.read());
+	}
+
+	@Test
+	public void testSkip() throws IOException {
+		in.load(createFile("a", 1, 2, 3, 4));
+		assertEquals(2, in.skip(2));
+		assertEquals(3, in.read());
+		assertEquals(1, in.skip(5));
+		assertEquals(0, in.skip(-1));
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testReload() throws IOException {
+		in.load(createFile("a", 1, 2, 3));
+		in.read();
+		in.load(createFile("b", 4));
+		assertEquals(1, in.available());
+		assertEquals(4, in.read());
+		in.load(createFile("c", 5, 6, 7, 8, 9));
+		assertEquals(5, in.available());
+		assertEquals(5, in.read());
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testLoadMissingFile() throws IOException {
+		in.load(new File(folder.getRoot(), "missing.exec"));
+	}
+
+	@Test
+	public void testFits() throws IOException {
+		assertTrue(ByteBufferInputStream.fits(createFile("a", 1)));
+	}
+
+	private File createFile(final String name, final int... content)
+			throws IOException {
+		final File file = folder.newFile(name);
+		final FileOutputStream out = new FileOutputStream(file);
+		for (final int b : content) {
+			out.write(b);
+		}
+		out.close();
+		return file;
+	}
+
+}
@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ChannelOutputStream}.
+ */
+public class ChannelOutputStreamTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ByteArrayOutputStream target;
+
+	private CountingChannel channel;
+
+	private ChannelOutputStream out;
+
+	@Before
+	public void setup() {
+		target = new ByteArrayOutputStream();
+		channel = new CountingChannel(Channels.newChannel(target));
+		out = new ChannelOutputStream(channel);
+	}
+
+	@Test
+	public void testSingleBytesAreBuffered() throws IOException {
+		out.write(1);
+		out.write(2);
+		assertEquals(0, target.size());
+		out.flush();
+		assertArrayEquals(new byte[] { 1, 2 }, target.toByteArray());
+		assertEquals(1, channel.writes);
+	}
+
+	@Test
+	public void testBufferOverflow() throws IOException {
+		final byte[] expected = createData(ChannelOutputStream.BUFFER_SIZE * 3
+				+ 7);
+		for (final byte b : expected) {
+			out.write(b);
+		}
+		out.close();
+		assertArrayEquals(expected, target.toByteArray());
+		assertEquals(4, channel.writes);
+	}
+
+	@Test
+	public void testSmallArrays() throws IOException {
+		final byte[] expected = createData(ChannelOutputStream.BUFFER_SIZE);
+		out.write(expected, 0, 1000);
+		out.write(expected, 1000, expected.length - 1000);
+		out.close();
+		assertArrayEquals(expected, target.toByteArray());
+		assertEquals(1, channel.writes);
+	}
+
+	@Test
+	public void testLargeArray() throws IOException {
+		final byte[] expected = createData(ChannelOutputStream.BUFFER_SIZE * 2);
+		out.write(expected, 0, 10);
+		out.write(expected, 10, expected.length - 10);
+		out.close();
+		assertArrayEquals(expected, target.toByteArray());
+	}
+
+	@Test
+	public void testLargeArrayToFileChannel() throws IOException {
+		final File file = folder.newFile("data");
+		final FileOutputStream fileOut = new FileOutputStream(file);
+		out = new ChannelOutputStream(fileOut.getChannel());
+		final byte[] expected = createData(ChannelOutputStream.BUFFER_SIZE * 2);
+		out.write(expected, 0, 10);
+		out.write(expected, 10, expected.length - 10);
+		out.close();
+		fileOut.close();
+
+		final InputStream in = new FileInputStream(file);
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[1024];
+		int len;
+		while ((len = in.read(buffer)) != -1) {
+			content.write(buffer, 0, len);
+		}
+		in.close();
+		assertArrayEquals(expected, content.toByteArray());
+	}
+
+	@Test
+	public void testClose() throws IOException {
+		out.write(42);
+		out.close();
+		out.close();
+		assertArrayEquals(new byte[] { 42 }, target.toByteArray());
+		assertFalse(channel.isOpen());
+	}
+
+	@Test(expected = IOException.class)
+	public void testWriteAfterClose() throws IOException {
+		out.close();
+		out.write(42);
+	}
+
+	private static byte[] createData(final int size) {
+		final byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) (i * 31);
+		}
+		return data;
+	}
+
+	private static class CountingChannel implements WritableByteChannel {
+
+		private final WritableByteChannel delegate;
+
+		int writes;
+
+		CountingChannel(final WritableByteChannel delegate) {
+			this.delegate = delegate;
+		}
+
+		public int write(final ByteBuffer src) throws IOException {
+			writes++;
+			return delegate.write(src);
+		}
+
+		public boolean isOpen() {
+			return delegate.isOpen();
+		}
+
+		public void close() throws IOException {
+			delegate.close();
+		}
+
+	}
+
+}
@@ -12,10 +12,12 @@
 package org.jacoco.core.internal.data;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -105,6 +107,211 @@ public class CompactDataInputOutputTest {
 				true);
 	}
 
+	@Test
+	public void testEncodingEmpty() throws IOException {
+		assertEquals(CompactDataOutput.ENCODING_BITMAP,
+				CompactDataOutput.getEncoding(new boolean[0]));
+	}
+
+	@Test
+	public void testEncodingDense() throws IOException {
+		final boolean[] values = new boolean[1000];
+		for (int i = 0; i < values.length; i += 3) {
+			values[i] = true;
+		}
+		assertEquals(CompactDataOutput.ENCODING_BITMAP,
+				CompactDataOutput.getEncoding(values));
+	}
+
+	@Test
+	public void testEncodingSparse() throws IOException {
+		final boolean[] values = new boolean[1000];
+		values[5] = true;
+		values[500] = true;
+		assertEquals(CompactDataOutput.ENCODING_INDICES,
+				CompactDataOutput.getEncoding(values));
+	}
+
+	@Test
+	public void testEncodingRuns() throws IOException {
+		final boolean[] values = new boolean[1000];
+		for (int i = 0; i < 800; i++) {
+			values[i] = true;
+		}
+		assertEquals(CompactDataOutput.ENCODING_RUNS,
+				CompactDataOutput.getEncoding(values));
+	}
+
+	@Test
+	public void testEncodedBitmap() throws IOException {
+		testEncodedBoolean(CompactDataOutput.ENCODING_BITMAP, true, false,
+				true, false, false, true, false, true, true);
+	}
+
+	@Test
+	public void testEncodedIndices() throws IOException {
+		testEncodedBoolean(CompactDataOutput.ENCODING_INDICES, true, false,
+				false, true, true, false, false, false, true);
+	}
+
+	@Test
+	public void testEncodedIndicesEmpty() throws IOException {
+		testEncodedBoolean(CompactDataOutput.ENCODING_INDICES);
+	}
+
+	@Test
+	public void testEncodedRuns() throws IOException {
+		testEncodedBoolean(CompactDataOutput.ENCODING_RUNS, true, true, false,
+				false, false, true, false, true, true);
+	}
+
+	@Test
+	public void testEncodedRunsLeadingFalse() throws IOException {
+		testEncodedBoolean(CompactDataOutput.ENCODING_RUNS, false, false,
+				true, true);
+	}
+
+	@Test
+	public void testEncodedRunsEmpty() throws IOException {
+		testEncodedBoolean(CompactDataOutput.ENCODING_RUNS);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWriteUnknownEncoding() throws IOException {
+		out.writeEncodedBooleanArray(new boolean[1], 0x7F);
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadUnknownEncoding() throws IOException {
+		out.writeVarInt(1);
+		out.writeByte(0x7F);
+		out.close();
+		in.readEncodedBooleanArray();
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadInvalidIndex() throws IOException {
+		out.writeVarInt(2);
+		out.writeByte(CompactDataOutput.ENCODING_INDICES);
+		out.writeVarInt(1);
+		out.writeVarInt(2);
+		out.close();
+		in.readEncodedBooleanArray();
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadInvalidRun() throws IOException {
+		out.writeVarInt(2);
+		out.writeByte(CompactDataOutput.ENCODING_RUNS);
+		out.writeVarInt(2);
+		out.writeVarInt(1);
+		out.writeVarInt(2);
+		out.close();
+		in.readEncodedBooleanArray();
+	}
+
+	@Test
+	public void testReadSharedUTFCandidate() throws IOException {
+		final String candidate = new String("org/example/Foo");
+		out.writeUTF("org/example/Foo");
+		out.close();
+		assertSame(candidate, in.readSharedUTF(candidate));
+	}
+
+	@Test
+	public void testReadSharedUTFOtherCandidate() throws IOException {
+		out.writeUTF("org/example/Foo");
+		out.writeUTF("org/example/Fo");
+		out.close();
+		assertEquals("org/example/Foo", in.readSharedUTF("org/example/Bar"));
+		assertEquals("org/example/Fo", in.readSharedUTF("org/example/Foo"));
+	}
+
+	@Test
+	public void testReadSharedUTFNonASCIICandidate() throws IOException {
+		final String candidate = new String("org/\u00e9xample/\u0000Foo");
+		out.writeUTF(candidate);
+		out.close();
+		assertSame(candidate, in.readSharedUTF(candidate));
+	}
+
+	@Test
+	public void testReadSharedUTFNoCandidate() throws IOException {
+		out.writeUTF("");
+		out.writeUTF("org/\u00e9xample/Foo");
+		out.close();
+		assertEquals("", in.readSharedUTF(null));
+		assertEquals("org/\u00e9xample/Foo", in.readSharedUTF(null));
+	}
+
+	@Test
+	public void testMergeBooleanArray() throws IOException {
+		out.writeBooleanArray(new boolean[] { true, false, true, false, false,
+				false, false, false, false, true });
+		out.close();
+		final boolean[] target = new boolean[] { false, true, false, false,
+				false, false, false, false, false, false };
+		assertEquals(10, in.readVarInt());
+		in.mergeBooleanArray(target);
+		assertEquals("[true, true, true, false, false, false, false, false, "
+				+ "false, true]", Arrays.toString(target));
+	}
+
+	@Test
+	public void testMergeEncodedBooleanArray() throws IOException {
+		final boolean[] values = new boolean[40];
+		values[3] = true;
+		values[20] = true;
+		out.writeEncodedBooleanArray(values, CompactDataOutput.ENCODING_BITMAP);
+		out.writeEncodedBooleanArray(values,
+				CompactDataOutput.ENCODING_INDICES);
+		out.writeEncodedBooleanArray(values, CompactDataOutput.ENCODING_RUNS);
+		out.close();
+		for (int i = 0; i < 3; i++) {
+			final boolean[] target = new boolean[40];
+			target[5] = true;
+			assertEquals(40, in.readVarInt());
+			in.mergeEncodedBooleanArray(target);
+			for (int j = 0; j < target.length; j++) {
+				assertEquals(j == 3 || j == 5 || j == 20, target[j]);
+			}
+		}
+	}
+
+	@Test
+	public void testIntArrayEmpty() throws IOException {
+		testIntArray();
+	}
+
+	@Test
+	public void testIntArray() throws IOException {
+		testIntArray(0, 1, 127, 128, 0x12345678, Integer.MAX_VALUE);
+	}
+
+	private void testIntArray(int... values) throws IOException {
+		out.writeIntArray(values);
+		out.close();
+		final int[] actual = in.readIntArray();
+		assertEquals(values.length, actual.length);
+		for (int i = 0; i < values.length; i++) {
+			assertEquals("Index " + i, values[i], actual[i]);
+		}
+		assertEquals(-1, in.read());
+	}
+
+	private void testEncodedBoolean(int encoding, boolean... values)
+			throws IOException {
+		out.writeEncodedBooleanArray(values, encoding);
+		out.close();
+		final boolean[] actual = in.readEncodedBooleanArray();
+		assertEquals(values.length, actual.length);
+		for (int i = 0; i < values.length; i++) {
+			assertEquals("Index " + i, Boolean.valueOf(values[i]),
+					Boolean.valueOf(actual[i]));
+		}
+		assertEquals(-1, in.read());
+	}
+
 	private void testPackedBoolean(boolean... values) throws IOException {
 		out.writeBooleanArray(values);
 		out.close();
@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CountingOutputStream}.
+ */
+public class CountingOutputStreamTest {
+
+	@Test
+	public void testCount() throws IOException {
+		final ByteArrayOutputStream target = new ByteArrayOutputStream();
+		final CountingOutputStream out = new CountingOutputStream(target);
+		assertEquals(0, out.getCount());
+		out.write(1);
+		out.write(new byte[] { 2, 3, 4, 5 }, 1, 2);
+		out.write(new byte[] { 6 });
+		assertEquals(4, out.getCount());
+		assertArrayEquals(new byte[] { 1, 3, 4, 6 }, target.toByteArray());
+	}
+
+}
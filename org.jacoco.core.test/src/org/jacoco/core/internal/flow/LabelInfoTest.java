@@ -41,7 +41,8 @@ public class LabelInfoTest {
 		assertFalse(LabelInfo.isDone(label));
 		assertEquals(LabelInfo.NO_PROBE, LabelInfo.getProbeId(label));
 		assertNull(LabelInfo.getIntermediateLabel(label));
-		assertNull(LabelInfo.getInstruction(label));
+		assertEquals(LabelInfo.NO_INSTRUCTION,
+				LabelInfo.getInstruction(label));
 	}
 
 	@Test
@@ -159,9 +160,8 @@ public class LabelInfoTest {
 
 	@Test
 	public void testSetInstruction() {
-		final Instruction instruction = new Instruction(123);
-		LabelInfo.setInstruction(label, instruction);
-		assertSame(instruction, LabelInfo.getInstruction(label));
+		LabelInfo.setInstruction(label, 123);
+		assertEquals(123, LabelInfo.getInstruction(label));
 	}
 
 }
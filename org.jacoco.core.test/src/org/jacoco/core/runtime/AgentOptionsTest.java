@@ -52,6 +52,13 @@ public class AgentOptionsTest {
 		assertEquals(AgentOptions.DEFAULT_PORT, options.getPort());
 		assertNull(options.getClassDumpDir());
 		assertFalse(options.getJmx());
+		assertFalse(options.getHitCounts());
+		assertEquals(0, options.getDumpInterval());
+		assertEquals(AgentOptions.RotationPolicy.dump,
+				options.getDumpRotation());
+		assertEquals(0, options.getDumpRetention());
+		assertNull(options.getCacheDir());
+		assertEquals(AgentOptions.DEFAULT_CACHESIZE, options.getCacheSize());
 
 		assertEquals("", options.toString());
 	}
@@ -85,6 +92,12 @@ public class AgentOptionsTest {
 		properties.put("port", "1234");
 		properties.put("classdumpdir", "target/dump");
 		properties.put("jmx", "true");
+		properties.put("hitcounts", "true");
+		properties.put("dumpinterval", "30");
+		properties.put("dumprotation", "daily");
+		properties.put("dumpretention", "7");
+		properties.put("cachedir", "target/cache");
+		properties.put("cachesize", "20");
 
 		AgentOptions options = new AgentOptions(properties);
 
@@ -102,6 +115,13 @@ public class AgentOptionsTest {
 		assertEquals(1234, options.getPort());
 		assertEquals("target/dump", options.getClassDumpDir());
 		assertTrue(options.getJmx());
+		assertTrue(options.getHitCounts());
+		assertEquals(30, options.getDumpInterval());
+		assertEquals(AgentOptions.RotationPolicy.daily,
+				options.getDumpRotation());
+		assertEquals(7, options.getDumpRetention());
+		assertEquals("target/cache", options.getCacheDir());
+		assertEquals(20, options.getCacheSize());
 	}
 
 	@Test
@@ -397,6 +417,114 @@ public class AgentOptionsTest {
 		assertTrue(options.getJmx());
 	}
 
+	@Test
+	public void testGetHitCounts() {
+		AgentOptions options = new AgentOptions("hitcounts=true");
+		assertTrue(options.getHitCounts());
+	}
+
+	@Test
+	public void testSetHitCounts() {
+		AgentOptions options = new AgentOptions();
+		options.setHitCounts(true);
+		assertTrue(options.getHitCounts());
+	}
+
+	@Test
+	public void testGetDumpInterval() {
+		AgentOptions options = new AgentOptions("dumpinterval=60");
+		assertEquals(60, options.getDumpInterval());
+	}
+
+	@Test
+	public void testSetDumpInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpInterval(10);
+		assertEquals(10, options.getDumpInterval());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseNegativeDumpInterval() {
+		new AgentOptions("dumpinterval=-1");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetNegativeDumpInterval() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpInterval(-1);
+	}
+
+	@Test
+	public void testGetDumpRotation() {
+		AgentOptions options = new AgentOptions("dumprotation=hourly");
+		assertEquals(AgentOptions.RotationPolicy.hourly,
+				options.getDumpRotation());
+	}
+
+	@Test
+	public void testSetDumpRotation() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpRotation("daily");
+		assertEquals(AgentOptions.RotationPolicy.daily,
+				options.getDumpRotation());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDumpRotation() {
+		new AgentOptions("dumprotation=weekly");
+	}
+
+	@Test
+	public void testGetDumpRetention() {
+		AgentOptions options = new AgentOptions("dumpretention=3");
+		assertEquals(3, options.getDumpRetention());
+	}
+
+	@Test
+	public void testSetDumpRetention() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpRetention(5);
+		assertEquals(5, options.getDumpRetention());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetNegativeDumpRetention() {
+		AgentOptions options = new AgentOptions();
+		options.setDumpRetention(-1);
+	}
+
+	@Test
+	public void testGetCacheDir() {
+		AgentOptions options = new AgentOptions("cachedir=target/cache");
+		assertEquals("target/cache", options.getCacheDir());
+	}
+
+	@Test
+	public void testSetCacheDir() {
+		AgentOptions options = new AgentOptions();
+		options.setCacheDir("target/cache");
+		assertEquals("cachedir=target/cache", options.toString());
+	}
+
+	@Test
+	public void testGetCacheSize() {
+		AgentOptions options = new AgentOptions("cachesize=500");
+		assertEquals(500, options.getCacheSize());
+	}
+
+	@Test
+	public void testSetCacheSize() {
+		AgentOptions options = new AgentOptions();
+		options.setCacheSize(10);
+		assertEquals(10, options.getCacheSize());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetNegativeCacheSize() {
+		AgentOptions options = new AgentOptions();
+		options.setCacheSize(-1);
+	}
+
 	@Test
 	public void testGetVMArgumentWithNoOptions() {
 		AgentOptions options = new AgentOptions();
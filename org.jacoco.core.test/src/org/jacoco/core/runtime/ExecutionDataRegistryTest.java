@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jacoco.core.data.ExecutionData;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ExecutionDataRegistry}.
+ */
+public class ExecutionDataRegistryTest {
+
+	private ExecutionDataRegistry registry;
+
+	@Before
+	public void setup() {
+		registry = new ExecutionDataRegistry();
+	}
+
+	@Test
+	public void testEmpty() {
+		assertNull(registry.get(123));
+		assertEquals(0, registry.size());
+		assertEquals(0, registry.getContents().size());
+	}
+
+	@Test
+	public void testGetWithCreate() {
+		final ExecutionData data = registry.get(1000, "Sample", 3);
+		assertEquals(1000, data.getId());
+		assertEquals("Sample", data.getName());
+		assertEquals(3, data.getProbes().length);
+		assertSame(data, registry.get(1000, "Sample", 3));
+		assertSame(data, registry.get(1000));
+		assertEquals(1, registry.size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetNegative1() {
+		registry.get(1000, "Sample", 3);
+		registry.get(1000, "Other", 3);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetNegative2() {
+		registry.get(1000, "Sample", 3);
+		registry.get(1000, "Sample", 4);
+	}
+
+	@Test
+	public void testGetWithHits() {
+		final ExecutionData data = registry.get(1000, "Sample", 3, true);
+		assertEquals(3, data.getHits().length);
+		assertSame(data, registry.get(1000, "Sample", 3, true));
+		assertSame(data, registry.get(1000, "Sample", 3));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetWithHitsNegative() {
+		registry.get(1000, "Sample", 3);
+		registry.get(1000, "Sample", 3, true);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidStripeCount() {
+		new ExecutionDataRegistry(3);
+	}
+
+	@Test
+	public void testManyEntries() {
+		registry = new ExecutionDataRegistry(1);
+		final List<ExecutionData> expected = new ArrayList<ExecutionData>();
+		for (int i = 0; i < 10000; i++) {
+			expected.add(registry.get(i * 1024L, "Sample" + i, 1));
+		}
+		assertEquals(10000, registry.size());
+		for (int i = 0; i < 10000; i++) {
+			assertSame(expected.get(i), registry.get(i * 1024L));
+		}
+		assertEquals(new HashSet<ExecutionData>(expected),
+				new HashSet<ExecutionData>(registry.getContents()));
+	}
+
+	@Test
+	public void testReset() {
+		final boolean[] probes = registry.get(1000, "Sample", 2).getProbes();
+		probes[0] = true;
+		probes[1] = true;
+		registry.reset();
+		assertFalse(probes[0]);
+		assertFalse(probes[1]);
+	}
+
+	@Test
+	public void testAccept() {
+		final ExecutionData a = registry.get(1000, "A", 1);
+		final ExecutionData b = registry.get(1001, "B", 1);
+		final TestStorage storage = new TestStorage();
+		registry.accept(storage);
+		storage.assertSize(2);
+		assertSame(a, storage.getData(1000));
+		assertSame(b, storage.getData(1001));
+	}
+
+	@Test
+	public void testGetSnapshotWithReset() {
+		final ExecutionData a = registry.get(1000, "A", 2);
+		a.getProbes()[0] = true;
+		final Collection<ExecutionData> contents = registry
+				.getSnapshot(true);
+		assertEquals(1, contents.size());
+		final boolean[] snapshot = contents.iterator().next().getProbes();
+		assertTrue(snapshot[0]);
+		assertFalse(snapshot[1]);
+		assertFalse(a.getProbes()[0]);
+
+		// Probes set after the snapshot do not modify it:
+		a.getProbes()[1] = true;
+		assertFalse(snapshot[1]);
+	}
+
+	@Test
+	public void testGetSnapshot() {
+		final ExecutionData a = registry.get(1000, "A", 1);
+		a.getProbes()[0] = true;
+		final Collection<ExecutionData> contents = registry.getSnapshot(false);
+		assertEquals(1, contents.size());
+		final ExecutionData copy = contents.iterator().next();
+		assertEquals(1000, copy.getId());
+		assertEquals("A", copy.getName());
+		assertTrue(copy.getProbes()[0]);
+		assertNotSame(a.getProbes(), copy.getProbes());
+		assertTrue(a.getProbes()[0]);
+	}
+
+	@Test
+	public void testGetSnapshotWithResetWithHits() {
+		final int[] hits = registry.get(1000, "A", 2, true).getHits();
+		hits[0] = 7;
+		final int[] snapshot = registry.getSnapshot(true).iterator()
+				.next().getHits();
+		assertEquals(7, snapshot[0]);
+		assertEquals(0, snapshot[1]);
+
+		// Live counters are not written, the next snapshot reports the hits
+		// since the reset:
+		assertEquals(7, hits[0]);
+		hits[0] = 9;
+		assertEquals(2, registry.getSnapshot(false).iterator().next()
+				.getHits()[0]);
+	}
+
+	@Test
+	public void testResetWithHits() {
+		final int[] hits = registry.get(1000, "A", 2, true).getHits();
+		hits[0] = 7;
+		registry.reset();
+		assertEquals(7, hits[0]);
+		assertEquals(0, registry.getSnapshot(false).iterator().next()
+				.getHits()[0]);
+		hits[1] = 3;
+		final int[] snapshot = registry.getSnapshot(false).iterator().next()
+				.getHits();
+		assertEquals(0, snapshot[0]);
+		assertEquals(3, snapshot[1]);
+	}
+
+	@Test
+	public void testResetWithSaturatedHits() {
+		final int[] hits = registry.get(1000, "A", 2, true).getHits();
+		hits[0] = Integer.MAX_VALUE - 1;
+		assertEquals(Integer.MAX_VALUE - 1, registry.getSnapshot(true)
+				.iterator().next().getHits()[0]);
+
+		// The counter saturates in the next interval:
+		hits[0] = Integer.MAX_VALUE;
+		assertEquals(1, registry.getSnapshot(true).iterator().next()
+				.getHits()[0]);
+		assertEquals(0, hits[0]);
+
+		// Counting continues in the following intervals:
+		hits[0] = 5;
+		assertEquals(5, registry.getSnapshot(true).iterator().next()
+				.getHits()[0]);
+		hits[0] = Integer.MAX_VALUE;
+		registry.reset();
+		assertEquals(0, hits[0]);
+		hits[0] = 3;
+		assertEquals(3, registry.getSnapshot(false).iterator().next()
+				.getHits()[0]);
+	}
+
+	@Test
+	public void testResetWithoutHits() {
+		final int[] hits = registry.get(1000, "A", 2, true).getHits();
+		registry.reset();
+		hits[1] = 4;
+		final int[] snapshot = registry.getSnapshot(false).iterator().next()
+				.getHits();
+		assertEquals(0, snapshot[0]);
+		assertEquals(4, snapshot[1]);
+	}
+
+	@Test
+	public void testGetSnapshotWithResetConcurrently() throws Exception {
+		final int probeCount = 1000;
+		final boolean[] probes = registry.get(1000, "A", probeCount)
+				.getProbes();
+		final boolean[] collected = new boolean[probeCount];
+		final Thread writer = new Thread() {
+			@Override
+			public void run() {
+				for (int i = 0; i < probeCount; i++) {
+					probes[i] = true;
+				}
+			}
+		};
+		writer.start();
+		while (writer.isAlive()) {
+			collect(collected);
+		}
+		writer.join();
+		collect(collected);
+
+		// Every probe is contained in exactly one snapshot:
+		for (int i = 0; i < probeCount; i++) {
+			assertTrue(collected[i]);
+		}
+	}
+
+	private void collect(final boolean[] collected) {
+		final boolean[] snapshot = registry.getSnapshot(true).iterator()
+				.next().getProbes();
+		for (int i = 0; i < snapshot.length; i++) {
+			if (snapshot[i]) {
+				assertFalse(collected[i]);
+				collected[i] = true;
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentGet() throws Exception {
+		final int threads = 8;
+		final int classes = 5000;
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<ExecutionData[]>> results = new ArrayList<Future<ExecutionData[]>>();
+		for (int t = 0; t < threads; t++) {
+			results.add(executor.submit(new Callable<ExecutionData[]>() {
+				public ExecutionData[] call() throws Exception {
+					start.await();
+					final ExecutionData[] result = new ExecutionData[classes];
+					for (int i = 0; i < classes; i++) {
+						result[i] = registry.get(i, "Sample" + i, 1);
+					}
+					return result;
+				}
+			}));
+		}
+		start.countDown();
+		final ExecutionData[] first = results.get(0).get();
+		for (final Future<ExecutionData[]> f : results) {
+			final ExecutionData[] result = f.get();
+			for (int i = 0; i < classes; i++) {
+				assertSame(first[i], result[i]);
+			}
+		}
+		executor.shutdown();
+
+		assertEquals(classes, registry.size());
+		final Set<Long> ids = new HashSet<Long>();
+		for (final ExecutionData data : registry.getContents()) {
+			ids.add(Long.valueOf(data.getId()));
+		}
+		assertEquals(classes, ids.size());
+	}
+
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link MappedExecutionDataWriter}.
+ */
+public class MappedExecutionDataWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private RuntimeData data;
+
+	private MappedExecutionDataWriter writer;
+
+	@Before
+	public void setup() throws IOException {
+		file = new File(folder.getRoot(), "jacoco.map");
+		data = new RuntimeData();
+		data.setSessionId("session");
+		writer = new MappedExecutionDataWriter(file);
+	}
+
+	@After
+	public void teardown() throws IOException {
+		writer.close();
+	}
+
+	@Test
+	public void testHeader() throws IOException {
+		final ByteBuffer buffer = map();
+		assertEquals(MappedExecutionDataWriter.MAGIC, buffer.getInt(0));
+		assertEquals(ExecutionDataWriter.FORMAT_VERSION,
+				buffer.getChar(MappedExecutionDataWriter.VERSION_OFFSET));
+		assertEquals(0,
+				buffer.getInt(MappedExecutionDataWriter.SEQUENCE_OFFSET));
+		assertEquals(MappedExecutionDataWriter.ENTRIES_OFFSET,
+				buffer.getInt(MappedExecutionDataWriter.LIMIT_OFFSET));
+		assertEquals(0, buffer.getInt(MappedExecutionDataWriter.COUNT_OFFSET));
+	}
+
+	@Test
+	public void testUpdate() throws IOException {
+		final boolean[] probes = data.getProbes(0x12345678L, "Foo", 10);
+		probes[0] = true;
+		probes[9] = true;
+
+		writer.update(data, false);
+
+		final ByteBuffer buffer = map();
+		assertEquals(2,
+				buffer.getInt(MappedExecutionDataWriter.SEQUENCE_OFFSET));
+		assertEquals(1, buffer.getInt(MappedExecutionDataWriter.COUNT_OFFSET));
+		final int entry = MappedExecutionDataWriter.ENTRIES_OFFSET;
+		assertEquals(entry + 8 + 4 + 2 + 3 + 2,
+				buffer.getInt(MappedExecutionDataWriter.LIMIT_OFFSET));
+		assertEquals(0x12345678L, buffer.getLong(entry));
+		assertEquals(10, buffer.getInt(entry + 8));
+		assertEquals(3, buffer.getShort(entry + 12));
+		assertEquals('F', buffer.get(entry + 14));
+		assertEquals(0x01, buffer.get(entry + 17));
+		assertEquals(0x02, buffer.get(entry + 18));
+		assertEquals(7,
+				buffer.getShort(MappedExecutionDataWriter.SESSION_OFFSET));
+	}
+
+	@Test
+	public void testUpdateInPlace() throws IOException {
+		final boolean[] probes = data.getProbes(1, "Foo", 3);
+		writer.update(data, false);
+		probes[2] = true;
+		data.getProbes(2, "Bar", 1)[0] = true;
+
+		writer.update(data, false);
+
+		final ByteBuffer buffer = map();
+		assertEquals(4,
+				buffer.getInt(MappedExecutionDataWriter.SEQUENCE_OFFSET));
+		assertEquals(2, buffer.getInt(MappedExecutionDataWriter.COUNT_OFFSET));
+		final int entry = MappedExecutionDataWriter.ENTRIES_OFFSET;
+		assertEquals(0x04, buffer.get(entry + 17));
+		assertEquals(2, buffer.getLong(entry + 18));
+		assertEquals(0x01, buffer.get(entry + 18 + 17));
+	}
+
+	@Test
+	public void testUpdateWithReset() throws IOException {
+		data.getProbes(1, "Foo", 3)[0] = true;
+
+		writer.update(data, true);
+		assertEquals(0x01,
+				map().get(MappedExecutionDataWriter.ENTRIES_OFFSET + 17));
+
+		writer.update(data, false);
+		assertEquals(0x00,
+				map().get(MappedExecutionDataWriter.ENTRIES_OFFSET + 17));
+	}
+
+	@Test
+	public void testGrow() throws IOException {
+		data.getProbes(1, "Foo", 0x80000)[0x7FFFF] = true;
+
+		writer.update(data, false);
+
+		assertTrue(file.length() > 0x10000);
+		final ByteBuffer buffer = map();
+		assertEquals(0x80,
+				buffer.get(MappedExecutionDataWriter.ENTRIES_OFFSET + 17
+						+ 0xFFFF) & 0xFF);
+	}
+
+	private ByteBuffer map() throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+		} finally {
+			raf.close();
+		}
+	}
+
+}
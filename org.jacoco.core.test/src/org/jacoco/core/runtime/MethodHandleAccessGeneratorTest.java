@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Unit tests for {@link MethodHandleAccessGenerator} as provided by
+ * {@link ModifiedSystemClassRuntime} for Java 7 class files.
+ */
+public class MethodHandleAccessGeneratorTest extends RuntimeTestBase {
+
+	/** This static member emulate the instrumented system class. */
+	public static Object accessField;
+
+	/** This static member emulate the instrumented system class. */
+	public static Object accessFieldHandle;
+
+	@Override
+	IRuntime createRuntime() {
+		return new ModifiedSystemClassRuntime(
+				MethodHandleAccessGeneratorTest.class, "accessField");
+	}
+
+	@Override
+	int getClassVersion() {
+		return Opcodes.V1_7;
+	}
+
+	@Override
+	IExecutionDataAccessorGenerator getAccessorGenerator(final IRuntime runtime) {
+		return ((IVersionAwareAccessorGenerator) runtime)
+				.forClassVersion(Opcodes.V1_7);
+	}
+
+	@Test
+	public void testHandleField() {
+		assertNotNull(accessFieldHandle);
+	}
+
+	@Test
+	public void testForClassVersion() throws Exception {
+		final ModifiedSystemClassRuntime runtime = new ModifiedSystemClassRuntime(
+				MethodHandleAccessGeneratorTest.class, "accessField");
+		runtime.startup(new RuntimeData());
+		assertSame(runtime, runtime.forClassVersion(Opcodes.V1_6));
+		assertTrue(runtime.forClassVersion(Opcodes.V1_7) instanceof MethodHandleAccessGenerator);
+		assertTrue(runtime.forClassVersion(Opcodes.V1_8) instanceof MethodHandleAccessGenerator);
+	}
+
+}
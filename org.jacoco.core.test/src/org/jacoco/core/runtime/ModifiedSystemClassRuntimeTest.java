@@ -14,6 +14,7 @@ package org.jacoco.core.runtime;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -27,6 +28,8 @@ import java.lang.reflect.Proxy;
 
 import org.jacoco.core.test.TargetLoader;
 import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 
 /**
  * Unit tests for {@link ModifiedSystemClassRuntime}.
@@ -45,6 +48,48 @@ public class ModifiedSystemClassRuntimeTest extends RuntimeTestBase {
 		ModifiedSystemClassRuntime.createFor(inst, TARGET_CLASS_NAME);
 	}
 
+	@Test
+	public void testForClassVersionWithoutHandleField() throws Exception {
+		final ModifiedSystemClassRuntime runtime = new ModifiedSystemClassRuntime(
+				ModifiedSystemClassRuntimeTest.class, "accessField");
+		runtime.startup(new RuntimeData());
+		assertSame(runtime, runtime.forClassVersion(Opcodes.V1_8));
+	}
+
+	@Test
+	public void testInstrumentJava5Class() throws Exception {
+		final Class<?> targetClass = new TargetLoader().add("Sample",
+				ModifiedSystemClassRuntime.instrument(
+						createClass(Opcodes.V1_5), "accessField"));
+		targetClass.getField("accessField");
+		try {
+			targetClass.getField("accessFieldHandle");
+			fail("NoSuchFieldException expected");
+		} catch (NoSuchFieldException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testInstrumentJava7Class() throws Exception {
+		final Class<?> targetClass = new TargetLoader().add("Sample",
+				ModifiedSystemClassRuntime.instrument(
+						createClass(Opcodes.V1_7), "accessField"));
+		targetClass.getField("accessField");
+		final Field f = targetClass.getField("accessFieldHandle");
+		assertTrue(Modifier.isPublic(f.getModifiers()));
+		assertTrue(Modifier.isStatic(f.getModifiers()));
+		assertEquals(Object.class, f.getType());
+	}
+
+	private static byte[] createClass(final int version) {
+		final ClassWriter writer = new ClassWriter(0);
+		writer.visit(version, Opcodes.ACC_PUBLIC, "Sample", null,
+				"java/lang/Object", null);
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+
 	/** This static member emulate the instrumented system class. */
 	public static Object accessField;
 
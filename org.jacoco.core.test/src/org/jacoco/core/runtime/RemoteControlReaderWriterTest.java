@@ -84,6 +84,80 @@ public class RemoteControlReaderWriterTest extends
 		assertEquals("cmd(" + doDump + "," + doReset + ")", calls.toString());
 	}
 
+	@Test
+	public void testVisitDumpChanges() throws IOException {
+		writer.visitDumpChangesCommand("client", false, true);
+		final RemoteControlReader reader = createReader();
+		final StringBuilder calls = new StringBuilder();
+		reader.setRemoteCommandVisitor(new IDumpChangesCommandVisitor() {
+
+			public void visitDumpCommand(boolean dump, boolean reset) {
+				calls.append("cmd(" + dump + "," + reset + ")");
+			}
+
+			public void visitDumpChangesCommand(String client, boolean dump,
+					boolean reset) {
+				calls.append("changes(" + client + "," + dump + "," + reset
+						+ ")");
+			}
+		});
+		assertFalse(reader.read());
+		assertEquals("changes(client,false,true)", calls.toString());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoDumpChangesCommandVisitor() throws IOException {
+		writer.visitDumpChangesCommand("client", true, false);
+		final RemoteControlReader reader = createReader();
+		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+
+			public void visitDumpCommand(boolean dump, boolean reset) {
+			}
+		});
+		reader.read();
+	}
+
+	@Test
+	public void testVisitCompression() throws IOException {
+		writer.visitCompressionCommand();
+		final RemoteControlReader reader = createReader();
+		final StringBuilder calls = new StringBuilder();
+		reader.setRemoteCommandVisitor(new ICompressionCommandVisitor() {
+
+			public void visitDumpCommand(boolean dump, boolean reset) {
+				calls.append("cmd(" + dump + "," + reset + ")");
+			}
+
+			public void visitCompressionCommand() {
+				calls.append("compression");
+			}
+		});
+		assertFalse(reader.read());
+		assertEquals("compression", calls.toString());
+	}
+
+	@Test(expected = IOException.class)
+	public void testNoCompressionCommandVisitor() throws IOException {
+		writer.visitCompressionCommand();
+		final RemoteControlReader reader = createReader();
+		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+
+			public void visitDumpCommand(boolean dump, boolean reset) {
+			}
+		});
+		reader.read();
+	}
+
+	@Test
+	public void testCompressedCmdOk() throws IOException {
+		writer.setCompression(true);
+		writer.sendCmdOk();
+		writer.flush();
+		final RemoteControlReader reader = createReader();
+		assertTrue(reader.read());
+		assertFalse(reader.read());
+	}
+
 	@Test
 	public void testSendCmdOk() throws IOException {
 		writer.sendCmdOk();
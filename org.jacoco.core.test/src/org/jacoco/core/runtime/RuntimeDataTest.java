@@ -19,6 +19,8 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.concurrent.Callable;
 
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.test.TargetLoader;
 import org.junit.Before;
 import org.junit.Test;
@@ -57,13 +59,14 @@ public class RuntimeDataTest {
 
 		assertEquals(3, ((boolean[]) args[0]).length);
 
+		((boolean[]) args[0])[1] = true;
 		data.collect(storage, storage, false);
 		boolean[] data = (boolean[]) args[0];
 		assertEquals(3, data.length, 0.0);
 		assertFalse(data[0]);
-		assertFalse(data[1]);
+		assertTrue(data[1]);
 		assertFalse(data[2]);
-		assertSame(storage.getData(123).getProbes(), data);
+		storage.assertData(123, data);
 		assertEquals("Foo", storage.getData(123).getName());
 	}
 
@@ -83,9 +86,48 @@ public class RuntimeDataTest {
 		data.collect(storage, storage, true);
 
 		assertFalse(probes[0]);
+		assertTrue(storage.getData(123).getProbes()[0]);
 		assertEquals("testsession", storage.getSessionInfo().getId());
 	}
 
+	@Test
+	public void testCollectWithoutLock() throws Exception {
+		data.getExecutionData(Long.valueOf(123), "Foo", 1);
+		final Thread reset = new Thread() {
+			@Override
+			public void run() {
+				data.reset();
+			}
+		};
+		data.collect(new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData d) {
+				// A slow visitor must not block other threads:
+				reset.start();
+				try {
+					reset.join(10000);
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				assertFalse(reset.isAlive());
+			}
+		}, storage, false);
+	}
+
+	@Test
+	public void testLockStatistics() {
+		assertEquals(0, data.getLockCount());
+		assertEquals(0, data.getLockTime());
+		assertEquals(0, data.getMaxLockTime());
+
+		data.getExecutionData(Long.valueOf(123), "Foo", 1);
+		data.collect(storage, storage, false);
+		data.collectChanges("c", storage, storage, true);
+		data.reset();
+
+		assertEquals(3, data.getLockCount());
+		assertTrue(data.getMaxLockTime() <= data.getLockTime());
+	}
+
 	@Test
 	public void testCollectWithoutReset() {
 		data.setSessionId("testsession");
@@ -99,6 +141,99 @@ public class RuntimeDataTest {
 		assertEquals("testsession", storage.getSessionInfo().getId());
 	}
 
+	@Test
+	public void testCollectChanges() {
+		data.setSessionId("testsession");
+		boolean[] probes1 = data.getExecutionData(Long.valueOf(1), "Foo", 2)
+				.getProbes();
+		boolean[] probes2 = data.getExecutionData(Long.valueOf(2), "Bar", 1)
+				.getProbes();
+		probes1[0] = true;
+
+		data.collectChanges("c", storage, storage, false);
+		storage.assertSize(1);
+		storage.assertData(1, probes1);
+		assertEquals("testsession", storage.getSessionInfo().getId());
+
+		storage = new TestStorage();
+		data.collectChanges("c", storage, storage, false);
+		storage.assertSize(0);
+
+		probes1[1] = true;
+		probes2[0] = true;
+		data.collectChanges("c", storage, storage, false);
+		storage.assertSize(2);
+		assertTrue(probes1[0]);
+	}
+
+	@Test
+	public void testCollectChangesWithReset() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(1), "Foo", 1)
+				.getProbes();
+		probes[0] = true;
+
+		data.collectChanges("c", storage, storage, true);
+		storage.assertSize(1);
+		assertFalse(probes[0]);
+
+		storage = new TestStorage();
+		data.collectChanges("c", storage, storage, false);
+		storage.assertSize(0);
+
+		probes[0] = true;
+		data.collectChanges("c", storage, storage, false);
+		storage.assertSize(1);
+	}
+
+	@Test
+	public void testCollectChangesAfterReset() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(1), "Foo", 1)
+				.getProbes();
+		probes[0] = true;
+		data.collectChanges("c", storage, storage, false);
+
+		data.reset();
+		probes[0] = true;
+		storage = new TestStorage();
+		data.collectChanges("c", storage, storage, false);
+
+		storage.assertSize(1);
+	}
+
+	@Test
+	public void testCollectChangesPerClient() {
+		boolean[] probes = data.getExecutionData(Long.valueOf(1), "Foo", 1)
+				.getProbes();
+		probes[0] = true;
+		data.collectChanges("a", storage, storage, false);
+		storage.assertSize(1);
+
+		storage = new TestStorage();
+		data.collectChanges("b", storage, storage, false);
+		storage.assertSize(1);
+
+		storage = new TestStorage();
+		data.collectChanges("a", storage, storage, false);
+		storage.assertSize(0);
+	}
+
+	@Test
+	public void testCollectChangesWithHits() {
+		int[] hits = data.getHits(1, "Foo", 1);
+		hits[0] = 5;
+		data.collectChanges("c", storage, storage, false);
+		storage.assertSize(1);
+
+		storage = new TestStorage();
+		hits[0] = 6;
+		data.collectChanges("c", storage, storage, false);
+		storage.assertSize(1);
+
+		storage = new TestStorage();
+		data.collectChanges("c", storage, storage, false);
+		storage.assertSize(0);
+	}
+
 	@Test
 	public void testEquals() {
 		assertTrue(data.equals(data));
@@ -147,11 +282,43 @@ public class RuntimeDataTest {
 		assertEquals(Integer.valueOf(15), args[2]);
 	}
 
+	@Test
+	public void testGetHits() {
+		final Object[] args = new Object[] { Long.valueOf(123), "Foo",
+				Integer.valueOf(3), Boolean.TRUE };
+		data.equals(args);
+
+		final int[] hits = (int[]) args[0];
+		assertEquals(3, hits.length);
+		assertSame(hits, data.getHits(123, "Foo", 3));
+
+		hits[1] = 7;
+		data.collect(storage, storage, false);
+		assertEquals(7, storage.getData(123).getHits()[1]);
+		assertTrue(storage.getData(123).getProbes()[1]);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testGetHitsForProbes() {
+		data.getProbes(123, "Foo", 3);
+		data.getHits(123, "Foo", 3);
+	}
+
 	@Test
 	public void testGenerateAccessCall() throws Exception {
 		final boolean[] probes = data.getExecutionData(Long.valueOf(1234),
 				"Sample", 5).getProbes();
+		assertSame(probes, generateAccessCallTarget(false).call());
+	}
+
+	@Test
+	public void testGenerateHitCountAccessCall() throws Exception {
+		final int[] hits = data.getHits(1234, "Sample", 5);
+		assertSame(hits, generateAccessCallTarget(true).call());
+	}
 
+	private Callable<?> generateAccessCallTarget(final boolean hits)
+			throws Exception {
 		final ClassWriter writer = new ClassWriter(0);
 		writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, "Sample", null,
 				"java/lang/Object",
@@ -179,7 +346,11 @@ public class RuntimeDataTest {
 		mv.visitVarInsn(Opcodes.ALOAD, 0);
 		mv.visitFieldInsn(Opcodes.GETFIELD, "Sample", "access",
 				"Ljava/lang/Object;");
-		RuntimeData.generateAccessCall(1234, "Sample", 5, mv);
+		if (hits) {
+			RuntimeData.generateHitCountAccessCall(1234, "Sample", 5, mv);
+		} else {
+			RuntimeData.generateAccessCall(1234, "Sample", 5, mv);
+		}
 		mv.visitInsn(Opcodes.ARETURN);
 		mv.visitMaxs(6, 1);
 		mv.visitEnd();
@@ -189,10 +360,8 @@ public class RuntimeDataTest {
 
 		writer.visitEnd();
 		final TargetLoader loader = new TargetLoader();
-		Callable<?> callable = (Callable<?>) loader
-				.add("Sample", writer.toByteArray())
+		return (Callable<?>) loader.add("Sample", writer.toByteArray())
 				.getConstructor(Object.class).newInstance(data);
-		assertSame(probes, callable.call());
 	}
 
 }
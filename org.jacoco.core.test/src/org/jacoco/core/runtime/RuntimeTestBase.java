@@ -40,6 +40,20 @@ public abstract class RuntimeTestBase {
 
 	abstract IRuntime createRuntime();
 
+	/**
+	 * Returns the class file version for generated test classes.
+	 */
+	int getClassVersion() {
+		return Opcodes.V1_5;
+	}
+
+	/**
+	 * Returns the generator used to create the test classes.
+	 */
+	IExecutionDataAccessorGenerator getAccessorGenerator(final IRuntime runtime) {
+		return runtime;
+	}
+
 	@Before
 	public void setup() throws Exception {
 		data = new RuntimeData();
@@ -57,6 +71,7 @@ public abstract class RuntimeTestBase {
 	public void testDataAccessor() throws InstantiationException,
 			IllegalAccessException {
 		ITarget t = generateAndInstantiateClass(1234);
+		t.get()[1] = true;
 		data.collect(storage, storage, false);
 		storage.assertData(1234, t.get());
 	}
@@ -64,13 +79,13 @@ public abstract class RuntimeTestBase {
 	@Test
 	public void testNoLocalVariablesInDataAccessor()
 			throws InstantiationException, IllegalAccessException {
-		runtime.generateDataAccessor(1001, "Target", 5, new MethodVisitor(
-				InstrSupport.ASM_API_VERSION) {
-			@Override
-			public void visitVarInsn(int opcode, int var) {
-				fail("No usage of local variables allowed.");
-			}
-		});
+		getAccessorGenerator(runtime).generateDataAccessor(1001, "Target", 5,
+				new MethodVisitor(InstrSupport.ASM_API_VERSION) {
+					@Override
+					public void visitVarInsn(int opcode, int var) {
+						fail("No usage of local variables allowed.");
+					}
+				});
 	}
 
 	@Test
@@ -109,7 +124,7 @@ public abstract class RuntimeTestBase {
 		Type classType = Type.getObjectType(className);
 
 		final ClassWriter writer = new ClassWriter(0);
-		writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, className, null,
+		writer.visit(getClassVersion(), Opcodes.ACC_PUBLIC, className, null,
 				"java/lang/Object",
 				new String[] { Type.getInternalName(ITarget.class) });
 
@@ -126,8 +141,8 @@ public abstract class RuntimeTestBase {
 		gen.invokeConstructor(Type.getType(Object.class), new Method("<init>",
 				"()V"));
 		gen.loadThis();
-		final int size = runtime.generateDataAccessor(classid, className, 2,
-				gen);
+		final int size = getAccessorGenerator(runtime).generateDataAccessor(
+				classid, className, 2, gen);
 		gen.putStatic(classType, InstrSupport.DATAFIELD_NAME,
 				Type.getObjectType(InstrSupport.DATAFIELD_DESC));
 		gen.returnValue();
@@ -12,8 +12,8 @@
 package org.jacoco.core.runtime;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertSame;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -41,7 +41,8 @@ class TestStorage implements IExecutionDataVisitor, ISessionInfoVisitor {
 	}
 
 	public void assertData(long classId, boolean[] expected) {
-		assertSame(expected, getData(classId).getProbes());
+		assertEquals(Arrays.toString(expected),
+				Arrays.toString(getData(classId).getProbes()));
 	}
 
 	// === ICoverageDataVisitor ===
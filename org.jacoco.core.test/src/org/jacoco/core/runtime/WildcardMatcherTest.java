@@ -69,4 +69,47 @@ public class WildcardMatcherTest {
 				.matches("org/example/Enity$$$generated123"));
 	}
 
+	@Test
+	public void testPrefix() {
+		assertTrue(new WildcardMatcher("org/jacoco/*").matches("org/jacoco/"));
+		assertTrue(new WildcardMatcher("org/jacoco/*")
+				.matches("org/jacoco/core/Foo"));
+		assertFalse(new WildcardMatcher("org/jacoco/*").matches("org/jacoc"));
+		assertFalse(new WildcardMatcher("org/jacoco/*").matches("com/Foo"));
+	}
+
+	@Test
+	public void testOptionalCharacter() {
+		assertTrue(new WildcardMatcher("Foo?").matches("Foo"));
+		assertTrue(new WildcardMatcher("Foo?").matches("Foo1"));
+		assertFalse(new WildcardMatcher("Foo?").matches("Foo12"));
+		assertTrue(new WildcardMatcher("??").matches(""));
+		assertTrue(new WildcardMatcher("a??b").matches("axyb"));
+		assertFalse(new WildcardMatcher("a??b").matches("axyzb"));
+		assertTrue(new WildcardMatcher("*?x").matches("x"));
+	}
+
+	@Test
+	public void testRepeatedCharacters() {
+		assertTrue(new WildcardMatcher("*aab").matches("aaaab"));
+		assertTrue(new WildcardMatcher("*a*a*a").matches("banana"));
+		assertFalse(new WildcardMatcher("*a*a*a*a").matches("banana"));
+	}
+
+	@Test
+	public void testLongExpression() {
+		final StringBuilder expression = new StringBuilder("*");
+		final StringBuilder value = new StringBuilder("x");
+		for (int i = 0; i < 100; i++) {
+			expression.append("a?");
+			value.append("ab");
+		}
+		assertTrue(new WildcardMatcher(expression.toString()).matches(value
+				.toString()));
+		assertFalse(new WildcardMatcher(expression.toString()).matches(value
+				.toString() + "cc"));
+		assertTrue(new WildcardMatcher("a*" + expression).matches("a"
+				+ value));
+	}
+
 }
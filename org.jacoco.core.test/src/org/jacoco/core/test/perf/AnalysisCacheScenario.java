@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.analysis.AnalysisCache;
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.test.TargetLoader;
+
+/**
+ * This scenario measures the time to analyze classes with a warm
+ * {@link AnalysisCache}. The reference analyzes the byte code of every class.
+ */
+public class AnalysisCacheScenario extends TimedScenario {
+
+	private final byte[] bytes;
+
+	private final int count;
+
+	private final AnalysisCache cache;
+
+	private final ExecutionDataStore executionData;
+
+	private final ICoverageVisitor visitor;
+
+	protected AnalysisCacheScenario(final Class<?> target, final int count)
+			throws Exception {
+		super(String.format("analysing %s classes with warm cache",
+				Integer.valueOf(count)));
+		this.bytes = TargetLoader.getClassDataAsBytes(target);
+		this.count = count;
+		final File directory = File.createTempFile("jacoco", ".cache");
+		directory.delete();
+		directory.deleteOnExit();
+		this.cache = new AnalysisCache(directory);
+		this.executionData = new ExecutionDataStore();
+		this.visitor = new ICoverageVisitor() {
+			public void visitCoverage(final IClassCoverage coverage) {
+			}
+		};
+		createAnalyzer(cache).analyzeClass(bytes, "warmup");
+	}
+
+	private Analyzer createAnalyzer(final AnalysisCache cache) {
+		final Analyzer analyzer = new Analyzer(executionData, visitor);
+		analyzer.setCache(cache);
+		return analyzer;
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return getCallable(cache);
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return getCallable(null);
+	}
+
+	private Callable<Void> getCallable(final AnalysisCache cache) {
+		final Analyzer analyzer = createAnalyzer(cache);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				for (int i = 0; i < count; i++) {
+					analyzer.analyzeClass(bytes, "Target");
+				}
+				return null;
+			}
+		};
+	}
+
+}
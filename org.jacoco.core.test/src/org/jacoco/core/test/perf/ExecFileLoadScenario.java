@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileLoader;
+
+/**
+ * This scenario measures the time to load a set of execution data files with
+ * a given number of threads. The reference loads all files with a single
+ * thread.
+ */
+public class ExecFileLoadScenario extends TimedScenario {
+
+	private final List<File> files;
+
+	private final int threads;
+
+	protected ExecFileLoadScenario(final int fileCount, final int classCount,
+			final int threads) throws Exception {
+		super(String.format("load %s files with %s threads",
+				Integer.valueOf(fileCount), Integer.valueOf(threads)));
+		this.threads = threads;
+		files = new ArrayList<File>();
+		final Random random = new Random(42);
+		for (int f = 0; f < fileCount; f++) {
+			final File file = File.createTempFile("jacoco", ".exec");
+			file.deleteOnExit();
+			final FileOutputStream out = new FileOutputStream(file);
+			final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+			writer.visitSessionInfo(new SessionInfo("session" + f, f, f));
+			for (int i = 0; i < classCount; i++) {
+				final boolean[] probes = new boolean[40];
+				for (int p = 0; p < probes.length; p++) {
+					probes[p] = random.nextBoolean();
+				}
+				writer.visitClassExecution(new ExecutionData(i,
+						"org/example/Target" + i, probes));
+			}
+			out.close();
+			files.add(file);
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				new ExecFileLoader().load(files, threads);
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				new ExecFileLoader().load(files, 1);
+				return null;
+			}
+		};
+	}
+
+}
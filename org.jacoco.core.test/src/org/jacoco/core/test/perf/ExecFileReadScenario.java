@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.tools.ExecFileLoader;
+
+/**
+ * This scenario measures the time to load many execution data files which
+ * contain the same classes. The reference reads every file through a buffered
+ * stream and merges a new {@link ExecutionData} object per class into the
+ * store.
+ */
+public class ExecFileReadScenario extends TimedScenario {
+
+	private final List<File> files;
+
+	protected ExecFileReadScenario(final int fileCount, final int classCount)
+			throws Exception {
+		super(String.format("read %s files with %sk classes", Integer
+				.valueOf(fileCount), Integer.valueOf(classCount / 1000)));
+		files = new ArrayList<File>();
+		final Random random = new Random(42);
+		for (int f = 0; f < fileCount; f++) {
+			final File file = File.createTempFile("jacoco", ".exec");
+			file.deleteOnExit();
+			final FileOutputStream out = new FileOutputStream(file);
+			final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+			writer.visitSessionInfo(new SessionInfo("session" + f, f, f));
+			for (int i = 0; i < classCount; i++) {
+				final boolean[] probes = new boolean[40];
+				for (int p = 0; p < probes.length; p++) {
+					probes[p] = random.nextInt(4) == 0;
+				}
+				writer.visitClassExecution(new ExecutionData(i,
+						"org/example/pkg" + (i % 100) + "/Target" + i, probes));
+			}
+			out.close();
+			files.add(file);
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				final ExecFileLoader loader = new ExecFileLoader();
+				for (final File file : files) {
+					loader.load(file);
+				}
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				final SessionInfoStore sessionInfos = new SessionInfoStore();
+				final ExecutionDataStore executionData = new ExecutionDataStore();
+				for (final File file : files) {
+					final InputStream in = new BufferedInputStream(
+							new FileInputStream(file));
+					final ExecutionDataReader reader = new ExecutionDataReader(
+							in);
+					reader.setSessionInfoVisitor(sessionInfos);
+					reader.setExecutionDataVisitor(executionData);
+					reader.read();
+					in.close();
+				}
+				return null;
+			}
+		};
+	}
+
+}
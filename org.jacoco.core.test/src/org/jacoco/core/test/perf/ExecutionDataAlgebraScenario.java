@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataAlgebra;
+import org.jacoco.core.data.ExecutionDataStore;
+
+/**
+ * This scenario measures the time to calculate the symmetric difference of
+ * two stores with {@link ExecutionDataAlgebra}. The reference is a hand
+ * written loop over the probe arrays.
+ */
+public class ExecutionDataAlgebraScenario extends TimedScenario {
+
+	private final ExecutionDataStore a;
+
+	private final ExecutionDataStore b;
+
+	private final int threads;
+
+	protected ExecutionDataAlgebraScenario(final int classCount,
+			final int threads) {
+		super(String.format("xor of %sk classes with %s threads",
+				Integer.valueOf(classCount / 1000), Integer.valueOf(threads)));
+		this.threads = threads;
+		a = new ExecutionDataStore();
+		b = new ExecutionDataStore();
+		final Random random = new Random(42);
+		for (int i = 0; i < classCount; i++) {
+			final long id = random.nextLong();
+			final String name = "org/example/Target" + i;
+			a.put(new ExecutionData(id, name, createProbes(random)));
+			b.put(new ExecutionData(id, name, createProbes(random)));
+		}
+	}
+
+	private static boolean[] createProbes(final Random random) {
+		final boolean[] probes = new boolean[200];
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] = random.nextBoolean();
+		}
+		return probes;
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				new ExecutionDataAlgebra(threads).xor(a, b);
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				final ExecutionDataStore result = new ExecutionDataStore();
+				int count = 0;
+				for (final ExecutionData x : a.getContents()) {
+					final boolean[] px = x.getProbes();
+					final boolean[] py = b.get(x.getId()).getProbes();
+					final boolean[] probes = new boolean[px.length];
+					for (int i = 0; i < probes.length; i++) {
+						if (px[i] != py[i]) {
+							probes[i] = true;
+							count++;
+						}
+					}
+					result.put(new ExecutionData(x.getId(), x.getName(),
+							probes));
+				}
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.internal.data.ChannelOutputStream;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * This scenario measures the time to dump the execution data of a VM to a
+ * file like the agent does on exit. Data is written through a buffered
+ * channel, the reference writes directly to a {@link FileOutputStream}.
+ */
+public class ExecutionDataDumpScenario extends TimedScenario {
+
+	private final RuntimeData data;
+
+	private final File file;
+
+	protected ExecutionDataDumpScenario(final int classCount) throws Exception {
+		super(String.format("exit dump %sk classes",
+				Integer.valueOf(classCount / 1000)));
+		data = new RuntimeData();
+		final Random random = new Random(42);
+		for (int i = 0; i < classCount; i++) {
+			final boolean[] probes = data.getProbes(random.nextLong(),
+					"org/example/pkg" + (i % 100) + "/Target" + i, 40);
+			for (int p = 0; p < probes.length; p++) {
+				probes[p] = random.nextBoolean();
+			}
+		}
+		file = File.createTempFile("jacoco", ".exec");
+		file.deleteOnExit();
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				final FileOutputStream out = new FileOutputStream(file);
+				dump(new ChannelOutputStream(out.getChannel()));
+				out.close();
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				dump(new FileOutputStream(file));
+				return null;
+			}
+		};
+	}
+
+	private void dump(final OutputStream out) throws Exception {
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		data.collect(writer, writer, false);
+		out.close();
+	}
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Scenario to measure contention when many threads concurrently look up probe
+ * arrays, like it happens during class loading storms. The reference is a
+ * single {@link ExecutionDataStore} guarded by one monitor.
+ */
+public class ExecutionDataLookupScenario extends TimedScenario {
+
+	private static final int CLASSES = 10000;
+
+	private static final int LOOKUPS = 20;
+
+	private final int threads;
+
+	private final Long[] ids;
+
+	protected ExecutionDataLookupScenario(final int threads) {
+		super(String.format("lookup probes (%s threads)",
+				Integer.valueOf(threads)));
+		this.threads = threads;
+		// Class ids are CRC64 checksums, i.e. randomly distributed:
+		final Random random = new Random(42);
+		ids = new Long[CLASSES];
+		for (int i = 0; i < CLASSES; i++) {
+			ids[i] = Long.valueOf(random.nextLong());
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final RuntimeData data = new RuntimeData();
+		return parallel(new Runnable() {
+			public void run() {
+				for (int l = 0; l < LOOKUPS; l++) {
+					for (int i = 0; i < CLASSES; i++) {
+						data.getExecutionData(ids[i], "Target", 8);
+					}
+				}
+			}
+		});
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		return parallel(new Runnable() {
+			public void run() {
+				for (int l = 0; l < LOOKUPS; l++) {
+					for (int i = 0; i < CLASSES; i++) {
+						synchronized (store) {
+							store.get(ids[i], "Target", 8);
+						}
+					}
+				}
+			}
+		});
+	}
+
+	private Callable<Void> parallel(final Runnable task) {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				final ExecutorService executor = Executors
+						.newFixedThreadPool(threads);
+				try {
+					final List<Future<?>> futures = new ArrayList<Future<?>>();
+					for (int t = 0; t < threads; t++) {
+						futures.add(executor.submit(task));
+					}
+					for (final Future<?> f : futures) {
+						f.get();
+					}
+				} finally {
+					executor.shutdown();
+				}
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+
+/**
+ * Scenario to measure the heap retained by the index structures of a
+ * {@link ExecutionDataStore}, i.e. without the {@link ExecutionData} instances
+ * themselves. The reference is a {@link HashMap} with boxed ids plus a
+ * {@link HashSet} of names.
+ */
+public class ExecutionDataStoreFootprintScenario implements IPerfScenario {
+
+	private final int count;
+
+	protected ExecutionDataStoreFootprintScenario(final int count) {
+		this.count = count;
+	}
+
+	public void run(final IPerfOutput output) throws Exception {
+		final ExecutionData[] data = new ExecutionData[count];
+		final Random random = new Random(42);
+		for (int i = 0; i < count; i++) {
+			data[i] = new ExecutionData(random.nextLong(), "Target" + i, 8);
+		}
+
+		long base = usedMemory();
+		final ExecutionDataStore store = new ExecutionDataStore();
+		for (final ExecutionData d : data) {
+			store.put(d);
+		}
+		final long size = usedMemory() - base;
+
+		base = usedMemory();
+		final Map<Long, ExecutionData> map = new HashMap<Long, ExecutionData>();
+		final Set<String> names = new HashSet<String>();
+		for (final ExecutionData d : data) {
+			map.put(Long.valueOf(d.getId()), d);
+			names.add(d.getName());
+		}
+		final long reference = usedMemory() - base;
+
+		output.writeByteResult(String.format("store index %sk classes",
+				Integer.valueOf(count / 1000)), size, reference);
+
+		// Keep everything reachable until here:
+		if (store.get(data[0].getId()) != map.get(Long.valueOf(data[0]
+				.getId())) || !names.contains(data[0].getName())) {
+			throw new AssertionError();
+		}
+	}
+
+	private static long usedMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.ModifiedSystemClassRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.test.TargetLoader;
+import org.objectweb.asm.ClassReader;
+
+/**
+ * This scenario documents the overhead of hit counters: The given target is
+ * executed with classes instrumented in hit counting mode. The reference are
+ * the same classes instrumented with boolean probes.
+ */
+public class HitCountExecutionScenario extends TimedScenario {
+
+	/** Access field for the runtime, emulates the instrumented system class. */
+	public static Object access;
+
+	private final Class<? extends Callable<Void>> target;
+
+	protected HitCountExecutionScenario(final String description,
+			final Class<? extends Callable<Void>> target) {
+		super(description);
+		this.target = target;
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return createInstrumentedTarget(true);
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return createInstrumentedTarget(false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Callable<Void> createInstrumentedTarget(final boolean hitCounts)
+			throws Exception {
+		final ClassReader reader = new ClassReader(
+				TargetLoader.getClassData(target));
+		final ModifiedSystemClassRuntime runtime = new ModifiedSystemClassRuntime(
+				HitCountExecutionScenario.class, "access");
+		runtime.startup(new RuntimeData());
+		final Instrumenter instr = new Instrumenter(runtime);
+		instr.setHitCounts(hitCounts);
+		final byte[] instrumentedBuffer = instr.instrument(reader);
+		final TargetLoader loader = new TargetLoader();
+		return (Callable<Void>) loader.add(target, instrumentedBuffer)
+				.newInstance();
+	}
+
+}
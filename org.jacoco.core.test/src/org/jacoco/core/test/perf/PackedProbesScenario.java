@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.PackedProbes;
+
+/**
+ * This scenario measures the time to merge and subtract probe data in packed
+ * representation. The reference performs the same operations on
+ * {@link ExecutionData} objects with <code>boolean[]</code> probes.
+ */
+public class PackedProbesScenario extends TimedScenario {
+
+	private final boolean[] a;
+
+	private final boolean[] b;
+
+	protected PackedProbesScenario(final int probeCount) {
+		super(String.format("merge and subtract %sk probes",
+				Integer.valueOf(probeCount / 1000)));
+		final Random random = new Random(42);
+		a = new boolean[probeCount];
+		b = new boolean[probeCount];
+		for (int i = 0; i < probeCount; i++) {
+			a[i] = random.nextBoolean();
+			b[i] = random.nextBoolean();
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final PackedProbes target = new PackedProbes(a);
+		final PackedProbes other = new PackedProbes(b);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				target.merge(other, true);
+				target.merge(other, false);
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		final ExecutionData target = new ExecutionData(1, "Target", a.clone());
+		final ExecutionData other = new ExecutionData(1, "Target", b);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				target.merge(other, true);
+				target.merge(other, false);
+				return null;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.Callable;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.ParallelAnalyzer;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.test.TargetLoader;
+
+/**
+ * This scenario measures the time to analyze a JAR file with a given number
+ * of threads. The reference analyzes the same file with the single threaded
+ * {@link Analyzer}.
+ */
+public class ParallelAnalysisScenario extends TimedScenario {
+
+	private final File file;
+
+	private final int threads;
+
+	private final ExecutionDataStore executionData;
+
+	private final ICoverageVisitor visitor;
+
+	protected ParallelAnalysisScenario(final Class<?> target,
+			final int count, final int threads) throws Exception {
+		super(String.format("analysing %s classes with %s threads",
+				Integer.valueOf(count), Integer.valueOf(threads)));
+		this.threads = threads;
+		this.executionData = new ExecutionDataStore();
+		this.visitor = new ICoverageVisitor() {
+			public void visitCoverage(final IClassCoverage coverage) {
+			}
+		};
+		final byte[] bytes = TargetLoader.getClassDataAsBytes(target);
+		file = File.createTempFile("jacoco", ".jar");
+		file.deleteOnExit();
+		final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(
+				file));
+		for (int i = 0; i < count; i++) {
+			zip.putNextEntry(new ZipEntry("Target" + i + ".class"));
+			zip.write(bytes);
+		}
+		zip.close();
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				new ParallelAnalyzer(executionData, visitor, threads)
+						.analyzeAll(file);
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				new Analyzer(executionData, visitor).analyzeAll(file);
+				return null;
+			}
+		};
+	}
+
+}
@@ -29,9 +29,28 @@ public class PerformanceSuite implements IPerfScenario {
 				.run(output);
 		new ExecuteInstrumentedCodeScenario("game of life", Target03.class)
 				.run(output);
+		new HitCountExecutionScenario("hit counts: game of life",
+				Target03.class).run(output);
 		new InstrumentationSizeSzenario(Target03.class).run(output);
 		new InstrumentationTimeScenario(Target03.class, 1000).run(output);
 		new AnalysisTimeScenario(Target03.class, 1000).run(output);
+		for (int threads = 1; threads <= 4; threads *= 2) {
+			new ParallelAnalysisScenario(Target03.class, 1000, threads)
+					.run(output);
+		}
+		new AnalysisCacheScenario(Target03.class, 1000).run(output);
+		new ExecutionDataLookupScenario(Runtime.getRuntime()
+				.availableProcessors()).run(output);
+		new ExecutionDataStoreFootprintScenario(1000000).run(output);
+		new WildcardMatcherScenario(100000).run(output);
+		new ExecutionDataDumpScenario(20000).run(output);
+		for (int threads = 2; threads <= 32; threads *= 2) {
+			new ExecFileLoadScenario(64, 2000, threads).run(output);
+		}
+		new ExecFileReadScenario(50, 20000).run(output);
+		new PackedProbesScenario(10000000).run(output);
+		new ExecutionDataAlgebraScenario(50000, 1).run(output);
+		new ExecutionDataAlgebraScenario(50000, 4).run(output);
 	}
 
 	public static void main(String[] args) throws Exception {
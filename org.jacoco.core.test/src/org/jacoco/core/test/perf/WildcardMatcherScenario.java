@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.test.perf;
+
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+
+import org.jacoco.core.runtime.WildcardMatcher;
+
+/**
+ * This scenario measures the class name filters of the agent for a load
+ * trace of a typical application: Most classes come from the JDK and
+ * frameworks, a small part from the application itself. The reference is the
+ * same filter with regular expressions.
+ */
+public class WildcardMatcherScenario extends TimedScenario {
+
+	private static final String INCLUDES = "com/example/*:org/acme/*";
+
+	private static final String EXCLUDES = "*Test:*$$*:*_jsp:com/example/gen/*";
+
+	private static final String[] PACKAGES = { "java/lang/", "java/util/",
+			"java/util/concurrent/", "sun/reflect/", "javax/servlet/",
+			"org/springframework/beans/factory/support/",
+			"org/springframework/context/annotation/", "org/hibernate/engine/",
+			"com/fasterxml/jackson/databind/", "org/apache/commons/lang3/",
+			"com/example/app/service/", "com/example/app/web/",
+			"com/example/gen/", "org/acme/billing/" };
+
+	private static final String[] SUFFIXES = { "", "Impl", "Factory",
+			"$Inner", "$$EnhancerBySpringCGLIB$$1a2b", "Test", "_jsp",
+			"Handler$1" };
+
+	private final String[] trace;
+
+	protected WildcardMatcherScenario(final int classCount) {
+		super(String.format("filter %s loaded classes",
+				Integer.valueOf(classCount)));
+		trace = new String[classCount];
+		for (int i = 0; i < classCount; i++) {
+			trace[i] = PACKAGES[i % PACKAGES.length] + "Type" + i
+					+ SUFFIXES[i % SUFFIXES.length];
+		}
+	}
+
+	@Override
+	protected Callable<Void> getInstrumentedCallable() throws Exception {
+		final WildcardMatcher includes = new WildcardMatcher(INCLUDES);
+		final WildcardMatcher excludes = new WildcardMatcher(EXCLUDES);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				int count = 0;
+				for (final String name : trace) {
+					if (includes.matches(name) && !excludes.matches(name)) {
+						count++;
+					}
+				}
+				check(count);
+				return null;
+			}
+		};
+	}
+
+	@Override
+	protected Callable<Void> getReferenceCallable() throws Exception {
+		final Pattern includes = toRegex(INCLUDES);
+		final Pattern excludes = toRegex(EXCLUDES);
+		return new Callable<Void>() {
+			public Void call() throws Exception {
+				int count = 0;
+				for (final String name : trace) {
+					if (includes.matcher(name).matches()
+							&& !excludes.matcher(name).matches()) {
+						count++;
+					}
+				}
+				check(count);
+				return null;
+			}
+		};
+	}
+
+	private static void check(final int count) {
+		if (count == 0) {
+			throw new AssertionError("No classes matched.");
+		}
+	}
+
+	private static Pattern toRegex(final String expression) {
+		final StringBuilder regex = new StringBuilder();
+		for (final String part : expression.split("\\:")) {
+			if (regex.length() > 0) {
+				regex.append('|');
+			}
+			regex.append('(');
+			for (final char c : part.toCharArray()) {
+				switch (c) {
+				case '?':
+					regex.append(".?");
+					break;
+				case '*':
+					regex.append(".*");
+					break;
+				default:
+					regex.append(Pattern.quote(String.valueOf(c)));
+					break;
+				}
+			}
+			regex.append(')');
+		}
+		return Pattern.compile(regex.toString());
+	}
+
+}
@@ -25,7 +25,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.ICompressionCommandVisitor;
+import org.jacoco.core.runtime.IDumpChangesCommandVisitor;
 import org.jacoco.core.runtime.IRemoteCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
@@ -43,12 +46,18 @@ public class ExecDumpClientTest {
 
 	private boolean dumpRequested;
 	private boolean resetRequested;
+	private boolean changesRequested;
+	private boolean compressionRequested;
+	private String changesClient;
+	private boolean compressionSupported;
+	private volatile int connectionCount;
 
 	private ServerSocket server;
 
 	@Before
 	public void setup() {
 		callbacks = new ArrayList<String>();
+		compressionSupported = true;
 		client = new ExecDumpClient() {
 			@Override
 			protected void onConnecting(InetAddress address, int port) {
@@ -126,6 +135,100 @@ public class ExecDumpClientTest {
 		assertTrue(resetRequested);
 	}
 
+	@Test
+	public void testDumpChanges() throws IOException {
+		int port = createExecServer();
+		client.setChangesOnly(true);
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.getExecutionDataStore().put(
+				new ExecutionData(1, "Foo", new boolean[] { true, false }));
+		client.dump(InetAddress.getByName(null), port, loader);
+		assertTrue(changesRequested);
+		assertTrue(dumpRequested);
+		assertFalse(resetRequested);
+
+		// Changed classes replace their previous state:
+		assertTrue(Arrays.equals(new boolean[] { false, true }, loader
+				.getExecutionDataStore().get(1).getProbes()));
+		assertEquals(1, loader.getSessionInfoStore().getInfos().size());
+	}
+
+	@Test
+	public void testDumpChangesWithReset() throws IOException {
+		int port = createExecServer();
+		client.setChangesOnly(true);
+		client.setReset(true);
+		ExecFileLoader loader = new ExecFileLoader();
+		loader.getExecutionDataStore().put(
+				new ExecutionData(1, "Foo", new boolean[] { true, false }));
+		client.dump(InetAddress.getByName(null), port, loader);
+		assertTrue(changesRequested);
+		assertTrue(resetRequested);
+
+		// Changes after reset are merged into the previous state:
+		assertTrue(Arrays.equals(new boolean[] { true, true }, loader
+				.getExecutionDataStore().get(1).getProbes()));
+	}
+
+	@Test
+	public void testDumpChangesWithoutDump() throws IOException {
+		int port = createExecServer();
+		client.setChangesOnly(true);
+		client.setDump(false);
+		client.setReset(true);
+		client.dump((String) null, port);
+		assertTrue(changesRequested);
+		assertFalse(dumpRequested);
+		assertTrue(resetRequested);
+	}
+
+	@Test
+	public void testDumpChangesClientId() throws IOException {
+		int port = createExecServer();
+		client.setChangesOnly(true);
+		client.dump((String) null, port);
+		final String first = changesClient;
+		server.close();
+		port = createExecServer();
+		client.dump((String) null, port);
+		assertEquals(first, changesClient);
+
+		server.close();
+		port = createExecServer();
+		final ExecDumpClient other = new ExecDumpClient();
+		other.setChangesOnly(true);
+		other.dump((String) null, port);
+		assertFalse(first.equals(changesClient));
+	}
+
+	@Test
+	public void testDumpWithCompression() throws IOException {
+		int port = createExecServer();
+		client.setCompression(true);
+		ExecFileLoader loader = client.dump((String) null, port);
+		assertTrue(compressionRequested);
+		assertTrue(dumpRequested);
+
+		List<SessionInfo> infos = loader.getSessionInfoStore().getInfos();
+		assertEquals(1, infos.size());
+		assertEquals("TestId", infos.get(0).getId());
+		assertEquals(1, connectionCount);
+	}
+
+	@Test
+	public void testDumpWithCompressionNotSupported() throws IOException {
+		compressionSupported = false;
+		int port = createExecServer();
+		client.setCompression(true);
+		ExecFileLoader loader = client.dump((String) null, port);
+		assertTrue(dumpRequested);
+
+		// The dump is requested again without compression:
+		assertEquals(2, connectionCount);
+		List<SessionInfo> infos = loader.getSessionInfoStore().getInfos();
+		assertEquals(1, infos.size());
+	}
+
 	private int getFreePort() throws IOException {
 		final ServerSocket server = new ServerSocket(0, 0,
 				InetAddress.getByName(null));
@@ -135,13 +238,25 @@ public class ExecDumpClientTest {
 	}
 
 	private int createExecServer() throws IOException {
-		server = new ServerSocket(0, 0, InetAddress.getByName(null));
+		final ServerSocket serverSocket = new ServerSocket(0, 0,
+				InetAddress.getByName(null));
+		server = serverSocket;
 		new Thread(new Runnable() {
 			public void run() {
 				try {
-					handleConnection(server.accept());
+					while (true) {
+						final Socket socket = serverSocket.accept();
+						connectionCount++;
+						try {
+							handleConnection(socket);
+						} catch (IOException e) {
+							// ignore
+						} finally {
+							socket.close();
+						}
+					}
 				} catch (IOException e) {
-					// ignore
+					// server closed
 				}
 			}
 		}).start();
@@ -153,7 +268,7 @@ public class ExecDumpClientTest {
 				socket.getOutputStream());
 		final RemoteControlReader reader = new RemoteControlReader(
 				socket.getInputStream());
-		reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+		final IServerCommandVisitor visitor = new IServerCommandVisitor() {
 			public void visitDumpCommand(boolean dump, boolean reset)
 					throws IOException {
 				dumpRequested = dump;
@@ -162,8 +277,44 @@ public class ExecDumpClientTest {
 					writer.visitSessionInfo(new SessionInfo("TestId", 100, 200));
 				}
 				writer.sendCmdOk();
+				writer.flush();
+			}
+
+			public void visitDumpChangesCommand(String client, boolean dump,
+					boolean reset) throws IOException {
+				changesClient = client;
+				changesRequested = true;
+				dumpRequested = dump;
+				resetRequested = reset;
+				writer.visitSessionInfo(new SessionInfo("TestId", 100, 200));
+				writer.visitClassExecution(new ExecutionData(1, "Foo",
+						new boolean[] { false, true }));
+				writer.sendCmdOk();
+				writer.flush();
+			}
+
+			public void visitCompressionCommand() throws IOException {
+				compressionRequested = true;
+				writer.sendCmdOk();
+				writer.flush();
+				writer.setCompression(true);
 			}
-		});
+		};
+		if (compressionSupported) {
+			reader.setRemoteCommandVisitor(visitor);
+		} else {
+			reader.setRemoteCommandVisitor(new IRemoteCommandVisitor() {
+				public void visitDumpCommand(boolean dump, boolean reset)
+						throws IOException {
+					visitor.visitDumpCommand(dump, reset);
+				}
+			});
+		}
 		reader.read();
 	}
+
+	private interface IServerCommandVisitor extends
+			IDumpChangesCommandVisitor, ICompressionCommandVisitor {
+	}
+
 }
@@ -12,7 +12,12 @@
 package org.jacoco.core.tools;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -20,9 +25,12 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataAlgebra;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
@@ -78,6 +86,77 @@ public class ExecFileLoaderTest {
 		loader.load(file);
 	}
 
+	@Test
+	public void testLoadFilesSequential() throws IOException {
+		loader.load(Arrays.asList(createFile("a"), createFile("bb")), 1);
+
+		assertLoaderContents("a", "bb");
+	}
+
+	@Test
+	public void testLoadFilesParallel() throws IOException {
+		final String[] ids = new String[20];
+		final List<File> files = new ArrayList<File>();
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = "abcdefghijklmnopqrstuvwxyz".substring(0, i + 1);
+			files.add(createFile(ids[i]));
+		}
+		loader.load(files, 3);
+
+		assertLoaderContents(ids);
+	}
+
+	@Test
+	public void testLoadFilesEmpty() throws IOException {
+		loader.load(new ArrayList<File>(), 4);
+
+		assertLoaderContents();
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadFilesBrokenContent() throws IOException {
+		final File file = new File(sourceFolder.getRoot(), "broken.exec");
+		final FileWriter writer = new FileWriter(file);
+		writer.write("Invalid Content");
+		writer.close();
+
+		loader.load(Arrays.asList(createFile("a"), file, createFile("bb")), 2);
+	}
+
+	@Test
+	public void testLoadFilesBrokenContentMessage() throws IOException {
+		final File file = new File(sourceFolder.getRoot(), "broken.exec");
+		final FileWriter writer = new FileWriter(file);
+		writer.write("Invalid Content");
+		writer.close();
+
+		try {
+			loader.load(Arrays.asList(createFile("a"), file), 2);
+			fail("IOException expected");
+		} catch (final IOException e) {
+			assertEquals("Unable to read execution data file " + file,
+					e.getMessage());
+			assertTrue(e.getCause() instanceof IOException);
+		}
+	}
+
+	@Test
+	public void testApply() throws IOException {
+		loader.load(createFile("a"));
+		loader.load(createFile("bb"));
+		final ExecFileLoader baseline = new ExecFileLoader();
+		baseline.load(createFile("bb"));
+
+		final ExecutionDataAlgebra.Result result = loader.apply(
+				ExecutionDataAlgebra.Operation.DIFFERENCE, baseline, 2);
+
+		assertEquals(1, result.getClassCount());
+		assertEquals(1, result.getProbeCount());
+		assertSame(result.getStore(), loader.getExecutionDataStore());
+		assertEquals("a", loader.getExecutionDataStore().get(1).getName());
+		assertEquals(2, loader.getSessionInfoStore().getInfos().size());
+	}
+
 	@Test
 	public void testSaveFile() throws IOException {
 		final File file = new File(sourceFolder.getRoot(), "target.exec");
@@ -103,6 +182,36 @@ public class ExecFileLoaderTest {
 		assertFileContents(file, "a", "bb");
 	}
 
+	@Test
+	public void testSaveFileAppendCompressed() throws IOException {
+		final File file = createFile("a");
+
+		loader.load(createFile("bb"));
+		loader.setCompression(true);
+		loader.save(file, true);
+
+		assertFileContents(file, "a", "bb");
+	}
+
+	@Test
+	public void testSaveSparseEncoding() throws IOException {
+		final boolean[] probes = new boolean[5000];
+		probes[42] = true;
+		loader.getExecutionDataStore().put(
+				new ExecutionData(1, "Sparse", probes));
+		final ByteArrayOutputStream sparse = new ByteArrayOutputStream();
+		loader.save(sparse);
+		loader.setSparseEncoding(false);
+		final ByteArrayOutputStream plain = new ByteArrayOutputStream();
+		loader.save(plain);
+
+		assertTrue(sparse.size() < plain.size());
+		final ExecFileLoader result = new ExecFileLoader();
+		result.load(new ByteArrayInputStream(sparse.toByteArray()));
+		assertTrue(Arrays.equals(probes, result.getExecutionDataStore()
+				.get(1).getProbes()));
+	}
+
 	@Test
 	public void testCreateSubfolders() throws IOException {
 		final File file = new File(sourceFolder.getRoot(), "a/b/c/target.exec");
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecFileMerger}.
+ */
+public class ExecFileMergerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecFileMerger merger;
+
+	private ExecFileLoader loader;
+
+	private Random random;
+
+	private List<byte[]> inputs;
+
+	@Before
+	public void setup() {
+		merger = new ExecFileMerger();
+		loader = new ExecFileLoader();
+		random = new Random(7);
+		inputs = new ArrayList<byte[]>();
+	}
+
+	@After
+	public void teardown() throws IOException {
+		merger.close();
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		assertTrue(merger.isEmpty());
+		assertMerged();
+	}
+
+	@Test
+	public void testSessionsOnly() throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitSessionInfo(new SessionInfo("s", 1, 2));
+		merger.load(new ByteArrayInputStream(out.toByteArray()));
+		assertTrue(merger.isEmpty());
+	}
+
+	@Test
+	public void testInMemory() throws IOException {
+		createInput(0, 100, false);
+		createInput(50, 150, false);
+		loadStreams();
+		assertFalse(merger.isEmpty());
+		assertMerged();
+	}
+
+	@Test
+	public void testSpilled() throws IOException {
+		merger.setRunSize(7);
+		createInput(0, 100, false);
+		createInput(50, 150, false);
+		createInput(-20, 30, false);
+		loadStreams();
+		assertMerged();
+	}
+
+	@Test
+	public void testHitCounts() throws IOException {
+		merger.setRunSize(7);
+		createInput(0, 40, true);
+		createInput(20, 60, true);
+		loadStreams();
+		assertMerged();
+	}
+
+	@Test
+	public void testMixedHitCounts() throws IOException {
+		createInput(0, 40, false);
+		createInput(20, 60, true);
+		createInput(10, 50, false);
+		loadStreams();
+		assertMerged();
+	}
+
+	@Test
+	public void testIndexedFiles() throws IOException {
+		merger.setRunSize(10);
+		createInput(0, 100, false);
+		createInput(50, 150, false);
+		createInput(-20, 30, false);
+		for (int i = 0; i < inputs.size(); i++) {
+			final File file = folder.newFile("in" + i + ".exec");
+			final FileOutputStream out = new FileOutputStream(file);
+			if (i == 1) {
+				// Rewrite with directory:
+				final ExecFileLoader l = new ExecFileLoader();
+				l.load(new ByteArrayInputStream(inputs.get(i)));
+				final ExecutionDataWriter writer = new ExecutionDataWriter(
+						out, true);
+				l.getSessionInfoStore().accept(writer);
+				l.getExecutionDataStore().accept(writer);
+				writer.close();
+			} else {
+				out.write(inputs.get(i));
+				out.close();
+			}
+			merger.load(file);
+			loader.load(file);
+		}
+		assertMerged();
+	}
+
+	@Test
+	public void testLoadFilesParallel() throws IOException {
+		merger.setRunSize(10);
+		final List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 12; i++) {
+			createInput(10 * i - 30, 10 * i + 30, false);
+			final File file = folder.newFile("in" + i + ".exec");
+			final FileOutputStream out = new FileOutputStream(file);
+			if (i == 5) {
+				// Rewrite with directory:
+				final ExecFileLoader l = new ExecFileLoader();
+				l.load(new ByteArrayInputStream(inputs.get(i)));
+				final ExecutionDataWriter writer = new ExecutionDataWriter(
+						out, true);
+				l.getSessionInfoStore().accept(writer);
+				l.getExecutionDataStore().accept(writer);
+				writer.close();
+			} else {
+				out.write(inputs.get(i));
+				out.close();
+			}
+			files.add(file);
+			loader.load(file);
+		}
+		merger.load(files, 3);
+		assertMerged();
+	}
+
+	@Test
+	public void testSaveTwice() throws IOException {
+		merger.setRunSize(7);
+		createInput(0, 30, true);
+		createInput(10, 40, true);
+		loadStreams();
+		final ByteArrayOutputStream first = new ByteArrayOutputStream();
+		merger.save(first);
+		final ByteArrayOutputStream second = new ByteArrayOutputStream();
+		merger.save(second);
+		assertTrue(Arrays.equals(first.toByteArray(), second.toByteArray()));
+	}
+
+	@Test
+	public void testSaveFile() throws IOException {
+		createInput(0, 30, false);
+		loadStreams();
+		final File file = new File(folder.getRoot(), "a/b/merged.exec");
+		merger.save(file, false);
+		final ExecFileLoader result = new ExecFileLoader();
+		result.load(file);
+		assertEquals(loader.getExecutionDataStore().getContents().size(),
+				result.getExecutionDataStore().getContents().size());
+	}
+
+	@Test
+	public void testCompression() throws IOException {
+		merger.setRunSize(7);
+		merger.setCompression(true);
+		loader.setCompression(true);
+		createInput(0, 100, false);
+		createInput(50, 150, true);
+		loadStreams();
+		assertMerged();
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		merger.save(out);
+		final ExecFileLoader result = new ExecFileLoader();
+		result.load(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(loader.getExecutionDataStore().getContents().size(),
+				result.getExecutionDataStore().getContents().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIncompatibleData() throws IOException {
+		merger.setRunSize(1);
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitClassExecution(new ExecutionData(1, "A",
+				new boolean[] { true }));
+		writer.visitClassExecution(new ExecutionData(2, "B",
+				new boolean[] { true }));
+		writer.visitClassExecution(new ExecutionData(1, "A",
+				new boolean[] { true, false }));
+		merger.load(new ByteArrayInputStream(out.toByteArray()));
+		merger.save(new ByteArrayOutputStream());
+	}
+
+	private void createInput(final int from, final int to, final boolean hits)
+			throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+		writer.visitSessionInfo(new SessionInfo("s" + inputs.size(), random
+				.nextInt(1000), random.nextInt(1000)));
+		// Unsorted content with duplicate classes:
+		for (int n = 0; n < 2 * (to - from); n++) {
+			final int id = from + random.nextInt(to - from);
+			final String name = "Class" + id;
+			if (hits) {
+				final int[] counters = new int[id & 0x0F];
+				for (int i = 0; i < counters.length; i++) {
+					counters[i] = random.nextInt(3);
+				}
+				writer.visitClassExecution(new ExecutionData(id, name,
+						counters));
+			} else {
+				final boolean[] probes = new boolean[id & 0x0F];
+				for (int i = 0; i < probes.length; i++) {
+					probes[i] = random.nextBoolean();
+				}
+				writer.visitClassExecution(new ExecutionData(id, name, probes));
+			}
+		}
+		inputs.add(out.toByteArray());
+	}
+
+	private void loadStreams() throws IOException {
+		for (final byte[] input : inputs) {
+			merger.load(new ByteArrayInputStream(input));
+			loader.load(new ByteArrayInputStream(input));
+		}
+	}
+
+	private void assertMerged() throws IOException {
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		loader.save(expected);
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		merger.save(actual);
+		assertTrue(Arrays.equals(expected.toByteArray(), actual.toByteArray()));
+	}
+
+}
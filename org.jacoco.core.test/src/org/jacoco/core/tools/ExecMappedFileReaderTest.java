@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IncompatibleExecDataVersionException;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.MappedExecutionDataWriter;
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ExecMappedFileReader}.
+ */
+public class ExecMappedFileReaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	private RuntimeData data;
+
+	private ExecMappedFileReader reader;
+
+	@Before
+	public void setup() {
+		file = new File(folder.getRoot(), "jacoco.map");
+		data = new RuntimeData();
+		data.setSessionId("session");
+		reader = new ExecMappedFileReader();
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		new MappedExecutionDataWriter(file).close();
+
+		final ExecFileLoader loader = reader.read(file);
+
+		assertTrue(loader.getExecutionDataStore().getContents().isEmpty());
+		assertEquals(1, loader.getSessionInfoStore().getInfos().size());
+	}
+
+	@Test
+	public void testRead() throws IOException {
+		final boolean[] probes1 = data.getProbes(1, "Foo", 10);
+		probes1[3] = true;
+		probes1[8] = true;
+		data.getProbes(2, "B\u00e4r", 0);
+		final MappedExecutionDataWriter writer = new MappedExecutionDataWriter(
+				file);
+		writer.update(data, false);
+		writer.close();
+
+		final ExecFileLoader loader = reader.read(file);
+
+		final ExecutionData d1 = loader.getExecutionDataStore().get(1);
+		assertEquals("Foo", d1.getName());
+		assertTrue(Arrays.equals(probes1, d1.getProbes()));
+		final ExecutionData d2 = loader.getExecutionDataStore().get(2);
+		assertEquals("B\u00e4r", d2.getName());
+		assertEquals(0, d2.getProbes().length);
+		final SessionInfo info = loader.getSessionInfoStore().getInfos()
+				.get(0);
+		assertEquals("session", info.getId());
+		assertTrue(info.getDumpTimeStamp() >= info.getStartTimeStamp());
+	}
+
+	@Test
+	public void testReadLiveContent() throws IOException {
+		final boolean[] probes = data.getProbes(1, "Foo", 2);
+		final MappedExecutionDataWriter writer = new MappedExecutionDataWriter(
+				file);
+		writer.update(data, false);
+		assertFalse(reader.read(file).getExecutionDataStore().get(1)
+				.getProbes()[1]);
+
+		probes[1] = true;
+		writer.update(data, false);
+		assertTrue(reader.read(file).getExecutionDataStore().get(1)
+				.getProbes()[1]);
+		writer.close();
+	}
+
+	@Test
+	public void testTruncatedSessionId() throws IOException {
+		final StringBuilder id = new StringBuilder();
+		for (int i = 0; i < 300; i++) {
+			id.append('x');
+		}
+		data.setSessionId(id.toString());
+		final MappedExecutionDataWriter writer = new MappedExecutionDataWriter(
+				file);
+		writer.update(data, false);
+		writer.close();
+
+		final SessionInfo info = reader.read(file).getSessionInfoStore()
+				.getInfos().get(0);
+		assertEquals(MappedExecutionDataWriter.SESSION_CAPACITY, info.getId()
+				.length());
+	}
+
+	@Test
+	public void testTruncatedMultiByteSessionId() throws IOException {
+		final StringBuilder id = new StringBuilder("x");
+		for (int i = 0; i < 150; i++) {
+			id.append('\u00e4');
+		}
+		data.setSessionId(id.toString());
+		final MappedExecutionDataWriter writer = new MappedExecutionDataWriter(
+				file);
+		writer.update(data, false);
+		writer.close();
+
+		final SessionInfo info = reader.read(file).getSessionInfoStore()
+				.getInfos().get(0);
+		assertEquals(id.substring(0, 106), info.getId());
+	}
+
+	@Test
+	public void testUpdateInProgress() throws IOException {
+		new MappedExecutionDataWriter(file).close();
+		modify(MappedExecutionDataWriter.SEQUENCE_OFFSET, 1);
+		reader.setRetryCount(3);
+
+		try {
+			reader.read(file);
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Content is permanently modified by the agent.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void testChecksumMismatch() throws IOException {
+		final MappedExecutionDataWriter writer = new MappedExecutionDataWriter(
+				file);
+		writer.update(data, false);
+		writer.close();
+		modify(MappedExecutionDataWriter.START_OFFSET, 0x12345678);
+		reader.setRetryCount(3);
+
+		try {
+			reader.read(file);
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Content is permanently modified by the agent.",
+					e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInvalidMagic() throws IOException {
+		new MappedExecutionDataWriter(file).close();
+		modify(0, 0x12345678);
+
+		try {
+			reader.read(file);
+			fail("IOException expected");
+		} catch (IOException e) {
+			assertEquals("Invalid mapped execution data file.",
+					e.getMessage());
+		}
+	}
+
+	@Test(expected = IncompatibleExecDataVersionException.class)
+	public void testInvalidVersion() throws IOException {
+		new MappedExecutionDataWriter(file).close();
+		modify(MappedExecutionDataWriter.VERSION_OFFSET, 0x12340000);
+
+		reader.read(file);
+	}
+
+	private void modify(final int offset, final int value) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			final ByteBuffer buffer = raf.getChannel().map(
+					MapMode.READ_WRITE, 0, raf.length());
+			buffer.putInt(offset, value);
+		} finally {
+			raf.close();
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link ParallelLoader}.
+ */
+public class ParallelLoaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<File> written = new ArrayList<File>();
+
+	private final List<File> added = new ArrayList<File>();
+
+	private final ExecutionDataStore runContents = new ExecutionDataStore();
+
+	private int maxRunSize;
+
+	private final ParallelLoader.IRunStore runStore = new ParallelLoader.IRunStore() {
+		public synchronized File write(final Collection<ExecutionData> contents)
+				throws IOException {
+			maxRunSize = Math.max(maxRunSize, contents.size());
+			for (final ExecutionData data : contents) {
+				runContents.put(data);
+			}
+			final File file = folder.newFile("run" + written.size());
+			written.add(file);
+			return file;
+		}
+
+		public void add(final File run) {
+			added.add(run);
+		}
+	};
+
+	@Test
+	public void testUnlimited() throws IOException {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		new ParallelLoader(4).load(createFiles(), new SessionInfoStore(),
+				store);
+		assertEquals(80, store.getContents().size());
+	}
+
+	@Test
+	public void testLimit() throws IOException {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		final SessionInfoStore sessions = new SessionInfoStore();
+		new ParallelLoader(4, 16, runStore).load(createFiles(), sessions,
+				store);
+
+		// Every chunk keeps at most its share of the limit in memory:
+		assertEquals(2, maxRunSize);
+		assertEquals(written.size(), added.size());
+		assertTrue(added.containsAll(written));
+		for (final ExecutionData data : store.getContents()) {
+			runContents.put(data);
+		}
+		assertEquals(80, runContents.getContents().size());
+		assertEquals(8, sessions.getInfos().size());
+	}
+
+	@Test
+	public void testLimitSingleThread() throws IOException {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		new ParallelLoader(1, 16, runStore).load(createFiles(),
+				new SessionInfoStore(), store);
+		assertEquals(16, maxRunSize);
+		assertEquals(5, added.size());
+		assertEquals(0, store.getContents().size());
+	}
+
+	private List<File> createFiles() throws IOException {
+		final List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 8; i++) {
+			final File file = folder.newFile("in" + i + ".exec");
+			final ExecutionDataWriter writer = new ExecutionDataWriter(
+					new FileOutputStream(file));
+			writer.visitSessionInfo(new SessionInfo("s" + i, 0, 0));
+			for (int id = 0; id < 10; id++) {
+				writer.visitClassExecution(new ExecutionData(i * 10 + id,
+						"Class" + id, new boolean[] { true }));
+			}
+			writer.close();
+			files.add(file);
+		}
+		return files;
+	}
+
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.internal.analysis.ClassStructure;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Persistent cache of the structure of analyzed classes, so that unchanged
+ * classes can be reported without analyzing their byte code again. The
+ * structure of every class is stored in a separate file within the given
+ * directory, named after the class id calculated with
+ * {@link org.jacoco.core.internal.data.CRC64}. As entries are written to a
+ * temporary file first and then renamed, the same directory can be shared by
+ * concurrent processes and threads. Entries are only used by the same JaCoCo
+ * version and entry format version, which have their own subdirectory.
+ * 
+ * @see Analyzer#setCache(AnalysisCache)
+ */
+public class AnalysisCache {
+
+	/**
+	 * Version of the entry format, must be incremented whenever the format or
+	 * the analysis results change without a change of the JaCoCo version,
+	 * e.g. within snapshot builds.
+	 */
+	static final int FORMAT_VERSION = 1;
+
+	/** JaCoCo version and format version of the entries. */
+	static final String VERSION = JaCoCo.VERSION + "-" + FORMAT_VERSION;
+
+	private static final int MAGIC_NUMBER = 0xC0C0CAC5;
+
+	private final File directory;
+
+	private int hitCount;
+
+	private int missCount;
+
+	/**
+	 * Creates a cache stored in the given directory. The directory is created
+	 * on demand.
+	 * 
+	 * @param directory
+	 *            directory of the cache
+	 */
+	public AnalysisCache(final File directory) {
+		this.directory = new File(directory, VERSION);
+	}
+
+	/**
+	 * Returns the number of classes found in this cache.
+	 * 
+	 * @return number of cache hits
+	 */
+	public synchronized int getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of classes not found in this cache.
+	 * 
+	 * @return number of cache misses
+	 */
+	public synchronized int getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the cached structure of the given class. Invalid entries are
+	 * ignored.
+	 * 
+	 * @param id
+	 *            class id
+	 * @param name
+	 *            VM name of the class
+	 * @param stringPool
+	 *            pool for the strings of the structure
+	 * @return cached structure or <code>null</code>
+	 */
+	ClassStructure get(final long id, final String name,
+			final StringPool stringPool) {
+		final ClassStructure structure = read(getFile(id), id, name,
+				stringPool);
+		synchronized (this) {
+			if (structure == null) {
+				missCount++;
+			} else {
+				hitCount++;
+			}
+		}
+		return structure;
+	}
+
+	private static ClassStructure read(final File file, final long id,
+			final String name, final StringPool stringPool) {
+		final CompactDataInput in;
+		try {
+			in = new CompactDataInput(new BufferedInputStream(
+					new FileInputStream(file)));
+		} catch (final FileNotFoundException e) {
+			return null;
+		}
+		try {
+			if (in.readInt() != MAGIC_NUMBER
+					|| !VERSION.equals(in.readUTF())
+					|| in.readLong() != id || !name.equals(in.readUTF())) {
+				return null;
+			}
+			return ClassStructure.read(in, stringPool);
+		} catch (final IOException e) {
+			// Treat broken entries like missing ones
+			return null;
+		} catch (final RuntimeException e) {
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Stores the structure of the given class. As the cache is optional,
+	 * failures are ignored.
+	 * 
+	 * @param id
+	 *            class id
+	 * @param name
+	 *            VM name of the class
+	 * @param structure
+	 *            structure of the class
+	 */
+	void put(final long id, final String name, final ClassStructure structure) {
+		final File file = getFile(id);
+		final File parent = file.getParentFile();
+		File tmp = null;
+		try {
+			parent.mkdirs();
+			tmp = File.createTempFile(file.getName(), ".tmp", parent);
+			final CompactDataOutput out = new CompactDataOutput(
+					new BufferedOutputStream(new FileOutputStream(tmp)));
+			try {
+				out.writeInt(MAGIC_NUMBER);
+				out.writeUTF(VERSION);
+				out.writeLong(id);
+				out.writeUTF(name);
+				structure.write(out);
+			} finally {
+				out.close();
+			}
+			if (tmp.renameTo(file)) {
+				tmp = null;
+			}
+		} catch (final IOException e) {
+			// The entry will be written again next time
+		} finally {
+			if (tmp != null) {
+				tmp.delete();
+			}
+		}
+	}
+
+	private File getFile(final long id) {
+		final String hex = String.format("%016x", Long.valueOf(id));
+		return new File(new File(directory, hex.substring(0, 2)), hex);
+	}
+
+	private static void close(final CompactDataInput in) {
+		try {
+			in.close();
+		} catch (final IOException e) {
+			// nothing to do
+		}
+	}
+
+}
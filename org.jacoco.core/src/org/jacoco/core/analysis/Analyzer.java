@@ -15,9 +15,12 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
 import java.util.StringTokenizer;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.jacoco.core.data.ExecutionData;
@@ -27,6 +30,7 @@ import org.jacoco.core.internal.Java9Support;
 import org.jacoco.core.internal.Pack200Streams;
 import org.jacoco.core.internal.analysis.ClassAnalyzer;
 import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.ClassStructure;
 import org.jacoco.core.internal.analysis.StringPool;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
@@ -49,6 +53,8 @@ public class Analyzer {
 
 	private final StringPool stringPool;
 
+	private AnalysisCache cache;
+
 	/**
 	 * Creates a new analyzer reporting to the given output.
 	 * 
@@ -65,6 +71,18 @@ public class Analyzer {
 		this.stringPool = new StringPool();
 	}
 
+	/**
+	 * Sets a persistent cache for the structure of analyzed classes. Classes
+	 * found in the cache are not analyzed again, the structure of all other
+	 * classes is added to the cache.
+	 * 
+	 * @param cache
+	 *            cache to use or <code>null</code> to analyze all classes
+	 */
+	public void setCache(final AnalysisCache cache) {
+		this.cache = cache;
+	}
+
 	/**
 	 * Creates an ASM class visitor for analysis.
 	 * 
@@ -72,27 +90,25 @@ public class Analyzer {
 	 *            id of the class calculated with {@link CRC64}
 	 * @param className
 	 *            VM name of the class
+	 * @param probes
+	 *            probes of the class or <code>null</code>
+	 * @param hits
+	 *            hit counters of the class or <code>null</code>
+	 * @param coverage
+	 *            coverage node of the class
 	 * @return ASM visitor to write class definition to
 	 */
 	private ClassVisitor createAnalyzingVisitor(final long classid,
-			final String className) {
-		final ExecutionData data = executionData.get(classid);
-		final boolean[] probes;
-		final boolean noMatch;
-		if (data == null) {
-			probes = null;
-			noMatch = executionData.contains(className);
-		} else {
-			probes = data.getProbes();
-			noMatch = false;
-		}
-		final ClassCoverageImpl coverage = new ClassCoverageImpl(className,
-				classid, noMatch);
+			final String className, final boolean[] probes, final int[] hits,
+			final ClassCoverageImpl coverage) {
 		final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes,
-				stringPool) {
+				hits, stringPool) {
 			@Override
 			public void visitEnd() {
 				super.visitEnd();
+				if (cache != null) {
+					cache.put(classid, className, getStructure());
+				}
 				coverageVisitor.visitCoverage(coverage);
 			}
 		};
@@ -106,9 +122,26 @@ public class Analyzer {
 	 *            reader with class definitions
 	 */
 	public void analyzeClass(final ClassReader reader) {
-		final ClassVisitor visitor = createAnalyzingVisitor(
-				CRC64.checksum(reader.b), reader.getClassName());
-		reader.accept(visitor, 0);
+		final long classid = CRC64.checksum(reader.b);
+		final String className = reader.getClassName();
+		final ExecutionData data = executionData.get(classid);
+		final boolean noMatch = data == null
+				&& executionData.contains(className);
+		final boolean[] probes = data == null ? null : data.getProbes();
+		final int[] hits = data == null ? null : data.getHits();
+		final ClassCoverageImpl coverage = new ClassCoverageImpl(className,
+				classid, noMatch);
+		if (cache != null) {
+			final ClassStructure structure = cache.get(classid, className,
+					stringPool);
+			if (structure != null) {
+				structure.increment(coverage, probes, hits);
+				coverageVisitor.visitCoverage(coverage);
+				return;
+			}
+		}
+		reader.accept(createAnalyzingVisitor(classid, className, probes, hits,
+				coverage), 0);
 	}
 
 	/**
@@ -150,7 +183,7 @@ public class Analyzer {
 		}
 	}
 
-	private IOException analyzerError(final String location,
+	static IOException analyzerError(final String location,
 			final Exception cause) {
 		final IOException ex = new IOException(String.format(
 				"Error while analyzing %s.", location));
@@ -198,7 +231,9 @@ public class Analyzer {
 	/**
 	 * Analyzes all class files contained in the given file or folder. Class
 	 * files as well as ZIP files are considered. Folders are searched
-	 * recursively.
+	 * recursively. ZIP files are read through their central directory, so the
+	 * content of entries which are neither class files nor archives is not
+	 * decompressed.
 	 * 
 	 * @param file
 	 *            file or folder to look for class files
@@ -213,6 +248,15 @@ public class Analyzer {
 				count += analyzeAll(f);
 			}
 		} else {
+			final ZipFile zip = openZipFile(file);
+			if (zip != null) {
+				try {
+					count += analyzeZipFile(zip, file.getPath());
+				} finally {
+					zip.close();
+				}
+				return count;
+			}
 			final InputStream in = new FileInputStream(file);
 			try {
 				count += analyzeAll(in, file.getPath());
@@ -223,6 +267,64 @@ public class Analyzer {
 		return count;
 	}
 
+	/**
+	 * Opens the given file as {@link ZipFile} if it has the content type of a
+	 * ZIP archive and a valid central directory.
+	 * 
+	 * @param file
+	 *            file to open
+	 * @return opened ZIP file or <code>null</code>
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	static ZipFile openZipFile(final File file) throws IOException {
+		final int type;
+		final InputStream in = new FileInputStream(file);
+		try {
+			type = new ContentTypeDetector(in).getType();
+		} finally {
+			in.close();
+		}
+		if (type != ContentTypeDetector.ZIPFILE) {
+			return null;
+		}
+		try {
+			return new ZipFile(file);
+		} catch (final ZipException e) {
+			// Broken archives are reported by reading them sequentially
+			return null;
+		}
+	}
+
+	private int analyzeZipFile(final ZipFile zip, final String location)
+			throws IOException {
+		final Enumeration<? extends ZipEntry> entries = zip.entries();
+		int count = 0;
+		while (entries.hasMoreElements()) {
+			final ZipEntry entry = entries.nextElement();
+			if (entry.isDirectory()) {
+				continue;
+			}
+			final String entryLocation = location + "@" + entry.getName();
+			final InputStream in = openEntry(zip, entry, entryLocation);
+			try {
+				count += analyzeAll(in, entryLocation);
+			} finally {
+				in.close();
+			}
+		}
+		return count;
+	}
+
+	static InputStream openEntry(final ZipFile zip, final ZipEntry entry,
+			final String location) throws IOException {
+		try {
+			return zip.getInputStream(entry);
+		} catch (final IOException e) {
+			throw analyzerError(location, e);
+		}
+	}
+
 	/**
 	 * Analyzes all classes from the given class path. Directories containing
 	 * class files as well as archive files are considered.
@@ -42,6 +42,9 @@ public class CoverageNodeImpl implements ICoverageNode {
 	/** Counter for classes. */
 	protected CounterImpl classCounter;
 
+	/** Total number of probe executions. */
+	protected long hitCount;
+
 	/**
 	 * Creates a new coverage data node.
 	 * 
@@ -76,6 +79,7 @@ public class CoverageNodeImpl implements ICoverageNode {
 				.getComplexityCounter());
 		methodCounter = methodCounter.increment(child.getMethodCounter());
 		classCounter = classCounter.increment(child.getClassCounter());
+		hitCount += child.getHitCount();
 	}
 
 	/**
@@ -143,14 +147,19 @@ public class CoverageNodeImpl implements ICoverageNode {
 		throw new AssertionError(entity);
 	}
 
+	public long getHitCount() {
+		return hitCount;
+	}
+
 	public ICoverageNode getPlainCopy() {
 		final CoverageNodeImpl copy = new CoverageNodeImpl(elementType, name);
 		copy.instructionCounter = CounterImpl.getInstance(instructionCounter);
 		copy.branchCounter = CounterImpl.getInstance(branchCounter);
-		copy.lineCounter = CounterImpl.getInstance(lineCounter);
+		copy.lineCounter = CounterImpl.getInstance(getLineCounter());
 		copy.complexityCounter = CounterImpl.getInstance(complexityCounter);
 		copy.methodCounter = CounterImpl.getInstance(methodCounter);
 		copy.classCounter = CounterImpl.getInstance(classCounter);
+		copy.hitCount = hitCount;
 		return copy;
 	}
 
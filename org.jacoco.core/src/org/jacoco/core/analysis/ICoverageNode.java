@@ -131,6 +131,19 @@ public interface ICoverageNode {
 	 */
 	public ICounter getCounter(CounterEntity entity);
 
+	/**
+	 * Returns the total number of probe executions within this node. This
+	 * value is only available if the execution data has been recorded with hit
+	 * counters, otherwise it is always <code>0</code>. Hit counts are only
+	 * aggregated per node, i.e. per method, class, source file, package and
+	 * bundle. They are not available for single lines, see {@link ILine}.
+	 * Implementations which do not support hit counters should return
+	 * <code>0</code>.
+	 * 
+	 * @return total number of probe executions
+	 */
+	public long getHitCount();
+
 	/**
 	 * Creates a plain copy of this node. While {@link ICoverageNode}
 	 * implementations may contain heavy data structures, the copy returned by
@@ -0,0 +1,460 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.analysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.ContentTypeDetector;
+import org.jacoco.core.internal.Java9Support;
+
+/**
+ * Analyzes class files from directories and archives with multiple threads.
+ * The current thread walks the given files and the entries of ZIP archives,
+ * while the class files, nested archives and all other content are analyzed
+ * by a pool of threads with the same semantics as
+ * {@link Analyzer#analyzeAll(InputStream, String)}. The results are reported
+ * to the given {@link ICoverageVisitor} from the current thread in the order
+ * of the input, so the visitor does not need to be thread safe and receives
+ * the same classes in the same order as from a single threaded
+ * {@link Analyzer}, regardless of the number of threads. The given
+ * {@link ExecutionDataStore} must not be modified during analysis.
+ */
+public class ParallelAnalyzer {
+
+	/** Number of pending tasks per thread. */
+	private static final int PENDING_PER_THREAD = 4;
+
+	/** Maximum number of files or entries analyzed by a single task. */
+	private static final int TASK_ENTRIES = 64;
+
+	/** Maximum number of bytes analyzed by a single task. */
+	private static final int TASK_BYTES = 0x80000;
+
+	private final ExecutionDataStore executionData;
+
+	private final ICoverageVisitor coverageVisitor;
+
+	private final int threads;
+
+	private AnalysisCache cache;
+
+	/**
+	 * Creates a new analyzer reporting to the given output.
+	 * 
+	 * @param executionData
+	 *            execution data
+	 * @param coverageVisitor
+	 *            the output instance that will coverage data for every analyzed
+	 *            class
+	 * @param threads
+	 *            number of threads to use for analysis
+	 */
+	public ParallelAnalyzer(final ExecutionDataStore executionData,
+			final ICoverageVisitor coverageVisitor, final int threads) {
+		this.executionData = executionData;
+		this.coverageVisitor = coverageVisitor;
+		this.threads = threads;
+	}
+
+	/**
+	 * Sets a persistent cache for the structure of analyzed classes which is
+	 * shared by all threads.
+	 * 
+	 * @param cache
+	 *            cache to use or <code>null</code> to analyze all classes
+	 * @see Analyzer#setCache(AnalysisCache)
+	 */
+	public void setCache(final AnalysisCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Analyzes all class files contained in the given file or folder. Class
+	 * files as well as ZIP files are considered. Folders are searched
+	 * recursively.
+	 * 
+	 * @param file
+	 *            file or folder to look for class files
+	 * @return number of class files found
+	 * @throws IOException
+	 *             if the file can't be read or a class can't be analyzed
+	 */
+	public int analyzeAll(final File file) throws IOException {
+		return analyzeAll(Collections.singletonList(file));
+	}
+
+	/**
+	 * Analyzes all classes from the given class path. Directories containing
+	 * class files as well as archive files are considered.
+	 * 
+	 * @param path
+	 *            path definition
+	 * @param basedir
+	 *            optional base directory, if <code>null</code> the current
+	 *            working directory is used as the base for relative path
+	 *            entries
+	 * @return number of class files found
+	 * @throws IOException
+	 *             if a file can't be read or a class can't be analyzed
+	 */
+	public int analyzeAll(final String path, final File basedir)
+			throws IOException {
+		final List<File> files = new ArrayList<File>();
+		final StringTokenizer st = new StringTokenizer(path,
+				File.pathSeparator);
+		while (st.hasMoreTokens()) {
+			files.add(new File(basedir, st.nextToken()));
+		}
+		return analyzeAll(files);
+	}
+
+	/**
+	 * Analyzes all class files contained in the given files or folders in the
+	 * given order. Class files as well as ZIP files are considered. Folders are
+	 * searched recursively.
+	 * 
+	 * @param files
+	 *            files or folders to look for class files
+	 * @return number of class files found
+	 * @throws IOException
+	 *             if a file can't be read or a class can't be analyzed
+	 */
+	public int analyzeAll(final List<File> files) throws IOException {
+		if (threads <= 1) {
+			return analyzeAll(files, new Walker(null));
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r, "jacoco-analyzer");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		try {
+			return analyzeAll(files, new Walker(executor));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static int analyzeAll(final List<File> files, final Walker walker)
+			throws IOException {
+		try {
+			for (final File file : files) {
+				walker.walk(file);
+			}
+			return walker.finish();
+		} finally {
+			walker.close();
+		}
+	}
+
+	private static IOException analyzerError(final String location,
+			final Exception cause) {
+		final IOException ex = new IOException(String.format(
+				"Error while analyzing %s.", location));
+		ex.initCause(cause);
+		return ex;
+	}
+
+	/**
+	 * Collects the content of files and archive entries into tasks and reports
+	 * the results in the order of submission. The number and size of pending
+	 * tasks is limited, so only a small part of the input is kept in memory.
+	 * Entries of ZIP files are read by the tasks themselves through the
+	 * {@link ZipFile}, which stays open until the walker is closed. Without
+	 * executor all tasks are analyzed in the current thread.
+	 */
+	private class Walker {
+
+		private final ExecutorService executor;
+
+		private final LinkedList<Future<Task>> pending;
+
+		private final ThreadLocal<Worker> workers;
+
+		private final List<ZipFile> zipFiles;
+
+		private Task task;
+
+		private int total;
+
+		Walker(final ExecutorService executor) {
+			this.executor = executor;
+			this.pending = new LinkedList<Future<Task>>();
+			this.zipFiles = new ArrayList<ZipFile>();
+			this.task = new Task();
+			this.workers = new ThreadLocal<Worker>() {
+				@Override
+				protected Worker initialValue() {
+					return new Worker();
+				}
+			};
+			this.total = 0;
+		}
+
+		void walk(final File file) throws IOException {
+			if (file.isDirectory()) {
+				for (final File f : file.listFiles()) {
+					walk(f);
+				}
+				return;
+			}
+			final ZipFile zip = Analyzer.openZipFile(file);
+			if (zip != null) {
+				zipFiles.add(zip);
+				walkZipFile(zip, file.getPath());
+				return;
+			}
+			final InputStream in = new FileInputStream(file);
+			try {
+				walk(in, file.getPath());
+			} finally {
+				in.close();
+			}
+		}
+
+		private void walk(final InputStream input, final String location)
+				throws IOException {
+			final ContentTypeDetector detector;
+			try {
+				detector = new ContentTypeDetector(input);
+			} catch (final IOException e) {
+				throw analyzerError(location, e);
+			}
+			if (detector.getType() == ContentTypeDetector.ZIPFILE) {
+				walkZip(detector.getInputStream(), location);
+			} else {
+				add(read(detector.getInputStream(), location), location);
+			}
+		}
+
+		private void walkZipFile(final ZipFile zip, final String location)
+				throws IOException {
+			final Enumeration<? extends ZipEntry> entries = zip.entries();
+			while (entries.hasMoreElements()) {
+				final ZipEntry entry = entries.nextElement();
+				if (!entry.isDirectory()) {
+					task.add(zip, entry, location + "@" + entry.getName());
+					submitIfFull();
+				}
+			}
+		}
+
+		private void walkZip(final InputStream input, final String location)
+				throws IOException {
+			final ZipInputStream zip = new ZipInputStream(input);
+			ZipEntry entry;
+			while ((entry = nextEntry(zip, location)) != null) {
+				final String entryLocation = location + "@" + entry.getName();
+				add(read(zip, entryLocation), entryLocation);
+			}
+		}
+
+		private ZipEntry nextEntry(final ZipInputStream input,
+				final String location) throws IOException {
+			try {
+				return input.getNextEntry();
+			} catch (final IOException e) {
+				throw analyzerError(location, e);
+			}
+		}
+
+		private byte[] read(final InputStream input, final String location)
+				throws IOException {
+			try {
+				return Java9Support.readFully(input);
+			} catch (final IOException e) {
+				throw analyzerError(location, e);
+			}
+		}
+
+		private void add(final byte[] content, final String location)
+				throws IOException {
+			task.add(content, location);
+			submitIfFull();
+		}
+
+		private void submitIfFull() throws IOException {
+			if (task.locations.size() >= TASK_ENTRIES
+					|| task.size >= TASK_BYTES) {
+				submit();
+			}
+		}
+
+		private void submit() throws IOException {
+			if (executor == null) {
+				report(task.call());
+			} else {
+				if (pending.size() >= threads * PENDING_PER_THREAD) {
+					report(get(pending.removeFirst()));
+				}
+				pending.add(executor.submit(task));
+			}
+			task = new Task();
+		}
+
+		int finish() throws IOException {
+			if (!task.locations.isEmpty()) {
+				submit();
+			}
+			while (!pending.isEmpty()) {
+				report(get(pending.removeFirst()));
+			}
+			return total;
+		}
+
+		void close() throws IOException {
+			for (final ZipFile zip : zipFiles) {
+				zip.close();
+			}
+			zipFiles.clear();
+		}
+
+		private Task get(final Future<Task> future) throws IOException {
+			try {
+				return future.get();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Analysis interrupted.");
+			} catch (final ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				throw (Error) cause;
+			}
+		}
+
+		private void report(final Task result) {
+			for (final IClassCoverage coverage : result.classes) {
+				coverageVisitor.visitCoverage(coverage);
+			}
+			total += result.count;
+		}
+
+		/**
+		 * Analyzes the content of a sequence of files or archive entries. The
+		 * content is either given as byte array or as entry of a ZIP file.
+		 */
+		private class Task implements Callable<Task> {
+
+			private final List<byte[]> contents;
+
+			private final List<ZipFile> zips;
+
+			private final List<ZipEntry> entries;
+
+			final List<String> locations;
+
+			long size;
+
+			final List<IClassCoverage> classes;
+
+			int count;
+
+			Task() {
+				this.contents = new ArrayList<byte[]>();
+				this.zips = new ArrayList<ZipFile>();
+				this.entries = new ArrayList<ZipEntry>();
+				this.locations = new ArrayList<String>();
+				this.classes = new ArrayList<IClassCoverage>();
+			}
+
+			void add(final byte[] content, final String location) {
+				add(content, null, null, location);
+				size += content.length;
+			}
+
+			void add(final ZipFile zip, final ZipEntry entry,
+					final String location) {
+				add(null, zip, entry, location);
+				size += Math.max(entry.getCompressedSize(), 0);
+			}
+
+			private void add(final byte[] content, final ZipFile zip,
+					final ZipEntry entry, final String location) {
+				contents.add(content);
+				zips.add(zip);
+				entries.add(entry);
+				locations.add(location);
+			}
+
+			public Task call() throws IOException {
+				final Worker worker = workers.get();
+				worker.classes = classes;
+				for (int i = 0; i < locations.size(); i++) {
+					final String location = locations.get(i);
+					final byte[] content = contents.get(i);
+					final InputStream in = content == null ? Analyzer
+							.openEntry(zips.get(i), entries.get(i), location)
+							: new ByteArrayInputStream(content);
+					try {
+						count += worker.analyzer.analyzeAll(in, location);
+					} finally {
+						in.close();
+					}
+				}
+				contents.clear();
+				return this;
+			}
+
+		}
+
+	}
+
+	/**
+	 * Analyzer of a single thread, which keeps its string pool between
+	 * classes.
+	 */
+	private class Worker implements ICoverageVisitor {
+
+		final Analyzer analyzer;
+
+		List<IClassCoverage> classes;
+
+		Worker() {
+			this.analyzer = new Analyzer(executionData, this);
+			this.analyzer.setCache(cache);
+		}
+
+		public void visitCoverage(final IClassCoverage coverage) {
+			classes.add(coverage);
+		}
+
+	}
+
+}
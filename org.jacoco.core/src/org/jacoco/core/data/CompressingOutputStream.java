@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Output stream which collects the written blocks into chunks and writes every
+ * chunk as a {@link ExecutionDataWriter#BLOCK_COMPRESSED} block if compression
+ * is enabled. Chunks always end at block boundaries. The end of every chunk is
+ * used as preset dictionary for the next chunk, so content which is repeated
+ * in subsequent dumps like class names is compressed across chunks.
+ * 
+ * @see DecompressingInputStream
+ */
+class CompressingOutputStream extends OutputStream {
+
+	/** Minimum number of uncompressed bytes of a chunk. */
+	static final int CHUNK_SIZE = 0x10000;
+
+	/** Maximum size of the preset dictionary. */
+	static final int DICTIONARY_SIZE = 0x8000;
+
+	private final OutputStream out;
+
+	private final CompactDataOutput header;
+
+	private final ByteArrayOutputStream compressed;
+
+	private final byte[] dictionary;
+
+	private int dictionaryLength;
+
+	private byte[] chunk;
+
+	private int count;
+
+	private Deflater deflater;
+
+	/**
+	 * Creates a new stream which initially passes all data to the given
+	 * stream without compression.
+	 * 
+	 * @param out
+	 *            underlying stream
+	 */
+	CompressingOutputStream(final OutputStream out) {
+		this.out = out;
+		this.header = new CompactDataOutput(out);
+		this.compressed = new ByteArrayOutputStream();
+		this.dictionary = new byte[DICTIONARY_SIZE];
+	}
+
+	/**
+	 * Enables or disables compression. If compression is disabled pending
+	 * data is written as a compressed chunk.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> if subsequent data should be compressed
+	 * @throws IOException
+	 *             if pending data can't be written
+	 */
+	void setEnabled(final boolean enabled) throws IOException {
+		if (enabled && deflater == null) {
+			deflater = new Deflater();
+			chunk = new byte[CHUNK_SIZE];
+			dictionaryLength = 0;
+		} else if (!enabled && deflater != null) {
+			writeChunk();
+			deflater.end();
+			deflater = null;
+			chunk = null;
+		}
+	}
+
+	/**
+	 * Marks the end of a block. The current chunk is written if it has
+	 * reached its minimum size.
+	 * 
+	 * @throws IOException
+	 *             if the chunk can't be written
+	 */
+	void endBlock() throws IOException {
+		if (deflater != null && count >= CHUNK_SIZE) {
+			writeChunk();
+		}
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		if (deflater == null) {
+			out.write(b);
+		} else {
+			ensureCapacity(1);
+			chunk[count++] = (byte) b;
+		}
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len)
+			throws IOException {
+		if (deflater == null) {
+			out.write(b, off, len);
+		} else {
+			ensureCapacity(len);
+			System.arraycopy(b, off, chunk, count, len);
+			count += len;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (deflater != null) {
+			writeChunk();
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		setEnabled(false);
+		out.close();
+	}
+
+	private void ensureCapacity(final int len) {
+		if (count + len > chunk.length) {
+			final byte[] newChunk = new byte[Math.max(count + len,
+					chunk.length * 2)];
+			System.arraycopy(chunk, 0, newChunk, 0, count);
+			chunk = newChunk;
+		}
+	}
+
+	private void writeChunk() throws IOException {
+		if (count == 0) {
+			return;
+		}
+		deflater.reset();
+		if (dictionaryLength > 0) {
+			deflater.setDictionary(dictionary, 0, dictionaryLength);
+		}
+		deflater.setInput(chunk, 0, count);
+		deflater.finish();
+		compressed.reset();
+		final byte[] buffer = new byte[0x1000];
+		while (!deflater.finished()) {
+			compressed.write(buffer, 0, deflater.deflate(buffer));
+		}
+		header.writeByte(ExecutionDataWriter.BLOCK_COMPRESSED);
+		header.writeVarInt(count);
+		header.writeVarInt(compressed.size());
+		compressed.writeTo(out);
+
+		dictionaryLength = Math.min(count, DICTIONARY_SIZE);
+		System.arraycopy(chunk, count - dictionaryLength, dictionary, 0,
+				dictionaryLength);
+		count = 0;
+	}
+
+}
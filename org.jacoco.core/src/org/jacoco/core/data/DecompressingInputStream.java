@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.jacoco.core.internal.data.CompactDataInput;
+
+/**
+ * Input stream which returns the content of the last decompressed chunk
+ * before it continues with the underlying stream.
+ * 
+ * @see CompressingOutputStream
+ */
+class DecompressingInputStream extends InputStream {
+
+	private final InputStream in;
+
+	private byte[] dictionary;
+
+	private int dictionaryLength;
+
+	private byte[] chunk;
+
+	private int position;
+
+	private int limit;
+
+	private Inflater inflater;
+
+	/**
+	 * Creates a new stream on top of the given stream.
+	 * 
+	 * @param in
+	 *            underlying stream
+	 */
+	DecompressingInputStream(final InputStream in) {
+		this.in = in;
+		this.chunk = new byte[0];
+	}
+
+	/**
+	 * Reads the content of a {@link ExecutionDataWriter#BLOCK_COMPRESSED}
+	 * block. The decompressed data is returned by subsequent reads from this
+	 * stream.
+	 * 
+	 * @param data
+	 *            input reading from this stream, positioned after the block
+	 *            type
+	 * @throws IOException
+	 *             if the block can't be read or is invalid
+	 */
+	void readChunk(final CompactDataInput data) throws IOException {
+		if (position < limit) {
+			throw new IOException("Nested compressed block.");
+		}
+		final int length = data.readVarInt();
+		final byte[] compressed = new byte[data.readVarInt()];
+		data.readFully(compressed);
+		if (length < 0) {
+			throw new IOException("Invalid compressed block.");
+		}
+		if (chunk.length < length) {
+			chunk = new byte[length];
+		}
+		if (inflater == null) {
+			// Only allocated for compressed content:
+			inflater = new Inflater();
+			dictionary = new byte[CompressingOutputStream.DICTIONARY_SIZE];
+		}
+		inflater.reset();
+		inflater.setInput(compressed);
+		try {
+			int count = inflater.inflate(chunk, 0, length);
+			if (count == 0 && inflater.needsDictionary()) {
+				inflater.setDictionary(dictionary, 0, dictionaryLength);
+				count = inflater.inflate(chunk, 0, length);
+			}
+			if (count != length || !inflater.finished()) {
+				throw new IOException("Invalid compressed block.");
+			}
+		} catch (final DataFormatException e) {
+			final IOException ex = new IOException("Invalid compressed block.");
+			ex.initCause(e);
+			throw ex;
+		} catch (final IllegalArgumentException e) {
+			// thrown for wrong preset dictionaries
+			final IOException ex = new IOException("Invalid compressed block.");
+			ex.initCause(e);
+			throw ex;
+		}
+		dictionaryLength = Math.min(length,
+				CompressingOutputStream.DICTIONARY_SIZE);
+		System.arraycopy(chunk, length - dictionaryLength, dictionary, 0,
+				dictionaryLength);
+		position = 0;
+		limit = length;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (position < limit) {
+			return chunk[position++] & 0xFF;
+		}
+		return in.read();
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len)
+			throws IOException {
+		if (position < limit) {
+			final int count = Math.min(len, limit - position);
+			System.arraycopy(chunk, position, b, off, count);
+			position += count;
+			return count;
+		}
+		return in.read(b, off, len);
+	}
+
+	@Override
+	public int available() throws IOException {
+		return limit - position + in.available();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
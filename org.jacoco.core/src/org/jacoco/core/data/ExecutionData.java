@@ -18,7 +18,10 @@ import java.util.Arrays;
 /**
  * Execution data for a single Java class. While instances are immutable care
  * has to be taken about the probe data array of type <code>boolean[]</code>
- * which can be modified.
+ * which can be modified. Optionally execution data can carry hit counters of
+ * type <code>int[]</code>. In this case the counters are the primary data and
+ * the probe array is derived from them. Data without counters is turned into
+ * data with counters when data with counters is merged into it.
  */
 public final class ExecutionData {
 
@@ -26,7 +29,10 @@ public final class ExecutionData {
 
 	private final String name;
 
-	private final boolean[] probes;
+	/** probes, <code>null</code> if {@link #hits} are present */
+	private boolean[] probes;
+
+	private int[] hits;
 
 	/**
 	 * Creates a new {@link ExecutionData} object with the given probe data.
@@ -43,6 +49,7 @@ public final class ExecutionData {
 		this.id = id;
 		this.name = name;
 		this.probes = probes;
+		this.hits = null;
 	}
 
 	/**
@@ -60,6 +67,40 @@ public final class ExecutionData {
 		this.id = id;
 		this.name = name;
 		this.probes = new boolean[probeCount];
+		this.hits = null;
+	}
+
+	/**
+	 * Creates a new {@link ExecutionData} object with the unpacked values of
+	 * the given probes.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name
+	 * @param probes
+	 *            packed probe data
+	 */
+	public ExecutionData(final long id, final String name,
+			final PackedProbes probes) {
+		this(id, name, probes.toBooleanArray());
+	}
+
+	/**
+	 * Creates a new {@link ExecutionData} object with the given hit counters.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name
+	 * @param hits
+	 *            hit counter for every probe
+	 */
+	public ExecutionData(final long id, final String name, final int[] hits) {
+		this.id = id;
+		this.name = name;
+		this.probes = null;
+		this.hits = hits;
 	}
 
 	/**
@@ -83,19 +124,52 @@ public final class ExecutionData {
 
 	/**
 	 * Returns the execution data probes. A value of <code>true</code> indicates
-	 * that the corresponding probe was executed.
+	 * that the corresponding probe was executed. If this object carries hit
+	 * counters a new array with the current counter values is returned, so
+	 * modifications of this array are not reflected in this object.
 	 * 
 	 * @return probe data
 	 */
 	public boolean[] getProbes() {
-		return probes;
+		if (hits == null) {
+			return probes;
+		}
+		final boolean[] result = new boolean[hits.length];
+		for (int i = 0; i < hits.length; i++) {
+			result[i] = hits[i] != 0;
+		}
+		return result;
 	}
 
 	/**
-	 * Sets all probes to <code>false</code>.
+	 * Returns a packed copy of the execution data probes. Modifications of
+	 * the copy are not reflected in this object.
+	 * 
+	 * @return packed probe data
+	 */
+	public PackedProbes getPackedProbes() {
+		return new PackedProbes(getProbes());
+	}
+
+	/**
+	 * Returns the hit counters of the probes if this object has been created
+	 * in hit counting mode. Counters saturate at {@link Integer#MAX_VALUE}.
+	 * 
+	 * @return hit counters or <code>null</code>
+	 */
+	public int[] getHits() {
+		return hits;
+	}
+
+	/**
+	 * Sets all probes to <code>false</code> and all hit counters to zero.
 	 */
 	public void reset() {
-		Arrays.fill(probes, false);
+		if (hits == null) {
+			Arrays.fill(probes, false);
+		} else {
+			Arrays.fill(hits, 0);
+		}
 	}
 
 	/**
@@ -104,6 +178,14 @@ public final class ExecutionData {
 	 * @return <code>true</code>, if at least one probe has been hit
 	 */
 	public boolean hasHits() {
+		if (hits != null) {
+			for (final int h : hits) {
+				if (h != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
 		for (final boolean p : probes) {
 			if (p) {
 				return true;
@@ -147,7 +229,14 @@ public final class ExecutionData {
 	 * A and not B
 	 * </pre>
 	 * 
-	 * The probe array of the other object is not modified.
+	 * The probe array of the other object is not modified. If this object
+	 * carries hit counters, the counters of the other object are added for
+	 * <code>flag==true</code> and counters of executed other probes are cleared
+	 * for <code>flag==false</code>. Other data without counters contributes a
+	 * single hit per executed probe. If only the other object carries hit
+	 * counters, this object is turned into an object with counters with a
+	 * single hit per executed probe first. So the result does not depend on
+	 * the order of the merged objects.
 	 * 
 	 * @param other
 	 *            execution data to merge
@@ -155,9 +244,20 @@ public final class ExecutionData {
 	 *            merge mode
 	 */
 	public void merge(final ExecutionData other, final boolean flag) {
-		assertCompatibility(other.getId(), other.getName(),
-				other.getProbes().length);
 		final boolean[] otherData = other.getProbes();
+		assertCompatibility(other.getId(), other.getName(), otherData.length);
+		final int[] otherHits = other.getHits();
+		if (hits == null && otherHits != null) {
+			hits = new int[probes.length];
+			for (int i = 0; i < probes.length; i++) {
+				hits[i] = probes[i] ? 1 : 0;
+			}
+			probes = null;
+		}
+		if (hits != null) {
+			mergeHits(otherData, otherHits, flag);
+			return;
+		}
 		for (int i = 0; i < probes.length; i++) {
 			if (otherData[i]) {
 				probes[i] = flag;
@@ -165,6 +265,21 @@ public final class ExecutionData {
 		}
 	}
 
+	private void mergeHits(final boolean[] otherData, final int[] otherHits,
+			final boolean flag) {
+		for (int i = 0; i < hits.length; i++) {
+			if (otherData[i]) {
+				if (flag) {
+					final int sum = hits[i]
+							+ (otherHits == null ? 1 : otherHits[i]);
+					hits[i] = sum < 0 ? Integer.MAX_VALUE : sum;
+				} else {
+					hits[i] = 0;
+				}
+			}
+		}
+	}
+
 	/**
 	 * Asserts that this execution data object is compatible with the given
 	 * parameters. The purpose of this check is to detect a very unlikely class
@@ -191,13 +306,17 @@ public final class ExecutionData {
 					"Different class names %s and %s for id %016x.", this.name,
 					name, Long.valueOf(id)));
 		}
-		if (this.probes.length != probecount) {
+		if (getProbeCount() != probecount) {
 			throw new IllegalStateException(format(
 					"Incompatible execution data for class %s with id %016x.",
 					name, Long.valueOf(id)));
 		}
 	}
 
+	private int getProbeCount() {
+		return hits == null ? probes.length : hits.length;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("ExecutionData[name=%s, id=%016x]", name,
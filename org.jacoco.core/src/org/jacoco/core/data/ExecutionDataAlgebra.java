@@ -0,0 +1,390 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Set operations on the executed probes of two {@link ExecutionDataStore}s,
+ * e.g. to find the probes which are newly covered compared to a baseline.
+ * Probes are combined in packed form, so 64 probes are processed per
+ * operation. Optionally the classes are split into disjoint ranges of ids
+ * which are processed concurrently. The given stores are not modified and
+ * must not be modified while an operation is running.
+ */
+public final class ExecutionDataAlgebra {
+
+	/**
+	 * Set operations on executed probes.
+	 */
+	public enum Operation {
+
+		/** Probes executed in at least one of the stores. */
+		UNION,
+
+		/** Probes executed in both stores. */
+		INTERSECTION,
+
+		/** Probes executed in the first but not in the second store. */
+		DIFFERENCE,
+
+		/** Probes executed in exactly one of the stores. */
+		XOR;
+
+		long apply(final long a, final long b) {
+			switch (this) {
+			case UNION:
+				return a | b;
+			case INTERSECTION:
+				return a & b;
+			case DIFFERENCE:
+				return a & ~b;
+			default:
+				return a ^ b;
+			}
+		}
+
+		/**
+		 * Whether classes which are only contained in the second store can
+		 * contribute to the result.
+		 */
+		boolean includesSecond() {
+			return this == UNION || this == XOR;
+		}
+
+	}
+
+	/**
+	 * Result of a set operation.
+	 */
+	public static final class Result {
+
+		private final ExecutionDataStore store;
+
+		private final int classCount;
+
+		private final int probeCount;
+
+		Result(final ExecutionDataStore store, final int classCount,
+				final int probeCount) {
+			this.store = store;
+			this.classCount = classCount;
+			this.probeCount = probeCount;
+		}
+
+		/**
+		 * Returns a new store with all classes which have at least one
+		 * executed probe in the result.
+		 * 
+		 * @return resulting execution data
+		 */
+		public ExecutionDataStore getStore() {
+			return store;
+		}
+
+		/**
+		 * Returns the number of classes with at least one executed probe in
+		 * the result.
+		 * 
+		 * @return number of classes
+		 */
+		public int getClassCount() {
+			return classCount;
+		}
+
+		/**
+		 * Returns the number of executed probes in the result.
+		 * 
+		 * @return number of probes
+		 */
+		public int getProbeCount() {
+			return probeCount;
+		}
+
+	}
+
+	private final int threads;
+
+	/**
+	 * Creates a new instance which processes all classes in the current
+	 * thread.
+	 */
+	public ExecutionDataAlgebra() {
+		this(1);
+	}
+
+	/**
+	 * Creates a new instance which processes disjoint ranges of classes with
+	 * the given number of threads.
+	 * 
+	 * @param threads
+	 *            number of threads to use
+	 */
+	public ExecutionDataAlgebra(final int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Calculates the probes executed in at least one of the given stores.
+	 * 
+	 * @param a
+	 *            first store
+	 * @param b
+	 *            second store
+	 * @return result of the operation
+	 * @throws IllegalStateException
+	 *             if the stores contain incompatible data for a class
+	 */
+	public Result union(final ExecutionDataStore a, final ExecutionDataStore b)
+			throws IllegalStateException {
+		return apply(Operation.UNION, a, b);
+	}
+
+	/**
+	 * Calculates the probes executed in both given stores.
+	 * 
+	 * @param a
+	 *            first store
+	 * @param b
+	 *            second store
+	 * @return result of the operation
+	 * @throws IllegalStateException
+	 *             if the stores contain incompatible data for a class
+	 */
+	public Result intersect(final ExecutionDataStore a,
+			final ExecutionDataStore b) throws IllegalStateException {
+		return apply(Operation.INTERSECTION, a, b);
+	}
+
+	/**
+	 * Calculates the probes executed in the first but not in the second store,
+	 * e.g. the probes newly covered compared to a baseline.
+	 * 
+	 * @param a
+	 *            first store
+	 * @param b
+	 *            second store, e.g. the baseline
+	 * @return result of the operation
+	 * @throws IllegalStateException
+	 *             if the stores contain incompatible data for a class
+	 */
+	public Result difference(final ExecutionDataStore a,
+			final ExecutionDataStore b) throws IllegalStateException {
+		return apply(Operation.DIFFERENCE, a, b);
+	}
+
+	/**
+	 * Calculates the probes executed in exactly one of the given stores.
+	 * 
+	 * @param a
+	 *            first store
+	 * @param b
+	 *            second store
+	 * @return result of the operation
+	 * @throws IllegalStateException
+	 *             if the stores contain incompatible data for a class
+	 */
+	public Result xor(final ExecutionDataStore a, final ExecutionDataStore b)
+			throws IllegalStateException {
+		return apply(Operation.XOR, a, b);
+	}
+
+	/**
+	 * Applies the given operation to the executed probes of the given stores.
+	 * 
+	 * @param operation
+	 *            operation to apply
+	 * @param a
+	 *            first store
+	 * @param b
+	 *            second store
+	 * @return result of the operation
+	 * @throws IllegalStateException
+	 *             if the stores contain incompatible data for a class
+	 */
+	public Result apply(final Operation operation, final ExecutionDataStore a,
+			final ExecutionDataStore b) throws IllegalStateException {
+		final long[] ids = getIds(operation, a, b);
+		final int rangeCount = Math.max(1, Math.min(threads, ids.length));
+		final List<Range> ranges = new ArrayList<Range>(rangeCount);
+		for (int r = 0; r < rangeCount; r++) {
+			final int from = (int) ((long) r * ids.length / rangeCount);
+			final int to = (int) ((long) (r + 1) * ids.length / rangeCount);
+			ranges.add(new Range(operation, a, b, ids, from, to));
+		}
+		if (rangeCount == 1) {
+			ranges.get(0).call();
+		} else {
+			run(ranges);
+		}
+		final ExecutionDataStore store = new ExecutionDataStore();
+		int classCount = 0;
+		int probeCount = 0;
+		for (final Range range : ranges) {
+			for (final ExecutionData data : range.results) {
+				store.put(data);
+			}
+			classCount += range.results.size();
+			probeCount += range.probeCount;
+		}
+		return new Result(store, classCount, probeCount);
+	}
+
+	/**
+	 * Returns the sorted ids of all classes which can contribute to the
+	 * result. Sorting splits them into disjoint ranges.
+	 */
+	private static long[] getIds(final Operation operation,
+			final ExecutionDataStore a, final ExecutionDataStore b) {
+		final List<ExecutionData> contents = new ArrayList<ExecutionData>(
+				a.getContents());
+		if (operation.includesSecond()) {
+			for (final ExecutionData data : b.getContents()) {
+				if (a.get(data.getId()) == null) {
+					contents.add(data);
+				}
+			}
+		}
+		final long[] ids = new long[contents.size()];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = contents.get(i).getId();
+		}
+		Arrays.sort(ids);
+		return ids;
+	}
+
+	private void run(final List<Range> ranges) {
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r, "jacoco-algebra");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		try {
+			final List<Future<Range>> futures = new ArrayList<Future<Range>>();
+			for (final Range range : ranges) {
+				futures.add(executor.submit(range));
+			}
+			for (final Future<Range> future : futures) {
+				future.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Set operation interrupted.");
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Contiguous range of sorted class ids.
+	 */
+	private static class Range implements Callable<Range> {
+
+		private final Operation operation;
+
+		private final ExecutionDataStore a;
+
+		private final ExecutionDataStore b;
+
+		private final long[] ids;
+
+		private final int from;
+
+		private final int to;
+
+		final List<ExecutionData> results;
+
+		int probeCount;
+
+		/** Reused words of both operands. */
+		private long[] first = new long[0];
+
+		private long[] second = new long[0];
+
+		Range(final Operation operation, final ExecutionDataStore a,
+				final ExecutionDataStore b, final long[] ids, final int from,
+				final int to) {
+			this.operation = operation;
+			this.a = a;
+			this.b = b;
+			this.ids = ids;
+			this.from = from;
+			this.to = to;
+			this.results = new ArrayList<ExecutionData>();
+		}
+
+		public Range call() {
+			for (int i = from; i < to; i++) {
+				apply(ids[i]);
+			}
+			return this;
+		}
+
+		private void apply(final long id) {
+			final ExecutionData x = a.get(id);
+			final ExecutionData y = b.get(id);
+			final ExecutionData info = x == null ? y : x;
+			final int length = info.getProbes().length;
+			if (x != null && y != null) {
+				x.assertCompatibility(id, y.getName(), y.getProbes().length);
+			}
+			final int size = (length + 63) >>> 6;
+			if (first.length < size) {
+				first = new long[size];
+				second = new long[size];
+			}
+			pack(x, first, size);
+			pack(y, second, size);
+			int count = 0;
+			for (int w = 0; w < size; w++) {
+				first[w] = operation.apply(first[w], second[w]);
+				count += Long.bitCount(first[w]);
+			}
+			if (count > 0) {
+				final boolean[] probes = new boolean[length];
+				PackedProbes.unpack(first, probes);
+				results.add(new ExecutionData(id, info.getName(), probes));
+				probeCount += count;
+			}
+		}
+
+		private static void pack(final ExecutionData data, final long[] words,
+				final int size) {
+			if (data == null) {
+				for (int w = 0; w < size; w++) {
+					words[w] = 0;
+				}
+			} else {
+				PackedProbes.pack(data.getProbes(), words);
+			}
+		}
+
+	}
+
+}
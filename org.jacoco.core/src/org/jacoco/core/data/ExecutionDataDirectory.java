@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+import org.jacoco.core.internal.data.CountingOutputStream;
+
+/**
+ * Directory of the execution data blocks of a stream. The directory is
+ * written as a {@link ExecutionDataWriter#BLOCK_DIRECTORY} block at the end of
+ * the stream with the following layout:
+ * 
+ * <ul>
+ * <li>entry count (int)</li>
+ * <li>one entry of {@value #ENTRY_SIZE} bytes per execution data block,
+ * sorted by class id (signed) and offset: class id (long), offset of the
+ * block relative to the stream start (long), index into the name table
+ * (int)</li>
+ * <li>name count (int) followed by the UTF-8 encoded class names</li>
+ * <li>session info count (int) followed by the offsets of the session info
+ * blocks relative to the stream start (long)</li>
+ * <li>trailer of {@value #TRAILER_SIZE} bytes: magic number (char), offset of
+ * the directory block (long), length of the stream including the trailer
+ * (long)</li>
+ * </ul>
+ * 
+ * The trailer allows readers to locate the directory from the end of a file.
+ */
+class ExecutionDataDirectory {
+
+	/** Size of a single directory entry in bytes. */
+	static final int ENTRY_SIZE = 20;
+
+	/** Size of the trailer at the very end of the stream in bytes. */
+	static final int TRAILER_SIZE = 18;
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	private final List<String> names = new ArrayList<String>();
+
+	private final Map<String, Integer> nameIndex;
+
+	private final List<Long> sessionInfos;
+
+	ExecutionDataDirectory() {
+		nameIndex = new HashMap<String, Integer>();
+		sessionInfos = new ArrayList<Long>();
+	}
+
+	/**
+	 * Adds a session info block to the directory.
+	 * 
+	 * @param offset
+	 *            offset of the block relative to the stream start
+	 */
+	void addSessionInfo(final long offset) {
+		sessionInfos.add(Long.valueOf(offset));
+	}
+
+	/**
+	 * Adds an execution data block to the directory.
+	 * 
+	 * @param id
+	 *            class id
+	 * @param name
+	 *            VM name of the class
+	 * @param offset
+	 *            offset of the block relative to the stream start
+	 */
+	void add(final long id, final String name, final long offset) {
+		Integer index = nameIndex.get(name);
+		if (index == null) {
+			index = Integer.valueOf(names.size());
+			names.add(name);
+			nameIndex.put(name, index);
+		}
+		entries.add(new Entry(id, offset, index.intValue()));
+	}
+
+	/**
+	 * Writes the directory block including the trailer.
+	 * 
+	 * @param out
+	 *            output positioned at the end of the stream
+	 * @param counter
+	 *            stream below <code>out</code> counting the bytes of the
+	 *            stream
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	void write(final CompactDataOutput out, final CountingOutputStream counter)
+			throws IOException {
+		final long offset = counter.getCount();
+		Collections.sort(entries);
+		out.writeByte(ExecutionDataWriter.BLOCK_DIRECTORY);
+		out.writeInt(entries.size());
+		for (final Entry e : entries) {
+			out.writeLong(e.id);
+			out.writeLong(e.offset);
+			out.writeInt(e.name);
+		}
+		out.writeInt(names.size());
+		for (final String name : names) {
+			out.writeUTF(name);
+		}
+		out.writeInt(sessionInfos.size());
+		for (final Long sessionInfo : sessionInfos) {
+			out.writeLong(sessionInfo.longValue());
+		}
+		out.writeChar(ExecutionDataWriter.MAGIC_NUMBER);
+		out.writeLong(offset);
+		out.writeLong(counter.getCount() + 8L);
+	}
+
+	/**
+	 * Skips the content of a directory block in a sequential stream. The block
+	 * type has already been read.
+	 * 
+	 * @param in
+	 *            input positioned after the block type
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	static void skip(final CompactDataInput in) throws IOException {
+		final int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			in.readLong();
+			in.readLong();
+			in.readInt();
+		}
+		final int nameCount = in.readInt();
+		for (int i = 0; i < nameCount; i++) {
+			in.readUTF();
+		}
+		final int sessionInfoCount = in.readInt();
+		for (int i = 0; i < sessionInfoCount; i++) {
+			in.readLong();
+		}
+		in.readChar();
+		in.readLong();
+		in.readLong();
+	}
+
+	private static class Entry implements Comparable<Entry> {
+
+		final long id;
+
+		final long offset;
+
+		final int name;
+
+		Entry(final long id, final long offset, final int name) {
+			this.id = id;
+			this.offset = offset;
+			this.name = name;
+		}
+
+		public int compareTo(final Entry other) {
+			if (id != other.id) {
+				return id < other.id ? -1 : 1;
+			}
+			return offset < other.offset ? -1 : (offset == other.offset ? 0
+					: 1);
+		}
+
+	}
+
+}
@@ -23,13 +23,22 @@ import org.jacoco.core.internal.data.CompactDataInput;
  */
 public class ExecutionDataReader {
 
+	/**
+	 * Previous format version, the blocks of this version are still supported.
+	 */
+	static final char PREVIOUS_FORMAT_VERSION = 0x1007;
+
 	/** Underlying data input */
 	protected final CompactDataInput in;
 
+	private final DecompressingInputStream decompressor;
+
 	private ISessionInfoVisitor sessionInfoVisitor = null;
 
 	private IExecutionDataVisitor executionDataVisitor = null;
 
+	private ExecutionDataStore executionDataStore = null;
+
 	private boolean firstBlock = true;
 
 	/**
@@ -41,7 +50,8 @@ public class ExecutionDataReader {
 	 *            input stream to read execution data from
 	 */
 	public ExecutionDataReader(final InputStream input) {
-		this.in = new CompactDataInput(input);
+		this.decompressor = new DecompressingInputStream(input);
+		this.in = new CompactDataInput(decompressor);
 	}
 
 	/**
@@ -62,6 +72,22 @@ public class ExecutionDataReader {
 	 */
 	public void setExecutionDataVisitor(final IExecutionDataVisitor visitor) {
 		this.executionDataVisitor = visitor;
+		this.executionDataStore = null;
+	}
+
+	/**
+	 * Sets a store which directly receives execution data instead of an
+	 * execution data visitor. Probes of classes which are already contained in
+	 * the store are decoded into the existing entries without creating
+	 * temporary objects. Names of new classes are shared with existing entries
+	 * of the same name.
+	 * 
+	 * @param store
+	 *            store to merge execution data into
+	 */
+	public void setExecutionDataStore(final ExecutionDataStore store) {
+		this.executionDataVisitor = store;
+		this.executionDataStore = store;
 	}
 
 	/**
@@ -114,6 +140,19 @@ public class ExecutionDataReader {
 		case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
 			readExecutionData();
 			return true;
+		case ExecutionDataWriter.BLOCK_EXECUTIONDATA_HITS:
+			readExecutionDataHits();
+			return true;
+		case ExecutionDataWriter.BLOCK_EXECUTIONDATA_ENCODED:
+			readExecutionDataEncoded();
+			return true;
+		case ExecutionDataWriter.BLOCK_COMPRESSED:
+			decompressor.readChunk(in);
+			return true;
+		case ExecutionDataWriter.BLOCK_DIRECTORY:
+			// Only relevant for random access:
+			ExecutionDataDirectory.skip(in);
+			return true;
 		default:
 			throw new IOException(format("Unknown block type %x.",
 					Byte.valueOf(blocktype)));
@@ -125,11 +164,23 @@ public class ExecutionDataReader {
 			throw new IOException("Invalid execution data file.");
 		}
 		final char version = in.readChar();
-		if (version != ExecutionDataWriter.FORMAT_VERSION) {
+		if (!isSupportedVersion(version)) {
 			throw new IncompatibleExecDataVersionException(version);
 		}
 	}
 
+	/**
+	 * Checks whether data of the given format version can be read.
+	 * 
+	 * @param version
+	 *            format version from a header block
+	 * @return <code>true</code> for the current or the previous version
+	 */
+	static boolean isSupportedVersion(final char version) {
+		return version == ExecutionDataWriter.FORMAT_VERSION
+				|| version == PREVIOUS_FORMAT_VERSION;
+	}
+
 	private void readSessionInfo() throws IOException {
 		if (sessionInfoVisitor == null) {
 			throw new IOException("No session info visitor.");
@@ -145,10 +196,70 @@ public class ExecutionDataReader {
 			throw new IOException("No execution data visitor.");
 		}
 		final long id = in.readLong();
-		final String name = in.readUTF();
+		final ExecutionData entry = getMergeTarget(id);
+		if (entry != null) {
+			in.mergeBooleanArray(readCompatibleProbes(entry));
+			return;
+		}
+		final String name = readName();
 		final boolean[] probes = in.readBooleanArray();
 		executionDataVisitor.visitClassExecution(new ExecutionData(id, name,
 				probes));
 	}
 
+	private void readExecutionDataEncoded() throws IOException {
+		if (executionDataVisitor == null) {
+			throw new IOException("No execution data visitor.");
+		}
+		final long id = in.readLong();
+		final ExecutionData entry = getMergeTarget(id);
+		if (entry != null) {
+			in.mergeEncodedBooleanArray(readCompatibleProbes(entry));
+			return;
+		}
+		final String name = readName();
+		final boolean[] probes = in.readEncodedBooleanArray();
+		executionDataVisitor.visitClassExecution(new ExecutionData(id, name,
+				probes));
+	}
+
+	private void readExecutionDataHits() throws IOException {
+		if (executionDataVisitor == null) {
+			throw new IOException("No execution data visitor.");
+		}
+		final long id = in.readLong();
+		final String name = readName();
+		final int[] hits = in.readIntArray();
+		executionDataVisitor.visitClassExecution(new ExecutionData(id, name,
+				hits));
+	}
+
+	/**
+	 * Returns the entry of the target store whose probes can be merged in
+	 * place. Entries with hit counters are merged through the store.
+	 */
+	private ExecutionData getMergeTarget(final long id) {
+		if (executionDataStore == null) {
+			return null;
+		}
+		final ExecutionData entry = executionDataStore.get(id);
+		if (entry == null || entry.getHits() != null) {
+			return null;
+		}
+		return entry;
+	}
+
+	private boolean[] readCompatibleProbes(final ExecutionData entry)
+			throws IOException {
+		final String name = in.readSharedUTF(entry.getName());
+		entry.assertCompatibility(entry.getId(), name, in.readVarInt());
+		return entry.getProbes();
+	}
+
+	private String readName() throws IOException {
+		final String name = in.readUTF();
+		return executionDataStore == null ? name : executionDataStore
+				.internName(name);
+	}
+
 }
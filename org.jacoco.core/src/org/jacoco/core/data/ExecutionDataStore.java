@@ -13,10 +13,6 @@ package org.jacoco.core.data;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 
 /**
  * In-memory data store for execution data. The data can be added through its
@@ -28,9 +24,23 @@ import java.util.Set;
  */
 public final class ExecutionDataStore implements IExecutionDataVisitor {
 
-	private final Map<Long, ExecutionData> entries = new HashMap<Long, ExecutionData>();
+	private static final int INITIAL_CAPACITY = 64;
 
-	private final Set<String> names = new HashSet<String>();
+	// Open addressing hash table with linear probing. As class ids are CRC64
+	// checksums they are stored as primitive values to avoid boxing. A slot
+	// is empty if its entry is null.
+
+	private long[] ids = new long[INITIAL_CAPACITY];
+
+	private ExecutionData[] entries = new ExecutionData[INITIAL_CAPACITY];
+
+	private int size = 0;
+
+	// Open addressing hash set of distinct class names:
+
+	private String[] names = new String[INITIAL_CAPACITY];
+
+	private int nameCount = 0;
 
 	/**
 	 * Adds the given {@link ExecutionData} object into the store. If there is
@@ -45,11 +55,9 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @see ExecutionData#assertCompatibility(long, String, int)
 	 */
 	public void put(final ExecutionData data) throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
-		final ExecutionData entry = entries.get(id);
+		final ExecutionData entry = get(data.getId());
 		if (entry == null) {
-			entries.put(id, data);
-			names.add(data.getName());
+			add(data);
 		} else {
 			entry.merge(data);
 		}
@@ -69,8 +77,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @see ExecutionData#assertCompatibility(long, String, int)
 	 */
 	public void subtract(final ExecutionData data) throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
-		final ExecutionData entry = entries.get(id);
+		final ExecutionData entry = get(data.getId());
 		if (entry != null) {
 			entry.merge(data, false);
 		}
@@ -98,7 +105,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @return execution data or <code>null</code>
 	 */
 	public ExecutionData get(final long id) {
-		return entries.get(Long.valueOf(id));
+		return entries[slot(id)];
 	}
 
 	/**
@@ -111,7 +118,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 *         contained.
 	 */
 	public boolean contains(final String name) {
-		return names.contains(name);
+		return names[nameSlot(names, name)] != null;
 	}
 
 	/**
@@ -128,11 +135,11 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 */
 	public ExecutionData get(final Long id, final String name,
 			final int probecount) {
-		ExecutionData entry = entries.get(id);
+		ExecutionData entry = get(id.longValue());
 		if (entry == null) {
-			entry = new ExecutionData(id.longValue(), name, probecount);
-			entries.put(id, entry);
-			names.add(name);
+			entry = new ExecutionData(id.longValue(), internName(name),
+					probecount);
+			add(entry);
 		} else {
 			entry.assertCompatibility(id.longValue(), name, probecount);
 		}
@@ -144,8 +151,10 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * execution data objects itself are not removed.
 	 */
 	public void reset() {
-		for (final ExecutionData executionData : this.entries.values()) {
-			executionData.reset();
+		for (final ExecutionData executionData : entries) {
+			if (executionData != null) {
+				executionData.reset();
+			}
 		}
 	}
 
@@ -155,7 +164,14 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @return current contents
 	 */
 	public Collection<ExecutionData> getContents() {
-		return new ArrayList<ExecutionData>(entries.values());
+		final Collection<ExecutionData> contents = new ArrayList<ExecutionData>(
+				size);
+		for (final ExecutionData executionData : entries) {
+			if (executionData != null) {
+				contents.add(executionData);
+			}
+		}
+		return contents;
 	}
 
 	/**
@@ -170,6 +186,75 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 		}
 	}
 
+	private void add(final ExecutionData data) {
+		if (4 * (size + 1) > 3 * entries.length) {
+			final long[] oldIds = ids;
+			final ExecutionData[] oldEntries = entries;
+			ids = new long[oldIds.length * 2];
+			entries = new ExecutionData[oldEntries.length * 2];
+			for (int i = 0; i < oldEntries.length; i++) {
+				if (oldEntries[i] != null) {
+					final int slot = slot(oldIds[i]);
+					ids[slot] = oldIds[i];
+					entries[slot] = oldEntries[i];
+				}
+			}
+		}
+		final int slot = slot(data.getId());
+		ids[slot] = data.getId();
+		entries[slot] = data;
+		size++;
+		internName(data.getName());
+	}
+
+	/**
+	 * Returns the slot of the entry with the given id or the empty slot where
+	 * such an entry belongs to.
+	 */
+	private int slot(final long id) {
+		final long h = id * 0x9E3779B97F4A7C15L;
+		final int mask = entries.length - 1;
+		int i = (int) (h ^ (h >>> 32)) & mask;
+		while (entries[i] != null && ids[i] != id) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Adds the given name to the name index. If an equal name is already
+	 * contained its instance is returned, so that entries share their names.
+	 */
+	String internName(final String name) {
+		int slot = nameSlot(names, name);
+		if (names[slot] != null) {
+			return names[slot];
+		}
+		if (4 * (nameCount + 1) > 3 * names.length) {
+			final String[] oldNames = names;
+			names = new String[oldNames.length * 2];
+			for (final String n : oldNames) {
+				if (n != null) {
+					names[nameSlot(names, n)] = n;
+				}
+			}
+			slot = nameSlot(names, name);
+		}
+		names[slot] = name;
+		nameCount++;
+		return name;
+	}
+
+	private static int nameSlot(final String[] table, final String name) {
+		final int h = name.hashCode();
+		final int mask = table.length - 1;
+		int i = (h ^ (h >>> 16)) & mask;
+		while (table[i] != null && !table[i].equals(name)) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
 	// === IExecutionDataVisitor ===
 
 	public void visitClassExecution(final ExecutionData data) {
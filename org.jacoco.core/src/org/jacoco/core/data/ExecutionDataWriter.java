@@ -16,6 +16,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import org.jacoco.core.internal.data.CompactDataOutput;
+import org.jacoco.core.internal.data.CountingOutputStream;
 
 /**
  * Serialization of execution data into binary streams.
@@ -28,7 +29,7 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 
 	static {
 		// Runtime initialize to ensure javac does not inline the value.
-		FORMAT_VERSION = 0x1007;
+		FORMAT_VERSION = 0x1008;
 	}
 
 	/** Magic number in header for file format identification. */
@@ -43,9 +44,40 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	/** Block identifier for execution data of a single class. */
 	public static final byte BLOCK_EXECUTIONDATA = 0x11;
 
+	/**
+	 * Block identifier for execution data of a single class with hit counters.
+	 */
+	public static final byte BLOCK_EXECUTIONDATA_HITS = 0x12;
+
+	/**
+	 * Block identifier for the directory of all execution data blocks of a
+	 * stream, see {@link IndexedExecutionDataReader}.
+	 */
+	public static final byte BLOCK_DIRECTORY = 0x13;
+
+	/**
+	 * Block identifier for execution data of a single class with sparse or
+	 * run-length encoded probes.
+	 */
+	public static final byte BLOCK_EXECUTIONDATA_ENCODED = 0x14;
+
+	/**
+	 * Block identifier for a chunk of subsequent blocks compressed with the
+	 * deflate algorithm.
+	 */
+	public static final byte BLOCK_COMPRESSED = 0x15;
+
 	/** Underlying data output */
 	protected final CompactDataOutput out;
 
+	private final CompressingOutputStream compressor;
+
+	private final CountingOutputStream counter;
+
+	private ExecutionDataDirectory directory;
+
+	private boolean sparseEncoding = true;
+
 	/**
 	 * Creates a new writer based on the given output stream. Depending on the
 	 * nature of the underlying stream output should be buffered as most data is
@@ -57,10 +89,34 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	 *             if the header can't be written
 	 */
 	public ExecutionDataWriter(final OutputStream output) throws IOException {
-		this.out = new CompactDataOutput(output);
+		this.compressor = new CompressingOutputStream(output);
+		this.counter = new CountingOutputStream(compressor);
+		this.out = new CompactDataOutput(counter);
 		writeHeader();
 	}
 
+	/**
+	 * Creates a new writer based on the given output stream which optionally
+	 * appends a directory of all execution data blocks when it is closed.
+	 * Such streams can be read with random access by
+	 * {@link IndexedExecutionDataReader}.
+	 * 
+	 * @param output
+	 *            binary stream to write execution data to
+	 * @param directory
+	 *            if <code>true</code> a directory is written on
+	 *            {@link #close()}
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public ExecutionDataWriter(final OutputStream output,
+			final boolean directory) throws IOException {
+		this(output);
+		if (directory) {
+			this.directory = new ExecutionDataDirectory();
+		}
+	}
+
 	/**
 	 * Writes an file header to identify the stream and its protocol version.
 	 * 
@@ -83,12 +139,83 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 		out.flush();
 	}
 
+	/**
+	 * Enables or disables compression for all subsequently written blocks.
+	 * Blocks are collected into chunks which are compressed with the deflate
+	 * algorithm, using the end of the previous chunk as dictionary. Pending
+	 * data is written with {@link #flush()} or when compression is disabled.
+	 * Compressed streams are read transparently by
+	 * {@link ExecutionDataReader}, but do not support random access.
+	 * 
+	 * @param compression
+	 *            <code>true</code> if subsequent blocks should be compressed
+	 * @throws IOException
+	 *             if pending data can't be written
+	 * @throws IllegalStateException
+	 *             if compression is enabled for a writer with a directory
+	 */
+	public void setCompression(final boolean compression) throws IOException {
+		if (compression && directory != null) {
+			throw new IllegalStateException(
+					"Compression is not supported with a directory.");
+		}
+		compressor.setEnabled(compression);
+	}
+
+	/**
+	 * Enables or disables sparse encodings for probes of subsequently written
+	 * classes. If enabled probes are stored as list of set indices or as
+	 * run-lengths in a {@link #BLOCK_EXECUTIONDATA_ENCODED} block whenever
+	 * this is smaller than the bitmap of {@link #BLOCK_EXECUTIONDATA}. Sparse
+	 * encodings are enabled by default. Disabling them is only useful to
+	 * create files with a stable bitmap layout, as the current file format
+	 * can not be read by previous versions anyway.
+	 * 
+	 * @param sparseEncoding
+	 *            <code>true</code> if sparse encodings should be used
+	 */
+	public void setSparseEncoding(final boolean sparseEncoding) {
+		this.sparseEncoding = sparseEncoding;
+	}
+
+	/**
+	 * Marks the end of the current block. Subclasses writing additional
+	 * blocks should call this method after every block, so that compressed
+	 * chunks are written in time.
+	 * 
+	 * @throws IOException
+	 *             if a compressed chunk can't be written
+	 */
+	protected void endBlock() throws IOException {
+		compressor.endBlock();
+	}
+
+	/**
+	 * Writes the directory if requested and closes the underlying stream. No
+	 * more data must be written afterwards.
+	 * 
+	 * @throws IOException
+	 *             if the directory can't be written or the stream can't be
+	 *             closed
+	 */
+	public void close() throws IOException {
+		if (directory != null) {
+			directory.write(out, counter);
+			directory = null;
+		}
+		out.close();
+	}
+
 	public void visitSessionInfo(final SessionInfo info) {
 		try {
+			if (directory != null) {
+				directory.addSessionInfo(counter.getCount());
+			}
 			out.writeByte(BLOCK_SESSIONINFO);
 			out.writeUTF(info.getId());
 			out.writeLong(info.getStartTimeStamp());
 			out.writeLong(info.getDumpTimeStamp());
+			endBlock();
 		} catch (final IOException e) {
 			throw new RuntimeException(e);
 		}
@@ -97,16 +224,43 @@ public class ExecutionDataWriter implements ISessionInfoVisitor,
 	public void visitClassExecution(final ExecutionData data) {
 		if (data.hasHits()) {
 			try {
-				out.writeByte(BLOCK_EXECUTIONDATA);
-				out.writeLong(data.getId());
-				out.writeUTF(data.getName());
-				out.writeBooleanArray(data.getProbes());
+				if (directory != null) {
+					directory.add(data.getId(), data.getName(),
+							counter.getCount());
+				}
+				final int[] hits = data.getHits();
+				if (hits == null) {
+					writeProbes(data);
+				} else {
+					out.writeByte(BLOCK_EXECUTIONDATA_HITS);
+					out.writeLong(data.getId());
+					out.writeUTF(data.getName());
+					out.writeIntArray(hits);
+				}
+				endBlock();
 			} catch (final IOException e) {
 				throw new RuntimeException(e);
 			}
 		}
 	}
 
+	private void writeProbes(final ExecutionData data) throws IOException {
+		final boolean[] probes = data.getProbes();
+		final int encoding = sparseEncoding ? CompactDataOutput
+				.getEncoding(probes) : CompactDataOutput.ENCODING_BITMAP;
+		if (encoding == CompactDataOutput.ENCODING_BITMAP) {
+			out.writeByte(BLOCK_EXECUTIONDATA);
+			out.writeLong(data.getId());
+			out.writeUTF(data.getName());
+			out.writeBooleanArray(probes);
+		} else {
+			out.writeByte(BLOCK_EXECUTIONDATA_ENCODED);
+			out.writeLong(data.getId());
+			out.writeUTF(data.getName());
+			out.writeEncodedBooleanArray(probes, encoding);
+		}
+	}
+
 	/**
 	 * Returns the first bytes of a file that represents a valid execution data
 	 * file. In any case every execution data file starts with the three bytes
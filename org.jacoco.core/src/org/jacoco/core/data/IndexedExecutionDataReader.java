@@ -0,0 +1,478 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+import org.jacoco.core.internal.data.CountingOutputStream;
+
+/**
+ * Random access to the execution data of single classes in an execution data
+ * file. The file is memory mapped in windows of limited size and execution
+ * data blocks are only loaded on request. Files written by an
+ * {@link ExecutionDataWriter} with directory are accessed through their
+ * directory. For all other files a directory is built with a single
+ * sequential scan when the file is opened.
+ */
+public class IndexedExecutionDataReader {
+
+	/** Default size of the mapped windows in bytes. */
+	static final int WINDOW_SIZE = 0x4000000;
+
+	private final RandomAccessFile file;
+
+	private final FileChannel channel;
+
+	private final long length;
+
+	private final int windowSize;
+
+	private ByteBuffer window;
+
+	private long windowStart;
+
+	private final boolean indexed;
+
+	/** Buffer containing the directory block, starting at position 0. */
+	private final ByteBuffer directory;
+
+	private final int count;
+
+	private String[] names;
+
+	/** Position of the session info offsets in the directory buffer */
+	private int sessionInfosPosition;
+
+	/**
+	 * Opens the given execution data file.
+	 * 
+	 * @param file
+	 *            execution data file
+	 * @throws IOException
+	 *             if the file can not be read or has an invalid format
+	 * @throws IncompatibleExecDataVersionException
+	 *             incompatible data version from different JaCoCo release
+	 */
+	public IndexedExecutionDataReader(final File file) throws IOException {
+		this(file, WINDOW_SIZE);
+	}
+
+	IndexedExecutionDataReader(final File file, final int windowSize)
+			throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		this.windowSize = windowSize;
+		try {
+			channel = this.file.getChannel();
+			length = this.file.length();
+			checkHeader();
+			final long directoryPosition = findDirectory(channel, length);
+			indexed = directoryPosition != -1;
+			directory = indexed ? mapDirectory(directoryPosition) : scan();
+			count = directory.getInt(1);
+		} catch (final IOException e) {
+			this.file.close();
+			throw e;
+		} catch (final RuntimeException e) {
+			this.file.close();
+			throw new IOException("Invalid execution data file.");
+		}
+	}
+
+	private void checkHeader() throws IOException {
+		if (length < 5) {
+			throw new IOException("Invalid execution data file.");
+		}
+		final ByteBuffer header = window(0);
+		if (header.get(0) != ExecutionDataWriter.BLOCK_HEADER
+				|| header.getChar(1) != ExecutionDataWriter.MAGIC_NUMBER) {
+			throw new IOException("Invalid execution data file.");
+		}
+		final char version = header.getChar(3);
+		if (!ExecutionDataReader.isSupportedVersion(version)) {
+			throw new IncompatibleExecDataVersionException(version);
+		}
+	}
+
+	/**
+	 * Checks whether the given file contains a directory which covers the
+	 * complete file, i.e. whether it can be opened without a scan.
+	 * 
+	 * @param file
+	 *            execution data file
+	 * @return <code>true</code> if the file contains a directory
+	 * @throws IOException
+	 *             if the file can not be read
+	 */
+	public static boolean hasDirectory(final File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return findDirectory(raf.getChannel(), raf.length()) != -1;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Locates the directory through the trailer. The directory is only used if
+	 * it covers the complete file, i.e. no other data has been appended before
+	 * or after the indexed stream.
+	 */
+	private static long findDirectory(final FileChannel channel,
+			final long length) throws IOException {
+		final long trailer = length - ExecutionDataDirectory.TRAILER_SIZE;
+		if (trailer < 5) {
+			return -1;
+		}
+		final ByteBuffer buffer = channel.map(MapMode.READ_ONLY, trailer,
+				ExecutionDataDirectory.TRAILER_SIZE);
+		if (buffer.getChar(0) != ExecutionDataWriter.MAGIC_NUMBER
+				|| buffer.getLong(10) != length) {
+			return -1;
+		}
+		final long position = buffer.getLong(2);
+		if (position < 5 || position >= trailer) {
+			return -1;
+		}
+		final byte type = channel.map(MapMode.READ_ONLY, position, 1).get(0);
+		return type == ExecutionDataWriter.BLOCK_DIRECTORY ? position : -1;
+	}
+
+	private ByteBuffer mapDirectory(final long position) throws IOException {
+		if (length - position > Integer.MAX_VALUE) {
+			throw new IOException("Directory too large.");
+		}
+		return channel.map(MapMode.READ_ONLY, position, length - position);
+	}
+
+	/**
+	 * Returns a buffer positioned at the given file position. The buffer
+	 * contains at most the mapped window starting at the position, more data
+	 * can be read through an {@link Input}.
+	 */
+	private ByteBuffer window(final long position) throws IOException {
+		if (window == null || position < windowStart
+				|| position >= windowStart + window.limit()) {
+			window = channel.map(MapMode.READ_ONLY, position,
+					Math.min(windowSize, length - position));
+			windowStart = position;
+		}
+		final ByteBuffer buffer = window.duplicate();
+		buffer.position((int) (position - windowStart));
+		return buffer;
+	}
+
+	private ByteBuffer scan() throws IOException {
+		final ExecutionDataDirectory dir = new ExecutionDataDirectory();
+		final Input input = new Input(0);
+		final CompactDataInput in = new CompactDataInput(input);
+		while (input.getPosition() < length) {
+			final long position = input.getPosition();
+			final byte type = in.readByte();
+			switch (type) {
+			case ExecutionDataWriter.BLOCK_HEADER:
+				in.readChar();
+				in.readChar();
+				break;
+			case ExecutionDataWriter.BLOCK_SESSIONINFO:
+				dir.addSessionInfo(position);
+				in.readUTF();
+				in.readLong();
+				in.readLong();
+				break;
+			case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
+				dir.add(in.readLong(), in.readUTF(), position);
+				in.readBooleanArray();
+				break;
+			case ExecutionDataWriter.BLOCK_EXECUTIONDATA_HITS:
+				dir.add(in.readLong(), in.readUTF(), position);
+				in.readIntArray();
+				break;
+			case ExecutionDataWriter.BLOCK_EXECUTIONDATA_ENCODED:
+				dir.add(in.readLong(), in.readUTF(), position);
+				in.readEncodedBooleanArray();
+				break;
+			case ExecutionDataWriter.BLOCK_DIRECTORY:
+				ExecutionDataDirectory.skip(in);
+				break;
+			case ExecutionDataWriter.BLOCK_COMPRESSED:
+				throw new IOException("Compressed data can't be indexed.");
+			default:
+				throw new IOException(format("Unknown block type %x.",
+						Byte.valueOf(type)));
+			}
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final CountingOutputStream counter = new CountingOutputStream(out);
+		dir.write(new CompactDataOutput(counter), counter);
+		return ByteBuffer.wrap(out.toByteArray());
+	}
+
+	/**
+	 * Returns whether the file contains a directory which is used for random
+	 * access. Otherwise the directory has been built when opening the file.
+	 * 
+	 * @return <code>true</code> if the file contains a directory
+	 */
+	public boolean isIndexed() {
+		return indexed;
+	}
+
+	/**
+	 * Returns the ids of all classes contained in the file in ascending order.
+	 * 
+	 * @return class ids
+	 */
+	public long[] getIds() {
+		int distinct = 0;
+		final long[] ids = new long[count];
+		for (int i = 0; i < count; i++) {
+			final long id = getId(i);
+			if (distinct == 0 || ids[distinct - 1] != id) {
+				ids[distinct++] = id;
+			}
+		}
+		final long[] result = new long[distinct];
+		System.arraycopy(ids, 0, result, 0, distinct);
+		return result;
+	}
+
+	/**
+	 * Checks whether the file contains execution data for the given class.
+	 * 
+	 * @param id
+	 *            class id
+	 * @return <code>true</code> if the file contains the class
+	 */
+	public boolean contains(final long id) {
+		final int index = find(id);
+		return index < count && getId(index) == id;
+	}
+
+	/**
+	 * Returns the VM name of the given class without loading its execution
+	 * data.
+	 * 
+	 * @param id
+	 *            class id
+	 * @return VM name or <code>null</code> if the class is not contained
+	 * @throws IOException
+	 *             if the name table can not be read
+	 */
+	public String getName(final long id) throws IOException {
+		final int index = find(id);
+		if (index == count || getId(index) != id) {
+			return null;
+		}
+		return getNames()[directory.getInt(entry(index) + 16)];
+	}
+
+	/**
+	 * Loads the execution data of the given class. If the file contains
+	 * multiple blocks for the class they are merged.
+	 * 
+	 * @param id
+	 *            class id
+	 * @return execution data or <code>null</code> if the class is not
+	 *         contained
+	 * @throws IOException
+	 *             if the execution data can not be read
+	 */
+	public ExecutionData get(final long id) throws IOException {
+		final ExecutionDataStore store = new ExecutionDataStore();
+		for (int i = find(id); i < count && getId(i) == id; i++) {
+			store.put(readBlock(directory.getLong(entry(i) + 8)));
+		}
+		return store.get(id);
+	}
+
+	/**
+	 * Returns all session infos of the file in the order of the file. Only the
+	 * session info blocks are read.
+	 * 
+	 * @return session infos
+	 * @throws IOException
+	 *             if the session infos can not be read
+	 */
+	public List<SessionInfo> getSessionInfos() throws IOException {
+		getNames();
+		final int sessionCount = directory.getInt(sessionInfosPosition);
+		final List<SessionInfo> infos = new ArrayList<SessionInfo>(
+				sessionCount);
+		for (int i = 0; i < sessionCount; i++) {
+			final long position = directory.getLong(sessionInfosPosition + 4
+					+ i * 8);
+			final CompactDataInput in = new CompactDataInput(new Input(
+					position));
+			if (in.readByte() != ExecutionDataWriter.BLOCK_SESSIONINFO) {
+				throw new IOException("Invalid session info block.");
+			}
+			final String id = in.readUTF();
+			final long start = in.readLong();
+			final long dump = in.readLong();
+			infos.add(new SessionInfo(id, start, dump));
+		}
+		return infos;
+	}
+
+	/**
+	 * Closes the underlying file.
+	 * 
+	 * @throws IOException
+	 *             if the file can not be closed
+	 */
+	public void close() throws IOException {
+		file.close();
+	}
+
+	private ExecutionData readBlock(final long position) throws IOException {
+		final CompactDataInput in = new CompactDataInput(new Input(position));
+		final byte type = in.readByte();
+		final long id = in.readLong();
+		final String name = in.readUTF();
+		if (type == ExecutionDataWriter.BLOCK_EXECUTIONDATA_HITS) {
+			return new ExecutionData(id, name, in.readIntArray());
+		}
+		if (type == ExecutionDataWriter.BLOCK_EXECUTIONDATA_ENCODED) {
+			return new ExecutionData(id, name, in.readEncodedBooleanArray());
+		}
+		return new ExecutionData(id, name, in.readBooleanArray());
+	}
+
+	private String[] getNames() throws IOException {
+		if (names == null) {
+			final ByteBuffer buffer = directory.duplicate();
+			buffer.position(entry(count));
+			final CompactDataInput in = new CompactDataInput(
+					new BufferInput(buffer));
+			final String[] table = new String[in.readInt()];
+			for (int i = 0; i < table.length; i++) {
+				table[i] = in.readUTF();
+			}
+			sessionInfosPosition = buffer.position();
+			names = table;
+		}
+		return names;
+	}
+
+	/** Returns the index of the first entry with an id not less than id. */
+	private int find(final long id) {
+		int low = 0;
+		int high = count;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (getId(mid) < id) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private long getId(final int index) {
+		return directory.getLong(entry(index));
+	}
+
+	private static int entry(final int index) {
+		return 5 + index * ExecutionDataDirectory.ENTRY_SIZE;
+	}
+
+	/**
+	 * Sequential input starting at an arbitrary file position which maps
+	 * subsequent windows of the file on demand.
+	 */
+	private class Input extends InputStream {
+
+		private ByteBuffer buffer;
+
+		/** File position of index 0 of the current buffer */
+		private long base;
+
+		Input(final long position) throws IOException {
+			buffer = window(position);
+			base = position - buffer.position();
+		}
+
+		long getPosition() {
+			return base + buffer.position();
+		}
+
+		private boolean fill() throws IOException {
+			if (buffer.hasRemaining()) {
+				return true;
+			}
+			final long next = base + buffer.limit();
+			if (next >= length) {
+				return false;
+			}
+			buffer = window(next);
+			base = next - buffer.position();
+			return true;
+		}
+
+		@Override
+		public int read() throws IOException {
+			return fill() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len)
+				throws IOException {
+			if (!fill()) {
+				return -1;
+			}
+			final int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+	}
+
+	private static class BufferInput extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		BufferInput(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) {
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			final int n = Math.min(len, buffer.remaining());
+			buffer.get(b, off, n);
+			return n;
+		}
+
+	}
+
+}
@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.data;
+
+import static java.lang.String.format;
+
+/**
+ * Probe data packed into the bits of <code>long</code> words. Probe
+ * <code>i</code> is stored in bit <code>i % 64</code> of word
+ * <code>i / 64</code>, unused bits of the last word are always zero. This
+ * representation needs an eighth of the memory of a <code>boolean[]</code> and
+ * merges 64 probes per operation. It is intended for offline tooling which
+ * combines execution data many times, e.g. subtracting a baseline from the
+ * data of several test runs. Instances are not thread safe.
+ * 
+ * @see ExecutionData#getPackedProbes()
+ * @see ExecutionData#ExecutionData(long, String, PackedProbes)
+ */
+public final class PackedProbes {
+
+	private final long[] words;
+
+	private final int length;
+
+	/**
+	 * Creates a new instance where all probes are set to <code>false</code>.
+	 * 
+	 * @param length
+	 *            number of probes
+	 */
+	public PackedProbes(final int length) {
+		this.words = new long[(length + 63) >>> 6];
+		this.length = length;
+	}
+
+	/**
+	 * Creates a new instance with the values of the given probe array.
+	 * 
+	 * @param probes
+	 *            probe data
+	 */
+	public PackedProbes(final boolean[] probes) {
+		this(probes.length);
+		pack(probes, words);
+	}
+
+	/**
+	 * Packs the given probes into the first words of the given array, which
+	 * must have at least <code>(probes.length + 63) / 64</code> elements.
+	 */
+	static void pack(final boolean[] probes, final long[] words) {
+		final int count = (probes.length + 63) >>> 6;
+		for (int w = 0; w < count; w++) {
+			words[w] = 0;
+		}
+		for (int i = 0; i < probes.length; i++) {
+			// Branch free as executed probes are often randomly distributed:
+			words[i >>> 6] |= (probes[i] ? 1L : 0L) << i;
+		}
+	}
+
+	/**
+	 * Sets all probes of the given array whose bits are set in the given words.
+	 */
+	static void unpack(final long[] words, final boolean[] probes) {
+		final int count = (probes.length + 63) >>> 6;
+		for (int w = 0; w < count; w++) {
+			long word = words[w];
+			while (word != 0) {
+				probes[(w << 6) + Long.numberOfTrailingZeros(word)] = true;
+				word &= word - 1;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of probes.
+	 * 
+	 * @return number of probes
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the value of a single probe.
+	 * 
+	 * @param index
+	 *            probe index
+	 * @return <code>true</code> if the probe has been executed
+	 */
+	public boolean get(final int index) {
+		checkIndex(index);
+		return (words[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Sets the value of a single probe.
+	 * 
+	 * @param index
+	 *            probe index
+	 * @param value
+	 *            new value of the probe
+	 */
+	public void set(final int index, final boolean value) {
+		checkIndex(index);
+		if (value) {
+			words[index >>> 6] |= 1L << index;
+		} else {
+			words[index >>> 6] &= ~(1L << index);
+		}
+	}
+
+	private void checkIndex(final int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException(format(
+					"Probe index %s out of range.", Integer.valueOf(index)));
+		}
+	}
+
+	/**
+	 * Returns the packed words. Modifications of the array are reflected in
+	 * this instance, bits beyond the number of probes must stay zero.
+	 * 
+	 * @return packed probe words
+	 */
+	public long[] getWords() {
+		return words;
+	}
+
+	/**
+	 * Unpacks the probes into a new array.
+	 * 
+	 * @return probe data
+	 */
+	public boolean[] toBooleanArray() {
+		final boolean[] probes = new boolean[length];
+		unpack(words, probes);
+		return probes;
+	}
+
+	/**
+	 * Checks whether any probe has been executed.
+	 * 
+	 * @return <code>true</code>, if at least one probe has been executed
+	 */
+	public boolean hasHits() {
+		for (final long word : words) {
+			if (word != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of executed probes.
+	 * 
+	 * @return number of probes set to <code>true</code>
+	 */
+	public int getExecutedCount() {
+		int count = 0;
+		for (final long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Sets all probes to <code>false</code>.
+	 */
+	public void reset() {
+		for (int w = 0; w < words.length; w++) {
+			words[w] = 0;
+		}
+	}
+
+	/**
+	 * Merges the given probes into this instance with the same semantics as
+	 * {@link ExecutionData#merge(ExecutionData, boolean)}, i.e.
+	 * <code>A or B</code> for <code>flag==true</code> and
+	 * <code>A and not B</code> for <code>flag==false</code>. The other instance
+	 * is not modified.
+	 * 
+	 * @param other
+	 *            probes to merge
+	 * @param flag
+	 *            merge mode
+	 * @throws IllegalStateException
+	 *             if the number of probes differs
+	 */
+	public void merge(final PackedProbes other, final boolean flag)
+			throws IllegalStateException {
+		if (other.length != length) {
+			throw new IllegalStateException(format(
+					"Different probe counts %s and %s.",
+					Integer.valueOf(length), Integer.valueOf(other.length)));
+		}
+		final long[] otherWords = other.words;
+		if (flag) {
+			for (int w = 0; w < words.length; w++) {
+				words[w] |= otherWords[w];
+			}
+		} else {
+			for (int w = 0; w < words.length; w++) {
+				words[w] &= ~otherWords[w];
+			}
+		}
+	}
+
+}
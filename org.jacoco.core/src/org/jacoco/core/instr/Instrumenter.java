@@ -30,6 +30,7 @@ import org.jacoco.core.internal.instr.IProbeArrayStrategy;
 import org.jacoco.core.internal.instr.ProbeArrayStrategyFactory;
 import org.jacoco.core.internal.instr.SignatureRemover;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
+import org.jacoco.core.runtime.IHitCountAccessorGenerator;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
@@ -43,6 +44,8 @@ public class Instrumenter {
 
 	private final SignatureRemover signatureRemover;
 
+	private boolean hitCounts;
+
 	/**
 	 * Creates a new instance based on the given runtime.
 	 * 
@@ -67,6 +70,25 @@ public class Instrumenter {
 		signatureRemover.setActive(flag);
 	}
 
+	/**
+	 * Determines whether instrumented classes count how often each probe is
+	 * executed instead of only recording whether it was executed. Counting
+	 * requires a runtime which implements {@link IHitCountAccessorGenerator}.
+	 * Default is <code>false</code>.
+	 * 
+	 * @param flag
+	 *            <code>true</code> if hits should be counted
+	 * @throws IllegalStateException
+	 *             if the runtime does not support hit counting
+	 */
+	public void setHitCounts(final boolean flag) throws IllegalStateException {
+		if (flag && !(accessorGenerator instanceof IHitCountAccessorGenerator)) {
+			throw new IllegalStateException(
+					"Runtime does not support hit counting.");
+		}
+		hitCounts = flag;
+	}
+
 	/**
 	 * Creates a instrumented version of the given class if possible.
 	 * 
@@ -83,10 +105,12 @@ public class Instrumenter {
 				throw new IllegalStateException();
 			}
 		};
-		final IProbeArrayStrategy strategy = ProbeArrayStrategyFactory
-				.createFor(reader, accessorGenerator);
+		final IProbeArrayStrategy strategy = hitCounts ? ProbeArrayStrategyFactory
+				.createHitCountFor(reader,
+						(IHitCountAccessorGenerator) accessorGenerator)
+				: ProbeArrayStrategyFactory.createFor(reader, accessorGenerator);
 		final ClassVisitor visitor = new ClassProbesAdapter(
-				new ClassInstrumenter(strategy, writer), true);
+				new ClassInstrumenter(strategy, hitCounts, writer), true);
 		reader.accept(visitor, ClassReader.EXPAND_FRAMES);
 		return writer.toByteArray();
 	}
@@ -25,7 +25,10 @@ public class ClassAnalyzer extends ClassProbesVisitor {
 
 	private final ClassCoverageImpl coverage;
 	private final boolean[] probes;
+	private final int[] hits;
 	private final StringPool stringPool;
+	private final ClassStructure structure;
+	private final InstructionGraph graph;
 
 	/**
 	 * Creates a new analyzer that builds coverage data for a class.
@@ -39,9 +42,41 @@ public class ClassAnalyzer extends ClassProbesVisitor {
 	 */
 	public ClassAnalyzer(final ClassCoverageImpl coverage,
 			final boolean[] probes, final StringPool stringPool) {
+		this(coverage, probes, null, stringPool);
+	}
+
+	/**
+	 * Creates a new analyzer that builds coverage data for a class including
+	 * hit counts.
+	 * 
+	 * @param coverage
+	 *            coverage node for the analyzed class data
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @param hits
+	 *            hit counters for this class or <code>null</code>
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 */
+	public ClassAnalyzer(final ClassCoverageImpl coverage,
+			final boolean[] probes, final int[] hits,
+			final StringPool stringPool) {
 		this.coverage = coverage;
 		this.probes = probes;
+		this.hits = hits;
 		this.stringPool = stringPool;
+		this.structure = new ClassStructure();
+		this.graph = new InstructionGraph();
+	}
+
+	/**
+	 * Returns the structure of the class after this visitor has been
+	 * processed.
+	 * 
+	 * @return structure of the class
+	 */
+	public ClassStructure getStructure() {
+		return structure;
 	}
 
 	@Override
@@ -51,11 +86,14 @@ public class ClassAnalyzer extends ClassProbesVisitor {
 		coverage.setSignature(stringPool.get(signature));
 		coverage.setSuperName(stringPool.get(superName));
 		coverage.setInterfaces(stringPool.get(interfaces));
+		structure.setAttributes(coverage.getSignature(),
+				coverage.getSuperName(), coverage.getInterfaceNames());
 	}
 
 	@Override
 	public void visitSource(final String source, final String debug) {
 		coverage.setSourceFileName(stringPool.get(source));
+		structure.setSourceFileName(coverage.getSourceFileName());
 	}
 
 	@Override
@@ -70,7 +108,7 @@ public class ClassAnalyzer extends ClassProbesVisitor {
 		}
 
 		return new MethodAnalyzer(stringPool.get(name), stringPool.get(desc),
-				stringPool.get(signature), probes) {
+				stringPool.get(signature), probes, hits, graph) {
 			@Override
 			public void visitEnd() {
 				super.visitEnd();
@@ -78,6 +116,7 @@ public class ClassAnalyzer extends ClassProbesVisitor {
 				if (methodCoverage.getInstructionCounter().getTotalCount() > 0) {
 					// Only consider methods that actually contain code
 					coverage.addMethod(methodCoverage);
+					structure.addMethod(getStructure());
 				}
 			}
 		};
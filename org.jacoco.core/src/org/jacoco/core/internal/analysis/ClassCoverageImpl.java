@@ -15,10 +15,14 @@ import java.util.ArrayList;
 import java.util.Collection;
 
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.ISourceNode;
 
 /**
- * Implementation of {@link IClassCoverage}.
+ * Implementation of {@link IClassCoverage}. The lines of the methods are not
+ * stored again for the class, the lines of the class are derived from its
+ * methods on demand.
  */
 public class ClassCoverageImpl extends SourceNodeImpl implements IClassCoverage {
 
@@ -30,6 +34,9 @@ public class ClassCoverageImpl extends SourceNodeImpl implements IClassCoverage
 	private String[] interfaces;
 	private String sourceFileName;
 
+	/** line counter derived from the methods, <code>null</code> if outdated */
+	private ICounter derivedLineCounter;
+
 	/**
 	 * Creates a class coverage data object with the given parameters.
 	 * 
@@ -58,7 +65,9 @@ public class ClassCoverageImpl extends SourceNodeImpl implements IClassCoverage
 	 */
 	public void addMethod(final IMethodCoverage method) {
 		this.methods.add(method);
-		increment(method);
+		incrementCounters(method);
+		derivedLineCounter = null;
+		resetDerivedLineTable();
 		// As class is considered as covered when at least one method is
 		// covered:
 		if (methodCounter.getCoveredCount() > 0) {
@@ -107,6 +116,37 @@ public class ClassCoverageImpl extends SourceNodeImpl implements IClassCoverage
 		this.sourceFileName = sourceFileName;
 	}
 
+	@Override
+	public void increment(final ISourceNode child) {
+		super.increment(child);
+		derivedLineCounter = null;
+		resetDerivedLineTable();
+	}
+
+	@Override
+	public void increment(final ICounter instructions, final ICounter branches,
+			final int line) {
+		super.increment(instructions, branches, line);
+		derivedLineCounter = null;
+		resetDerivedLineTable();
+	}
+
+	@Override
+	int[] getLineTable() {
+		return getLineTable(methods);
+	}
+
+	@Override
+	public ICounter getLineCounter() {
+		if (methods.isEmpty()) {
+			return super.getLineCounter();
+		}
+		if (derivedLineCounter == null) {
+			derivedLineCounter = LineTable.getLineCounter(getLineTable());
+		}
+		return derivedLineCounter;
+	}
+
 	// === IClassCoverage implementation ===
 
 	public long getId() {
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Structure of a class which does not depend on execution data, i.e. the
+ * class attributes and the structure of all methods containing code. Coverage
+ * for given probes can be calculated from the structure without analyzing the
+ * byte code again.
+ */
+public final class ClassStructure {
+
+	private String signature;
+
+	private String superName;
+
+	private String[] interfaces;
+
+	private String sourceFileName;
+
+	private final List<MethodStructure> methods;
+
+	/**
+	 * Creates a new structure without methods.
+	 */
+	public ClassStructure() {
+		this.methods = new ArrayList<MethodStructure>();
+	}
+
+	/**
+	 * Sets the attributes of the class.
+	 * 
+	 * @param signature
+	 *            VM signature of the class (may be <code>null</code>)
+	 * @param superName
+	 *            VM name of the super class (may be <code>null</code>)
+	 * @param interfaces
+	 *            VM names of implemented/extended interfaces
+	 */
+	public void setAttributes(final String signature, final String superName,
+			final String[] interfaces) {
+		this.signature = signature;
+		this.superName = superName;
+		this.interfaces = interfaces;
+	}
+
+	/**
+	 * Sets the name of the corresponding source file for this class.
+	 * 
+	 * @param sourceFileName
+	 *            name of the source file
+	 */
+	public void setSourceFileName(final String sourceFileName) {
+		this.sourceFileName = sourceFileName;
+	}
+
+	/**
+	 * Adds the structure of a method containing code.
+	 * 
+	 * @param method
+	 *            method structure
+	 */
+	public void addMethod(final MethodStructure method) {
+		methods.add(method);
+	}
+
+	/**
+	 * Adds the attributes and the method coverage of this class for the given
+	 * probes to the given node.
+	 * 
+	 * @param coverage
+	 *            coverage node of the class
+	 * @param probes
+	 *            probes of the class or <code>null</code>
+	 * @param hits
+	 *            hit counters of the class or <code>null</code>
+	 */
+	public void increment(final ClassCoverageImpl coverage,
+			final boolean[] probes, final int[] hits) {
+		coverage.setSignature(signature);
+		coverage.setSuperName(superName);
+		coverage.setInterfaces(interfaces);
+		coverage.setSourceFileName(sourceFileName);
+		for (final MethodStructure method : methods) {
+			coverage.addMethod(method.createCoverage(probes, hits));
+		}
+	}
+
+	/**
+	 * Writes this structure to the given output.
+	 * 
+	 * @param out
+	 *            output to write to
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void write(final CompactDataOutput out) throws IOException {
+		writeOptionalUTF(out, signature);
+		writeOptionalUTF(out, superName);
+		if (interfaces == null) {
+			out.writeBoolean(false);
+		} else {
+			out.writeBoolean(true);
+			out.writeVarInt(interfaces.length);
+			for (final String i : interfaces) {
+				out.writeUTF(i);
+			}
+		}
+		writeOptionalUTF(out, sourceFileName);
+		out.writeVarInt(methods.size());
+		for (final MethodStructure method : methods) {
+			method.write(out);
+		}
+	}
+
+	/**
+	 * Reads a structure written by {@link #write(CompactDataOutput)}.
+	 * 
+	 * @param in
+	 *            input to read from
+	 * @param stringPool
+	 *            pool to minimize the number of {@link String} instances
+	 * @return structure read
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public static ClassStructure read(final CompactDataInput in,
+			final StringPool stringPool) throws IOException {
+		final ClassStructure structure = new ClassStructure();
+		final String signature = stringPool.get(readOptionalUTF(in));
+		final String superName = stringPool.get(readOptionalUTF(in));
+		String[] interfaces = null;
+		if (in.readBoolean()) {
+			interfaces = new String[in.readVarInt()];
+			for (int i = 0; i < interfaces.length; i++) {
+				interfaces[i] = in.readUTF();
+			}
+		}
+		structure.setAttributes(signature, superName,
+				stringPool.get(interfaces));
+		structure.setSourceFileName(stringPool.get(readOptionalUTF(in)));
+		final int count = in.readVarInt();
+		for (int i = 0; i < count; i++) {
+			structure.addMethod(MethodStructure.read(in, stringPool));
+		}
+		return structure;
+	}
+
+	static void writeOptionalUTF(final CompactDataOutput out,
+			final String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	static String readOptionalUTF(final CompactDataInput in)
+			throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+}
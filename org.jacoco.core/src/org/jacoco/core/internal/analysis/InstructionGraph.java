@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import org.jacoco.core.internal.flow.LabelInfo;
+import org.objectweb.asm.Label;
+
+/**
+ * Control flow graph of the instructions of a method stored in primitive
+ * arrays. Instructions are identified by their index within the method, the
+ * predecessor of an instruction is {@link LabelInfo#NO_INSTRUCTION} if it has
+ * none. The arrays are grown on demand and reused after {@link #reset()}, so a
+ * single instance can be used for all methods of a class.
+ */
+public final class InstructionGraph {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private int instructionCount;
+
+	private int[] lines;
+
+	private int[] branches;
+
+	private int[] predecessors;
+
+	private int jumpCount;
+
+	private int[] jumpSources;
+
+	private Label[] jumpTargets;
+
+	private int probeCount;
+
+	private int[] probeInstructions;
+
+	private int[] probeIds;
+
+	/**
+	 * Creates an empty graph.
+	 */
+	public InstructionGraph() {
+		lines = new int[INITIAL_CAPACITY];
+		branches = new int[INITIAL_CAPACITY];
+		predecessors = new int[INITIAL_CAPACITY];
+		jumpSources = new int[INITIAL_CAPACITY];
+		jumpTargets = new Label[INITIAL_CAPACITY];
+		probeInstructions = new int[INITIAL_CAPACITY];
+		probeIds = new int[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Removes all instructions, jumps and probes, so the graph can be used for
+	 * the next method.
+	 */
+	public void reset() {
+		for (int j = 0; j < jumpCount; j++) {
+			jumpTargets[j] = null;
+		}
+		instructionCount = 0;
+		jumpCount = 0;
+		probeCount = 0;
+	}
+
+	/**
+	 * Returns the number of instructions added since the last reset.
+	 * 
+	 * @return number of instructions
+	 */
+	public int getInstructionCount() {
+		return instructionCount;
+	}
+
+	/**
+	 * Adds a new instruction. This will add a branch to the predecessor.
+	 * 
+	 * @param line
+	 *            source line the instruction belongs to
+	 * @param predecessor
+	 *            index of the predecessor instruction or
+	 *            {@link LabelInfo#NO_INSTRUCTION}
+	 * @return index of the new instruction
+	 */
+	public int addInstruction(final int line, final int predecessor) {
+		final int index = instructionCount;
+		if (index == lines.length) {
+			lines = grow(lines);
+			branches = grow(branches);
+			predecessors = grow(predecessors);
+		}
+		lines[index] = line;
+		branches[index] = 0;
+		predecessors[index] = predecessor;
+		if (predecessor != LabelInfo.NO_INSTRUCTION) {
+			branches[predecessor]++;
+		}
+		instructionCount++;
+		return index;
+	}
+
+	/**
+	 * Adds a jump from the given instruction to the instruction of the given
+	 * label. Jumps are resolved by {@link #wireJumps()} when the instructions
+	 * of all labels are known.
+	 * 
+	 * @param source
+	 *            index of the jump instruction
+	 * @param target
+	 *            label of the target instruction
+	 */
+	public void addJump(final int source, final Label target) {
+		final int index = jumpCount;
+		if (index == jumpSources.length) {
+			jumpSources = grow(jumpSources);
+			final Label[] newTargets = new Label[index * 2];
+			System.arraycopy(jumpTargets, 0, newTargets, 0, index);
+			jumpTargets = newTargets;
+		}
+		jumpSources[index] = source;
+		jumpTargets[index] = target;
+		jumpCount++;
+	}
+
+	/**
+	 * Adds a probe to the given instruction. This will add a branch to the
+	 * instruction.
+	 * 
+	 * @param instruction
+	 *            index of the instruction the probe belongs to
+	 * @param probeId
+	 *            id of the probe
+	 */
+	public void addProbe(final int instruction, final int probeId) {
+		branches[instruction]++;
+		final int index = probeCount;
+		if (index == probeIds.length) {
+			probeInstructions = grow(probeInstructions);
+			probeIds = grow(probeIds);
+		}
+		probeInstructions[index] = instruction;
+		probeIds[index] = probeId;
+		probeCount++;
+	}
+
+	/**
+	 * Sets the source instruction of every jump as predecessor of its target
+	 * instruction. This will add a branch to the source instruction.
+	 */
+	public void wireJumps() {
+		for (int j = 0; j < jumpCount; j++) {
+			final int source = jumpSources[j];
+			predecessors[LabelInfo.getInstruction(jumpTargets[j])] = source;
+			branches[source]++;
+		}
+	}
+
+	/**
+	 * Creates the structure of a method from the current content of this
+	 * graph.
+	 * 
+	 * @param name
+	 *            method name
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            optional parameterized signature
+	 * @param firstLine
+	 *            first line of the method
+	 * @param lastLine
+	 *            last line of the method
+	 * @return structure of the method
+	 */
+	public MethodStructure createStructure(final String name,
+			final String desc, final String signature, final int firstLine,
+			final int lastLine) {
+		return new MethodStructure(name, desc, signature, firstLine, lastLine,
+				copy(lines, instructionCount), copy(branches, instructionCount),
+				copy(predecessors, instructionCount), copy(probeInstructions,
+						probeCount), copy(probeIds, probeCount));
+	}
+
+	private static int[] grow(final int[] array) {
+		final int[] newArray = new int[array.length * 2];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+
+	private static int[] copy(final int[] array, final int length) {
+		final int[] newArray = new int[length];
+		System.arraycopy(array, 0, newArray, 0, length);
+		return newArray;
+	}
+
+}
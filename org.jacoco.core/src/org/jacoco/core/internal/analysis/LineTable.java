@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+/**
+ * Operations on compact tables of the instruction and branch counters of
+ * source lines. A table is a single exactly sized <code>int</code> array with
+ * the lines with counters in ascending order of their line numbers. The first
+ * value is the number of packed lines, each holding the line number and its
+ * four counter values in a single <code>int</code> value. The few lines with
+ * higher line numbers or counter values follow as wide records of five
+ * <code>int</code> values. Tables can be shared between nodes, this is marked
+ * in the sign bit of the first value and such tables are copied before they
+ * are modified.
+ */
+final class LineTable {
+
+	/** Marks a shared table in the first value */
+	private static final int SHARED = 0x80000000;
+
+	/** Table without lines */
+	static final int[] EMPTY = new int[] { SHARED };
+
+	/** Number of values of a wide record: line, im, ic, bm, bc */
+	private static final int WIDE = 5;
+
+	private static final int LINE_SHIFT = 16;
+
+	private static final int IM_SHIFT = 11;
+
+	private static final int IC_SHIFT = 6;
+
+	private static final int BM_SHIFT = 3;
+
+	private static final int LINE_LIMIT = 0xFFFF;
+
+	private static final int INSTRUCTION_LIMIT = 0x1F;
+
+	private static final int BRANCH_LIMIT = 0x07;
+
+	private LineTable() {
+	}
+
+	/**
+	 * Returns the counters of the given line.
+	 * 
+	 * @param table
+	 *            line table
+	 * @param nr
+	 *            line number
+	 * @return counters of the line, {@link LineImpl#EMPTY} if the table
+	 *         contains no counters for the line
+	 */
+	static LineImpl getLine(final int[] table, final int nr) {
+		final int i = searchEntry(table, nr);
+		if (i >= 0) {
+			final int e = table[i];
+			return LineImpl.getInstance(im(e), ic(e), bm(e), bc(e));
+		}
+		final int w = searchWide(table, nr);
+		if (w >= 0) {
+			return LineImpl.getInstance(table[w + 1], table[w + 2],
+					table[w + 3], table[w + 4]);
+		}
+		return LineImpl.EMPTY;
+	}
+
+	/**
+	 * Adds the given counter values to a line.
+	 * 
+	 * @param table
+	 *            line table
+	 * @param nr
+	 *            line number
+	 * @param im
+	 *            missed instructions to add
+	 * @param ic
+	 *            covered instructions to add
+	 * @param bm
+	 *            missed branches to add
+	 * @param bc
+	 *            covered branches to add
+	 * @return table with the new counter values, either the given table or a
+	 *         new one if the given table is shared or needs to grow
+	 */
+	static int[] increment(final int[] table, final int nr, final int im,
+			final int ic, final int bm, final int bc) {
+		if ((im | ic | bm | bc) == 0) {
+			return table;
+		}
+		final int[] t = table[0] < 0 ? copy(table) : table;
+		final int i = searchEntry(t, nr);
+		if (i >= 0) {
+			final int e = t[i];
+			final int sim = im(e) + im;
+			final int sic = ic(e) + ic;
+			final int sbm = bm(e) + bm;
+			final int sbc = bc(e) + bc;
+			if (fits(sim, sic, sbm, sbc)) {
+				t[i] = pack(nr, sim, sic, sbm, sbc);
+				return t;
+			}
+			final int[] removed = remove(t, i);
+			removed[0]--;
+			return insertWide(removed, nr, sim, sic, sbm, sbc);
+		}
+		final int w = searchWide(t, nr);
+		if (w >= 0) {
+			t[w + 1] += im;
+			t[w + 2] += ic;
+			t[w + 3] += bm;
+			t[w + 4] += bc;
+			return t;
+		}
+		if (nr <= LINE_LIMIT && fits(im, ic, bm, bc)) {
+			final int[] result = insert(t, -i - 1,
+					new int[] { pack(nr, im, ic, bm, bc) });
+			result[0]++;
+			return result;
+		}
+		return insertWide(t, nr, im, ic, bm, bc);
+	}
+
+	/**
+	 * Returns a table with the sums of the counters of the given tables. If
+	 * one table is empty the other table is returned, in case of the second
+	 * table it is marked as shared. Otherwise a new table is returned.
+	 * 
+	 * @param a
+	 *            line table
+	 * @param b
+	 *            line table to add
+	 * @return table with the sums of both tables
+	 */
+	static int[] merge(final int[] a, final int[] b) {
+		if (isEmpty(b)) {
+			return a;
+		}
+		if (isEmpty(a)) {
+			b[0] |= SHARED;
+			return b;
+		}
+		final int aEnd = count(a) + 1;
+		final int bEnd = count(b) + 1;
+		final int[] merged = new int[aEnd + bEnd - 1];
+		int[] deferred = null;
+		int deferredCount = 0;
+		int i = 1;
+		int j = 1;
+		int n = 1;
+		while (i < aEnd && j < bEnd) {
+			final int la = a[i] >>> LINE_SHIFT;
+			final int lb = b[j] >>> LINE_SHIFT;
+			if (la < lb) {
+				merged[n++] = a[i++];
+			} else if (la > lb) {
+				if (searchWide(a, lb) >= 0) {
+					deferred = defer(deferred, bEnd, deferredCount++, b[j]);
+				} else {
+					merged[n++] = b[j];
+				}
+				j++;
+			} else {
+				final int im = im(a[i]) + im(b[j]);
+				final int ic = ic(a[i]) + ic(b[j]);
+				final int bm = bm(a[i]) + bm(b[j]);
+				final int bc = bc(a[i]) + bc(b[j]);
+				if (fits(im, ic, bm, bc)) {
+					merged[n++] = pack(la, im, ic, bm, bc);
+				} else {
+					// Added later when the line is moved to a wide record:
+					merged[n++] = a[i];
+					deferred = defer(deferred, bEnd, deferredCount++, b[j]);
+				}
+				i++;
+				j++;
+			}
+		}
+		while (i < aEnd) {
+			merged[n++] = a[i++];
+		}
+		while (j < bEnd) {
+			if (searchWide(a, b[j] >>> LINE_SHIFT) >= 0) {
+				deferred = defer(deferred, bEnd, deferredCount++, b[j]);
+			} else {
+				merged[n++] = b[j];
+			}
+			j++;
+		}
+		int[] table = new int[n + a.length - aEnd];
+		System.arraycopy(merged, 0, table, 0, n);
+		System.arraycopy(a, aEnd, table, n, a.length - aEnd);
+		table[0] = n - 1;
+		for (int d = 0; d < deferredCount; d++) {
+			final int e = deferred[d];
+			table = increment(table, e >>> LINE_SHIFT, im(e), ic(e), bm(e),
+					bc(e));
+		}
+		for (int w = bEnd; w < b.length; w += WIDE) {
+			table = increment(table, b[w], b[w + 1], b[w + 2], b[w + 3],
+					b[w + 4]);
+		}
+		return table;
+	}
+
+	/**
+	 * Calculates the line counter of the given table, i.e. the number of lines
+	 * with missed instructions only and the number of lines with covered
+	 * instructions.
+	 * 
+	 * @param table
+	 *            line table
+	 * @return line counter
+	 */
+	static CounterImpl getLineCounter(final int[] table) {
+		int missed = 0;
+		int covered = 0;
+		final int end = count(table) + 1;
+		for (int i = 1; i < end; i++) {
+			if (ic(table[i]) > 0) {
+				covered++;
+			} else if (im(table[i]) > 0) {
+				missed++;
+			}
+		}
+		for (int w = end; w < table.length; w += WIDE) {
+			if (table[w + 2] > 0) {
+				covered++;
+			} else if (table[w + 1] > 0) {
+				missed++;
+			}
+		}
+		return CounterImpl.getInstance(missed, covered);
+	}
+
+	/**
+	 * Adds an entry of another table which can't be merged directly, because
+	 * the line is stored in a wide record in the merged table.
+	 */
+	private static int[] defer(final int[] deferred, final int capacity,
+			final int index, final int entry) {
+		final int[] result = deferred == null ? new int[capacity] : deferred;
+		result[index] = entry;
+		return result;
+	}
+
+	private static boolean isEmpty(final int[] table) {
+		return table.length == 1;
+	}
+
+	/** Unshared copy of a table */
+	private static int[] copy(final int[] table) {
+		final int[] result = table.clone();
+		result[0] &= ~SHARED;
+		return result;
+	}
+
+	/** Number of packed lines */
+	private static int count(final int[] table) {
+		return table[0] & ~SHARED;
+	}
+
+	private static int[] insertWide(final int[] table, final int nr,
+			final int im, final int ic, final int bm, final int bc) {
+		final int w = -searchWide(table, nr) - 1;
+		return insert(table, w, new int[] { nr, im, ic, bm, bc });
+	}
+
+	/**
+	 * Binary search for a packed line.
+	 * 
+	 * @return position of the line or <code>-(insertion position) - 1</code>
+	 */
+	private static int searchEntry(final int[] table, final int nr) {
+		int low = 1;
+		int high = count(table);
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int line = table[mid] >>> LINE_SHIFT;
+			if (line < nr) {
+				low = mid + 1;
+			} else if (line > nr) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	/**
+	 * Binary search for a wide record.
+	 * 
+	 * @return position of the record or <code>-(insertion position) - 1</code>
+	 */
+	private static int searchWide(final int[] table, final int nr) {
+		final int start = count(table) + 1;
+		int low = 0;
+		int high = (table.length - start) / WIDE - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int line = table[start + mid * WIDE];
+			if (line < nr) {
+				low = mid + 1;
+			} else if (line > nr) {
+				high = mid - 1;
+			} else {
+				return start + mid * WIDE;
+			}
+		}
+		return -(start + low * WIDE + 1);
+	}
+
+	private static boolean fits(final int im, final int ic, final int bm,
+			final int bc) {
+		return im <= INSTRUCTION_LIMIT && ic <= INSTRUCTION_LIMIT
+				&& bm <= BRANCH_LIMIT && bc <= BRANCH_LIMIT;
+	}
+
+	private static int pack(final int nr, final int im, final int ic,
+			final int bm, final int bc) {
+		return nr << LINE_SHIFT | im << IM_SHIFT | ic << IC_SHIFT
+				| bm << BM_SHIFT | bc;
+	}
+
+	private static int im(final int entry) {
+		return (entry >>> IM_SHIFT) & INSTRUCTION_LIMIT;
+	}
+
+	private static int ic(final int entry) {
+		return (entry >>> IC_SHIFT) & INSTRUCTION_LIMIT;
+	}
+
+	private static int bm(final int entry) {
+		return (entry >>> BM_SHIFT) & BRANCH_LIMIT;
+	}
+
+	private static int bc(final int entry) {
+		return entry & BRANCH_LIMIT;
+	}
+
+	private static int[] insert(final int[] array, final int pos,
+			final int[] values) {
+		final int[] result = new int[array.length + values.length];
+		System.arraycopy(array, 0, result, 0, pos);
+		System.arraycopy(values, 0, result, pos, values.length);
+		System.arraycopy(array, pos, result, pos + values.length,
+				array.length - pos);
+		return result;
+	}
+
+	private static int[] remove(final int[] array, final int pos) {
+		final int[] result = new int[array.length - 1];
+		System.arraycopy(array, 0, result, 0, pos);
+		System.arraycopy(array, pos + 1, result, pos, array.length - pos - 1);
+		return result;
+	}
+
+}
@@ -14,11 +14,9 @@ package org.jacoco.core.internal.analysis;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.IMethodCoverage;
 import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.flow.IFrame;
-import org.jacoco.core.internal.flow.Instruction;
 import org.jacoco.core.internal.flow.LabelInfo;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
 import org.objectweb.asm.Handle;
@@ -30,10 +28,20 @@ import org.objectweb.asm.Label;
  */
 public class MethodAnalyzer extends MethodProbesVisitor {
 
+	private final String name;
+
+	private final String desc;
+
+	private final String signature;
+
 	private final boolean[] probes;
 
+	private final int[] hits;
+
 	private final MethodCoverageImpl coverage;
 
+	private MethodStructure structure;
+
 	private int currentLine = ISourceNode.UNKNOWN_LINE;
 
 	private int firstLine = ISourceNode.UNKNOWN_LINE;
@@ -43,17 +51,11 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	// Due to ASM issue #315745 there can be more than one label per instruction
 	private final List<Label> currentLabel = new ArrayList<Label>(2);
 
-	/** List of all analyzed instructions */
-	private final List<Instruction> instructions = new ArrayList<Instruction>();
-
-	/** List of all predecessors of covered probes */
-	private final List<Instruction> coveredProbes = new ArrayList<Instruction>();
-
-	/** List of all jumps encountered */
-	private final List<Jump> jumps = new ArrayList<Jump>();
+	/** Instructions, jumps and probes of this method */
+	private final InstructionGraph graph;
 
-	/** Last instruction in byte code sequence */
-	private Instruction lastInsn;
+	/** Index of the last instruction in byte code sequence */
+	private int lastInsn = LabelInfo.NO_INSTRUCTION;
 
 	/**
 	 * New Method analyzer for the given probe data.
@@ -71,8 +73,61 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	 */
 	public MethodAnalyzer(final String name, final String desc,
 			final String signature, final boolean[] probes) {
+		this(name, desc, signature, probes, null);
+	}
+
+	/**
+	 * New Method analyzer for the given probe data and hit counters.
+	 * 
+	 * @param name
+	 *            method name
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            optional parameterized signature
+	 * @param probes
+	 *            recorded probe date of the containing class or
+	 *            <code>null</code> if the class is not executed at all
+	 * @param hits
+	 *            recorded hit counters of the containing class or
+	 *            <code>null</code> if no hits have been counted
+	 */
+	public MethodAnalyzer(final String name, final String desc,
+			final String signature, final boolean[] probes, final int[] hits) {
+		this(name, desc, signature, probes, hits, new InstructionGraph());
+	}
+
+	/**
+	 * New Method analyzer for the given probe data and hit counters which
+	 * builds the control flow in the given graph. The graph is reset, so it can
+	 * be reused for the next method once this visitor has been processed.
+	 * 
+	 * @param name
+	 *            method name
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            optional parameterized signature
+	 * @param probes
+	 *            recorded probe date of the containing class or
+	 *            <code>null</code> if the class is not executed at all
+	 * @param hits
+	 *            recorded hit counters of the containing class or
+	 *            <code>null</code> if no hits have been counted
+	 * @param graph
+	 *            graph to build the control flow of this method in
+	 */
+	public MethodAnalyzer(final String name, final String desc,
+			final String signature, final boolean[] probes, final int[] hits,
+			final InstructionGraph graph) {
 		super();
+		graph.reset();
+		this.graph = graph;
+		this.name = name;
+		this.desc = desc;
+		this.signature = signature;
 		this.probes = probes;
+		this.hits = hits;
 		this.coverage = new MethodCoverageImpl(name, desc, signature);
 	}
 
@@ -86,11 +141,21 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 		return coverage;
 	}
 
+	/**
+	 * Returns the structure of this method after this visitor has been
+	 * processed.
+	 * 
+	 * @return structure of this method
+	 */
+	public MethodStructure getStructure() {
+		return structure;
+	}
+
 	@Override
 	public void visitLabel(final Label label) {
 		currentLabel.add(label);
 		if (!LabelInfo.isSuccessor(label)) {
-			lastInsn = null;
+			lastInsn = LabelInfo.NO_INSTRUCTION;
 		}
 	}
 
@@ -106,11 +171,7 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	}
 
 	private void visitInsn() {
-		final Instruction insn = new Instruction(currentLine);
-		instructions.add(insn);
-		if (lastInsn != null) {
-			insn.setPredecessor(lastInsn);
-		}
+		final int insn = graph.addInstruction(currentLine, lastInsn);
 		final int labelCount = currentLabel.size();
 		if (labelCount > 0) {
 			for (int i = labelCount; --i >= 0;) {
@@ -162,7 +223,7 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	@Override
 	public void visitJumpInsn(final int opcode, final Label label) {
 		visitInsn();
-		jumps.add(new Jump(lastInsn, label));
+		graph.addJump(lastInsn, label);
 	}
 
 	@Override
@@ -190,11 +251,11 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	private void visitSwitchInsn(final Label dflt, final Label[] labels) {
 		visitInsn();
 		LabelInfo.resetDone(labels);
-		jumps.add(new Jump(lastInsn, dflt));
+		graph.addJump(lastInsn, dflt);
 		LabelInfo.setDone(dflt);
 		for (final Label l : labels) {
 			if (!LabelInfo.isDone(l)) {
-				jumps.add(new Jump(lastInsn, l));
+				graph.addJump(lastInsn, l);
 				LabelInfo.setDone(l);
 			}
 		}
@@ -208,7 +269,7 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 	@Override
 	public void visitProbe(final int probeId) {
 		addProbe(probeId);
-		lastInsn = null;
+		lastInsn = LabelInfo.NO_INSTRUCTION;
 	}
 
 	@Override
@@ -251,7 +312,7 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 		final int id = LabelInfo.getProbeId(label);
 		if (!LabelInfo.isDone(label)) {
 			if (id == LabelInfo.NO_PROBE) {
-				jumps.add(new Jump(lastInsn, label));
+				graph.addJump(lastInsn, label);
 			} else {
 				addProbe(id);
 			}
@@ -261,44 +322,15 @@ public class MethodAnalyzer extends MethodProbesVisitor {
 
 	@Override
 	public void visitEnd() {
-		// Wire jumps:
-		for (final Jump j : jumps) {
-			LabelInfo.getInstruction(j.target).setPredecessor(j.source);
-		}
-		// Propagate probe values:
-		for (final Instruction p : coveredProbes) {
-			p.setCovered();
-		}
+		graph.wireJumps();
+		structure = graph.createStructure(name, desc, signature, firstLine,
+				lastLine);
 		// Report result:
-		coverage.ensureCapacity(firstLine, lastLine);
-		for (final Instruction i : instructions) {
-			final int total = i.getBranches();
-			final int covered = i.getCoveredBranches();
-			final ICounter instrCounter = covered == 0 ? CounterImpl.COUNTER_1_0
-					: CounterImpl.COUNTER_0_1;
-			final ICounter branchCounter = total > 1 ? CounterImpl.getInstance(
-					total - covered, covered) : CounterImpl.COUNTER_0_0;
-			coverage.increment(instrCounter, branchCounter, i.getLine());
-		}
-		coverage.incrementMethodCounter();
+		structure.increment(coverage, probes, hits);
 	}
 
 	private void addProbe(final int probeId) {
-		lastInsn.addBranch();
-		if (probes != null && probes[probeId]) {
-			coveredProbes.add(lastInsn);
-		}
-	}
-
-	private static class Jump {
-
-		final Instruction source;
-		final Label target;
-
-		Jump(final Instruction source, final Label target) {
-			this.source = source;
-			this.target = target;
-		}
+		graph.addProbe(lastInsn, probeId);
 	}
 
 }
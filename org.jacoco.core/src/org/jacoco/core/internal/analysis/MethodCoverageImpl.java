@@ -53,6 +53,16 @@ public class MethodCoverageImpl extends SourceNodeImpl implements
 		}
 	}
 
+	/**
+	 * Adds the given number of probe executions to this method.
+	 * 
+	 * @param hits
+	 *            number of probe executions
+	 */
+	public void incrementHitCount(final long hits) {
+		this.hitCount += hits;
+	}
+
 	/**
 	 * This method must be called exactly once after all instructions and
 	 * branches have been incremented for this method coverage node.
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.analysis;
+
+import java.io.IOException;
+
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.internal.data.CompactDataInput;
+import org.jacoco.core.internal.data.CompactDataOutput;
+
+/**
+ * Structure of a method which does not depend on execution data: the
+ * instructions with their lines, branches and predecessors as well as the
+ * instructions owning the probes. Coverage for given probes can be calculated
+ * from the structure without analyzing the byte code again.
+ */
+public final class MethodStructure {
+
+	private final String name;
+
+	private final String desc;
+
+	private final String signature;
+
+	private final int firstLine;
+
+	private final int lastLine;
+
+	private final int[] lines;
+
+	private final int[] branches;
+
+	private final int[] predecessors;
+
+	private final int[] probeInstructions;
+
+	private final int[] probeIds;
+
+	/**
+	 * Creates a new structure. Instructions are identified by their index,
+	 * <code>-1</code> is used for instructions without predecessor.
+	 * 
+	 * @param name
+	 *            method name
+	 * @param desc
+	 *            method descriptor
+	 * @param signature
+	 *            optional parameterized signature
+	 * @param firstLine
+	 *            first line of the method or
+	 *            {@link ISourceNode#UNKNOWN_LINE}
+	 * @param lastLine
+	 *            last line of the method or {@link ISourceNode#UNKNOWN_LINE}
+	 * @param lines
+	 *            line of every instruction
+	 * @param branches
+	 *            total number of branches of every instruction
+	 * @param predecessors
+	 *            index of the predecessor of every instruction
+	 * @param probeInstructions
+	 *            index of the instruction owning the probe with the id at the
+	 *            same position in <code>probeIds</code>
+	 * @param probeIds
+	 *            probe ids
+	 */
+	public MethodStructure(final String name, final String desc,
+			final String signature, final int firstLine, final int lastLine,
+			final int[] lines, final int[] branches, final int[] predecessors,
+			final int[] probeInstructions, final int[] probeIds) {
+		this.name = name;
+		this.desc = desc;
+		this.signature = signature;
+		this.firstLine = firstLine;
+		this.lastLine = lastLine;
+		this.lines = lines;
+		this.branches = branches;
+		this.predecessors = predecessors;
+		this.probeInstructions = probeInstructions;
+		this.probeIds = probeIds;
+	}
+
+	/**
+	 * Returns the number of instructions of this method.
+	 * 
+	 * @return number of instructions
+	 */
+	public int getInstructionCount() {
+		return lines.length;
+	}
+
+	/**
+	 * Creates the coverage of this method for the given probes.
+	 * 
+	 * @param probes
+	 *            probes of the containing class or <code>null</code>
+	 * @param hits
+	 *            hit counters of the containing class or <code>null</code>
+	 * @return coverage of this method
+	 */
+	public MethodCoverageImpl createCoverage(final boolean[] probes,
+			final int[] hits) {
+		final MethodCoverageImpl coverage = new MethodCoverageImpl(name, desc,
+				signature);
+		increment(coverage, probes, hits);
+		return coverage;
+	}
+
+	/**
+	 * Adds the coverage of this method for the given probes to the given node.
+	 * 
+	 * @param coverage
+	 *            coverage node of this method
+	 * @param probes
+	 *            probes of the containing class or <code>null</code>
+	 * @param hits
+	 *            hit counters of the containing class or <code>null</code>
+	 */
+	public void increment(final MethodCoverageImpl coverage,
+			final boolean[] probes, final int[] hits) {
+		final int[] covered = new int[lines.length];
+		for (int p = 0; p < probeIds.length; p++) {
+			final int id = probeIds[p];
+			if (probes != null && probes[id]) {
+				// Mark predecessors up to the first one already covered:
+				int i = probeInstructions[p];
+				while (i != -1 && covered[i]++ == 0) {
+					i = predecessors[i];
+				}
+			}
+			if (hits != null) {
+				coverage.incrementHitCount(hits[id]);
+			}
+		}
+		coverage.ensureCapacity(firstLine, lastLine);
+		for (int i = 0; i < lines.length; i++) {
+			final int total = branches[i];
+			final int c = covered[i];
+			final ICounter instrCounter = c == 0 ? CounterImpl.COUNTER_1_0
+					: CounterImpl.COUNTER_0_1;
+			final ICounter branchCounter = total > 1 ? CounterImpl.getInstance(
+					total - c, c) : CounterImpl.COUNTER_0_0;
+			coverage.increment(instrCounter, branchCounter, lines[i]);
+		}
+		coverage.incrementMethodCounter();
+	}
+
+	/**
+	 * Writes this structure to the given output.
+	 * 
+	 * @param out
+	 *            output to write to
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void write(final CompactDataOutput out) throws IOException {
+		out.writeUTF(name);
+		out.writeUTF(desc);
+		ClassStructure.writeOptionalUTF(out, signature);
+		out.writeVarInt(firstLine + 1);
+		out.writeVarInt(lastLine + 1);
+		out.writeVarInt(lines.length);
+		for (int i = 0; i < lines.length; i++) {
+			out.writeVarInt(lines[i] + 1);
+			out.writeVarInt(branches[i]);
+			out.writeVarInt(predecessors[i] + 1);
+		}
+		out.writeIntArray(probeInstructions);
+		out.writeIntArray(probeIds);
+	}
+
+	/**
+	 * Reads a structure written by {@link #write(CompactDataOutput)}.
+	 * 
+	 * @param in
+	 *            input to read from
+	 * @param stringPool
+	 *            pool to minimize the number of {@link String} instances
+	 * @return structure read
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public static MethodStructure read(final CompactDataInput in,
+			final StringPool stringPool) throws IOException {
+		final String name = stringPool.get(in.readUTF());
+		final String desc = stringPool.get(in.readUTF());
+		final String signature = stringPool.get(ClassStructure
+				.readOptionalUTF(in));
+		final int firstLine = in.readVarInt() - 1;
+		final int lastLine = in.readVarInt() - 1;
+		final int count = in.readVarInt();
+		final int[] lines = new int[count];
+		final int[] branches = new int[count];
+		final int[] predecessors = new int[count];
+		for (int i = 0; i < count; i++) {
+			lines[i] = in.readVarInt() - 1;
+			branches[i] = in.readVarInt();
+			predecessors[i] = in.readVarInt() - 1;
+		}
+		final int[] probeInstructions = in.readIntArray();
+		final int[] probeIds = in.readIntArray();
+		return new MethodStructure(name, desc, signature, firstLine, lastLine,
+				lines, branches, predecessors, probeInstructions, probeIds);
+	}
+
+}
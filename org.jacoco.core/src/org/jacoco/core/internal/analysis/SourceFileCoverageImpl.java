@@ -11,16 +11,28 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis;
 
+import java.util.ArrayList;
+import java.util.Collection;
+
+import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.analysis.ISourceNode;
 
 /**
- * Implementation of {@link ISourceFileCoverage}.
+ * Implementation of {@link ISourceFileCoverage}. The lines of the child nodes
+ * are not stored again for the source file, the lines of the source file are
+ * derived from its children on demand.
  */
 public class SourceFileCoverageImpl extends SourceNodeImpl implements
 		ISourceFileCoverage {
 
 	private final String packagename;
 
+	private final Collection<ISourceNode> children;
+
+	/** line counter derived from the children, <code>null</code> if outdated */
+	private ICounter derivedLineCounter;
+
 	/**
 	 * Creates a source file data object with the given parameters.
 	 * 
@@ -32,6 +44,47 @@ public class SourceFileCoverageImpl extends SourceNodeImpl implements
 	public SourceFileCoverageImpl(final String name, final String packagename) {
 		super(ElementType.SOURCEFILE, name);
 		this.packagename = packagename;
+		this.children = new ArrayList<ISourceNode>();
+	}
+
+	/**
+	 * Increments all counters by the values of the given child. The lines of
+	 * the child are not copied, the child is kept to derive the lines of this
+	 * source file from.
+	 * 
+	 * @param child
+	 *            child node to add
+	 */
+	@Override
+	public void increment(final ISourceNode child) {
+		children.add(child);
+		incrementCounters(child);
+		derivedLineCounter = null;
+		resetDerivedLineTable();
+	}
+
+	@Override
+	public void increment(final ICounter instructions, final ICounter branches,
+			final int line) {
+		super.increment(instructions, branches, line);
+		derivedLineCounter = null;
+		resetDerivedLineTable();
+	}
+
+	@Override
+	int[] getLineTable() {
+		return getLineTable(children);
+	}
+
+	@Override
+	public ICounter getLineCounter() {
+		if (children.isEmpty()) {
+			return super.getLineCounter();
+		}
+		if (derivedLineCounter == null) {
+			derivedLineCounter = LineTable.getLineCounter(getLineTable());
+		}
+		return derivedLineCounter;
 	}
 
 	// === ISourceFileCoverage implementation ===
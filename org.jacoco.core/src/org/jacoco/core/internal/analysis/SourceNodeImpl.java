@@ -11,6 +11,8 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis;
 
+import java.util.Collection;
+
 import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ILine;
@@ -21,10 +23,17 @@ import org.jacoco.core.analysis.ISourceNode;
  */
 public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 
-	private LineImpl[] lines;
+	/** line table derived most recently, see {@link #getLineTable(Collection)} */
+	private static volatile DerivedLineTable lastDerived;
+
+	/** counters of all lines with code, see {@link LineTable} */
+	private int[] lines;
 
-	/** first line number in {@link #lines} */
-	private int offset;
+	/** first line number or {@link ISourceNode#UNKNOWN_LINE} */
+	private int firstLine;
+
+	/** last line number or {@link ISourceNode#UNKNOWN_LINE} */
+	private int lastLine;
 
 	/**
 	 * Create a new source node implementation instance.
@@ -36,14 +45,16 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 	 */
 	public SourceNodeImpl(final ElementType elementType, final String name) {
 		super(elementType, name);
-		lines = null;
-		offset = UNKNOWN_LINE;
+		lines = LineTable.EMPTY;
+		firstLine = UNKNOWN_LINE;
+		lastLine = UNKNOWN_LINE;
 	}
 
 	/**
-	 * Make sure that the internal buffer can keep lines from first to last.
-	 * While the buffer is also incremented automatically, this method allows
-	 * optimization in case the total range is known in advance.
+	 * Make sure that the range of lines of this node includes the lines from
+	 * first to last. While the range is also extended automatically for lines
+	 * with code, this method allows to include lines without code, e.g. the
+	 * declaration of a method.
 	 * 
 	 * @param first
 	 *            first line number or {@link ISourceNode#UNKNOWN_LINE}
@@ -54,32 +65,44 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 		if (first == UNKNOWN_LINE || last == UNKNOWN_LINE) {
 			return;
 		}
-		if (lines == null) {
-			offset = first;
-			lines = new LineImpl[last - first + 1];
+		if (firstLine == UNKNOWN_LINE) {
+			firstLine = first;
+			lastLine = last;
 		} else {
-			final int newFirst = Math.min(getFirstLine(), first);
-			final int newLast = Math.max(getLastLine(), last);
-			final int newLength = newLast - newFirst + 1;
-			if (newLength > lines.length) {
-				final LineImpl[] newLines = new LineImpl[newLength];
-				System.arraycopy(lines, 0, newLines, offset - newFirst,
-						lines.length);
-				offset = newFirst;
-				lines = newLines;
-			}
+			firstLine = Math.min(firstLine, first);
+			lastLine = Math.max(lastLine, last);
 		}
 	}
 
 	/**
 	 * Increments all counters by the values of the given child. When
 	 * incrementing the line counter it is assumed that the child refers to the
-	 * same source file.
+	 * same source file. The line table of a child without siblings with code is
+	 * shared rather than copied.
 	 * 
 	 * @param child
 	 *            child node to add
 	 */
 	public void increment(final ISourceNode child) {
+		incrementCounters(child);
+		if (child.getFirstLine() != UNKNOWN_LINE) {
+			final ICounter oldCounter = LineTable.getLineCounter(lines);
+			lines = LineTable.merge(lines, getLineTable(child));
+			final ICounter newCounter = LineTable.getLineCounter(lines);
+			lineCounter = lineCounter.increment(newCounter.getMissedCount()
+					- oldCounter.getMissedCount(), newCounter.getCoveredCount()
+					- oldCounter.getCoveredCount());
+		}
+	}
+
+	/**
+	 * Increments all counters except the line counter by the values of the
+	 * given child and extends the range of lines to the lines of the child.
+	 * 
+	 * @param child
+	 *            child node to add
+	 */
+	void incrementCounters(final ISourceNode child) {
 		instructionCounter = instructionCounter.increment(child
 				.getInstructionCounter());
 		branchCounter = branchCounter.increment(child.getBranchCounter());
@@ -87,15 +110,95 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 				.getComplexityCounter());
 		methodCounter = methodCounter.increment(child.getMethodCounter());
 		classCounter = classCounter.increment(child.getClassCounter());
-		final int firstLine = child.getFirstLine();
-		if (firstLine != UNKNOWN_LINE) {
-			final int lastLine = child.getLastLine();
-			ensureCapacity(firstLine, lastLine);
-			for (int i = firstLine; i <= lastLine; i++) {
-				final ILine line = child.getLine(i);
-				incrementLine(line.getInstructionCounter(),
-						line.getBranchCounter(), i);
-			}
+		hitCount += child.getHitCount();
+		ensureCapacity(child.getFirstLine(), child.getLastLine());
+	}
+
+	/**
+	 * Returns the table with the counters of all lines of this node. The table
+	 * must not be modified, see {@link LineTable}.
+	 * 
+	 * @return line table
+	 */
+	int[] getLineTable() {
+		return lines;
+	}
+
+	/**
+	 * Returns the table with the counters of all lines of the given node.
+	 * 
+	 * @param node
+	 *            any source node
+	 * @return line table of the node
+	 */
+	static int[] getLineTable(final ISourceNode node) {
+		if (node instanceof SourceNodeImpl) {
+			return ((SourceNodeImpl) node).getLineTable();
+		}
+		int[] table = LineTable.EMPTY;
+		final int last = node.getLastLine();
+		for (int nr = node.getFirstLine(); nr <= last; nr++) {
+			final ILine line = node.getLine(nr);
+			final ICounter i = line.getInstructionCounter();
+			final ICounter b = line.getBranchCounter();
+			table = LineTable.increment(table, nr, i.getMissedCount(),
+					i.getCoveredCount(), b.getMissedCount(),
+					b.getCoveredCount());
+		}
+		return table;
+	}
+
+	/**
+	 * Merges the line tables of the given children into the given table.
+	 * 
+	 * @param table
+	 *            line table
+	 * @param children
+	 *            nodes to add
+	 * @return table with the counters of all lines
+	 */
+	static int[] getLineTable(final int[] table,
+			final Collection<? extends ISourceNode> children) {
+		int[] result = table;
+		for (final ISourceNode child : children) {
+			result = LineTable.merge(result, getLineTable(child));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the line table of this node merged with the line tables of the
+	 * given children. If only one of the tables contains lines it is shared
+	 * rather than copied. Otherwise the merged table is only kept for the node
+	 * which derived a table most recently: Iterating over the lines of a node
+	 * does not merge again, while the derived tables of all other nodes are not
+	 * retained in addition to the tables of their children.
+	 * 
+	 * @param children
+	 *            nodes to derive the lines from
+	 * @return table with the counters of all lines
+	 */
+	int[] getLineTable(final Collection<? extends ISourceNode> children) {
+		if (children.isEmpty()) {
+			return lines;
+		}
+		final DerivedLineTable last = lastDerived;
+		if (last != null && last.node == this) {
+			return last.table;
+		}
+		final int[] table = getLineTable(lines, children);
+		lastDerived = new DerivedLineTable(this, table);
+		return table;
+	}
+
+	/**
+	 * Discards the line table derived by this node, which must be called
+	 * whenever children or lines are added.
+	 */
+	void resetDerivedLineTable() {
+		final DerivedLineTable last = lastDerived;
+		if (last != null && last.node == this) {
+			lastDerived = null;
 		}
 	}
 
@@ -123,10 +226,12 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 	private void incrementLine(final ICounter instructions,
 			final ICounter branches, final int line) {
 		ensureCapacity(line, line);
-		final LineImpl l = getLine(line);
+		final LineImpl l = LineTable.getLine(lines, line);
 		final int oldTotal = l.getInstructionCounter().getTotalCount();
 		final int oldCovered = l.getInstructionCounter().getCoveredCount();
-		lines[line - offset] = l.increment(instructions, branches);
+		lines = LineTable.increment(lines, line,
+				instructions.getMissedCount(), instructions.getCoveredCount(),
+				branches.getMissedCount(), branches.getCoveredCount());
 
 		// Increment line counter:
 		if (instructions.getTotalCount() > 0) {
@@ -151,19 +256,31 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
 	// === ISourceNode implementation ===
 
 	public int getFirstLine() {
-		return offset;
+		return firstLine;
 	}
 
 	public int getLastLine() {
-		return lines == null ? UNKNOWN_LINE : (offset + lines.length - 1);
+		return lastLine;
 	}
 
 	public LineImpl getLine(final int nr) {
-		if (lines == null || nr < getFirstLine() || nr > getLastLine()) {
+		if (nr < firstLine || nr > lastLine) {
 			return LineImpl.EMPTY;
 		}
-		final LineImpl line = lines[nr - offset];
-		return line == null ? LineImpl.EMPTY : line;
+		return LineTable.getLine(getLineTable(), nr);
+	}
+
+	private static class DerivedLineTable {
+
+		final SourceNodeImpl node;
+
+		final int[] table;
+
+		DerivedLineTable(final SourceNodeImpl node, final int[] table) {
+			this.node = node;
+			this.table = table;
+		}
+
 	}
 
 }
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Unsynchronized input stream reading from a heap {@link ByteBuffer}. The
+ * complete content of a file is loaded into the buffer with a single channel
+ * operation. The buffer is reused when the next file is loaded and only grows
+ * if a file does not fit.
+ */
+public class ByteBufferInputStream extends InputStream {
+
+	/** Maximum size of files which can be loaded into the buffer. */
+	public static final int MAX_SIZE = 0x4000000;
+
+	private ByteBuffer buffer;
+
+	/**
+	 * Creates a new stream without content.
+	 */
+	public ByteBufferInputStream() {
+		buffer = ByteBuffer.allocate(0);
+	}
+
+	/**
+	 * Checks whether the given file can be loaded into the buffer.
+	 * 
+	 * @param file
+	 *            file to check
+	 * @return <code>true</code> if the file is not larger than
+	 *         {@link #MAX_SIZE}
+	 */
+	public static boolean fits(final File file) {
+		return file.length() <= MAX_SIZE;
+	}
+
+	/**
+	 * Replaces the content of this stream with the complete content of the
+	 * given file.
+	 * 
+	 * @param file
+	 *            file to load
+	 * @throws IOException
+	 *             if the file can not be read or is larger than
+	 *             {@link #MAX_SIZE}
+	 */
+	public void load(final File file) throws IOException {
+		final FileInputStream in = new FileInputStream(file);
+		try {
+			final FileChannel channel = in.getChannel();
+			final long size = channel.size();
+			if (size > MAX_SIZE) {
+				throw new IOException(String.format("File too large: %s.",
+						file));
+			}
+			if (buffer.capacity() < size) {
+				buffer = ByteBuffer.allocate(Math.max((int) size,
+						2 * buffer.capacity()));
+			}
+			buffer.clear();
+			buffer.limit((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) == -1) {
+					break;
+				}
+			}
+			buffer.flip();
+		} finally {
+			in.close();
+		}
+	}
+
+	@Override
+	public int read() {
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len) {
+		if (len == 0) {
+			return 0;
+		}
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+		final int count = Math.min(len, buffer.remaining());
+		buffer.get(b, off, count);
+		return count;
+	}
+
+	@Override
+	public long skip(final long n) {
+		final int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+		buffer.position(buffer.position() + count);
+		return count;
+	}
+
+	@Override
+	public int available() {
+		return buffer.remaining();
+	}
+
+}
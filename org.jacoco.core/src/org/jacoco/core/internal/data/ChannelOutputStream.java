@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output stream which collects data in a direct {@link ByteBuffer} and writes
+ * it to a {@link WritableByteChannel} in large chunks. Buffers are taken from
+ * a small pool and returned when the stream is closed. Arrays which do not fit
+ * into the buffer are written together with the buffered content in a single
+ * gathering write if the channel supports it.
+ */
+public class ChannelOutputStream extends OutputStream {
+
+	/** Size of the internal buffer in bytes. */
+	public static final int BUFFER_SIZE = 0x10000;
+
+	private static final int POOL_SIZE = 4;
+
+	private static final List<ByteBuffer> POOL = new ArrayList<ByteBuffer>();
+
+	private final WritableByteChannel channel;
+
+	private ByteBuffer buffer;
+
+	/**
+	 * Creates a new stream writing to the given channel.
+	 * 
+	 * @param channel
+	 *            channel to write to, will be closed with this stream
+	 */
+	public ChannelOutputStream(final WritableByteChannel channel) {
+		this.channel = channel;
+		this.buffer = acquire();
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		ensureOpen();
+		if (!buffer.hasRemaining()) {
+			writeBuffer();
+		}
+		buffer.put((byte) b);
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len)
+			throws IOException {
+		ensureOpen();
+		if (len <= buffer.remaining()) {
+			buffer.put(b, off, len);
+			return;
+		}
+		if (len < BUFFER_SIZE) {
+			writeBuffer();
+			buffer.put(b, off, len);
+			return;
+		}
+		final ByteBuffer data = ByteBuffer.wrap(b, off, len);
+		buffer.flip();
+		if (channel instanceof GatheringByteChannel) {
+			final ByteBuffer[] sources = new ByteBuffer[] { buffer, data };
+			while (data.hasRemaining()) {
+				((GatheringByteChannel) channel).write(sources);
+			}
+		} else {
+			drain(buffer);
+			drain(data);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes all buffered data to the channel.
+	 */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		writeBuffer();
+	}
+
+	/**
+	 * Writes all buffered data, returns the buffer to the pool and closes the
+	 * channel.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (buffer == null) {
+			return;
+		}
+		try {
+			writeBuffer();
+		} finally {
+			release(buffer);
+			buffer = null;
+			channel.close();
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (buffer == null) {
+			throw new IOException("Stream closed.");
+		}
+	}
+
+	private void writeBuffer() throws IOException {
+		buffer.flip();
+		drain(buffer);
+		buffer.clear();
+	}
+
+	private void drain(final ByteBuffer source) throws IOException {
+		while (source.hasRemaining()) {
+			channel.write(source);
+		}
+	}
+
+	private static ByteBuffer acquire() {
+		synchronized (POOL) {
+			if (!POOL.isEmpty()) {
+				return POOL.remove(POOL.size() - 1);
+			}
+		}
+		return ByteBuffer.allocateDirect(BUFFER_SIZE);
+	}
+
+	private static void release(final ByteBuffer buffer) {
+		buffer.clear();
+		synchronized (POOL) {
+			if (POOL.size() < POOL_SIZE) {
+				POOL.add(buffer);
+			}
+		}
+	}
+
+}
@@ -11,6 +11,7 @@
  *******************************************************************************/
 package org.jacoco.core.internal.data;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -22,6 +23,8 @@ import java.io.InputStream;
  */
 public class CompactDataInput extends DataInputStream {
 
+	private byte[] utf = new byte[0];
+
 	/**
 	 * Creates a new {@link CompactDataInput} that uses the specified underlying
 	 * input stream.
@@ -48,6 +51,49 @@ public class CompactDataInput extends DataInputStream {
 		return (value & 0x7F) | (readVarInt() << 7);
 	}
 
+	/**
+	 * Reads a string like {@link #readUTF()}. If the string is equal to the
+	 * given candidate the candidate is returned and no new string is created.
+	 * 
+	 * @param candidate
+	 *            expected value or <code>null</code>
+	 * @return read string, identical to the candidate if it is equal
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public String readSharedUTF(final String candidate) throws IOException {
+		final int length = readUnsignedShort();
+		if (utf.length < length + 2) {
+			utf = new byte[Math.max(length + 2, 2 * utf.length)];
+		}
+		readFully(utf, 2, length);
+		if (candidate != null && matches(candidate, length)) {
+			return candidate;
+		}
+		utf[0] = (byte) (length >>> 8);
+		utf[1] = (byte) length;
+		final String value = DataInputStream.readUTF(new DataInputStream(
+				new ByteArrayInputStream(utf, 0, length + 2)));
+		return value.equals(candidate) ? candidate : value;
+	}
+
+	/**
+	 * Checks whether the last read string consists of ASCII characters only
+	 * and is equal to the given candidate.
+	 */
+	private boolean matches(final String candidate, final int length) {
+		if (candidate.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			final char c = candidate.charAt(i);
+			if (c == 0 || c >= 0x80 || utf[i + 2] != c) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Reads a boolean array.
 	 * 
@@ -57,14 +103,126 @@ public class CompactDataInput extends DataInputStream {
 	 */
 	public boolean[] readBooleanArray() throws IOException {
 		final boolean[] value = new boolean[readVarInt()];
+		mergeBooleanArray(value);
+		return value;
+	}
+
+	/**
+	 * Reads the elements of a boolean array whose length has already been read
+	 * with {@link #readVarInt()} and is the length of the given array. All
+	 * elements which are set in the read array are set in the given array,
+	 * other elements are not modified.
+	 * 
+	 * @param target
+	 *            array to merge the read elements into
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void mergeBooleanArray(final boolean[] target) throws IOException {
+		readBitmap(target);
+	}
+
+	/**
+	 * Reads a boolean array written with
+	 * {@link CompactDataOutput#writeEncodedBooleanArray(boolean[], int)}.
+	 * 
+	 * @return boolean array
+	 * @throws IOException
+	 *             if thrown by the underlying stream or the encoding is
+	 *             invalid
+	 */
+	public boolean[] readEncodedBooleanArray() throws IOException {
+		final boolean[] value = new boolean[readVarInt()];
+		mergeEncodedBooleanArray(value);
+		return value;
+	}
+
+	/**
+	 * Reads the elements of a boolean array written with
+	 * {@link CompactDataOutput#writeEncodedBooleanArray(boolean[], int)} whose
+	 * length has already been read with {@link #readVarInt()} and is the length
+	 * of the given array. All elements which are set in the read array are set
+	 * in the given array, other elements are not modified.
+	 * 
+	 * @param target
+	 *            array to merge the read elements into
+	 * @throws IOException
+	 *             if thrown by the underlying stream or the encoding is
+	 *             invalid
+	 */
+	public void mergeEncodedBooleanArray(final boolean[] target)
+			throws IOException {
+		final byte encoding = readByte();
+		switch (encoding) {
+		case CompactDataOutput.ENCODING_BITMAP:
+			readBitmap(target);
+			break;
+		case CompactDataOutput.ENCODING_INDICES:
+			readIndices(target);
+			break;
+		case CompactDataOutput.ENCODING_RUNS:
+			readRuns(target);
+			break;
+		default:
+			throw new IOException(String.format("Unknown encoding %x.",
+					Byte.valueOf(encoding)));
+		}
+	}
+
+	private void readBitmap(final boolean[] value) throws IOException {
 		int buffer = 0;
 		for (int i = 0; i < value.length; i++) {
 			if ((i % 8) == 0) {
 				buffer = readByte();
 			}
-			value[i] = (buffer & 0x01) != 0;
+			if ((buffer & 0x01) != 0) {
+				value[i] = true;
+			}
 			buffer >>>= 1;
 		}
+	}
+
+	private void readIndices(final boolean[] value) throws IOException {
+		final int count = readVarInt();
+		int index = -1;
+		for (int i = 0; i < count; i++) {
+			index += readVarInt() + 1;
+			if (index < 0 || index >= value.length) {
+				throw new IOException("Invalid boolean array encoding.");
+			}
+			value[index] = true;
+		}
+	}
+
+	private void readRuns(final boolean[] value) throws IOException {
+		final int count = readVarInt();
+		int position = 0;
+		for (int i = 0; i < count; i++) {
+			final int end = position + readVarInt();
+			if (end < position || end > value.length) {
+				throw new IOException("Invalid boolean array encoding.");
+			}
+			if ((i & 1) != 0) {
+				for (int j = position; j < end; j++) {
+					value[j] = true;
+				}
+			}
+			position = end;
+		}
+	}
+
+	/**
+	 * Reads an int array.
+	 * 
+	 * @return int array
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public int[] readIntArray() throws IOException {
+		final int[] value = new int[readVarInt()];
+		for (int i = 0; i < value.length; i++) {
+			value[i] = readVarInt();
+		}
 		return value;
 	}
 
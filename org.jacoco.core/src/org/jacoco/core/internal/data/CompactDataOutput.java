@@ -22,6 +22,18 @@ import java.io.OutputStream;
  */
 public class CompactDataOutput extends DataOutputStream {
 
+	/** Encoding of boolean arrays as bits packed into bytes. */
+	public static final int ENCODING_BITMAP = 0x00;
+
+	/** Encoding of boolean arrays as the indices of all set elements. */
+	public static final int ENCODING_INDICES = 0x01;
+
+	/**
+	 * Encoding of boolean arrays as the lengths of alternating runs of unset
+	 * and set elements.
+	 */
+	public static final int ENCODING_RUNS = 0x02;
+
 	/**
 	 * Creates a new {@link CompactDataOutput} instance that writes data to the
 	 * specified underlying output stream
@@ -63,6 +75,43 @@ public class CompactDataOutput extends DataOutputStream {
 	 */
 	public void writeBooleanArray(final boolean[] value) throws IOException {
 		writeVarInt(value.length);
+		writeBitmap(value);
+	}
+
+	/**
+	 * Writes a boolean array with the given encoding. The encoding is written
+	 * to the stream, so it has to be read with
+	 * {@link CompactDataInput#readEncodedBooleanArray()}.
+	 * 
+	 * @param value
+	 *            boolean array
+	 * @param encoding
+	 *            one of the <code>ENCODING_</code> constants
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 * @see #getEncoding(boolean[])
+	 */
+	public void writeEncodedBooleanArray(final boolean[] value,
+			final int encoding) throws IOException {
+		writeVarInt(value.length);
+		writeByte(encoding);
+		switch (encoding) {
+		case ENCODING_BITMAP:
+			writeBitmap(value);
+			break;
+		case ENCODING_INDICES:
+			writeIndices(value);
+			break;
+		case ENCODING_RUNS:
+			writeRuns(value);
+			break;
+		default:
+			throw new IllegalArgumentException(String.format(
+					"Unknown encoding %x.", Integer.valueOf(encoding)));
+		}
+	}
+
+	private void writeBitmap(final boolean[] value) throws IOException {
 		int buffer = 0;
 		int bufferSize = 0;
 		for (final boolean b : value) {
@@ -80,4 +129,109 @@ public class CompactDataOutput extends DataOutputStream {
 		}
 	}
 
+	private void writeIndices(final boolean[] value) throws IOException {
+		int count = 0;
+		for (final boolean b : value) {
+			if (b) {
+				count++;
+			}
+		}
+		writeVarInt(count);
+		int last = -1;
+		for (int i = 0; i < value.length; i++) {
+			if (value[i]) {
+				writeVarInt(i - last - 1);
+				last = i;
+			}
+		}
+	}
+
+	private void writeRuns(final boolean[] value) throws IOException {
+		int count = 1;
+		for (int i = 1; i < value.length; i++) {
+			if (value[i] != value[i - 1]) {
+				count++;
+			}
+		}
+		if (value.length > 0 && value[0]) {
+			count++;
+		}
+		writeVarInt(count);
+		boolean state = false;
+		int start = 0;
+		for (int i = 0; i < value.length; i++) {
+			if (value[i] != state) {
+				writeVarInt(i - start);
+				state = value[i];
+				start = i;
+			}
+		}
+		writeVarInt(value.length - start);
+	}
+
+	/**
+	 * Determines the encoding which results in the smallest representation of
+	 * the given boolean array. Encodings other than {@link #ENCODING_BITMAP}
+	 * are only selected if they save more than the additional byte required
+	 * to store the encoding.
+	 * 
+	 * @param value
+	 *            boolean array
+	 * @return one of the <code>ENCODING_</code> constants
+	 */
+	public static int getEncoding(final boolean[] value) {
+		int count = 0;
+		int indices = 0;
+		int last = -1;
+		int runCount = 1;
+		int runs = 0;
+		boolean state = false;
+		int start = 0;
+		for (int i = 0; i < value.length; i++) {
+			if (value[i]) {
+				indices += getVarIntSize(i - last - 1);
+				last = i;
+				count++;
+			}
+			if (value[i] != state) {
+				runs += getVarIntSize(i - start);
+				runCount++;
+				state = value[i];
+				start = i;
+			}
+		}
+		indices += getVarIntSize(count);
+		runs += getVarIntSize(value.length - start) + getVarIntSize(runCount);
+		final int bitmap = (value.length + 7) / 8;
+		if (Math.min(indices, runs) + 1 >= bitmap) {
+			return ENCODING_BITMAP;
+		}
+		return indices <= runs ? ENCODING_INDICES : ENCODING_RUNS;
+	}
+
+	private static int getVarIntSize(final int value) {
+		int size = 1;
+		for (int v = value >>> 7; v != 0; v >>>= 7) {
+			size++;
+		}
+		return size;
+	}
+
+	/**
+	 * Writes an int array. Every element is written in its variable length
+	 * representation, so small counter values only need a single byte.
+	 * 
+	 * @param value
+	 *            int array
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 * @see #writeVarInt(int)
+	 */
+	public void writeIntArray(final int[] value) throws IOException {
+		writeVarInt(value.length);
+		for (final int i : value) {
+			writeVarInt(i);
+		}
+	}
+
 }
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream which counts the bytes written to the underlying stream.
+ * Unlike {@link java.io.DataOutputStream#size()} the count does not saturate
+ * at {@link Integer#MAX_VALUE}.
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+	private long count;
+
+	/**
+	 * Creates a new stream writing to the given stream.
+	 * 
+	 * @param out
+	 *            underlying stream
+	 */
+	public CountingOutputStream(final OutputStream out) {
+		super(out);
+		this.count = 0;
+	}
+
+	/**
+	 * Returns the number of bytes written so far.
+	 * 
+	 * @return number of bytes written
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		out.write(b);
+		count++;
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len)
+			throws IOException {
+		out.write(b, off, len);
+		count += len;
+	}
+
+}
@@ -24,6 +24,8 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 
 	private final IProbeArrayStrategy probeArrayStrategy;
 
+	private final boolean hitCounts;
+
 	private String className;
 
 	/**
@@ -37,8 +39,26 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 	 */
 	public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
 			final ClassVisitor cv) {
+		this(probeArrayStrategy, false, cv);
+	}
+
+	/**
+	 * Emits a instrumented version of this class to the given class visitor.
+	 * 
+	 * @param probeArrayStrategy
+	 *            this strategy will be used to access the probe array
+	 * @param hitCounts
+	 *            if <code>true</code> probes increment hit counters of an
+	 *            <code>int[]</code> array provided by the strategy
+	 * @param cv
+	 *            next delegate in the visitor chain will receive the
+	 *            instrumented class
+	 */
+	public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
+			final boolean hitCounts, final ClassVisitor cv) {
 		super(cv);
 		this.probeArrayStrategy = probeArrayStrategy;
+		this.hitCounts = hitCounts;
 	}
 
 	@Override
@@ -69,8 +89,10 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 			return null;
 		}
 		final MethodVisitor frameEliminator = new DuplicateFrameEliminator(mv);
-		final ProbeInserter probeVariableInserter = new ProbeInserter(access,
-				name, desc, frameEliminator, probeArrayStrategy);
+		final ProbeInserter probeVariableInserter = hitCounts ? new HitCountProbeInserter(
+				access, name, desc, frameEliminator, probeArrayStrategy)
+				: new ProbeInserter(access, name, desc, frameEliminator,
+						probeArrayStrategy);
 		return new MethodInstrumenter(probeVariableInserter,
 				probeVariableInserter);
 	}
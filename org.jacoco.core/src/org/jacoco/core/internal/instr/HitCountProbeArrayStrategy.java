@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import org.jacoco.core.runtime.IHitCountAccessorGenerator;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * The strategy for regular classes in hit counting mode. Like
+ * {@link ClassFieldProbeArrayStrategy} it adds a static field and a static
+ * initialization method, but both are of type <code>int[]</code>.
+ */
+class HitCountProbeArrayStrategy implements IProbeArrayStrategy {
+
+	/**
+	 * Frame stack with a single int array.
+	 */
+	private static final Object[] FRAME_STACK_ARRI = new Object[] { InstrSupport.HITS_DATAFIELD_DESC };
+
+	/**
+	 * Empty frame locals.
+	 */
+	private static final Object[] FRAME_LOCALS_EMPTY = new Object[0];
+
+	private final String className;
+	private final long classId;
+	private final boolean withFrames;
+	private final IHitCountAccessorGenerator accessorGenerator;
+
+	HitCountProbeArrayStrategy(final String className, final long classId,
+			final boolean withFrames,
+			final IHitCountAccessorGenerator accessorGenerator) {
+		this.className = className;
+		this.classId = classId;
+		this.withFrames = withFrames;
+		this.accessorGenerator = accessorGenerator;
+	}
+
+	public int storeInstance(final MethodVisitor mv, final boolean clinit,
+			final int variable) {
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, className,
+				InstrSupport.INITMETHOD_NAME,
+				InstrSupport.HITS_INITMETHOD_DESC, false);
+		mv.visitVarInsn(Opcodes.ASTORE, variable);
+		return 1;
+	}
+
+	public void addMembers(final ClassVisitor cv, final int probeCount) {
+		cv.visitField(InstrSupport.DATAFIELD_ACC, InstrSupport.DATAFIELD_NAME,
+				InstrSupport.HITS_DATAFIELD_DESC, null, null);
+		createInitMethod(cv, probeCount);
+	}
+
+	private void createInitMethod(final ClassVisitor cv, final int probeCount) {
+		final MethodVisitor mv = cv.visitMethod(InstrSupport.INITMETHOD_ACC,
+				InstrSupport.INITMETHOD_NAME,
+				InstrSupport.HITS_INITMETHOD_DESC, null, null);
+		mv.visitCode();
+
+		// Load the value of the static data field:
+		mv.visitFieldInsn(Opcodes.GETSTATIC, className,
+				InstrSupport.DATAFIELD_NAME, InstrSupport.HITS_DATAFIELD_DESC);
+		mv.visitInsn(Opcodes.DUP);
+
+		// Stack[1]: [I
+		// Stack[0]: [I
+
+		// Skip initialization when we already have a data array:
+		final Label alreadyInitialized = new Label();
+		mv.visitJumpInsn(Opcodes.IFNONNULL, alreadyInitialized);
+
+		// Stack[0]: [I
+
+		mv.visitInsn(Opcodes.POP);
+		final int size = accessorGenerator.generateHitCountAccessor(classId,
+				className, probeCount, mv);
+
+		// Stack[0]: [I
+
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitFieldInsn(Opcodes.PUTSTATIC, className,
+				InstrSupport.DATAFIELD_NAME, InstrSupport.HITS_DATAFIELD_DESC);
+
+		// Return the class' counter array:
+		if (withFrames) {
+			mv.visitFrame(Opcodes.F_NEW, 0, FRAME_LOCALS_EMPTY, 1,
+					FRAME_STACK_ARRI);
+		}
+		mv.visitLabel(alreadyInitialized);
+		mv.visitInsn(Opcodes.ARETURN);
+
+		mv.visitMaxs(Math.max(size, 2), 0); // Maximum local stack size is 2
+		mv.visitEnd();
+	}
+
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Variant of {@link ProbeInserter} which increments <code>int</code> hit
+ * counters instead of setting boolean flags. The counters are updated without
+ * synchronization, so concurrent executions of the same probe may be lost.
+ * They saturate at {@link Integer#MAX_VALUE} instead of wrapping around.
+ */
+class HitCountProbeInserter extends ProbeInserter {
+
+	/**
+	 * Creates a new {@link HitCountProbeInserter}.
+	 * 
+	 * @param access
+	 *            access flags of the adapted method
+	 * @param name
+	 *            the method's name
+	 * @param desc
+	 *            the method's descriptor
+	 * @param mv
+	 *            the method visitor to which this adapter delegates calls
+	 * @param arrayStrategy
+	 *            callback to create the code that retrieves the reference to
+	 *            the counter array
+	 */
+	HitCountProbeInserter(final int access, final String name,
+			final String desc, final MethodVisitor mv,
+			final IProbeArrayStrategy arrayStrategy) {
+		super(access, name, desc, mv, arrayStrategy);
+	}
+
+	@Override
+	public void insertProbe(final int id) {
+
+		// For a probe we increment the corresponding position in the int[]
+		// array. To saturate without branching the sign bit of the incremented
+		// value is added, which only reverts an overflow to MAX_VALUE.
+
+		mv.visitVarInsn(Opcodes.ALOAD, variable);
+		InstrSupport.push(mv, id);
+
+		// Stack[1]: I
+		// Stack[0]: [I
+
+		mv.visitInsn(Opcodes.DUP2);
+		mv.visitInsn(Opcodes.IALOAD);
+		mv.visitInsn(Opcodes.ICONST_1);
+		mv.visitInsn(Opcodes.IADD);
+
+		// Stack[2]: I
+		// Stack[1]: I
+		// Stack[0]: [I
+
+		mv.visitInsn(Opcodes.DUP);
+		mv.visitIntInsn(Opcodes.BIPUSH, 31);
+		mv.visitInsn(Opcodes.ISHR);
+
+		// Stack[3]: I
+		// Stack[2]: I
+		// Stack[1]: I
+		// Stack[0]: [I
+
+		mv.visitInsn(Opcodes.IADD);
+		mv.visitInsn(Opcodes.IASTORE);
+	}
+
+	@Override
+	String getArrayType() {
+		return InstrSupport.HITS_DATAFIELD_DESC;
+	}
+
+	@Override
+	int getProbeStackSize() {
+		return 5;
+	}
+
+}
@@ -78,6 +78,12 @@ public final class InstrSupport {
 	 */
 	public static final String DATAFIELD_DESC = "[Z";
 
+	/**
+	 * Data type of the field that stores hit counters for a class (
+	 * <code>int[]</code>).
+	 */
+	public static final String HITS_DATAFIELD_DESC = "[I";
+
 	// === Init Method ===
 
 	/**
@@ -90,6 +96,11 @@ public final class InstrSupport {
 	 */
 	public static final String INITMETHOD_DESC = "()[Z";
 
+	/**
+	 * Descriptor of the initialization method for hit counters.
+	 */
+	public static final String HITS_INITMETHOD_DESC = "()[I";
+
 	/**
 	 * Access modifiers of the initialization method.
 	 */
@@ -14,7 +14,10 @@ package org.jacoco.core.internal.instr;
 import org.jacoco.core.internal.data.CRC64;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
 import org.jacoco.core.runtime.IExecutionDataAccessorGenerator;
+import org.jacoco.core.runtime.IHitCountAccessorGenerator;
+import org.jacoco.core.runtime.IVersionAwareAccessorGenerator;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
 /**
@@ -42,6 +45,8 @@ public final class ProbeArrayStrategyFactory {
 
 		final String className = reader.getClassName();
 		final int version = getVersion(reader);
+		final IExecutionDataAccessorGenerator generator = forVersion(
+				accessorGenerator, version);
 		final long classId = CRC64.checksum(reader.b);
 		final boolean withFrames = version >= Opcodes.V1_6;
 
@@ -52,17 +57,66 @@ public final class ProbeArrayStrategyFactory {
 			}
 			if (version >= Opcodes.V1_8 && counter.hasMethods()) {
 				return new InterfaceFieldProbeArrayStrategy(className, classId,
-						counter.getCount(), accessorGenerator);
+						counter.getCount(), generator);
 			} else {
 				return new LocalProbeArrayStrategy(className, classId,
-						counter.getCount(), accessorGenerator);
+						counter.getCount(), generator);
 			}
 		} else {
 			return new ClassFieldProbeArrayStrategy(className, classId,
+					withFrames, generator);
+		}
+	}
+
+	/**
+	 * Creates a strategy instance which provides an <code>int[]</code> array
+	 * of hit counters for the class described by the given reader. Interfaces
+	 * request the counter array from the runtime in every method.
+	 * 
+	 * @param reader
+	 *            reader to get information about the class
+	 * @param accessorGenerator
+	 *            accessor to the coverage runtime
+	 * @return strategy instance
+	 */
+	public static IProbeArrayStrategy createHitCountFor(
+			final ClassReader reader,
+			final IHitCountAccessorGenerator accessorGenerator) {
+
+		final String className = reader.getClassName();
+		final int version = getVersion(reader);
+		final long classId = CRC64.checksum(reader.b);
+		final boolean withFrames = version >= Opcodes.V1_6;
+
+		if (isInterface(reader)) {
+			final ProbeCounter counter = getProbeCounter(reader);
+			if (counter.getCount() == 0) {
+				return new NoneProbeArrayStrategy();
+			}
+			return new LocalProbeArrayStrategy(className, classId,
+					counter.getCount(), new IExecutionDataAccessorGenerator() {
+						public int generateDataAccessor(final long classid,
+								final String classname, final int probecount,
+								final MethodVisitor mv) {
+							return accessorGenerator.generateHitCountAccessor(
+									classid, classname, probecount, mv);
+						}
+					});
+		} else {
+			return new HitCountProbeArrayStrategy(className, classId,
 					withFrames, accessorGenerator);
 		}
 	}
 
+	private static IExecutionDataAccessorGenerator forVersion(
+			final IExecutionDataAccessorGenerator generator, final int version) {
+		if (generator instanceof IVersionAwareAccessorGenerator) {
+			return ((IVersionAwareAccessorGenerator) generator)
+					.forClassVersion(version);
+		}
+		return generator;
+	}
+
 	private static boolean isInterface(final ClassReader reader) {
 		return (reader.getAccess() & Opcodes.ACC_INTERFACE) != 0;
 	}
@@ -33,7 +33,7 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 	private final boolean clinit;
 
 	/** Position of the inserted variable. */
-	private final int variable;
+	protected final int variable;
 
 	/** Maximum stack usage of the code to access the probe array. */
 	private int accessorStackSize;
@@ -113,14 +113,34 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 
 	@Override
 	public void visitMaxs(final int maxStack, final int maxLocals) {
-		// Max stack size of the probe code is 3 which can add to the
-		// original stack size depending on the probe locations. The accessor
-		// stack size is an absolute maximum, as the accessor code is inserted
-		// at the very beginning of each method when the stack size is empty.
-		final int increasedStack = Math.max(maxStack + 3, accessorStackSize);
+		// The max stack size of the probe code can add to the original stack
+		// size depending on the probe locations. The accessor stack size is an
+		// absolute maximum, as the accessor code is inserted at the very
+		// beginning of each method when the stack size is empty.
+		final int increasedStack = Math.max(maxStack + getProbeStackSize(),
+				accessorStackSize);
 		mv.visitMaxs(increasedStack, maxLocals + 1);
 	}
 
+	/**
+	 * Returns the type of the probe array variable as used in stack map
+	 * frames.
+	 * 
+	 * @return type descriptor of the probe array
+	 */
+	String getArrayType() {
+		return InstrSupport.DATAFIELD_DESC;
+	}
+
+	/**
+	 * Returns the maximum stack size required by the code of a single probe.
+	 * 
+	 * @return stack size of the probe code
+	 */
+	int getProbeStackSize() {
+		return 3;
+	}
+
 	private int map(final int var) {
 		if (var < variable) {
 			return var;
@@ -144,7 +164,7 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 		int pos = 0; // Current variable position
 		while (idx < nLocal || pos <= variable) {
 			if (pos == variable) {
-				newLocal[newIdx++] = InstrSupport.DATAFIELD_DESC;
+				newLocal[newIdx++] = getArrayType();
 				pos++;
 			} else {
 				if (idx < nLocal) {
@@ -110,6 +110,7 @@ public final class AgentOptions {
 	 * @see OutputMode#file
 	 * @see OutputMode#tcpserver
 	 * @see OutputMode#tcpclient
+	 * @see OutputMode#mmap
 	 * @see OutputMode#none
 	 */
 	public static final String OUTPUT = "output";
@@ -143,6 +144,14 @@ public final class AgentOptions {
 		 */
 		tcpclient,
 
+		/**
+		 * Value for the {@link AgentOptions#OUTPUT} parameter: Execution data
+		 * is kept in a memory mapped file specified by
+		 * {@link AgentOptions#DESTFILE} which is updated periodically and can
+		 * be read by other processes while the VM is running.
+		 */
+		mmap,
+
 		/**
 		 * Value for the {@link AgentOptions#OUTPUT} parameter: Do not produce
 		 * any output.
@@ -151,6 +160,33 @@ public final class AgentOptions {
 
 	}
 
+	/**
+	 * Possible values for {@link AgentOptions#DUMPROTATION}. As every periodic
+	 * dump contains all execution data collected so far a file is always
+	 * replaced with the latest dump within its period.
+	 */
+	public static enum RotationPolicy {
+
+		/**
+		 * Value for the {@link AgentOptions#DUMPROTATION} parameter: Every
+		 * periodic dump is written to a new file.
+		 */
+		dump,
+
+		/**
+		 * Value for the {@link AgentOptions#DUMPROTATION} parameter: A new
+		 * file is started every hour.
+		 */
+		hourly,
+
+		/**
+		 * Value for the {@link AgentOptions#DUMPROTATION} parameter: A new
+		 * file is started every day.
+		 */
+		daily
+
+	}
+
 	/**
 	 * The IP address or DNS name the tcpserver binds to or the tcpclient
 	 * connects to. Default is defined by {@link #DEFAULT_ADDRESS}.
@@ -188,10 +224,69 @@ public final class AgentOptions {
 	 */
 	public static final String JMX = "jmx";
 
+	/**
+	 * Specifies whether instrumented classes count how often each probe is
+	 * executed instead of only recording whether it was executed. Default is
+	 * <code>false</code>.
+	 */
+	public static final String HITCOUNTS = "hitcounts";
+
+	/**
+	 * Specifies the interval in seconds in which the agent periodically dumps
+	 * execution data when the output mode is {@link OutputMode#file}. Every
+	 * periodic dump is written to a separate file next to the
+	 * {@link AgentOptions#DESTFILE} with a time stamp in its name. Default is
+	 * <code>0</code> (no periodic dumps).
+	 * 
+	 * @see #DUMPROTATION
+	 * @see #DUMPRETENTION
+	 */
+	public static final String DUMPINTERVAL = "dumpinterval";
+
+	/**
+	 * Specifies how often a new file is started for periodic dumps. Default
+	 * is {@link RotationPolicy#dump}.
+	 * 
+	 * @see RotationPolicy#dump
+	 * @see RotationPolicy#hourly
+	 * @see RotationPolicy#daily
+	 */
+	public static final String DUMPROTATION = "dumprotation";
+
+	/**
+	 * Specifies the maximum number of files with periodic dumps which are
+	 * kept. Older files are deleted. Default is <code>0</code> (all files are
+	 * kept).
+	 */
+	public static final String DUMPRETENTION = "dumpretention";
+
+	/**
+	 * Specifies a directory where the agent caches instrumented class files.
+	 * The cache can be shared by multiple VMs and is reused on subsequent
+	 * starts to avoid repeated instrumentation. Default is <code>null</code>
+	 * (no cache).
+	 * 
+	 * @see #CACHESIZE
+	 */
+	public static final String CACHEDIR = "cachedir";
+
+	/**
+	 * Specifies the maximum size of the class file cache in megabytes. If the
+	 * cache grows beyond this size the least recently used entries are
+	 * deleted. Default is defined by {@link #DEFAULT_CACHESIZE}.
+	 */
+	public static final String CACHESIZE = "cachesize";
+
+	/**
+	 * Default value for the "cachesize" agent option.
+	 */
+	public static final int DEFAULT_CACHESIZE = 100;
+
 	private static final Collection<String> VALID_OPTIONS = Arrays.asList(
 			DESTFILE, APPEND, INCLUDES, EXCLUDES, EXCLCLASSLOADER,
 			INCLBOOTSTRAPCLASSES, INCLNOLOCATIONCLASSES, SESSIONID, DUMPONEXIT,
-			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX);
+			OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX, HITCOUNTS, DUMPINTERVAL,
+			DUMPROTATION, DUMPRETENTION, CACHEDIR, CACHESIZE);
 
 	private final Map<String, String> options;
 
@@ -250,6 +345,17 @@ public final class AgentOptions {
 	private void validateAll() {
 		validatePort(getPort());
 		getOutput();
+		validateNotNegative(DUMPINTERVAL, getDumpInterval());
+		getDumpRotation();
+		validateNotNegative(DUMPRETENTION, getDumpRetention());
+		validateNotNegative(CACHESIZE, getCacheSize());
+	}
+
+	private void validateNotNegative(final String key, final int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException(format(
+					"%s must not be negative", key));
+		}
 	}
 
 	private void validatePort(final int port) {
@@ -556,6 +662,136 @@ public final class AgentOptions {
 		setOption(JMX, jmx);
 	}
 
+	/**
+	 * Returns whether the agent counts probe executions.
+	 * 
+	 * @return <code>true</code>, when hit counting is enabled
+	 */
+	public boolean getHitCounts() {
+		return getOption(HITCOUNTS, false);
+	}
+
+	/**
+	 * Sets whether the agent should count probe executions.
+	 * 
+	 * @param hitCounts
+	 *            <code>true</code> if probe executions should be counted
+	 */
+	public void setHitCounts(final boolean hitCounts) {
+		setOption(HITCOUNTS, hitCounts);
+	}
+
+	/**
+	 * Returns the interval in which execution data is dumped periodically.
+	 * 
+	 * @return interval in seconds, <code>0</code> if disabled
+	 */
+	public int getDumpInterval() {
+		return getOption(DUMPINTERVAL, 0);
+	}
+
+	/**
+	 * Sets the interval in which execution data is dumped periodically.
+	 * 
+	 * @param interval
+	 *            interval in seconds, <code>0</code> to disable periodic dumps
+	 */
+	public void setDumpInterval(final int interval) {
+		validateNotNegative(DUMPINTERVAL, interval);
+		setOption(DUMPINTERVAL, interval);
+	}
+
+	/**
+	 * Returns the rotation policy for files with periodic dumps.
+	 * 
+	 * @return current rotation policy
+	 */
+	public RotationPolicy getDumpRotation() {
+		final String value = options.get(DUMPROTATION);
+		return value == null ? RotationPolicy.dump : RotationPolicy
+				.valueOf(value);
+	}
+
+	/**
+	 * Sets the rotation policy for files with periodic dumps.
+	 * 
+	 * @param rotation
+	 *            rotation policy
+	 */
+	public void setDumpRotation(final String rotation) {
+		setDumpRotation(RotationPolicy.valueOf(rotation));
+	}
+
+	/**
+	 * Sets the rotation policy for files with periodic dumps.
+	 * 
+	 * @param rotation
+	 *            rotation policy
+	 */
+	public void setDumpRotation(final RotationPolicy rotation) {
+		setOption(DUMPROTATION, rotation.name());
+	}
+
+	/**
+	 * Returns the maximum number of files with periodic dumps to keep.
+	 * 
+	 * @return number of files, <code>0</code> if all files are kept
+	 */
+	public int getDumpRetention() {
+		return getOption(DUMPRETENTION, 0);
+	}
+
+	/**
+	 * Sets the maximum number of files with periodic dumps to keep.
+	 * 
+	 * @param retention
+	 *            number of files, <code>0</code> to keep all files
+	 */
+	public void setDumpRetention(final int retention) {
+		validateNotNegative(DUMPRETENTION, retention);
+		setOption(DUMPRETENTION, retention);
+	}
+
+	/**
+	 * Returns the location of the directory where instrumented class files are
+	 * cached.
+	 * 
+	 * @return cache location or <code>null</code> (no cache)
+	 */
+	public String getCacheDir() {
+		return getOption(CACHEDIR, null);
+	}
+
+	/**
+	 * Sets the directory where instrumented class files are cached.
+	 * 
+	 * @param location
+	 *            cache location or <code>null</code> (no cache)
+	 */
+	public void setCacheDir(final String location) {
+		setOption(CACHEDIR, location);
+	}
+
+	/**
+	 * Returns the maximum size of the class file cache.
+	 * 
+	 * @return size in megabytes
+	 */
+	public int getCacheSize() {
+		return getOption(CACHESIZE, DEFAULT_CACHESIZE);
+	}
+
+	/**
+	 * Sets the maximum size of the class file cache.
+	 * 
+	 * @param size
+	 *            size in megabytes
+	 */
+	public void setCacheSize(final int size) {
+		validateNotNegative(CACHESIZE, size);
+		setOption(CACHESIZE, size);
+	}
+
 	private void setOption(final String key, final int value) {
 		setOption(key, Integer.toString(value));
 	}
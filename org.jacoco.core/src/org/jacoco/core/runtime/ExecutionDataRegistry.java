@@ -0,0 +1,396 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.IExecutionDataVisitor;
+
+/**
+ * Thread safe registry for the execution data of the classes instrumented in a
+ * running VM. Unlike {@link ExecutionDataStore} lookups of classes which are
+ * already registered do not acquire any lock. The table is split into stripes
+ * which are locked independently when a new class is added, so class
+ * initialization in different threads does not contend on a single monitor.
+ * The live hit counter arrays are written by instrumented code only, except
+ * for saturated counters. A reset records the current counter values of
+ * executed classes instead, and snapshots report the difference to these
+ * values.
+ */
+public class ExecutionDataRegistry {
+
+	private static final int DEFAULT_STRIPES = 32;
+
+	private static final int INITIAL_STRIPE_CAPACITY = 64;
+
+	private final Stripe[] stripes;
+
+	private final int stripeShift;
+
+	/**
+	 * Hit counters per class id at the last reset, guarded by itself. Classes
+	 * which have not been executed before a reset have no entry.
+	 */
+	private final Map<Long, int[]> resetHits;
+
+	/**
+	 * Creates a new registry with the default number of stripes.
+	 */
+	public ExecutionDataRegistry() {
+		this(DEFAULT_STRIPES);
+	}
+
+	/**
+	 * Creates a new registry with the given number of stripes. The number of
+	 * stripes limits how many threads can register new classes concurrently.
+	 * 
+	 * @param stripeCount
+	 *            number of stripes, must be a power of two
+	 */
+	public ExecutionDataRegistry(final int stripeCount) {
+		if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1) {
+			throw new IllegalArgumentException(
+					"Stripe count must be a power of two.");
+		}
+		stripes = new Stripe[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			stripes[i] = new Stripe();
+		}
+		stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+		resetHits = new HashMap<Long, int[]>();
+	}
+
+	/**
+	 * Returns the execution data for the class with the given identifier. If
+	 * there is no data available under the given id a new entry is created.
+	 * This method does not block if the class is already registered.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @return execution data
+	 * @throws IllegalStateException
+	 *             if an entry with the same id but a different name or probe
+	 *             count already exists
+	 */
+	public ExecutionData get(final long id, final String name,
+			final int probecount) throws IllegalStateException {
+		return get(id, name, probecount, false);
+	}
+
+	/**
+	 * Returns the execution data for the class with the given identifier. If
+	 * there is no data available under the given id a new entry is created,
+	 * optionally with hit counters. This method does not block if the class is
+	 * already registered.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @param withHits
+	 *            if <code>true</code> the entry must carry hit counters
+	 * @return execution data
+	 * @throws IllegalStateException
+	 *             if an entry with the same id but a different name or probe
+	 *             count already exists or if hit counters are requested for an
+	 *             entry without counters
+	 */
+	public ExecutionData get(final long id, final String name,
+			final int probecount, final boolean withHits)
+			throws IllegalStateException {
+		final long hash = hash(id);
+		final Stripe stripe = stripeFor(hash);
+		ExecutionData entry = stripe.find(id, hash);
+		if (entry == null) {
+			entry = stripe.insert(id, hash, name, probecount, withHits);
+		}
+		entry.assertCompatibility(id, name, probecount);
+		if (withHits && entry.getHits() == null) {
+			throw new IllegalStateException(String.format(
+					"No hit counters for class %s with id %016x.", name,
+					Long.valueOf(id)));
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the execution data with the given id if it is registered.
+	 * 
+	 * @param id
+	 *            class identifier
+	 * @return execution data or <code>null</code>
+	 */
+	public ExecutionData get(final long id) {
+		final long hash = hash(id);
+		return stripeFor(hash).find(id, hash);
+	}
+
+	/**
+	 * Returns the number of registered classes.
+	 * 
+	 * @return number of registered classes
+	 */
+	public int size() {
+		int size = 0;
+		for (final Stripe stripe : stripes) {
+			size += stripe.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Returns a collection that represents current contents of the registry.
+	 * Classes registered concurrently may or may not be included. Hit counters
+	 * of the returned objects are not affected by {@link #reset()}, use
+	 * {@link #getSnapshot(boolean)} to obtain the counts since the last reset.
+	 * 
+	 * @return current contents
+	 */
+	public Collection<ExecutionData> getContents() {
+		final Collection<ExecutionData> contents = new ArrayList<ExecutionData>();
+		for (final Stripe stripe : stripes) {
+			stripe.collect(contents);
+		}
+		return contents;
+	}
+
+	/**
+	 * Resets all execution data probes, i.e. marks them as not executed. The
+	 * execution data objects itself are not removed. For hit counters the
+	 * current values are recorded as the new base line for snapshots.
+	 */
+	public void reset() {
+		synchronized (resetHits) {
+			for (final ExecutionData data : getContents()) {
+				if (data.getHits() == null) {
+					data.reset();
+				} else {
+					captureHits(data, null, true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the content of the registry to the given visitor interface.
+	 * Registration of new classes is not blocked while the visitor is called.
+	 * 
+	 * @param visitor
+	 *            interface to write content to
+	 */
+	public void accept(final IExecutionDataVisitor visitor) {
+		for (final ExecutionData data : getContents()) {
+			visitor.visitClassExecution(data);
+		}
+	}
+
+	/**
+	 * Returns a copy of the current content of the registry. If requested the
+	 * execution data is reset at the same time. Probes are only cleared if
+	 * they have been captured in the copy, so probes executed concurrently are
+	 * either contained in this snapshot or stay set for the next one. Hit
+	 * counters contain the hits since the last reset.
+	 * 
+	 * @param reset
+	 *            if <code>true</code> the execution data is reset
+	 * @return copies of the current execution data
+	 */
+	public Collection<ExecutionData> getSnapshot(final boolean reset) {
+		final Collection<ExecutionData> contents = getContents();
+		final Collection<ExecutionData> snapshot = new ArrayList<ExecutionData>(
+				contents.size());
+		synchronized (resetHits) {
+			for (final ExecutionData data : contents) {
+				snapshot.add(copy(data, reset));
+			}
+		}
+		return snapshot;
+	}
+
+	private ExecutionData copy(final ExecutionData data, final boolean reset) {
+		final int[] hits = data.getHits();
+		if (hits != null) {
+			final int[] copy = new int[hits.length];
+			captureHits(data, copy, reset);
+			return new ExecutionData(data.getId(), data.getName(), copy);
+		}
+		final boolean[] probes = data.getProbes();
+		final boolean[] copy = new boolean[probes.length];
+		for (int i = 0; i < probes.length; i++) {
+			if (probes[i]) {
+				copy[i] = true;
+				if (reset) {
+					probes[i] = false;
+				}
+			}
+		}
+		return new ExecutionData(data.getId(), data.getName(), copy);
+	}
+
+	/**
+	 * Calculates the hits since the last reset and optionally records the
+	 * current values as the new base line. Must be called while holding the
+	 * lock of {@link #resetHits}.
+	 * 
+	 * @param data
+	 *            execution data with hit counters
+	 * @param copy
+	 *            array for the hits since the last reset or <code>null</code>
+	 * @param reset
+	 *            if <code>true</code> the current values become the base line
+	 */
+	private void captureHits(final ExecutionData data, final int[] copy,
+			final boolean reset) {
+		final int[] hits = data.getHits();
+		final Long id = Long.valueOf(data.getId());
+		final int[] base = resetHits.get(id);
+		int[] newBase = base;
+		for (int i = 0; i < hits.length; i++) {
+			// Read every live counter only once, concurrent increments
+			// are contained in the next snapshot:
+			int h = hits[i];
+			if (copy != null) {
+				copy[i] = base == null ? h : h - base[i];
+			}
+			if (reset) {
+				if (h == Integer.MAX_VALUE) {
+					// A saturated counter never changes again, so it would
+					// report no hits in all following intervals. As
+					// increments can only store MAX_VALUE again, it is
+					// safe to clear it:
+					hits[i] = 0;
+					h = 0;
+				}
+				if (newBase == null && h != 0) {
+					newBase = new int[hits.length];
+				}
+				if (newBase != null) {
+					newBase[i] = h;
+				}
+			}
+		}
+		if (newBase != base) {
+			resetHits.put(id, newBase);
+		}
+	}
+
+	private Stripe stripeFor(final long hash) {
+		return stripes[(int) (hash >>> stripeShift) & (stripes.length - 1)];
+	}
+
+	private static long hash(final long id) {
+		// Class ids are CRC64 checksums but may also be arbitrary values
+		// provided by API users, so the bits are mixed to avoid clustering:
+		final long h = id * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+
+	/**
+	 * Open addressing hash table with linear probing. Readers access the
+	 * current table without locking. Writers lock the stripe, and a grown table
+	 * is published only after all entries have been copied into it. Entries
+	 * are never removed, so a reader working on an outdated table at worst
+	 * misses a new entry and falls back to the locked insert.
+	 */
+	private static final class Stripe {
+
+		private volatile AtomicReferenceArray<ExecutionData> table;
+
+		private int size;
+
+		Stripe() {
+			table = new AtomicReferenceArray<ExecutionData>(
+					INITIAL_STRIPE_CAPACITY);
+		}
+
+		ExecutionData find(final long id, final long hash) {
+			final AtomicReferenceArray<ExecutionData> t = table;
+			final int mask = t.length() - 1;
+			int i = (int) hash & mask;
+			while (true) {
+				final ExecutionData entry = t.get(i);
+				if (entry == null || entry.getId() == id) {
+					return entry;
+				}
+				i = (i + 1) & mask;
+			}
+		}
+
+		synchronized ExecutionData insert(final long id, final long hash,
+				final String name, final int probecount,
+				final boolean withHits) {
+			ExecutionData entry = find(id, hash);
+			if (entry == null) {
+				if (4 * (size + 1) > 3 * table.length()) {
+					grow();
+				}
+				entry = withHits ? new ExecutionData(id, name,
+						new int[probecount]) : new ExecutionData(id, name,
+						probecount);
+				put(table, entry, hash);
+				size++;
+			}
+			return entry;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		void collect(final Collection<ExecutionData> target) {
+			final AtomicReferenceArray<ExecutionData> t = table;
+			for (int i = 0; i < t.length(); i++) {
+				final ExecutionData entry = t.get(i);
+				if (entry != null) {
+					target.add(entry);
+				}
+			}
+		}
+
+		private void grow() {
+			final AtomicReferenceArray<ExecutionData> old = table;
+			final AtomicReferenceArray<ExecutionData> grown = new AtomicReferenceArray<ExecutionData>(
+					old.length() * 2);
+			for (int i = 0; i < old.length(); i++) {
+				final ExecutionData entry = old.get(i);
+				if (entry != null) {
+					put(grown, entry, hash(entry.getId()));
+				}
+			}
+			table = grown;
+		}
+
+		private static void put(final AtomicReferenceArray<ExecutionData> t,
+				final ExecutionData entry, final long hash) {
+			final int mask = t.length() - 1;
+			int i = (int) hash & mask;
+			while (t.get(i) != null) {
+				i = (i + 1) & mask;
+			}
+			t.set(i, entry);
+		}
+
+	}
+
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.io.IOException;
+
+/**
+ * Optional extension of {@link IRemoteCommandVisitor} for runtimes which can
+ * compress the execution data sent to the remote side.
+ */
+public interface ICompressionCommandVisitor extends IRemoteCommandVisitor {
+
+	/**
+	 * Requests that all subsequent data sent by the runtime is compressed.
+	 * The runtime confirms the command with an uncompressed
+	 * {@link RemoteControlWriter#BLOCK_CMDOK} block before it compresses
+	 * subsequent data. Runtimes without support for this command close the
+	 * connection instead, so clients should wait for the confirmation and
+	 * fall back to an uncompressed connection if it is missing.
+	 * 
+	 * @throws IOException
+	 *             in case of problems with the remote connection
+	 */
+	public void visitCompressionCommand() throws IOException;
+
+}
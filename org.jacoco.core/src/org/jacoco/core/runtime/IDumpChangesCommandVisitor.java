@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.io.IOException;
+
+/**
+ * Optional extension of {@link IRemoteCommandVisitor} for runtimes which can
+ * dump only the execution data that has changed since the previous dump of
+ * this kind for the same client.
+ */
+public interface IDumpChangesCommandVisitor extends IRemoteCommandVisitor {
+
+	/**
+	 * Requests a dump of all classes whose probes have changed since the
+	 * previous dump of changes for the given client, with an optional reset.
+	 * 
+	 * @param client
+	 *            identifier of the requesting client
+	 * @param dump
+	 *            <code>true</code> if the dump should be executed
+	 * @param reset
+	 *            <code>true</code> if the reset should be executed
+	 * @throws IOException
+	 *             in case of problems with the remote connection
+	 */
+	public void visitDumpChangesCommand(final String client,
+			final boolean dump, final boolean reset) throws IOException;
+
+}
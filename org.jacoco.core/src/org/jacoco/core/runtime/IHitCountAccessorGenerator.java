@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Optional extension of {@link IExecutionDataAccessorGenerator} for runtimes
+ * which support hit counting. In this mode instrumented classes increment
+ * <code>int</code> counters instead of setting <code>boolean</code> flags.
+ */
+public interface IHitCountAccessorGenerator extends
+		IExecutionDataAccessorGenerator {
+
+	/**
+	 * This method generates the byte code required to obtain the hit counter
+	 * array for the class with the given id. The same constraints as for
+	 * {@link #generateDataAccessor(long, String, int, MethodVisitor)} apply,
+	 * except that the generated code must push a <code>int[]</code> instance
+	 * to the operand stack.
+	 * 
+	 * @param classid
+	 *            identifier of the class
+	 * @param classname
+	 *            VM class name
+	 * @param probecount
+	 *            probe count for this class
+	 * @param mv
+	 *            code output
+	 * @return additional stack size required by the implementation, including
+	 *         the instance pushed to the stack
+	 */
+	public int generateHitCountAccessor(final long classid,
+			final String classname, final int probecount, MethodVisitor mv);
+
+}
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+/**
+ * Optional extension of {@link IExecutionDataAccessorGenerator} for
+ * implementations which can generate more efficient accessors for class files
+ * of newer versions, e.g. using JVM features which are not available for older
+ * class files.
+ */
+public interface IVersionAwareAccessorGenerator extends
+		IExecutionDataAccessorGenerator {
+
+	/**
+	 * Returns the generator to use for class files of the given version. The
+	 * returned generator must obey the contract of
+	 * {@link IExecutionDataAccessorGenerator}.
+	 * 
+	 * @param classVersion
+	 *            major version of the class file to instrument
+	 * @return generator for the given version, this instance if there is no
+	 *         specific generator
+	 */
+	public IExecutionDataAccessorGenerator forClassVersion(int classVersion);
+
+}
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+
+/**
+ * Keeps the execution data of a {@link RuntimeData} instance in a memory
+ * mapped file, e.g. located in <code>/dev/shm</code>. Other processes can map
+ * the same file to read the current coverage of a running VM without any
+ * socket communication.
+ * 
+ * The file consists of a fixed size header followed by a directory of class
+ * entries. Every entry contains the class id, the number of probes, the class
+ * name and the probes packed into bits. New classes are appended to the
+ * directory, probes of existing entries are updated in place. Only bytes which
+ * actually changed are written. All values are stored in big-endian order.
+ * 
+ * Before and after every update the sequence number in the header is
+ * incremented. Readers can access the entries directly in the mapped file and
+ * should retry if the sequence number is odd or has changed while they read
+ * the content. The header also contains a CRC32 checksum of the header fields
+ * from {@link #LIMIT_OFFSET} up to the checksum, which is written at the end of
+ * every update. Its calculation only depends on the fixed size header, so
+ * updates stay proportional to the number of changed probes.
+ */
+public class MappedExecutionDataWriter {
+
+	/** Magic number at the beginning of every mapped execution data file. */
+	public static final int MAGIC = 0xC0C04D4D;
+
+	/**
+	 * Offset of the format version, see
+	 * {@link ExecutionDataWriter#FORMAT_VERSION}.
+	 */
+	public static final int VERSION_OFFSET = 4;
+
+	/** Offset of the sequence number, odd while an update is running. */
+	public static final int SEQUENCE_OFFSET = 8;
+
+	/** Offset of the end position of the last class entry. */
+	public static final int LIMIT_OFFSET = 12;
+
+	/** Offset of the number of class entries. */
+	public static final int COUNT_OFFSET = 16;
+
+	/** Offset of the session start time stamp. */
+	public static final int START_OFFSET = 20;
+
+	/** Offset of the time stamp of the last update. */
+	public static final int DUMP_OFFSET = 28;
+
+	/** Offset of the length of the UTF-8 encoded session id. */
+	public static final int SESSION_OFFSET = 36;
+
+	/** Maximum number of bytes reserved for the session id. */
+	public static final int SESSION_CAPACITY = 212;
+
+	/** Offset of the checksum, see {@link #checksum(ByteBuffer)}. */
+	public static final int CHECKSUM_OFFSET = 252;
+
+	/** Offset of the first class entry. */
+	public static final int ENTRIES_OFFSET = 256;
+
+	private static final int INITIAL_CAPACITY = 0x10000;
+
+	private final RandomAccessFile file;
+
+	private final FileChannel channel;
+
+	private MappedByteBuffer buffer;
+
+	private int limit;
+
+	private int count;
+
+	/** Position of the probe bits for every class id written so far. */
+	private final Map<Long, Integer> positions;
+
+	private final Visitor visitor;
+
+	/** Copy of the header fields to calculate the checksum */
+	private final byte[] header;
+
+	/**
+	 * Creates a new writer for the given file. Existing content of the file is
+	 * discarded.
+	 * 
+	 * @param file
+	 *            file to map
+	 * @throws IOException
+	 *             if the file can not be created or mapped
+	 */
+	public MappedExecutionDataWriter(final File file) throws IOException {
+		this.file = new RandomAccessFile(file, "rw");
+		this.file.setLength(0);
+		this.channel = this.file.getChannel();
+		this.positions = new HashMap<Long, Integer>();
+		this.visitor = new Visitor();
+		this.header = new byte[CHECKSUM_OFFSET - LIMIT_OFFSET];
+		map(INITIAL_CAPACITY);
+		limit = ENTRIES_OFFSET;
+		count = 0;
+		buffer.putChar(VERSION_OFFSET, ExecutionDataWriter.FORMAT_VERSION);
+		buffer.putInt(SEQUENCE_OFFSET, 0);
+		buffer.putInt(LIMIT_OFFSET, limit);
+		buffer.putInt(COUNT_OFFSET, count);
+		buffer.putInt(CHECKSUM_OFFSET, calculateChecksum());
+		buffer.putInt(0, MAGIC);
+	}
+
+	/**
+	 * Writes the current content of the given runtime data to the mapped file.
+	 * 
+	 * @param data
+	 *            runtime data to write
+	 * @param reset
+	 *            if <code>true</code> execution data is cleared afterwards
+	 */
+	public synchronized void update(final RuntimeData data,
+			final boolean reset) {
+		final int sequence = buffer.getInt(SEQUENCE_OFFSET);
+		buffer.putInt(SEQUENCE_OFFSET, sequence + 1);
+		try {
+			data.collect(visitor, visitor, reset);
+		} finally {
+			buffer.putInt(LIMIT_OFFSET, limit);
+			buffer.putInt(COUNT_OFFSET, count);
+			buffer.putInt(CHECKSUM_OFFSET, calculateChecksum());
+			buffer.putInt(SEQUENCE_OFFSET, sequence + 2);
+		}
+	}
+
+	/**
+	 * Calculates the checksum of the header fields of a mapped execution data
+	 * file.
+	 * 
+	 * @param buffer
+	 *            content of the file
+	 * @return checksum of the header fields
+	 */
+	public static int checksum(final ByteBuffer buffer) {
+		return checksum(buffer, new byte[CHECKSUM_OFFSET - LIMIT_OFFSET]);
+	}
+
+	private static int checksum(final ByteBuffer buffer, final byte[] header) {
+		for (int i = 0; i < header.length; i++) {
+			header[i] = buffer.get(LIMIT_OFFSET + i);
+		}
+		final CRC32 crc = new CRC32();
+		crc.update(header);
+		return (int) crc.getValue();
+	}
+
+	private int calculateChecksum() {
+		return checksum(buffer, header);
+	}
+
+	/**
+	 * Closes the underlying file. The content stays available for readers.
+	 * 
+	 * @throws IOException
+	 *             if the file can not be closed
+	 */
+	public synchronized void close() throws IOException {
+		file.close();
+	}
+
+	private void map(final int capacity) throws IOException {
+		buffer = channel.map(MapMode.READ_WRITE, 0, capacity);
+	}
+
+	private void ensureCapacity(final int size) {
+		final int capacity = buffer.capacity();
+		if (size > capacity) {
+			try {
+				map(Math.max(size, capacity * 2));
+			} catch (final IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	private int append(final ExecutionData data) {
+		final byte[] name = encode(data.getName());
+		final int probeCount = data.getProbes().length;
+		final int bits = limit + 8 + 4 + 2 + name.length;
+		final int end = bits + (probeCount + 7) / 8;
+		ensureCapacity(end);
+		buffer.putLong(limit, data.getId());
+		buffer.putInt(limit + 8, probeCount);
+		buffer.putShort(limit + 12, (short) name.length);
+		for (int i = 0; i < name.length; i++) {
+			buffer.put(limit + 14 + i, name[i]);
+		}
+		positions.put(Long.valueOf(data.getId()), Integer.valueOf(bits));
+		limit = end;
+		count++;
+		return bits;
+	}
+
+	private static byte[] encode(final String value) {
+		try {
+			return value.getBytes("UTF-8");
+		} catch (final UnsupportedEncodingException e) {
+			// UTF-8 is always supported
+			throw new AssertionError(e);
+		}
+	}
+
+	private class Visitor implements ISessionInfoVisitor,
+			IExecutionDataVisitor {
+
+		public void visitSessionInfo(final SessionInfo info) {
+			buffer.putLong(START_OFFSET, info.getStartTimeStamp());
+			buffer.putLong(DUMP_OFFSET, info.getDumpTimeStamp());
+			final byte[] id = encode(info.getId());
+			int length = Math.min(id.length, SESSION_CAPACITY);
+			// Do not cut multi-byte characters:
+			while (length < id.length && (id[length] & 0xC0) == 0x80) {
+				length--;
+			}
+			buffer.putShort(SESSION_OFFSET, (short) length);
+			for (int i = 0; i < length; i++) {
+				buffer.put(SESSION_OFFSET + 2 + i, id[i]);
+			}
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			final Integer position = positions.get(Long.valueOf(data.getId()));
+			final int bits = position == null ? append(data) : position
+					.intValue();
+			final boolean[] probes = data.getProbes();
+			for (int i = 0; i < probes.length; i += 8) {
+				int value = 0;
+				final int end = Math.min(i + 8, probes.length);
+				for (int j = i; j < end; j++) {
+					if (probes[j]) {
+						value |= 1 << (j - i);
+					}
+				}
+				final int pos = bits + i / 8;
+				if (buffer.get(pos) != (byte) value) {
+					buffer.put(pos, (byte) value);
+				}
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates accessors which obtain the probe array through a
+ * <code>java.lang.invoke.MethodHandle</code> bound to
+ * {@link RuntimeData#getProbes(long, String, int)}. The handle is kept in a
+ * public static field and called with primitive arguments through
+ * <code>invokeExact()</code>, so no argument array is allocated and no values
+ * are boxed. The generated code can only be used in class files of version 51
+ * (Java 7) or later.
+ */
+class MethodHandleAccessGenerator implements IExecutionDataAccessorGenerator {
+
+	private static final String HANDLE_TYPE = "java/lang/invoke/MethodHandle";
+
+	private static final String HANDLE_FIELD_TYPE = "Ljava/lang/Object;";
+
+	private final String ownerClassName;
+
+	private final String handleFieldName;
+
+	/**
+	 * Creates a new generator for the given field.
+	 * 
+	 * @param ownerClassName
+	 *            VM name of the class declaring the field
+	 * @param handleFieldName
+	 *            name of the public static field of type {@link Object} which
+	 *            holds the method handle
+	 */
+	MethodHandleAccessGenerator(final String ownerClassName,
+			final String handleFieldName) {
+		this.ownerClassName = ownerClassName;
+		this.handleFieldName = handleFieldName;
+	}
+
+	public int generateDataAccessor(final long classid, final String classname,
+			final int probecount, final MethodVisitor mv) {
+		mv.visitFieldInsn(Opcodes.GETSTATIC, ownerClassName, handleFieldName,
+				HANDLE_FIELD_TYPE);
+		mv.visitTypeInsn(Opcodes.CHECKCAST, HANDLE_TYPE);
+
+		// Stack[0]: Ljava/lang/invoke/MethodHandle;
+
+		mv.visitLdcInsn(Long.valueOf(classid));
+		mv.visitLdcInsn(classname);
+		InstrSupport.push(mv, probecount);
+
+		// Stack[3]: I
+		// Stack[2]: Ljava/lang/String;
+		// Stack[1]: J
+		// Stack[0]: Ljava/lang/invoke/MethodHandle;
+
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, HANDLE_TYPE, "invokeExact",
+				"(JLjava/lang/String;I)[Z", false);
+
+		// Stack[0]: [Z
+
+		return 5;
+	}
+
+	/**
+	 * Creates a method handle for
+	 * {@link RuntimeData#getProbes(long, String, int)} bound to the given
+	 * instance. As JaCoCo must run on Java 5 the <code>java.lang.invoke</code>
+	 * API is accessed through reflection.
+	 * 
+	 * @param data
+	 *            runtime data to bind the handle to
+	 * @return <code>java.lang.invoke.MethodHandle</code> instance
+	 * @throws Exception
+	 *             if method handles are not supported by the current VM
+	 */
+	static Object createHandle(final RuntimeData data) throws Exception {
+		final Class<?> handles = Class.forName("java.lang.invoke.MethodHandles");
+		final Class<?> lookupType = Class
+				.forName("java.lang.invoke.MethodHandles$Lookup");
+		final Class<?> methodType = Class
+				.forName("java.lang.invoke.MethodType");
+		final Class<?> handleType = Class.forName(HANDLE_TYPE.replace('/',
+				'.'));
+
+		final Object lookup = handles.getMethod("publicLookup").invoke(null);
+		final Object type = methodType.getMethod("methodType", Class.class,
+				Class[].class).invoke(null, boolean[].class,
+				new Class<?>[] { Long.TYPE, String.class, Integer.TYPE });
+		final Object handle = lookupType.getMethod("findVirtual", Class.class,
+				String.class, methodType).invoke(lookup, RuntimeData.class,
+				"getProbes", type);
+		return handleType.getMethod("bindTo", Object.class).invoke(handle,
+				data);
+	}
+
+}
@@ -32,17 +32,28 @@ import org.objectweb.asm.Opcodes;
  * new static field is added to a bootstrap class that will be used by
  * instrumented classes. As the system class itself needs to be instrumented
  * this runtime requires a Java agent.
+ * 
+ * On Java 7 and later VMs a second field holds a method handle to the runtime
+ * data. Class files of version 51 or later obtain their probe arrays through
+ * this handle with primitive arguments, older class files use
+ * {@link RuntimeData#generateAccessCall(long, String, int, MethodVisitor)}.
+ * Hit counters are always obtained through the access field.
  */
-public class ModifiedSystemClassRuntime extends AbstractRuntime {
+public class ModifiedSystemClassRuntime extends AbstractRuntime implements
+		IVersionAwareAccessorGenerator, IHitCountAccessorGenerator {
 
 	private static final String ACCESS_FIELD_TYPE = "Ljava/lang/Object;";
 
+	private static final String HANDLE_FIELD_SUFFIX = "Handle";
+
 	private final Class<?> systemClass;
 
 	private final String systemClassName;
 
 	private final String accessFieldName;
 
+	private IExecutionDataAccessorGenerator handleAccessGenerator;
+
 	/**
 	 * Creates a new runtime based on the given class and members.
 	 * 
@@ -65,6 +76,16 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 		super.startup(data);
 		final Field field = systemClass.getField(accessFieldName);
 		field.set(null, data);
+		final String handleFieldName = accessFieldName + HANDLE_FIELD_SUFFIX;
+		try {
+			systemClass.getField(handleFieldName).set(null,
+					MethodHandleAccessGenerator.createHandle(data));
+		} catch (final Exception e) {
+			// No method handle support, all classes use the access field
+			return;
+		}
+		handleAccessGenerator = new MethodHandleAccessGenerator(
+				systemClassName, handleFieldName);
 	}
 
 	public void shutdown() {
@@ -82,6 +103,26 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 		return 6;
 	}
 
+	public int generateHitCountAccessor(final long classid,
+			final String classname, final int probecount, final MethodVisitor mv) {
+
+		mv.visitFieldInsn(Opcodes.GETSTATIC, systemClassName, accessFieldName,
+				ACCESS_FIELD_TYPE);
+
+		RuntimeData.generateHitCountAccessCall(classid, classname, probecount,
+				mv);
+
+		return 6;
+	}
+
+	public IExecutionDataAccessorGenerator forClassVersion(
+			final int classVersion) {
+		if (handleAccessGenerator != null && classVersion >= Opcodes.V1_7) {
+			return handleAccessGenerator;
+		}
+		return this;
+	}
+
 	/**
 	 * Creates a new {@link ModifiedSystemClassRuntime} using the given class as
 	 * the data container. Member is created with internal default name. The
@@ -144,7 +185,8 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 	}
 
 	/**
-	 * Adds the static data field to the given class definition.
+	 * Adds the static data field to the given class definition. For class
+	 * files of version 51 or later also a field for a method handle is added.
 	 * 
 	 * @param source
 	 *            class definition source
@@ -156,11 +198,15 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 			final String accessFieldName) {
 		final ClassReader reader = new ClassReader(Java9Support.downgradeIfRequired(source));
 		final ClassWriter writer = new ClassWriter(reader, 0);
+		final boolean withHandle = reader.readShort(6) >= Opcodes.V1_7;
 		reader.accept(new ClassVisitor(InstrSupport.ASM_API_VERSION, writer) {
 
 			@Override
 			public void visitEnd() {
 				createDataField(cv, accessFieldName);
+				if (withHandle) {
+					createDataField(cv, accessFieldName + HANDLE_FIELD_SUFFIX);
+				}
 				super.visitEnd();
 			}
 
@@ -41,6 +41,12 @@ public class RemoteControlReader extends ExecutionDataReader {
 		case RemoteControlWriter.BLOCK_CMDDUMP:
 			readDumpCommand();
 			return true;
+		case RemoteControlWriter.BLOCK_CMDDUMPCHANGES:
+			readDumpChangesCommand();
+			return true;
+		case RemoteControlWriter.BLOCK_CMDCOMPRESSION:
+			readCompressionCommand();
+			return true;
 		case RemoteControlWriter.BLOCK_CMDOK:
 			return false;
 		default:
@@ -67,4 +73,23 @@ public class RemoteControlReader extends ExecutionDataReader {
 		remoteCommandVisitor.visitDumpCommand(dump, reset);
 	}
 
+	private void readDumpChangesCommand() throws IOException {
+		if (!(remoteCommandVisitor instanceof IDumpChangesCommandVisitor)) {
+			throw new IOException("No visitor for dump changes command.");
+		}
+		final String client = in.readUTF();
+		final boolean dump = in.readBoolean();
+		final boolean reset = in.readBoolean();
+		((IDumpChangesCommandVisitor) remoteCommandVisitor)
+				.visitDumpChangesCommand(client, dump, reset);
+	}
+
+	private void readCompressionCommand() throws IOException {
+		if (!(remoteCommandVisitor instanceof ICompressionCommandVisitor)) {
+			throw new IOException("No visitor for compression command.");
+		}
+		((ICompressionCommandVisitor) remoteCommandVisitor)
+				.visitCompressionCommand();
+	}
+
 }
@@ -20,7 +20,7 @@ import org.jacoco.core.data.ExecutionDataWriter;
  * {@link ExecutionDataWriter} with commands added for runtime remote control.
  */
 public class RemoteControlWriter extends ExecutionDataWriter implements
-		IRemoteCommandVisitor {
+		IDumpChangesCommandVisitor, ICompressionCommandVisitor {
 
 	/** Block identifier to confirm successful command execution. */
 	public static final byte BLOCK_CMDOK = 0x20;
@@ -28,6 +28,12 @@ public class RemoteControlWriter extends ExecutionDataWriter implements
 	/** Block identifier for dump command */
 	public static final byte BLOCK_CMDDUMP = 0x40;
 
+	/** Block identifier for dump command of changed execution data only */
+	public static final byte BLOCK_CMDDUMPCHANGES = 0x41;
+
+	/** Block identifier for the request to compress subsequent responses */
+	public static final byte BLOCK_CMDCOMPRESSION = 0x42;
+
 	/**
 	 * Creates a new writer based on the given output stream.
 	 * 
@@ -49,6 +55,7 @@ public class RemoteControlWriter extends ExecutionDataWriter implements
 	 */
 	public void sendCmdOk() throws IOException {
 		out.writeByte(RemoteControlWriter.BLOCK_CMDOK);
+		endBlock();
 	}
 
 	public void visitDumpCommand(final boolean dump, final boolean reset)
@@ -56,6 +63,21 @@ public class RemoteControlWriter extends ExecutionDataWriter implements
 		out.writeByte(RemoteControlWriter.BLOCK_CMDDUMP);
 		out.writeBoolean(dump);
 		out.writeBoolean(reset);
+		endBlock();
+	}
+
+	public void visitDumpChangesCommand(final String client,
+			final boolean dump, final boolean reset) throws IOException {
+		out.writeByte(RemoteControlWriter.BLOCK_CMDDUMPCHANGES);
+		out.writeUTF(client);
+		out.writeBoolean(dump);
+		out.writeBoolean(reset);
+		endBlock();
+	}
+
+	public void visitCompressionCommand() throws IOException {
+		out.writeByte(RemoteControlWriter.BLOCK_CMDCOMPRESSION);
+		endBlock();
 	}
 
 }
@@ -11,8 +11,13 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.jacoco.core.data.ExecutionData;
-import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.data.ISessionInfoVisitor;
 import org.jacoco.core.data.SessionInfo;
@@ -22,22 +27,49 @@ import org.objectweb.asm.Opcodes;
 
 /**
  * Container for runtime execution and meta data. All access to the runtime data
- * is thread safe.
+ * is thread safe. Collecting and resetting execution data is serialized by a
+ * lock which is only held while a snapshot of the data is taken, the visitors
+ * are called after the lock has been released.
  */
 public class RuntimeData {
 
-	/** store for execution data */
-	protected final ExecutionDataStore store;
+	/** registry for execution data */
+	protected final ExecutionDataRegistry registry;
 
 	private long startTimeStamp;
 
 	private String sessionId;
 
+	/** Maximum number of clients whose last dump of changes is tracked. */
+	private static final int MAX_CHANGE_CLIENTS = 16;
+
+	/**
+	 * Number of executed probes per class id at the last dump of changes for
+	 * every client, the least recently used client first.
+	 */
+	private final Map<String, Map<Long, Long>> dumpedCounts;
+
+	private long lockCount;
+
+	private long lockTime;
+
+	private long maxLockTime;
+
 	/**
 	 * Creates a new runtime.
 	 */
 	public RuntimeData() {
-		store = new ExecutionDataStore();
+		registry = new ExecutionDataRegistry();
+		dumpedCounts = new LinkedHashMap<String, Map<Long, Long>>(16, 0.75f,
+				true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, Map<Long, Long>> eldest) {
+				return size() > MAX_CHANGE_CLIENTS;
+			}
+		};
 		sessionId = "<none>";
 		startTimeStamp = System.currentTimeMillis();
 	}
@@ -68,7 +100,9 @@ public class RuntimeData {
 
 	/**
 	 * Collects the current execution data and writes it to the given
-	 * {@link IExecutionDataVisitor} object.
+	 * {@link IExecutionDataVisitor} object. Classes can still be registered
+	 * while the data is collected. The visitors are called without holding
+	 * any lock, so slow visitors do not block other threads.
 	 * 
 	 * @param executionDataVisitor
 	 *            handler to write coverage data to
@@ -76,35 +110,165 @@ public class RuntimeData {
 	 *            handler to write session information to
 	 * @param reset
 	 *            if <code>true</code> the current coverage information is also
-	 *            cleared
+	 *            cleared. Probes executed while the data is collected are not
+	 *            lost but either included in the collected data or kept for
+	 *            the next collection.
 	 */
 	public final void collect(final IExecutionDataVisitor executionDataVisitor,
 			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
-		synchronized (store) {
-			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
+		final SessionInfo info;
+		final Collection<ExecutionData> contents;
+		synchronized (registry) {
+			final long start = System.nanoTime();
+			info = new SessionInfo(sessionId, startTimeStamp,
 					System.currentTimeMillis());
-			sessionInfoVisitor.visitSessionInfo(info);
-			store.accept(executionDataVisitor);
+			contents = registry.getSnapshot(reset);
 			if (reset) {
-				reset();
+				startSession();
 			}
+			released(start);
+		}
+		sessionInfoVisitor.visitSessionInfo(info);
+		for (final ExecutionData data : contents) {
+			executionDataVisitor.visitClassExecution(data);
 		}
 	}
 
+	/**
+	 * Collects the execution data of all classes whose probes have changed
+	 * since the previous call of this method for the same client and writes it
+	 * to the given {@link IExecutionDataVisitor} object. As probes are only
+	 * ever set until the next reset a class is considered as changed if the
+	 * number of executed probes or the sum of its hit counters has changed.
+	 * The state of the last {@value #MAX_CHANGE_CLIENTS} clients is kept, a
+	 * client which is not known receives all classes with executed probes. A
+	 * reset discards the state of all clients.
+	 * 
+	 * @param client
+	 *            identifier of the client the changes are collected for
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 * @param reset
+	 *            if <code>true</code> the current coverage information is also
+	 *            cleared without losing concurrently executed probes
+	 */
+	public final void collectChanges(final String client,
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
+		final SessionInfo info;
+		final Collection<ExecutionData> changes = new ArrayList<ExecutionData>();
+		synchronized (registry) {
+			final long start = System.nanoTime();
+			info = new SessionInfo(sessionId, startTimeStamp,
+					System.currentTimeMillis());
+			Map<Long, Long> counts = dumpedCounts.get(client);
+			if (counts == null) {
+				counts = new HashMap<Long, Long>();
+				dumpedCounts.put(client, counts);
+			}
+			for (final ExecutionData data : registry.getSnapshot(reset)) {
+				final Long id = Long.valueOf(data.getId());
+				final long count = getExecutedCount(data);
+				final Long dumped = counts.get(id);
+				if (count != (dumped == null ? 0 : dumped.longValue())) {
+					changes.add(data);
+					counts.put(id, Long.valueOf(count));
+				}
+			}
+			if (reset) {
+				startSession();
+			}
+			released(start);
+		}
+		sessionInfoVisitor.visitSessionInfo(info);
+		for (final ExecutionData data : changes) {
+			executionDataVisitor.visitClassExecution(data);
+		}
+	}
+
+	private static long getExecutedCount(final ExecutionData data) {
+		long count = 0;
+		final int[] hits = data.getHits();
+		if (hits == null) {
+			for (final boolean p : data.getProbes()) {
+				if (p) {
+					count++;
+				}
+			}
+		} else {
+			for (final int h : hits) {
+				count += h;
+			}
+		}
+		return count;
+	}
+
 	/**
 	 * Resets all coverage information.
 	 */
 	public final void reset() {
-		synchronized (store) {
-			store.reset();
-			startTimeStamp = System.currentTimeMillis();
+		synchronized (registry) {
+			final long start = System.nanoTime();
+			registry.reset();
+			startSession();
+			released(start);
+		}
+	}
+
+	private void startSession() {
+		dumpedCounts.clear();
+		startTimeStamp = System.currentTimeMillis();
+	}
+
+	private void released(final long start) {
+		final long time = System.nanoTime() - start;
+		lockCount++;
+		lockTime += time;
+		maxLockTime = Math.max(maxLockTime, time);
+	}
+
+	/**
+	 * Returns how often the lock for collecting or resetting execution data
+	 * has been acquired.
+	 * 
+	 * @return number of lock acquisitions
+	 */
+	public long getLockCount() {
+		synchronized (registry) {
+			return lockCount;
+		}
+	}
+
+	/**
+	 * Returns the total time the lock for collecting or resetting execution
+	 * data has been held.
+	 * 
+	 * @return total lock hold time in nanoseconds
+	 */
+	public long getLockTime() {
+		synchronized (registry) {
+			return lockTime;
+		}
+	}
+
+	/**
+	 * Returns the longest time the lock for collecting or resetting execution
+	 * data has been held at once.
+	 * 
+	 * @return maximum lock hold time in nanoseconds
+	 */
+	public long getMaxLockTime() {
+		synchronized (registry) {
+			return maxLockTime;
 		}
 	}
 
 	/**
 	 * Returns the coverage data for the class with the given identifier. If
 	 * there is no data available under the given id a new entry is created.
-	 * This is a synchronized access to the underlying store.
+	 * Lookups of classes which are already registered do not block.
 	 * 
 	 * @param id
 	 *            class identifier
@@ -116,9 +280,46 @@ public class RuntimeData {
 	 */
 	public ExecutionData getExecutionData(final Long id, final String name,
 			final int probecount) {
-		synchronized (store) {
-			return store.get(id, name, probecount);
-		}
+		return registry.get(id.longValue(), name, probecount);
+	}
+
+	/**
+	 * Retrieves the execution probe array for a given class. If there is no
+	 * data available under the given id a new entry is created. Other than
+	 * {@link #getProbes(Object[])} this method does not require any boxing of
+	 * its arguments.
+	 * 
+	 * @param classid
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @return probe array instance for this class
+	 */
+	public boolean[] getProbes(final long classid, final String name,
+			final int probecount) {
+		return registry.get(classid, name, probecount).getProbes();
+	}
+
+	/**
+	 * Retrieves the hit counter array for a given class. If there is no data
+	 * available under the given id a new entry with hit counters is created.
+	 * 
+	 * @param classid
+	 *            class identifier
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            probe data length
+	 * @return hit counter array instance for this class
+	 * @throws IllegalStateException
+	 *             if the class has already been registered without hit
+	 *             counters
+	 */
+	public int[] getHits(final long classid, final String name,
+			final int probecount) throws IllegalStateException {
+		return registry.get(classid, name, probecount, true).getHits();
 	}
 
 	/**
@@ -130,22 +331,28 @@ public class RuntimeData {
 	 * <li>args[0]: class id ({@link Long})
 	 * <li>args[1]: vm class name ({@link String})
 	 * <li>args[2]: probe count ({@link Integer})
+	 * <li>args[3]: optional, {@link Boolean#TRUE} to request hit counters
 	 * </ul>
 	 * 
 	 * Return value:
 	 * 
 	 * <ul>
-	 * <li>args[0]: probe array (<code>boolean[]</code>)
+	 * <li>args[0]: probe array (<code>boolean[]</code>) or hit counter array
+	 * (<code>int[]</code>)
 	 * </ul>
 	 * 
 	 * @param args
-	 *            parameter array of length 3
+	 *            parameter array of length 3 or 4
 	 */
 	public void getProbes(final Object[] args) {
 		final Long classid = (Long) args[0];
 		final String name = (String) args[1];
 		final int probecount = ((Integer) args[2]).intValue();
-		args[0] = getExecutionData(classid, name, probecount).getProbes();
+		if (args.length > 3 && Boolean.TRUE.equals(args[3])) {
+			args[0] = getHits(classid.longValue(), name, probecount);
+		} else {
+			args[0] = getExecutionData(classid, name, probecount).getProbes();
+		}
 	}
 
 	/**
@@ -180,7 +387,13 @@ public class RuntimeData {
 	 */
 	public static void generateArgumentArray(final long classid,
 			final String classname, final int probecount, final MethodVisitor mv) {
-		mv.visitInsn(Opcodes.ICONST_3);
+		generateArgumentArray(classid, classname, probecount, false, mv);
+	}
+
+	private static void generateArgumentArray(final long classid,
+			final String classname, final int probecount,
+			final boolean hits, final MethodVisitor mv) {
+		mv.visitInsn(hits ? Opcodes.ICONST_4 : Opcodes.ICONST_3);
 		mv.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object");
 
 		// Class Id:
@@ -204,6 +417,15 @@ public class RuntimeData {
 		mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Integer",
 				"valueOf", "(I)Ljava/lang/Integer;", false);
 		mv.visitInsn(Opcodes.AASTORE);
+
+		// Hit Counter Request:
+		if (hits) {
+			mv.visitInsn(Opcodes.DUP);
+			mv.visitInsn(Opcodes.ICONST_3);
+			mv.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/Boolean", "TRUE",
+					"Ljava/lang/Boolean;");
+			mv.visitInsn(Opcodes.AASTORE);
+		}
 	}
 
 	/**
@@ -224,9 +446,44 @@ public class RuntimeData {
 	 */
 	public static void generateAccessCall(final long classid,
 			final String classname, final int probecount, final MethodVisitor mv) {
+		generateAccessCall(classid, classname, probecount, false, mv);
+
+		// stack[0]: [Z
+
+		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.DATAFIELD_DESC);
+	}
+
+	/**
+	 * Generates the code that calls a {@link RuntimeData} instance through the
+	 * JRE API method {@link Object#equals(Object)} to retrieve hit counters.
+	 * The code pops a {@link Object} instance from the stack and pushes the
+	 * hit counter array of type <code>int[]</code> on the operand stack. The
+	 * generated code requires a stack size of 6.
+	 * 
+	 * @param classid
+	 *            class identifier
+	 * @param classname
+	 *            VM class name
+	 * @param probecount
+	 *            probe count for this class
+	 * @param mv
+	 *            visitor to emit generated code
+	 */
+	public static void generateHitCountAccessCall(final long classid,
+			final String classname, final int probecount, final MethodVisitor mv) {
+		generateAccessCall(classid, classname, probecount, true, mv);
+
+		// stack[0]: [I
+
+		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.HITS_DATAFIELD_DESC);
+	}
+
+	private static void generateAccessCall(final long classid,
+			final String classname, final int probecount, final boolean hits,
+			final MethodVisitor mv) {
 		// stack[0]: Ljava/lang/Object;
 
-		generateArgumentArray(classid, classname, probecount, mv);
+		generateArgumentArray(classid, classname, probecount, hits, mv);
 
 		// stack[1]: [Ljava/lang/Object;
 		// stack[0]: Ljava/lang/Object;
@@ -245,10 +502,6 @@ public class RuntimeData {
 
 		mv.visitInsn(Opcodes.ICONST_0);
 		mv.visitInsn(Opcodes.AALOAD);
-
-		// stack[0]: [Z
-
-		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.DATAFIELD_DESC);
 	}
 
 }
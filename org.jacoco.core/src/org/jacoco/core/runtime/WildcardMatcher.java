@@ -17,10 +17,14 @@ import java.util.regex.Pattern;
  * Matches strings against <code>?</code>/<code>*</code> wildcard expressions.
  * Multiple expressions can be separated with a colon (:). In this case the
  * expression matches if at least one part matches.
+ * 
+ * The expressions are compiled into a literal prefix and a bit-parallel
+ * automaton for the remainder. Matching does not allocate any objects and
+ * is safe for concurrent use.
  */
 public class WildcardMatcher {
 
-	private final Pattern pattern;
+	private final Expression[] expressions;
 
 	/**
 	 * Creates a new matcher with the given expression.
@@ -30,34 +34,34 @@ public class WildcardMatcher {
 	 */
 	public WildcardMatcher(final String expression) {
 		final String[] parts = expression.split("\\:");
-		final StringBuilder regex = new StringBuilder(expression.length() * 2);
-		boolean next = false;
-		for (final String part : parts) {
-			if (next) {
-				regex.append('|');
-			}
-			regex.append('(').append(toRegex(part)).append(')');
-			next = true;
+		expressions = new Expression[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			expressions[i] = compile(parts[i]);
 		}
-		pattern = Pattern.compile(regex.toString());
 	}
 
-	private static CharSequence toRegex(final String expression) {
-		final StringBuilder regex = new StringBuilder(expression.length() * 2);
-		for (final char c : expression.toCharArray()) {
-			switch (c) {
-			case '?':
-				regex.append(".?");
-				break;
-			case '*':
-				regex.append(".*");
-				break;
-			default:
-				regex.append(Pattern.quote(String.valueOf(c)));
-				break;
-			}
+	private static Expression compile(final String expression) {
+		int wildcard = 0;
+		while (wildcard < expression.length()
+				&& !isWildcard(expression.charAt(wildcard))) {
+			wildcard++;
+		}
+		final String prefix = expression.substring(0, wildcard);
+		final String rest = expression.substring(wildcard);
+		if (rest.length() == 0) {
+			return new Exact(prefix);
+		}
+		if (rest.equals("*")) {
+			return new Prefix(prefix);
 		}
-		return regex;
+		if (rest.length() < Automaton.MAX_LENGTH) {
+			return new Automaton(prefix, rest);
+		}
+		return new Regex(expression);
+	}
+
+	private static boolean isWildcard(final char c) {
+		return c == '?' || c == '*';
 	}
 
 	/**
@@ -68,7 +72,171 @@ public class WildcardMatcher {
 	 * @return <code>true</code>, if the expression matches
 	 */
 	public boolean matches(final String s) {
-		return pattern.matcher(s).matches();
+		for (final Expression e : expressions) {
+			if (e.matches(s)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private interface Expression {
+
+		boolean matches(String s);
+
+	}
+
+	/** Expression without wildcards. */
+	private static class Exact implements Expression {
+
+		private final String literal;
+
+		Exact(final String literal) {
+			this.literal = literal;
+		}
+
+		public boolean matches(final String s) {
+			return literal.equals(s);
+		}
+
+	}
+
+	/** Expression with a single trailing <code>*</code>. */
+	private static class Prefix implements Expression {
+
+		private final String prefix;
+
+		Prefix(final String prefix) {
+			this.prefix = prefix;
+		}
+
+		public boolean matches(final String s) {
+			return s.startsWith(prefix);
+		}
+
+	}
+
+	/**
+	 * Non-deterministic automaton for the part following the literal prefix.
+	 * Bit <code>i</code> of the state is set if the first <code>i</code>
+	 * pattern characters match the input consumed so far, so all active states
+	 * are advanced with a few bit operations per input character.
+	 */
+	private static class Automaton implements Expression {
+
+		static final int MAX_LENGTH = 63;
+
+		private final String prefix;
+
+		private final long accept;
+
+		/** Positions of <code>*</code> which consume any character. */
+		private final long stars;
+
+		/** Positions which may be skipped without consuming a character. */
+		private final long wildcards;
+
+		/** Positions of <code>?</code> which consume any character. */
+		private final long any;
+
+		/** Distinct literal characters of the pattern. */
+		private final char[] chars;
+
+		/** Positions of the corresponding literal character. */
+		private final long[] charPositions;
+
+		Automaton(final String prefix, final String pattern) {
+			this.prefix = prefix;
+			this.accept = 1L << pattern.length();
+			long stars = 0, any = 0;
+			final StringBuilder distinct = new StringBuilder();
+			for (int i = 0; i < pattern.length(); i++) {
+				final char c = pattern.charAt(i);
+				if (c == '*') {
+					stars |= 1L << i;
+				} else if (c == '?') {
+					any |= 1L << i;
+				} else if (distinct.indexOf(String.valueOf(c)) == -1) {
+					distinct.append(c);
+				}
+			}
+			this.stars = stars;
+			this.any = any;
+			this.wildcards = stars | any;
+			this.chars = distinct.toString().toCharArray();
+			this.charPositions = new long[chars.length];
+			for (int i = 0; i < pattern.length(); i++) {
+				final char c = pattern.charAt(i);
+				if (!isWildcard(c)) {
+					final int idx = distinct.indexOf(String.valueOf(c));
+					charPositions[idx] |= 1L << i;
+				}
+			}
+		}
+
+		public boolean matches(final String s) {
+			if (!s.startsWith(prefix)) {
+				return false;
+			}
+			long state = closure(1L);
+			for (int i = prefix.length(); i < s.length(); i++) {
+				final long consuming = any | getPositions(s.charAt(i));
+				state = closure((state & stars) | ((state & consuming) << 1));
+				if (state == 0) {
+					return false;
+				}
+			}
+			return (state & accept) != 0;
+		}
+
+		private long closure(long state) {
+			long previous;
+			do {
+				previous = state;
+				state |= (state & wildcards) << 1;
+			} while (state != previous);
+			return state;
+		}
+
+		private long getPositions(final char c) {
+			for (int i = 0; i < chars.length; i++) {
+				if (chars[i] == c) {
+					return charPositions[i];
+				}
+			}
+			return 0;
+		}
+
+	}
+
+	/** Fallback for very long expressions. */
+	private static class Regex implements Expression {
+
+		private final Pattern pattern;
+
+		Regex(final String expression) {
+			final StringBuilder regex = new StringBuilder(
+					expression.length() * 2);
+			for (final char c : expression.toCharArray()) {
+				switch (c) {
+				case '?':
+					regex.append(".?");
+					break;
+				case '*':
+					regex.append(".*");
+					break;
+				default:
+					regex.append(Pattern.quote(String.valueOf(c)));
+					break;
+				}
+			}
+			pattern = Pattern.compile(regex.toString());
+		}
+
+		public boolean matches(final String s) {
+			return pattern.matcher(s).matches();
+		}
+
 	}
 
 }
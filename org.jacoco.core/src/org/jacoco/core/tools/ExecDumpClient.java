@@ -15,7 +15,11 @@ import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.util.UUID;
 
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.IExecutionDataVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 
@@ -24,19 +28,26 @@ import org.jacoco.core.runtime.RemoteControlWriter;
  */
 public class ExecDumpClient {
 
+	private final String clientId;
 	private boolean dump;
 	private boolean reset;
+	private boolean changesOnly;
+	private boolean compression;
 	private int retryCount;
 	private long retryDelay;
 
 	/**
 	 * New instance with the defaults <code>dump==true</code>,
-	 * <code>reset==false</code>, <code>retryCount==0</code> and
+	 * <code>reset==false</code>, <code>changesOnly==false</code>,
+	 * <code>compression==false</code>, <code>retryCount==0</code> and
 	 * <code>retryDelay=1000</code>.
 	 */
 	public ExecDumpClient() {
+		this.clientId = UUID.randomUUID().toString();
 		this.dump = true;
 		this.reset = false;
+		this.changesOnly = false;
+		this.compression = false;
 		this.retryCount = 0;
 		this.setRetryDelay(1000);
 	}
@@ -61,6 +72,32 @@ public class ExecDumpClient {
 		this.reset = reset;
 	}
 
+	/**
+	 * Specifies whether only execution data of classes which have changed
+	 * since the previous dump of changes of this client instance should be
+	 * requested. The agent keeps track of the dumped state for every client
+	 * instance separately. Use {@link #dump(InetAddress, int, ExecFileLoader)}
+	 * to reassemble the full state from subsequent dumps.
+	 * 
+	 * @param changesOnly
+	 *            <code>true</code> if only changes should be requested
+	 */
+	public void setChangesOnly(final boolean changesOnly) {
+		this.changesOnly = changesOnly;
+	}
+
+	/**
+	 * Specifies whether the agent should compress the dumped data. If the
+	 * agent does not confirm the request the dump is requested again over an
+	 * uncompressed connection.
+	 * 
+	 * @param compression
+	 *            <code>true</code> if compression should be requested
+	 */
+	public void setCompression(final boolean compression) {
+		this.compression = compression;
+	}
+
 	/**
 	 * Sets the number of retry attempts to connect to the target socket. This
 	 * allows to wait for a certain time until the target agent has initialized.
@@ -112,6 +149,42 @@ public class ExecDumpClient {
 	public ExecFileLoader dump(final InetAddress address, final int port)
 			throws IOException {
 		final ExecFileLoader loader = new ExecFileLoader();
+		dump(address, port, loader);
+		return loader;
+	}
+
+	/**
+	 * Requests a dump from the given end-point and adds the dumped data to the
+	 * given container. If only changes are requested without reset the
+	 * dumped classes replace their previous content in the container,
+	 * otherwise the dumped data is merged.
+	 * 
+	 * @param address
+	 *            host name or IP-Address to connect to
+	 * @param port
+	 *            port to connect to
+	 * @param loader
+	 *            container for the dumped data
+	 * @throws IOException
+	 *             in case the dump can not be requested
+	 */
+	public void dump(final InetAddress address, final int port,
+			final ExecFileLoader loader) throws IOException {
+		if (compression && dump(address, port, loader, true)) {
+			return;
+		}
+		dump(address, port, loader, false);
+	}
+
+	/**
+	 * Requests a dump over a new connection.
+	 * 
+	 * @return <code>false</code> if compression has been requested but was
+	 *         not confirmed by the agent
+	 */
+	private boolean dump(final InetAddress address, final int port,
+			final ExecFileLoader loader, final boolean compressed)
+			throws IOException {
 		final Socket socket = tryConnect(address, port);
 		try {
 			final RemoteControlWriter remoteWriter = new RemoteControlWriter(
@@ -119,16 +192,52 @@ public class ExecDumpClient {
 			final RemoteControlReader remoteReader = new RemoteControlReader(
 					socket.getInputStream());
 			remoteReader.setSessionInfoVisitor(loader.getSessionInfoStore());
-			remoteReader
-					.setExecutionDataVisitor(loader.getExecutionDataStore());
+			final ExecutionDataStore store = loader.getExecutionDataStore();
+			if (changesOnly && dump && !reset) {
+				remoteReader.setExecutionDataVisitor(replace(store));
+			} else {
+				remoteReader.setExecutionDataVisitor(store);
+			}
 
-			remoteWriter.visitDumpCommand(dump, reset);
+			if (compressed) {
+				remoteWriter.visitCompressionCommand();
+				if (!isConfirmed(remoteReader)) {
+					return false;
+				}
+			}
+			if (changesOnly) {
+				remoteWriter.visitDumpChangesCommand(clientId, dump, reset);
+			} else {
+				remoteWriter.visitDumpCommand(dump, reset);
+			}
 			remoteReader.read();
+			return true;
 
 		} finally {
 			socket.close();
 		}
-		return loader;
+	}
+
+	private static boolean isConfirmed(final RemoteControlReader reader) {
+		try {
+			return reader.read();
+		} catch (final IOException e) {
+			// Agents without compression support close the connection
+			return false;
+		}
+	}
+
+	private static IExecutionDataVisitor replace(
+			final ExecutionDataStore store) {
+		return new IExecutionDataVisitor() {
+			public void visitClassExecution(final ExecutionData data) {
+				final ExecutionData entry = store.get(data.getId());
+				if (entry != null) {
+					entry.reset();
+				}
+				store.put(data);
+			}
+		};
 	}
 
 	private Socket tryConnect(final InetAddress address, final int port)
@@ -19,11 +19,18 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataAlgebra;
 import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.internal.data.ByteBufferInputStream;
 
 /**
  * Convenience utility for loading *.exec files into a
@@ -32,7 +39,9 @@ import org.jacoco.core.data.SessionInfoStore;
 public class ExecFileLoader {
 
 	private final SessionInfoStore sessionInfos;
-	private final ExecutionDataStore executionData;
+	private ExecutionDataStore executionData;
+	private boolean compression;
+	private boolean sparseEncoding = true;
 
 	/**
 	 * New instance to combine session infos and execution data from multiple
@@ -43,6 +52,29 @@ public class ExecFileLoader {
 		executionData = new ExecutionDataStore();
 	}
 
+	/**
+	 * Specifies whether saved execution data should be compressed. Compressed
+	 * files can not be read by previous versions.
+	 * 
+	 * @param compression
+	 *            <code>true</code> if saved data should be compressed
+	 */
+	public void setCompression(final boolean compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Specifies whether probes of saved classes should be stored as list of
+	 * indices or run-lengths where this is smaller. Sparse encodings are
+	 * enabled by default.
+	 * 
+	 * @param sparseEncoding
+	 *            <code>true</code> if sparse encodings should be used
+	 */
+	public void setSparseEncoding(final boolean sparseEncoding) {
+		this.sparseEncoding = sparseEncoding;
+	}
+
 	/**
 	 * Reads all data from given input stream.
 	 * 
@@ -52,9 +84,12 @@ public class ExecFileLoader {
 	 *             in case of problems while reading from the stream
 	 */
 	public void load(final InputStream stream) throws IOException {
-		final ExecutionDataReader reader = new ExecutionDataReader(
-				new BufferedInputStream(stream));
-		reader.setExecutionDataVisitor(executionData);
+		read(new BufferedInputStream(stream));
+	}
+
+	private void read(final InputStream stream) throws IOException {
+		final ExecutionDataReader reader = new ExecutionDataReader(stream);
+		reader.setExecutionDataStore(executionData);
 		reader.setSessionInfoVisitor(sessionInfos);
 		reader.read();
 	}
@@ -68,6 +103,13 @@ public class ExecFileLoader {
 	 *             in case of problems while reading from the stream
 	 */
 	public void load(final File file) throws IOException {
+		if (ByteBufferInputStream.fits(file)) {
+			// The buffer is not kept to release its memory after loading:
+			final ByteBufferInputStream buffer = new ByteBufferInputStream();
+			buffer.load(file);
+			read(buffer);
+			return;
+		}
 		final InputStream stream = new FileInputStream(file);
 		try {
 			load(stream);
@@ -77,7 +119,52 @@ public class ExecFileLoader {
 	}
 
 	/**
-	 * Saves the current content into the given output stream.
+	 * Reads all data from the given files with the given number of threads.
+	 * The files are loaded concurrently into separate stores which are merged
+	 * in the order of the list.
+	 * 
+	 * @param files
+	 *            files to read data from
+	 * @param threads
+	 *            maximum number of threads to use
+	 * @throws IOException
+	 *             in case of problems while reading from one of the files,
+	 *             the message contains the path of the file
+	 */
+	public void load(final List<File> files, final int threads)
+			throws IOException {
+		new ParallelLoader(threads).load(files, sessionInfos, executionData);
+	}
+
+	/**
+	 * Replaces the execution data of this loader with the result of the given
+	 * set operation on the execution data of this and the given loader, e.g.
+	 * to keep only the probes which are not covered by a baseline. Session
+	 * infos are not modified.
+	 * 
+	 * @param operation
+	 *            set operation to apply
+	 * @param other
+	 *            loader with the second operand
+	 * @param threads
+	 *            maximum number of threads to use
+	 * @return result of the operation
+	 * @throws IllegalStateException
+	 *             if the loaders contain incompatible data for a class
+	 */
+	public ExecutionDataAlgebra.Result apply(
+			final ExecutionDataAlgebra.Operation operation,
+			final ExecFileLoader other, final int threads)
+			throws IllegalStateException {
+		final ExecutionDataAlgebra.Result result = new ExecutionDataAlgebra(
+				threads).apply(operation, executionData, other.executionData);
+		executionData = result.getStore();
+		return result;
+	}
+
+	/**
+	 * Saves the current content into the given output stream. Execution data
+	 * is written in ascending order of class ids.
 	 * 
 	 * @param stream
 	 *            stream to save content to
@@ -86,8 +173,13 @@ public class ExecFileLoader {
 	 */
 	public void save(final OutputStream stream) throws IOException {
 		final ExecutionDataWriter dataWriter = new ExecutionDataWriter(stream);
+		dataWriter.setCompression(compression);
+		dataWriter.setSparseEncoding(sparseEncoding);
 		sessionInfos.accept(dataWriter);
-		executionData.accept(dataWriter);
+		for (final ExecutionData data : sort(executionData.getContents())) {
+			dataWriter.visitClassExecution(data);
+		}
+		dataWriter.flush();
 	}
 
 	/**
@@ -137,4 +229,23 @@ public class ExecFileLoader {
 		return executionData;
 	}
 
+	/**
+	 * Sorts the given execution data by ascending class ids.
+	 * 
+	 * @param contents
+	 *            execution data to sort
+	 * @return new sorted array
+	 */
+	static ExecutionData[] sort(final Collection<ExecutionData> contents) {
+		final ExecutionData[] sorted = contents
+				.toArray(new ExecutionData[contents.size()]);
+		Arrays.sort(sorted, new Comparator<ExecutionData>() {
+			public int compare(final ExecutionData d1, final ExecutionData d2) {
+				return d1.getId() < d2.getId() ? -1 : d1.getId() == d2
+						.getId() ? 0 : 1;
+			}
+		});
+		return sorted;
+	}
+
 }
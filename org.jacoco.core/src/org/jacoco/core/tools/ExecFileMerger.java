@@ -0,0 +1,425 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.IndexedExecutionDataReader;
+import org.jacoco.core.data.SessionInfo;
+
+/**
+ * Merges execution data files with bounded memory. Execution data of files
+ * with a directory is accessed randomly and never loaded completely. Data of
+ * all other inputs is collected in memory up to a given number of classes
+ * and then written as a sorted run to a temporary file. On save all runs are
+ * merged by class id in a single pass. The result is the same as for
+ * {@link ExecFileLoader}, unless data with and without hit counters is merged
+ * for the same class.
+ */
+public class ExecFileMerger {
+
+	/** Default maximum number of classes kept in memory. */
+	public static final int DEFAULT_RUN_SIZE = 50000;
+
+	private final List<SessionInfo> sessionInfos;
+
+	private final List<IndexedExecutionDataReader> runs;
+
+	private final List<File> tempFiles;
+
+	private int runSize;
+
+	private boolean compression;
+
+	private ExecutionDataStore run;
+
+	private int runCount;
+
+	private boolean empty;
+
+	private final ISessionInfoVisitor sessionInfoVisitor = new ISessionInfoVisitor() {
+		public void visitSessionInfo(final SessionInfo info) {
+			sessionInfos.add(info);
+		}
+	};
+
+	private final IExecutionDataVisitor runVisitor = new IExecutionDataVisitor() {
+		public void visitClassExecution(final ExecutionData data) {
+			empty = false;
+			if (run.get(data.getId()) == null) {
+				runCount++;
+			}
+			run.put(data);
+			if (runCount >= runSize) {
+				try {
+					spill();
+				} catch (final IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+	};
+
+	private final ParallelLoader.IRunStore runStore = new ParallelLoader.IRunStore() {
+		public File write(final Collection<ExecutionData> contents)
+				throws IOException {
+			return writeRun(contents);
+		}
+
+		public void add(final File file) throws IOException {
+			empty = false;
+			addRun(file);
+		}
+	};
+
+	/**
+	 * New instance with the default run size.
+	 */
+	public ExecFileMerger() {
+		this.sessionInfos = new ArrayList<SessionInfo>();
+		this.runs = new ArrayList<IndexedExecutionDataReader>();
+		this.tempFiles = new ArrayList<File>();
+		this.runSize = DEFAULT_RUN_SIZE;
+		this.run = new ExecutionDataStore();
+		this.runCount = 0;
+		this.empty = true;
+	}
+
+	/**
+	 * Sets the maximum number of classes which are kept in memory before they
+	 * are written to a temporary file.
+	 * 
+	 * @param runSize
+	 *            maximum number of classes in memory
+	 */
+	public void setRunSize(final int runSize) {
+		this.runSize = runSize;
+	}
+
+	/**
+	 * Specifies whether saved execution data should be compressed. Compressed
+	 * files can not be read by previous versions.
+	 * 
+	 * @param compression
+	 *            <code>true</code> if saved data should be compressed
+	 */
+	public void setCompression(final boolean compression) {
+		this.compression = compression;
+	}
+
+	/**
+	 * Reads all data from given input stream.
+	 * 
+	 * @param stream
+	 *            Stream to read data from
+	 * @throws IOException
+	 *             in case of problems while reading from the stream
+	 */
+	public void load(final InputStream stream) throws IOException {
+		read(stream, runVisitor);
+	}
+
+	/**
+	 * Reads all data from given file. Files with a directory are accessed
+	 * randomly until this merger is closed.
+	 * 
+	 * @param file
+	 *            file to read data from
+	 * @throws IOException
+	 *             in case of problems while reading from the file
+	 */
+	public void load(final File file) throws IOException {
+		if (IndexedExecutionDataReader.hasDirectory(file)) {
+			final IndexedExecutionDataReader reader = new IndexedExecutionDataReader(
+					file);
+			spill();
+			runs.add(reader);
+			empty &= reader.getIds().length == 0;
+			for (final SessionInfo info : reader.getSessionInfos()) {
+				sessionInfos.add(info);
+			}
+		} else {
+			final InputStream stream = new FileInputStream(file);
+			try {
+				load(stream);
+			} finally {
+				stream.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads all data from the given files with the given number of threads.
+	 * Files without a directory are parsed concurrently, their content is
+	 * added in the order of the list. The threads share the run size, so at
+	 * most about twice the run size classes are kept in memory.
+	 * 
+	 * @param files
+	 *            files to read data from
+	 * @param threads
+	 *            maximum number of threads to use
+	 * @throws IOException
+	 *             in case of problems while reading from one of the files,
+	 *             the message contains the path of the file
+	 */
+	public void load(final List<File> files, final int threads)
+			throws IOException {
+		final ParallelLoader loader = new ParallelLoader(threads, runSize,
+				runStore);
+		final List<File> batch = new ArrayList<File>();
+		for (final File file : files) {
+			if (IndexedExecutionDataReader.hasDirectory(file)) {
+				load(loader, batch);
+				try {
+					load(file);
+				} catch (final IOException e) {
+					throw ParallelLoader.readError(file, e);
+				}
+			} else {
+				batch.add(file);
+			}
+		}
+		load(loader, batch);
+	}
+
+	private void load(final ParallelLoader loader, final List<File> batch)
+			throws IOException {
+		try {
+			loader.load(batch, sessionInfoVisitor, runVisitor);
+		} catch (final RuntimeException e) {
+			throw unwrap(e);
+		}
+		batch.clear();
+	}
+
+	private void read(final InputStream stream,
+			final IExecutionDataVisitor visitor) throws IOException {
+		final ExecutionDataReader reader = new ExecutionDataReader(
+				new BufferedInputStream(stream));
+		reader.setSessionInfoVisitor(sessionInfoVisitor);
+		reader.setExecutionDataVisitor(visitor);
+		try {
+			reader.read();
+		} catch (final RuntimeException e) {
+			throw unwrap(e);
+		}
+	}
+
+	private static IOException unwrap(final RuntimeException e) {
+		if (e.getCause() instanceof IOException) {
+			return (IOException) e.getCause();
+		}
+		throw e;
+	}
+
+	private void spill() throws IOException {
+		if (runCount == 0) {
+			return;
+		}
+		addRun(writeRun(run.getContents()));
+		run = new ExecutionDataStore();
+		runCount = 0;
+	}
+
+	private void addRun(final File file) throws IOException {
+		tempFiles.add(file);
+		runs.add(new IndexedExecutionDataReader(file));
+	}
+
+	private static File writeRun(final Collection<ExecutionData> contents)
+			throws IOException {
+		final File file = File.createTempFile("jacoco-merge", ".exec");
+		file.deleteOnExit();
+		final ExecutionDataWriter writer = new ExecutionDataWriter(
+				new BufferedOutputStream(new FileOutputStream(file)), true);
+		try {
+			for (final ExecutionData data : ExecFileLoader.sort(contents)) {
+				writer.visitClassExecution(data);
+			}
+		} finally {
+			writer.close();
+		}
+		return file;
+	}
+
+	/**
+	 * Checks whether any execution data has been loaded.
+	 * 
+	 * @return <code>true</code> if no execution data has been loaded
+	 */
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Saves the merged content into the given output stream. Execution data is
+	 * written in ascending order of class ids.
+	 * 
+	 * @param stream
+	 *            stream to save content to
+	 * @throws IOException
+	 *             in case of problems while reading runs or writing to the
+	 *             stream
+	 */
+	public void save(final OutputStream stream) throws IOException {
+		final ExecutionDataWriter writer = new ExecutionDataWriter(stream);
+		writer.setCompression(compression);
+		final List<SessionInfo> sorted = new ArrayList<SessionInfo>(
+				sessionInfos);
+		Collections.sort(sorted);
+		for (final SessionInfo info : sorted) {
+			writer.visitSessionInfo(info);
+		}
+		final PriorityQueue<Cursor> queue = new PriorityQueue<Cursor>();
+		for (int i = 0; i < runs.size(); i++) {
+			new Cursor(i, runs.get(i), null).enqueue(queue);
+		}
+		if (runCount > 0) {
+			new Cursor(runs.size(), null, ExecFileLoader.sort(run
+					.getContents())).enqueue(queue);
+		}
+		while (!queue.isEmpty()) {
+			Cursor cursor = queue.poll();
+			final ExecutionData data = cursor.current;
+			cursor.enqueue(queue);
+			while (!queue.isEmpty()
+					&& queue.peek().current.getId() == data.getId()) {
+				cursor = queue.poll();
+				data.merge(cursor.current);
+				cursor.enqueue(queue);
+			}
+			writer.visitClassExecution(data);
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Saves the merged content into the given file. Parent directories are
+	 * created as needed. Also a files system lock is acquired to avoid
+	 * concurrent write access.
+	 * 
+	 * @param file
+	 *            file to save content to
+	 * @param append
+	 *            <code>true</code> if the content should be appended, otherwise
+	 *            the file is overwritten.
+	 * @throws IOException
+	 *             in case of problems while writing to the stream
+	 */
+	public void save(final File file, final boolean append) throws IOException {
+		final File folder = file.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		final FileOutputStream fileStream = new FileOutputStream(file, append);
+		// Avoid concurrent writes from other processes:
+		fileStream.getChannel().lock();
+		final OutputStream bufferedStream = new BufferedOutputStream(fileStream);
+		try {
+			save(bufferedStream);
+		} finally {
+			bufferedStream.close();
+		}
+	}
+
+	/**
+	 * Releases all input files and deletes temporary files.
+	 * 
+	 * @throws IOException
+	 *             if a file can not be closed
+	 */
+	public void close() throws IOException {
+		for (final IndexedExecutionDataReader reader : runs) {
+			reader.close();
+		}
+		runs.clear();
+		for (final File file : tempFiles) {
+			file.delete();
+		}
+		tempFiles.clear();
+	}
+
+	/**
+	 * Position in a sorted run, either an indexed file or an array of execution
+	 * data. Cursors are ordered by the current class id and then by the order
+	 * in which the runs have been loaded.
+	 */
+	private static class Cursor implements Comparable<Cursor> {
+
+		private final int index;
+
+		private final IndexedExecutionDataReader reader;
+
+		private final long[] ids;
+
+		private final ExecutionData[] contents;
+
+		private int position;
+
+		ExecutionData current;
+
+		Cursor(final int index, final IndexedExecutionDataReader reader,
+				final ExecutionData[] contents) {
+			this.index = index;
+			this.reader = reader;
+			this.ids = reader == null ? null : reader.getIds();
+			this.contents = contents;
+			this.position = 0;
+		}
+
+		/**
+		 * Moves to the next class and adds this cursor to the given queue if
+		 * the run is not exhausted.
+		 */
+		void enqueue(final PriorityQueue<Cursor> queue) throws IOException {
+			if (reader != null) {
+				current = position < ids.length ? reader.get(ids[position++])
+						: null;
+			} else {
+				current = position < contents.length ? contents[position++]
+						: null;
+			}
+			if (current != null) {
+				queue.add(this);
+			}
+		}
+
+		public int compareTo(final Cursor other) {
+			final long id = current.getId();
+			final long otherId = other.current.getId();
+			if (id != otherId) {
+				return id < otherId ? -1 : 1;
+			}
+			return index - other.index;
+		}
+
+	}
+
+}
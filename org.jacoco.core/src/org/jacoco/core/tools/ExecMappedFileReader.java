@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.CHECKSUM_OFFSET;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.COUNT_OFFSET;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.DUMP_OFFSET;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.ENTRIES_OFFSET;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.LIMIT_OFFSET;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.MAGIC;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.SEQUENCE_OFFSET;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.SESSION_CAPACITY;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.SESSION_OFFSET;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.START_OFFSET;
+import static org.jacoco.core.runtime.MappedExecutionDataWriter.VERSION_OFFSET;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IncompatibleExecDataVersionException;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.runtime.MappedExecutionDataWriter;
+
+/**
+ * A reader for memory mapped execution data files which are written by agents
+ * with the output mode <code>mmap</code>. The file is mapped read-only, so the
+ * live coverage of a running VM can be read without interrupting it.
+ * 
+ * @see MappedExecutionDataWriter
+ */
+public class ExecMappedFileReader {
+
+	private int retryCount;
+
+	/**
+	 * New instance with the default <code>retryCount==100</code>.
+	 */
+	public ExecMappedFileReader() {
+		this.retryCount = 100;
+	}
+
+	/**
+	 * Sets the number of attempts to read a consistent snapshot if the content
+	 * is modified concurrently by the agent.
+	 * 
+	 * @param retryCount
+	 *            number of retries
+	 */
+	public void setRetryCount(final int retryCount) {
+		this.retryCount = retryCount;
+	}
+
+	/**
+	 * Reads a snapshot of the current content of the given file.
+	 * 
+	 * @param file
+	 *            memory mapped execution data file
+	 * @return container for the loaded data
+	 * @throws IOException
+	 *             if the file can not be read, has an invalid format or is
+	 *             permanently modified while reading
+	 */
+	public ExecFileLoader read(final File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			ByteBuffer buffer = map(raf);
+			checkHeader(buffer);
+			for (int i = 0;; i++) {
+				if (buffer.getInt(LIMIT_OFFSET) > buffer.capacity()) {
+					// The agent has extended the file after we mapped it:
+					buffer = map(raf);
+				}
+				final ExecFileLoader loader = new ExecFileLoader();
+				if (read(buffer, loader)) {
+					return loader;
+				}
+				if (i >= retryCount) {
+					throw new IOException(
+							"Content is permanently modified by the agent.");
+				}
+				Thread.yield();
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static ByteBuffer map(final RandomAccessFile raf)
+			throws IOException {
+		return raf.getChannel().map(MapMode.READ_ONLY, 0, raf.length());
+	}
+
+	private static void checkHeader(final ByteBuffer buffer)
+			throws IOException {
+		if (buffer.capacity() < ENTRIES_OFFSET
+				|| buffer.getInt(0) != MAGIC) {
+			throw new IOException("Invalid mapped execution data file.");
+		}
+		final char version = buffer.getChar(VERSION_OFFSET);
+		if (version != ExecutionDataWriter.FORMAT_VERSION) {
+			throw new IncompatibleExecDataVersionException(version);
+		}
+	}
+
+	private static boolean read(final ByteBuffer buffer,
+			final ExecFileLoader loader) throws IOException {
+		final int sequence = buffer.getInt(SEQUENCE_OFFSET);
+		if ((sequence & 1) != 0) {
+			return false;
+		}
+		final int limit = buffer.getInt(LIMIT_OFFSET);
+		if (limit < ENTRIES_OFFSET
+				|| limit > buffer.capacity()
+				|| buffer.getInt(CHECKSUM_OFFSET) != MappedExecutionDataWriter
+						.checksum(buffer)) {
+			return false;
+		}
+		final int sessionLength = buffer.getShort(SESSION_OFFSET) & 0xFFFF;
+		if (sessionLength > SESSION_CAPACITY) {
+			return false;
+		}
+		final SessionInfo info = new SessionInfo(readString(buffer,
+				SESSION_OFFSET), buffer.getLong(START_OFFSET),
+				buffer.getLong(DUMP_OFFSET));
+		final List<ExecutionData> contents = new ArrayList<ExecutionData>();
+		if (!readEntries(buffer, limit, contents)) {
+			return false;
+		}
+		// The entries are read directly from the mapped file, therefore they
+		// are only valid if the agent did not start an update meanwhile:
+		if (sequence != buffer.getInt(SEQUENCE_OFFSET)) {
+			return false;
+		}
+		loader.getSessionInfoStore().visitSessionInfo(info);
+		for (final ExecutionData data : contents) {
+			loader.getExecutionDataStore().put(data);
+		}
+		return true;
+	}
+
+	private static boolean readEntries(final ByteBuffer buffer,
+			final int limit, final List<ExecutionData> contents)
+			throws IOException {
+		final int count = buffer.getInt(COUNT_OFFSET);
+		int pos = ENTRIES_OFFSET;
+		for (int c = 0; c < count; c++) {
+			if (pos + 14 > limit) {
+				return false;
+			}
+			final long id = buffer.getLong(pos);
+			final int probeCount = buffer.getInt(pos + 8);
+			final int nameLength = buffer.getShort(pos + 12) & 0xFFFF;
+			final int bits = pos + 14 + nameLength;
+			if (probeCount < 0 || bits + (probeCount + 7L) / 8 > limit) {
+				return false;
+			}
+			final String name = readString(buffer, pos + 12);
+			final boolean[] probes = new boolean[probeCount];
+			for (int i = 0; i < probeCount; i++) {
+				probes[i] = (buffer.get(bits + i / 8) & (1 << (i % 8))) != 0;
+			}
+			pos = bits + (probeCount + 7) / 8;
+			contents.add(new ExecutionData(id, name, probes));
+		}
+		return true;
+	}
+
+	private static String readString(final ByteBuffer buffer,
+			final int offset) throws IOException {
+		final byte[] bytes = new byte[buffer.getShort(offset) & 0xFFFF];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = buffer.get(offset + 2 + i);
+		}
+		return new String(bytes, "UTF-8");
+	}
+
+}
@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.core.tools;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.ByteBufferInputStream;
+
+/**
+ * Loads execution data files concurrently. The files are split into
+ * contiguous chunks which are loaded into separate stores by a pool of
+ * threads. The content of the chunks is reported in the order of the files,
+ * so the result is the same as for loading the files one after another unless
+ * data with and without hit counters is mixed for the same class. At most two
+ * chunks per thread are kept in memory. Optionally the number of classes in
+ * memory is limited, chunks exceeding their share of the limit write their
+ * content to temporary files.
+ */
+class ParallelLoader {
+
+	/** Number of chunks per thread, allows to balance different file sizes. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	/**
+	 * Storage for sorted runs of execution data which do not fit into memory.
+	 */
+	interface IRunStore {
+
+		/**
+		 * Writes the given execution data to a new temporary file. This
+		 * method is called concurrently from the loading threads.
+		 * 
+		 * @param contents
+		 *            execution data to write
+		 * @return temporary file
+		 * @throws IOException
+		 *             if the file can not be written
+		 */
+		File write(Collection<ExecutionData> contents) throws IOException;
+
+		/**
+		 * Adds a temporary file written before. Files are added in the order
+		 * of the loaded files from the thread which calls the loader.
+		 * 
+		 * @param run
+		 *            temporary file
+		 * @throws IOException
+		 *             if the file can not be opened
+		 */
+		void add(File run) throws IOException;
+
+	}
+
+	private final int threads;
+
+	private final int limit;
+
+	private final IRunStore runStore;
+
+	/**
+	 * Creates a new loader which keeps all data in memory.
+	 * 
+	 * @param threads
+	 *            number of threads to use
+	 */
+	ParallelLoader(final int threads) {
+		this(threads, Integer.MAX_VALUE, null);
+	}
+
+	/**
+	 * Creates a new loader which keeps at most the given number of classes in
+	 * memory. Additional data is written to the given store.
+	 * 
+	 * @param threads
+	 *            number of threads to use
+	 * @param limit
+	 *            maximum number of classes of all chunks in memory
+	 * @param runStore
+	 *            storage for data exceeding the limit
+	 */
+	ParallelLoader(final int threads, final int limit,
+			final IRunStore runStore) {
+		this.threads = threads;
+		this.limit = limit;
+		this.runStore = runStore;
+	}
+
+	/**
+	 * Loads the given files and reports their content to the given visitors.
+	 * The visitors are only called from the current thread.
+	 * 
+	 * @param files
+	 *            files to load
+	 * @param sessionInfoVisitor
+	 *            visitor for all session infos
+	 * @param executionDataVisitor
+	 *            visitor for the merged execution data of every chunk
+	 * @throws IOException
+	 *             if one of the files can not be read, the message contains
+	 *             the path of the file
+	 */
+	void load(final List<File> files,
+			final ISessionInfoVisitor sessionInfoVisitor,
+			final IExecutionDataVisitor executionDataVisitor)
+			throws IOException {
+		if (threads <= 1 || files.size() <= 1) {
+			new Chunk(files, limit).call().accept(sessionInfoVisitor,
+					executionDataVisitor);
+			return;
+		}
+		final int chunkLimit = Math.max(1, limit / (2 * threads));
+		final int chunkCount = Math.min(files.size(), threads
+				* CHUNKS_PER_THREAD);
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactory() {
+					public Thread newThread(final Runnable r) {
+						final Thread thread = new Thread(r,
+								"jacoco-exec-loader");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		try {
+			final LinkedList<Future<Chunk>> pending = new LinkedList<Future<Chunk>>();
+			int next = 0;
+			while (next < chunkCount || !pending.isEmpty()) {
+				while (next < chunkCount && pending.size() < 2 * threads) {
+					final int from = next * files.size() / chunkCount;
+					final int to = ++next * files.size() / chunkCount;
+					pending.add(executor.submit(new Chunk(files.subList(from,
+							to), chunkLimit)));
+				}
+				get(pending.removeFirst()).accept(sessionInfoVisitor,
+						executionDataVisitor);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Creates an exception for a file which can not be read. The message
+	 * contains the path of the file.
+	 * 
+	 * @param file
+	 *            file which can not be read
+	 * @param cause
+	 *            original exception
+	 * @return exception to throw
+	 */
+	static IOException readError(final File file, final IOException cause) {
+		final IOException ex = new IOException(String.format(
+				"Unable to read execution data file %s", file));
+		ex.initCause(cause);
+		return ex;
+	}
+
+	private static Chunk get(final Future<Chunk> future) throws IOException {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Loading execution data interrupted.");
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw (Error) cause;
+		}
+	}
+
+	/**
+	 * Content of a sequence of files.
+	 */
+	private class Chunk implements Callable<Chunk>, ISessionInfoVisitor,
+			IExecutionDataVisitor {
+
+		private final List<File> files;
+
+		private final int chunkLimit;
+
+		private final List<SessionInfo> sessionInfos;
+
+		private final List<File> runs;
+
+		private ExecutionDataStore executionData;
+
+		private int count;
+
+		Chunk(final List<File> files, final int chunkLimit) {
+			this.files = files;
+			this.chunkLimit = chunkLimit;
+			this.sessionInfos = new ArrayList<SessionInfo>();
+			this.runs = new ArrayList<File>();
+			this.executionData = new ExecutionDataStore();
+		}
+
+		public Chunk call() throws IOException {
+			final ByteBufferInputStream buffer = new ByteBufferInputStream();
+			for (final File file : files) {
+				try {
+					load(file, buffer);
+				} catch (final IOException e) {
+					throw readError(file, e);
+				} catch (final RuntimeException e) {
+					if (e.getCause() instanceof IOException) {
+						throw readError(file, (IOException) e.getCause());
+					}
+					throw e;
+				}
+			}
+			return this;
+		}
+
+		private void load(final File file, final ByteBufferInputStream buffer)
+				throws IOException {
+			if (ByteBufferInputStream.fits(file)) {
+				buffer.load(file);
+				read(buffer);
+				return;
+			}
+			final InputStream stream = new BufferedInputStream(
+					new FileInputStream(file));
+			try {
+				read(stream);
+			} finally {
+				stream.close();
+			}
+		}
+
+		private void read(final InputStream stream) throws IOException {
+			final ExecutionDataReader reader = new ExecutionDataReader(stream);
+			reader.setSessionInfoVisitor(this);
+			if (runStore == null) {
+				reader.setExecutionDataStore(executionData);
+			} else {
+				// New classes need to be counted:
+				reader.setExecutionDataVisitor(this);
+			}
+			reader.read();
+		}
+
+		public void visitSessionInfo(final SessionInfo info) {
+			sessionInfos.add(info);
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			if (executionData.get(data.getId()) == null) {
+				count++;
+			}
+			executionData.put(data);
+			if (count >= chunkLimit) {
+				try {
+					runs.add(runStore.write(executionData.getContents()));
+				} catch (final IOException e) {
+					throw new RuntimeException(e);
+				}
+				executionData = new ExecutionDataStore();
+				count = 0;
+			}
+		}
+
+		void accept(final ISessionInfoVisitor sessionInfoVisitor,
+				final IExecutionDataVisitor executionDataVisitor)
+				throws IOException {
+			for (final File run : runs) {
+				runStore.add(run);
+			}
+			for (final SessionInfo info : sessionInfos) {
+				sessionInfoVisitor.visitSessionInfo(info);
+			}
+			for (final ExecutionData data : executionData.getContents()) {
+				executionDataVisitor.visitClassExecution(data);
+			}
+		}
+
+	}
+
+}
@@ -71,6 +71,7 @@ public class ReportStructureTestDriver {
 				CounterImpl.getInstance(1, 2), 2);
 		m.increment(CounterImpl.getInstance(4, 5), CounterImpl.COUNTER_0_0, 3);
 		m.incrementMethodCounter();
+		m.incrementHitCount(42);
 		methodCoverage = m;
 
 		final ClassCoverageImpl classCoverageImpl = new ClassCoverageImpl(
@@ -124,6 +124,10 @@ public class XMLFormatterTest {
 		assertPathMatches("1", "count(/report/counter[@type='CLASS'])");
 		assertPathMatches("0", "report/counter[@type='CLASS']/@missed");
 		assertPathMatches("1", "report/counter[@type='CLASS']/@covered");
+
+		assertPathMatches("42", "report/hits/@count");
+		assertPathMatches("42",
+				"/report/group/package/class/method/hits/@count");
 	}
 
 	@Test
@@ -39,6 +39,7 @@ import org.jacoco.report.internal.html.resources.Resources;
 import org.jacoco.report.internal.html.resources.Styles;
 import org.jacoco.report.internal.html.table.BarColumn;
 import org.jacoco.report.internal.html.table.CounterColumn;
+import org.jacoco.report.internal.html.table.HitsColumn;
 import org.jacoco.report.internal.html.table.LabelColumn;
 import org.jacoco.report.internal.html.table.PercentageColumn;
 import org.jacoco.report.internal.html.table.Table;
@@ -144,6 +145,7 @@ public class HTMLFormatter implements IHTMLReportContext {
 		addMissedTotalColumns(t, "Lines", CounterEntity.LINE);
 		addMissedTotalColumns(t, "Methods", CounterEntity.METHOD);
 		addMissedTotalColumns(t, "Classes", CounterEntity.CLASS);
+		t.add("Hits", Styles.CTR2, new HitsColumn(locale), false);
 		return t;
 	}
 
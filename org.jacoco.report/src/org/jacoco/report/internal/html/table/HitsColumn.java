@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2017 Mountainminds GmbH & Co. KG and Contributors
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *    
+ *******************************************************************************/
+package org.jacoco.report.internal.html.table;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.report.internal.ReportOutputFolder;
+import org.jacoco.report.internal.html.HTMLElement;
+import org.jacoco.report.internal.html.resources.Resources;
+
+/**
+ * Column that prints the total number of probe executions for each item and a
+ * summary in the footer. The column is only visible if execution data has been
+ * recorded with hit counters.
+ */
+public class HitsColumn implements IColumnRenderer {
+
+	private static final Comparator<ITableItem> COMPARATOR = new Comparator<ITableItem>() {
+		public int compare(final ITableItem i1, final ITableItem i2) {
+			final long h1 = i1.getNode().getHitCount();
+			final long h2 = i2.getNode().getHitCount();
+			return h1 < h2 ? 1 : (h1 == h2 ? 0 : -1);
+		}
+	};
+
+	private final NumberFormat integerFormat;
+
+	/**
+	 * Creates a new column.
+	 * 
+	 * @param locale
+	 *            locale for rendering numbers
+	 */
+	public HitsColumn(final Locale locale) {
+		this.integerFormat = DecimalFormat.getIntegerInstance(locale);
+	}
+
+	public boolean init(final List<? extends ITableItem> items,
+			final ICoverageNode total) {
+		for (final ITableItem i : items) {
+			if (i.getNode().getHitCount() > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public void footer(final HTMLElement td, final ICoverageNode total,
+			final Resources resources, final ReportOutputFolder base)
+			throws IOException {
+		cell(td, total);
+	}
+
+	public void item(final HTMLElement td, final ITableItem item,
+			final Resources resources, final ReportOutputFolder base)
+			throws IOException {
+		cell(td, item.getNode());
+	}
+
+	private void cell(final HTMLElement td, final ICoverageNode node)
+			throws IOException {
+		td.text(integerFormat.format(node.getHitCount()));
+	}
+
+	public Comparator<ITableItem> getComparator() {
+		return COMPARATOR;
+	}
+
+}
@@ -109,7 +109,8 @@ public final class XMLCoverageWriter {
 	}
 
 	/**
-	 * Writes all non-zero counters of the given node.
+	 * Writes all non-zero counters of the given node. If the node has recorded
+	 * hit counts they are written in an additional element.
 	 * 
 	 * @param node
 	 *            node to retrieve counters from
@@ -129,6 +130,11 @@ public final class XMLCoverageWriter {
 				counterNode.close();
 			}
 		}
+		if (node.getHitCount() > 0) {
+			final XMLElement hitsNode = parent.element("hits");
+			hitsNode.attr("count", node.getHitCount());
+			hitsNode.close();
+		}
 	}
 
 	private static void writeLines(final ISourceNode source,